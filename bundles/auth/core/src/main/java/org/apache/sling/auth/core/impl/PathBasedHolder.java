@@ -166,6 +166,10 @@ public abstract class PathBasedHolder implements Comparable<PathBasedHolder> {
      */
     public final int compareTo(PathBasedHolder other) {
 
+        if (this == other) {
+            return 0;
+        }
+
         // compare the path first, and return if not equal
         final int pathResult = other.path.compareTo(path);
         if (pathResult != 0) {
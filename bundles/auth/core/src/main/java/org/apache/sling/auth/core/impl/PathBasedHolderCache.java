@@ -19,125 +19,151 @@
 package org.apache.sling.auth.core.impl;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.servlet.http.HttpServletRequest;
 
+/**
+ * The <code>PathBasedHolderCache</code> keeps the {@link PathBasedHolder}
+ * instances by protocol and host.
+ * <p>
+ * Lookups for requests don't lock: they use an immutable {@link PathTrie}
+ * per protocol and host, which is replaced whenever holders are added or
+ * removed.
+ */
 public class PathBasedHolderCache<Type extends PathBasedHolder> {
 
+    /** The registered holders by protocol and host, guarded by this */
     private final Map<String, Map<String, SortedSet<Type>>> cache = new HashMap<String, Map<String, SortedSet<Type>>>();
 
-    /** Read/write lock to synchronize the cache access. */
-    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+    /** The immutable tries by protocol and host used for lookups */
+    private volatile Map<String, Map<String, PathTrie<Type>>> tries = Collections.emptyMap();
 
-    public void clear() {
-        this.rwLock.writeLock().lock();
-        try {
-            cache.clear();
-        } finally {
-            this.rwLock.writeLock().unlock();
-        }
+    public synchronized void clear() {
+        cache.clear();
+        tries = Collections.emptyMap();
     }
 
-    public void addHolder(final Type holder) {
-        this.rwLock.writeLock().lock();
-        try {
-
-            Map<String, SortedSet<Type>> byHostMap = cache.get(holder.protocol);
-            if (byHostMap == null) {
-                byHostMap = new HashMap<String, SortedSet<Type>>();
-                cache.put(holder.protocol, byHostMap);
-            }
-
-            final SortedSet<Type> byPathSet = new TreeSet<Type>();
-
-            // preset with current list
-            final SortedSet<Type> currentPathSet = byHostMap.get(holder.host);
-            if (currentPathSet != null) {
-                byPathSet.addAll(currentPathSet);
-            }
-
-            // add the new holder
-            byPathSet.add(holder);
+    public synchronized void addHolder(final Type holder) {
+        Map<String, SortedSet<Type>> byHostMap = cache.get(holder.protocol);
+        if (byHostMap == null) {
+            byHostMap = new HashMap<String, SortedSet<Type>>();
+            cache.put(holder.protocol, byHostMap);
+        }
 
-            // replace old set with new set
+        SortedSet<Type> byPathSet = byHostMap.get(holder.host);
+        if (byPathSet == null) {
+            byPathSet = new TreeSet<Type>();
             byHostMap.put(holder.host, byPathSet);
-        } finally {
-            this.rwLock.writeLock().unlock();
+        }
+
+        if (byPathSet.add(holder)) {
+            updateTrie(holder.protocol, holder.host, byPathSet);
         }
     }
 
-    public void removeHolder(final Type holder) {
-        this.rwLock.writeLock().lock();
-        try {
-            final Map<String, SortedSet<Type>> byHostMap = cache.get(holder.protocol);
-            if (byHostMap != null) {
-                final SortedSet<Type> byPathSet = byHostMap.get(holder.host);
-                if (byPathSet != null) {
-
-                    // create a new set without the removed holder
-                    final SortedSet<Type> set = new TreeSet<Type>();
-                    set.addAll(byPathSet);
-                    set.remove(holder);
-
-                    // replace the old set with the new one (or remove if empty)
-                    if (set.isEmpty()) {
-                        byHostMap.remove(holder.host);
-                    } else {
-                        byHostMap.put(holder.host, set);
+    public synchronized void removeHolder(final Type holder) {
+        final Map<String, SortedSet<Type>> byHostMap = cache.get(holder.protocol);
+        if (byHostMap != null) {
+            final SortedSet<Type> byPathSet = byHostMap.get(holder.host);
+            if (byPathSet != null && byPathSet.remove(holder)) {
+                if (byPathSet.isEmpty()) {
+                    byHostMap.remove(holder.host);
+                    if (byHostMap.isEmpty()) {
+                        cache.remove(holder.protocol);
                     }
                 }
+                updateTrie(holder.protocol, holder.host, byPathSet);
             }
-        } finally {
-            this.rwLock.writeLock().unlock();
         }
     }
 
-    public Collection<Type>[] findApplicableHolder(final HttpServletRequest request) {
-        this.rwLock.readLock().lock();
-        try {
-            final String hostname = request.getServerName()
-                  + (request.getServerPort() != 80 && request.getServerPort() != 443
-                    ? ":" + request.getServerPort()
-                    : "");
-
-            @SuppressWarnings("unchecked")
-            final SortedSet<Type>[] result = new SortedSet[4];
-
-            final Map<String, SortedSet<Type>> byHostMap = cache.get(request.getScheme());
-            if ( byHostMap != null ) {
-                result[0] = byHostMap.get(hostname);
-                result[1] = byHostMap.get("");
-            }
-            final Map<String, SortedSet<Type>> defaultByHostMap = cache.get("");
-            if ( defaultByHostMap != null ) {
-                result[2] = defaultByHostMap.get(hostname);
-                result[3] = defaultByHostMap.get("");
-            }
-            return result;
-        } finally {
-            this.rwLock.readLock().unlock();
+    /**
+     * Returns the holders applicable to the request whose path is a prefix
+     * of the given path in the order in which they should be asked: holders
+     * registered for the request's protocol and host first, then those for
+     * the protocol, the host and finally those registered without protocol
+     * and host. Within each of these groups holders with longer paths come
+     * first.
+     * <p>
+     * The returned list must not be modified.
+     */
+    public List<Type> findApplicableHolders(final HttpServletRequest request, final String path) {
+        final Map<String, Map<String, PathTrie<Type>>> tries = this.tries;
+        final String hostname = request.getServerName()
+              + (request.getServerPort() != 80 && request.getServerPort() != 443
+                ? ":" + request.getServerPort()
+                : "");
+
+        List<Type> result = Collections.emptyList();
+        final Map<String, PathTrie<Type>> byHostMap = tries.get(request.getScheme());
+        if ( byHostMap != null ) {
+            result = append(result, byHostMap.get(hostname), path);
+            result = append(result, byHostMap.get(""), path);
+        }
+        final Map<String, PathTrie<Type>> defaultByHostMap = tries.get("");
+        if ( defaultByHostMap != null ) {
+            result = append(result, defaultByHostMap.get(hostname), path);
+            result = append(result, defaultByHostMap.get(""), path);
         }
+        return result;
     }
 
-    public List<Type> getHolders() {
-        this.rwLock.readLock().lock();
-        try {
-            final List<Type> result = new ArrayList<Type>();
-            for (Map<String, SortedSet<Type>> byHostEntry : cache.values()) {
-                for (SortedSet<Type> holderSet : byHostEntry.values()) {
-                    result.addAll(holderSet);
-                }
+    public synchronized List<Type> getHolders() {
+        final List<Type> result = new ArrayList<Type>();
+        for (Map<String, SortedSet<Type>> byHostEntry : cache.values()) {
+            for (SortedSet<Type> holderSet : byHostEntry.values()) {
+                result.addAll(holderSet);
             }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the trie of the given protocol and host with a trie of the
+     * holders, or removes it if there are no holders left. Must be called
+     * while holding the lock of this instance.
+     */
+    private void updateTrie(final String protocol, final String host, final SortedSet<Type> holders) {
+        final Map<String, Map<String, PathTrie<Type>>> newTries = new HashMap<String, Map<String, PathTrie<Type>>>(this.tries);
+        final Map<String, PathTrie<Type>> current = newTries.get(protocol);
+        final Map<String, PathTrie<Type>> byHostMap = current == null
+                ? new HashMap<String, PathTrie<Type>>()
+                : new HashMap<String, PathTrie<Type>>(current);
+
+        if (holders.isEmpty()) {
+            byHostMap.remove(host);
+        } else {
+            byHostMap.put(host, new PathTrie<Type>(holders));
+        }
+
+        if (byHostMap.isEmpty()) {
+            newTries.remove(protocol);
+        } else {
+            newTries.put(protocol, byHostMap);
+        }
+        this.tries = newTries;
+    }
+
+    private static <Type extends PathBasedHolder> List<Type> append(final List<Type> result,
+            final PathTrie<Type> trie, final String path) {
+        if (trie == null) {
+            return result;
+        }
+        final List<Type> holders = trie.getHolders(path);
+        if (holders.isEmpty()) {
             return result;
-        } finally {
-            this.rwLock.readLock().unlock();
+        } else if (result.isEmpty()) {
+            return holders;
         }
+        final List<Type> merged = new ArrayList<Type>(result.size() + holders.size());
+        merged.addAll(result);
+        merged.addAll(holders);
+        return merged;
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.auth.core.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The <code>PathTrie</code> is an immutable character trie of the paths of a
+ * set of {@link PathBasedHolder} instances, which finds the holders whose
+ * path is a prefix of a request path by walking the request path once.
+ * <p>
+ * Every node of the trie holds the list of all holders whose path is a
+ * prefix of the node's path, ordered from the longest path to the shortest
+ * and in the order of the original set for equal paths. This is the same
+ * order in which the holders of a sorted set of holders apply to a request,
+ * so a lookup just returns the list of the deepest node reached.
+ */
+final class PathTrie<Type extends PathBasedHolder> {
+
+    private final Node<Type> root;
+
+    /**
+     * Creates the trie of the given holders, which are expected to be
+     * iterated in their natural order.
+     */
+    PathTrie(final Collection<Type> holders) {
+        final Builder<Type> builder = new Builder<Type>();
+        for (final Type holder : holders) {
+            builder.add(holder);
+        }
+        this.root = builder.build(Collections.<Type> emptyList());
+    }
+
+    /**
+     * Returns the holders whose path is a prefix of the given path, the
+     * holder with the longest path first. The returned list is shared and
+     * must not be modified.
+     */
+    List<Type> getHolders(final String path) {
+        Node<Type> node = root;
+        for (int i = 0; i < path.length(); i++) {
+            final Node<Type> child = node.getChild(path.charAt(i));
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node.holders;
+    }
+
+    private static final class Node<Type> {
+
+        private final char[] keys;
+
+        private final Node<Type>[] children;
+
+        final List<Type> holders;
+
+        Node(final char[] keys, final Node<Type>[] children, final List<Type> holders) {
+            this.keys = keys;
+            this.children = children;
+            this.holders = holders;
+        }
+
+        Node<Type> getChild(final char c) {
+            final int idx = Arrays.binarySearch(keys, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+    }
+
+    /**
+     * Mutable node used while setting up the trie.
+     */
+    private static final class Builder<Type extends PathBasedHolder> {
+
+        private final Map<Character, Builder<Type>> children = new TreeMap<Character, Builder<Type>>();
+
+        private final List<Type> holders = new ArrayList<Type>();
+
+        void add(final Type holder) {
+            Builder<Type> builder = this;
+            for (int i = 0; i < holder.path.length(); i++) {
+                final Character c = holder.path.charAt(i);
+                Builder<Type> child = builder.children.get(c);
+                if (child == null) {
+                    child = new Builder<Type>();
+                    builder.children.put(c, child);
+                }
+                builder = child;
+            }
+            builder.holders.add(holder);
+        }
+
+        /**
+         * Creates the node prepending the holders of this node to the
+         * holders of the parent path.
+         */
+        @SuppressWarnings("unchecked")
+        Node<Type> build(final List<Type> inherited) {
+            final List<Type> list;
+            if (holders.isEmpty()) {
+                list = inherited;
+            } else {
+                final List<Type> all = new ArrayList<Type>(holders.size() + inherited.size());
+                all.addAll(holders);
+                all.addAll(inherited);
+                list = Collections.unmodifiableList(all);
+            }
+
+            final char[] keys = new char[children.size()];
+            final Node<Type>[] nodes = new Node[children.size()];
+            int i = 0;
+            for (final Map.Entry<Character, Builder<Type>> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().build(list);
+                i++;
+            }
+            return new Node<Type>(keys, nodes, list);
+        }
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.auth.core.impl;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.auth.core.spi.AuthenticationInfo;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>ResolverCache</code> keeps logged in resource resolvers for
+ * recently seen credentials to prevent a full login for every request of a
+ * client sending the same credentials over and over again.
+ * <p>
+ * The cache keeps <i>master</i> resolvers per credentials. A request
+ * borrows the JCR session of an idle master: it gets a new resolver for that
+ * session, which does not log in again. The session is returned with
+ * {@link #release(ResourceResolver)} once the request's resolver has been
+ * closed, so a session is never used by two requests at the same time. If a
+ * resolver is never released, its master is closed once the resolver has been
+ * garbage collected. If all masters are in use, a new one is logged in and
+ * kept as well. A request
+ * with new credentials therefore logs in once, a request with cached
+ * credentials does not log in at all.
+ * <p>
+ * Credentials are only considered if all values of the
+ * {@link AuthenticationInfo} are plain values, such that two
+ * authentication infos can reliably be compared. The credentials are
+ * not kept, the cache is keyed by a digest of them.
+ * <p>
+ * Entries expire after the configured time to live and are removed when the
+ * user logs out or when the cache receives an event for a change in the
+ * user and group tree, since such a change may affect the privileges of
+ * any cached resolver.
+ */
+class ResolverCache implements EventHandler {
+
+    /** default log */
+    private final Logger log = LoggerFactory.getLogger(ResolverCache.class);
+
+    /**
+     * The {@link AuthenticationInfo} properties for which no resolver is ever
+     * cached since they cause side effects on login.
+     */
+    private static final String[] UNCACHEABLE_PROPERTIES = {
+        ResourceResolverFactory.USER_IMPERSONATION, "user.newpassword", "user.jcr.workspace" };
+
+    /** JcrResourceConstants.AUTHENTICATION_INFO_CREDENTIALS */
+    private static final String CREDENTIALS = "user.jcr.credentials";
+
+    /** JcrResourceConstants.AUTHENTICATION_INFO_SESSION */
+    private static final String SESSION = "user.jcr.session";
+
+    /** The maximum number of idle masters kept per credentials. */
+    static final int MAX_IDLE_MASTERS = 4;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /**
+     * The masters lent to requests, by the resolver of the request. The
+     * resolvers are weakly referenced, such that a resolver which is never
+     * released does not keep its master open forever.
+     */
+    private final Map<LeaseKey, Lease> leases = new ConcurrentHashMap<LeaseKey, Lease>();
+
+    /** The lent resolvers which have been collected without being released. */
+    private final ReferenceQueue<ResourceResolver> collectedResolvers = new ReferenceQueue<ResourceResolver>();
+
+    /**
+     * Incremented whenever entries are invalidated, such that a resolver
+     * logged in before the invalidation is not cached afterwards.
+     */
+    private long generation;
+
+    private volatile int maxSize;
+
+    private volatile long timeToLive;
+
+    /**
+     * Sets the maximum number of cached resolvers and their time to live in
+     * milliseconds and removes all currently cached resolvers. A maximum size
+     * of zero or less disables the cache.
+     */
+    void configure(final int maxSize, final long timeToLive) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        clear();
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0 && timeToLive > 0;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns a resource resolver for the given authentication info, either
+     * using the session of a cached master resolver for the same credentials
+     * or a newly logged in resolver. The caller is responsible for closing
+     * the returned resolver and calling {@link #release(ResourceResolver)}
+     * afterwards.
+     *
+     * @throws LoginException If the credentials are not valid
+     */
+    ResourceResolver getResourceResolver(final ResourceResolverFactory factory,
+            final AuthenticationInfo authInfo) throws LoginException {
+        final String key = isEnabled() ? getKey(authInfo) : null;
+        if (key == null) {
+            return factory.getResourceResolver(authInfo);
+        }
+
+        final long now = System.currentTimeMillis();
+        Entry entry;
+        final long gen;
+        synchronized (entries) {
+            entry = entries.get(key);
+            gen = generation;
+        }
+
+        if (entry != null && entry.expires <= now) {
+            remove(key, entry);
+            entry = null;
+        }
+        if (entry != null) {
+            final ResourceResolver master = entry.borrow();
+            if (master != null) {
+                final ResourceResolver resolver = lend(factory, authInfo, entry, master);
+                if (resolver != null) {
+                    log.debug("getResourceResolver: Using cached session for user {}", entry.userId);
+                    return resolver;
+                }
+                master.close();
+            }
+        }
+
+        // all masters are in use or there are none yet: log in a new one
+        final ResourceResolver master = factory.getResourceResolver(authInfo);
+        final boolean newEntry = entry == null;
+        if (newEntry) {
+            entry = new Entry(master.getUserID(), now + timeToLive);
+        }
+        final ResourceResolver resolver = lend(factory, authInfo, entry, master);
+        if (resolver == null) {
+            // no session to share, just use the master
+            return master;
+        }
+        if (newEntry) {
+            put(key, entry, gen);
+        }
+        return resolver;
+    }
+
+    /**
+     * Returns the master whose session the given resolver used to its
+     * cache entry. Must be called after the resolver has been closed, does
+     * nothing if the resolver did not use a cached session.
+     */
+    void release(final ResourceResolver resolver) {
+        expungeLeases();
+        final Lease lease = leases.remove(new LeaseKey(resolver, null));
+        if (lease != null) {
+            lease.entry.giveBack(lease.master, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns a new resolver using the session of the master, or
+     * <code>null</code> if the session cannot be used.
+     */
+    private ResourceResolver lend(final ResourceResolverFactory factory, final AuthenticationInfo authInfo,
+            final Entry entry, final ResourceResolver master) {
+        final Session session = master.adaptTo(Session.class);
+        if (session == null) {
+            return null;
+        }
+        try {
+            // see the latest state and drop anything left by the previous request
+            session.refresh(false);
+            final Map<String, Object> sessionInfo = new HashMap<String, Object>(authInfo);
+            sessionInfo.put(SESSION, session);
+            final ResourceResolver resolver = factory.getResourceResolver(sessionInfo);
+            expungeLeases();
+            leases.put(new LeaseKey(resolver, collectedResolvers), new Lease(entry, master));
+            return resolver;
+        } catch (final RepositoryException re) {
+            log.debug("lend: Cannot refresh cached session", re);
+        } catch (final LoginException le) {
+            log.debug("lend: Cannot create resolver for cached session", le);
+        }
+        return null;
+    }
+
+    /**
+     * Closes the masters of the lent resolvers which have been garbage
+     * collected without being released. Their sessions are not given back
+     * as the state they have been left in is unknown.
+     */
+    private void expungeLeases() {
+        Reference<? extends ResourceResolver> ref;
+        while ((ref = collectedResolvers.poll()) != null) {
+            final Lease lease = leases.remove(ref);
+            if (lease != null) {
+                log.debug("expungeLeases: Closing cached session of user {} never released", lease.entry.userId);
+                lease.master.close();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached resolvers of the given user.
+     */
+    void invalidate(final String userId) {
+        if (userId == null) {
+            return;
+        }
+        final List<Entry> removed = new ArrayList<Entry>();
+        synchronized (entries) {
+            generation++;
+            final Iterator<Entry> iter = entries.values().iterator();
+            while (iter.hasNext()) {
+                final Entry entry = iter.next();
+                if (userId.equals(entry.userId)) {
+                    iter.remove();
+                    removed.add(entry);
+                }
+            }
+        }
+        close(removed);
+    }
+
+    /**
+     * Removes all cached resolvers.
+     */
+    void clear() {
+        final List<Entry> removed;
+        synchronized (entries) {
+            generation++;
+            removed = new ArrayList<Entry>(entries.values());
+            entries.clear();
+        }
+        close(removed);
+    }
+
+    /**
+     * Clears the cache on any change in the user and group tree.
+     */
+    public void handleEvent(final Event event) {
+        if (size() > 0) {
+            log.debug("handleEvent: Clearing cached resolvers after change of {}", event.getProperty("path"));
+            clear();
+        }
+    }
+
+    private void put(final String key, final Entry entry, final long gen) {
+        final List<Entry> removed = new ArrayList<Entry>();
+        synchronized (entries) {
+            if (gen != generation) {
+                removed.add(entry);
+            } else {
+                final Entry old = entries.put(key, entry);
+                if (old != null) {
+                    removed.add(old);
+                }
+                final Iterator<Entry> iter = entries.values().iterator();
+                while (entries.size() > maxSize && iter.hasNext()) {
+                    removed.add(iter.next());
+                    iter.remove();
+                }
+            }
+        }
+        close(removed);
+    }
+
+    private void remove(final String key, final Entry entry) {
+        synchronized (entries) {
+            if (entries.get(key) == entry) {
+                entries.remove(key);
+            }
+        }
+        entry.close();
+    }
+
+    private void close(final List<Entry> removed) {
+        for (final Entry entry : removed) {
+            entry.close();
+        }
+    }
+
+    /**
+     * Returns the cache key for the authentication info or <code>null</code>
+     * if no resolver may be cached for it.
+     */
+    static String getKey(final AuthenticationInfo authInfo) {
+        if (authInfo.getUser() == null && !authInfo.containsKey(CREDENTIALS)) {
+            // anonymous
+            return null;
+        }
+        for (final String name : UNCACHEABLE_PROPERTIES) {
+            if (authInfo.containsKey(name)) {
+                return null;
+            }
+        }
+
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (final Map.Entry<String, Object> entry : new TreeMap<String, Object>(authInfo).entrySet()) {
+                final Object value = entry.getValue();
+                update(digest, entry.getKey());
+                if (value instanceof String || value instanceof Boolean || value instanceof Number) {
+                    update(digest, value.toString());
+                } else if (value instanceof char[]) {
+                    update(digest, new String((char[]) value));
+                } else if (value instanceof SimpleCredentials) {
+                    final SimpleCredentials creds = (SimpleCredentials) value;
+                    if (creds.getAttributeNames().length > 0) {
+                        return null;
+                    }
+                    update(digest, creds.getUserID());
+                    update(digest, new String(creds.getPassword()));
+                } else {
+                    // credentials we cannot compare
+                    return null;
+                }
+            }
+            return new String(Hex.encodeHex(digest.digest()));
+        } catch (final NoSuchAlgorithmException nsae) {
+            return null;
+        } catch (final UnsupportedEncodingException uee) {
+            return null;
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value)
+            throws UnsupportedEncodingException {
+        digest.update(String.valueOf(value).getBytes("UTF-8"));
+        digest.update((byte) 0);
+    }
+
+    private static final class Entry {
+
+        final String userId;
+
+        final long expires;
+
+        /** The masters not lent to a request, most recently used first. */
+        private final LinkedList<ResourceResolver> idle = new LinkedList<ResourceResolver>();
+
+        private boolean closed;
+
+        Entry(final String userId, final long expires) {
+            this.userId = userId;
+            this.expires = expires;
+        }
+
+        /**
+         * Returns an idle master or <code>null</code> if there is none.
+         */
+        ResourceResolver borrow() {
+            final List<ResourceResolver> dead = new ArrayList<ResourceResolver>();
+            try {
+                synchronized (this) {
+                    while (!closed && !idle.isEmpty()) {
+                        final ResourceResolver master = idle.removeFirst();
+                        if (master.isLive()) {
+                            return master;
+                        }
+                        dead.add(master);
+                    }
+                    return null;
+                }
+            } finally {
+                close(dead);
+            }
+        }
+
+        /**
+         * Keeps the master for the next request, unless the entry has been
+         * closed or has expired or enough masters are idle.
+         */
+        void giveBack(final ResourceResolver master, final long now) {
+            synchronized (this) {
+                if (!closed && expires > now && idle.size() < MAX_IDLE_MASTERS) {
+                    idle.addFirst(master);
+                    return;
+                }
+            }
+            master.close();
+        }
+
+        /**
+         * Closes the idle masters. Masters lent to requests are closed when
+         * they are given back.
+         */
+        void close() {
+            final List<ResourceResolver> masters;
+            synchronized (this) {
+                closed = true;
+                masters = new ArrayList<ResourceResolver>(idle);
+                idle.clear();
+            }
+            close(masters);
+        }
+
+        private static void close(final List<ResourceResolver> masters) {
+            for (final ResourceResolver master : masters) {
+                master.close();
+            }
+        }
+    }
+
+    private static final class Lease {
+
+        final Entry entry;
+
+        final ResourceResolver master;
+
+        Lease(final Entry entry, final ResourceResolver master) {
+            this.entry = entry;
+            this.master = master;
+        }
+    }
+
+    /**
+     * Weak reference to a lent resolver, comparing the resolvers by identity.
+     */
+    private static final class LeaseKey extends WeakReference<ResourceResolver> {
+
+        private final int hashCode;
+
+        LeaseKey(final ResourceResolver resolver, final ReferenceQueue<ResourceResolver> queue) {
+            super(resolver, queue);
+            this.hashCode = System.identityHashCode(resolver);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LeaseKey)) {
+                return false;
+            }
+            final ResourceResolver resolver = get();
+            return resolver != null && resolver == ((LeaseKey) obj).get();
+        }
+    }
+}
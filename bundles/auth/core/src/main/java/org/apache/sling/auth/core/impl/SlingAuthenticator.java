@@ -20,7 +20,6 @@ package org.apache.sling.auth.core.impl;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -75,6 +74,8 @@ import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventAdmin;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
 import org.osgi.service.http.HttpContext;
 import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
@@ -192,6 +193,36 @@ public class SlingAuthenticator implements Authenticator,
     @Property(value = DEFAULT_AUTH_URI_SUFFIX, unbounded = PropertyUnbounded.ARRAY)
     public static final String PAR_AUTH_URI_SUFFIX = "auth.uri.suffix";
 
+    /** The default size of the resolver cache: disabled */
+    private static final int DEFAULT_RESOLVER_CACHE_SIZE = 0;
+
+    /**
+     * The name of the configuration property setting the maximum number of
+     * logged in resource resolvers cached for repeatedly sent credentials.
+     */
+    @Property(intValue = DEFAULT_RESOLVER_CACHE_SIZE)
+    public static final String PAR_RESOLVER_CACHE_SIZE = "auth.resolver.cache.size";
+
+    /** The default time to live of cached resolvers in seconds */
+    private static final long DEFAULT_RESOLVER_CACHE_TTL = 60;
+
+    /**
+     * The name of the configuration property setting the number of seconds
+     * a cached resource resolver may be used.
+     */
+    @Property(longValue = DEFAULT_RESOLVER_CACHE_TTL)
+    public static final String PAR_RESOLVER_CACHE_TTL = "auth.resolver.cache.ttl";
+
+    /** The default paths of the user and group tree */
+    private static final String DEFAULT_RESOLVER_CACHE_INVALIDATION_PATH = "/home";
+
+    /**
+     * The name of the configuration property listing the paths below which
+     * any resource change clears the resolver cache.
+     */
+    @Property(value = DEFAULT_RESOLVER_CACHE_INVALIDATION_PATH, unbounded = PropertyUnbounded.ARRAY)
+    public static final String PAR_RESOLVER_CACHE_INVALIDATION_PATHS = "auth.resolver.cache.invalidation.paths";
+
     /**
      * The name of the {@link AuthenticationInfo} property providing the option
      * {@link org.apache.sling.auth.core.spi.AuthenticationFeedbackHandler}
@@ -242,6 +273,15 @@ public class SlingAuthenticator implements Authenticator,
      */
     private char[] anonPassword;
 
+    /** Cache of logged in resolvers, disabled by default */
+    private final ResolverCache resolverCache = new ResolverCache();
+
+    /** The paths below which resource changes clear the resolver cache */
+    private String[] resolverCacheInvalidationPaths;
+
+    /** Event handler service registration of the resolver cache */
+    private ServiceRegistration resolverCacheEventHandler;
+
     /** HTTP Basic authentication handler */
     private HttpBasicAuthenticationHandler httpBasicHandler;
 
@@ -306,6 +346,10 @@ public class SlingAuthenticator implements Authenticator,
             bundleContext, authHandlerCache);
         authInfoPostProcessorTracker = new ServiceTracker(bundleContext, AuthenticationInfoPostProcessor.SERVICE_NAME, null);
         authInfoPostProcessorTracker.open();
+
+        resolverCacheEventHandler = bundleContext.registerService(
+            EventHandler.class.getName(), resolverCache,
+            getResolverCacheEventHandlerProperties());
     }
 
     @Modified
@@ -388,11 +432,51 @@ public class SlingAuthenticator implements Authenticator,
             final String realm = OsgiUtil.toString(properties.get(PAR_REALM_NAME), DEFAULT_REALM);
             httpBasicHandler = new HttpBasicAuthenticationHandler(realm, HTTP_AUTH_ENABLED.equals(http));
         }
+
+        final int cacheSize = OsgiUtil.toInteger(properties.get(PAR_RESOLVER_CACHE_SIZE), DEFAULT_RESOLVER_CACHE_SIZE);
+        final long cacheTtl = OsgiUtil.toLong(properties.get(PAR_RESOLVER_CACHE_TTL), DEFAULT_RESOLVER_CACHE_TTL);
+        resolverCache.configure(cacheSize, cacheTtl * 1000L);
+        resolverCacheInvalidationPaths = OsgiUtil.toStringArray(properties.get(PAR_RESOLVER_CACHE_INVALIDATION_PATHS),
+            new String[] { DEFAULT_RESOLVER_CACHE_INVALIDATION_PATH });
+        if (resolverCacheEventHandler != null) {
+            resolverCacheEventHandler.setProperties(getResolverCacheEventHandlerProperties());
+        }
+        if (resolverCache.isEnabled()) {
+            log.info("modified: Caching up to {} resolvers for {} seconds", cacheSize, cacheTtl);
+        }
+    }
+
+    /**
+     * Returns the properties registering the resolver cache for resource
+     * change events below the configured invalidation paths.
+     */
+    private Dictionary<String, Object> getResolverCacheEventHandlerProperties() {
+        final StringBuilder filter = new StringBuilder("(|");
+        for (final String path : resolverCacheInvalidationPaths) {
+            if (path != null && path.length() > 0) {
+                filter.append("(path=").append(path).append(")(path=").append(path).append("/*)");
+            }
+        }
+        filter.append(")");
+
+        final Hashtable<String, Object> props = new Hashtable<String, Object>();
+        props.put(Constants.SERVICE_DESCRIPTION, "Sling Request Authenticator Resolver Cache");
+        props.put(Constants.SERVICE_VENDOR, "The Apache Software Foundation");
+        props.put(EventConstants.EVENT_TOPIC, new String[] { SlingConstants.TOPIC_RESOURCE_ADDED,
+            SlingConstants.TOPIC_RESOURCE_CHANGED, SlingConstants.TOPIC_RESOURCE_REMOVED });
+        props.put(EventConstants.EVENT_FILTER, filter.toString());
+        return props;
     }
 
     @SuppressWarnings("unused")
     @Deactivate
     private void deactivate(final BundleContext bundleContext) {
+        if (resolverCacheEventHandler != null) {
+            resolverCacheEventHandler.unregister();
+            resolverCacheEventHandler = null;
+        }
+        resolverCache.clear();
+
         if (engineAuthHandlerTracker != null) {
             engineAuthHandlerTracker.close();
             engineAuthHandlerTracker = null;
@@ -524,31 +608,24 @@ public class SlingAuthenticator implements Authenticator,
         }
 
         // select path used for authentication handler selection
-        final Collection<AbstractAuthenticationHandlerHolder>[] holdersArray = this.authHandlerCache
-                .findApplicableHolder(request);
         final String path = getHandlerSelectionPath(request);
+        final List<AbstractAuthenticationHandlerHolder> holders = this.authHandlerCache
+                .findApplicableHolders(request, path);
         boolean done = false;
-        for (int m = 0; !done && m < holdersArray.length; m++) {
-            final Collection<AbstractAuthenticationHandlerHolder> holderList = holdersArray[m];
-            if ( holderList != null ) {
-                for (AbstractAuthenticationHandlerHolder holder : holderList) {
-                    if (path.startsWith(holder.path)) {
-                        log.debug("login: requesting authentication using handler: {}",
-                            holder);
-
-                        try {
-                            done = holder.requestCredentials(request, response);
-                        } catch (IOException ioe) {
-                            log.error(
-                                "login: Failed sending authentication request through handler "
-                                    + holder + ", access forbidden", ioe);
-                            done = true;
-                        }
-                        if (done) {
-                            break;
-                        }
-                    }
-                }
+        for (AbstractAuthenticationHandlerHolder holder : holders) {
+            log.debug("login: requesting authentication using handler: {}",
+                holder);
+
+            try {
+                done = holder.requestCredentials(request, response);
+            } catch (IOException ioe) {
+                log.error(
+                    "login: Failed sending authentication request through handler "
+                        + holder + ", access forbidden", ioe);
+                done = true;
+            }
+            if (done) {
+                break;
             }
         }
 
@@ -559,13 +636,7 @@ public class SlingAuthenticator implements Authenticator,
 
         // no handler could send an authentication request, throw
         if (!done) {
-            int size = 0;
-            for (int m = 0; m < holdersArray.length; m++) {
-                if (holdersArray[m] != null) {
-                    size += holdersArray[m].size();
-                }
-            }
-            log.info("login: No handler for request ({} handlers available)", size);
+            log.info("login: No handler for request ({} handlers available)", holders.size());
             throw new NoAuthenticationHandlerException();
         }
     }
@@ -585,26 +656,25 @@ public class SlingAuthenticator implements Authenticator,
         // make sure impersonation is dropped
         setSudoCookie(request, response, new AuthenticationInfo("dummy", request.getRemoteUser()));
 
+        // cached resolvers must not outlive the logout
+        final Object resolver = request.getAttribute(REQUEST_ATTRIBUTE_RESOLVER);
+        if (resolver instanceof ResourceResolver) {
+            resolverCache.invalidate(((ResourceResolver) resolver).getUserID());
+        }
+        resolverCache.invalidate(request.getRemoteUser());
+
         final String path = getHandlerSelectionPath(request);
-        final Collection<AbstractAuthenticationHandlerHolder>[] holdersArray = this.authHandlerCache
-                .findApplicableHolder(request);
-        for (int m = 0; m < holdersArray.length; m++) {
-            final Collection<AbstractAuthenticationHandlerHolder> holderSet = holdersArray[m];
-            if (holderSet != null) {
-                for (AbstractAuthenticationHandlerHolder holder : holderSet) {
-                    if (path.startsWith(holder.path)) {
-                        log.debug("logout: dropping authentication using handler: {}",
-                            holder);
-
-                        try {
-                            holder.dropCredentials(request, response);
-                        } catch (IOException ioe) {
-                            log.error(
-                                "logout: Failed dropping authentication through handler "
-                                    + holder, ioe);
-                        }
-                    }
-                }
+        for (AbstractAuthenticationHandlerHolder holder : this.authHandlerCache
+                .findApplicableHolders(request, path)) {
+            log.debug("logout: dropping authentication using handler: {}",
+                holder);
+
+            try {
+                holder.dropCredentials(request, response);
+            } catch (IOException ioe) {
+                log.error(
+                    "logout: Failed dropping authentication through handler "
+                        + holder, ioe);
             }
         }
 
@@ -626,6 +696,7 @@ public class SlingAuthenticator implements Authenticator,
         Object resolverAttr = request.getAttribute(REQUEST_ATTRIBUTE_RESOLVER);
         if (resolverAttr instanceof ResourceResolver) {
             ((ResourceResolver) resolverAttr).close();
+            resolverCache.release((ResourceResolver) resolverAttr);
             request.removeAttribute(REQUEST_ATTRIBUTE_RESOLVER);
         }
     }
@@ -703,25 +774,17 @@ public class SlingAuthenticator implements Authenticator,
             path = "/";
         }
 
-        final Collection<AbstractAuthenticationHandlerHolder>[] localArray = this.authHandlerCache
-                .findApplicableHolder(request);
-        for (int m = 0; m < localArray.length; m++) {
-            final Collection<AbstractAuthenticationHandlerHolder> local = localArray[m];
-            if (local != null) {
-                for (AbstractAuthenticationHandlerHolder holder : local) {
-                    if (path.startsWith(holder.path)) {
-                        final AuthenticationInfo authInfo = holder.extractCredentials(
-                            request, response);
+        for (AbstractAuthenticationHandlerHolder holder : this.authHandlerCache
+                .findApplicableHolders(request, path)) {
+            final AuthenticationInfo authInfo = holder.extractCredentials(
+                request, response);
 
-                        if (authInfo != null) {
-                            // add the feedback handler to the info (may be null)
-                            authInfo.put(AUTH_INFO_PROP_FEEDBACK_HANDLER,
-                                holder.getFeedbackHandler());
+            if (authInfo != null) {
+                // add the feedback handler to the info (may be null)
+                authInfo.put(AUTH_INFO_PROP_FEEDBACK_HANDLER,
+                    holder.getFeedbackHandler());
 
-                            return authInfo;
-                        }
-                    }
-                }
+                return authInfo;
             }
         }
 
@@ -774,7 +837,10 @@ public class SlingAuthenticator implements Authenticator,
         try {
             handleImpersonation(request, authInfo);
             handlePasswordChange(request, authInfo);
-            ResourceResolver resolver = resourceResolverFactory.getResourceResolver(authInfo);
+            // a login (event) always validates the credentials afresh
+            ResourceResolver resolver = (sendLoginEvent == null)
+                    ? resolverCache.getResourceResolver(resourceResolverFactory, authInfo)
+                    : resourceResolverFactory.getResourceResolver(authInfo);
             final boolean impersChanged = setSudoCookie(request, response, authInfo);
 
             if (sendLoginEvent != null) {
@@ -806,6 +872,7 @@ public class SlingAuthenticator implements Authenticator,
             } else {
                 // terminate: cleanup
                 resolver.close();
+                resolverCache.release(resolver);
             }
 
             return processRequest;
@@ -897,17 +964,10 @@ public class SlingAuthenticator implements Authenticator,
             path = "/";
         }
 
-        final Collection<AuthenticationRequirementHolder>[] holderSetArray = authRequiredCache
-                .findApplicableHolder(request);
-        for (int m = 0; m < holderSetArray.length; m++) {
-            final Collection<AuthenticationRequirementHolder> holders = holderSetArray[m];
-            if (holders != null) {
-                for (AuthenticationRequirementHolder holder : holders) {
-                    if (path.startsWith(holder.path)) {
-                        return !holder.requiresAuthentication();
-                    }
-                }
-            }
+        final List<AuthenticationRequirementHolder> holders = authRequiredCache
+                .findApplicableHolders(request, path);
+        if (!holders.isEmpty()) {
+            return !holders.get(0).requiresAuthentication();
         }
 
         // fallback to anonymous not allowed (aka authentication required)
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.auth.core.impl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import junit.framework.TestCase;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JUnit4Mockery;
+
+public class PathBasedHolderCacheTest extends TestCase {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    private final PathBasedHolderCache<AuthenticationRequirementHolder> cache = new PathBasedHolderCache<AuthenticationRequirementHolder>();
+
+    private final AuthenticationRequirementHolder root = holder("/");
+
+    private final AuthenticationRequirementHolder content = holder("/content");
+
+    private final AuthenticationRequirementHolder contentSite = holder("/content/site");
+
+    private final AuthenticationRequirementHolder apps = holder("/apps");
+
+    public void test_longest_match_first() {
+        cache.addHolder(root);
+        cache.addHolder(content);
+        cache.addHolder(contentSite);
+        cache.addHolder(apps);
+
+        final HttpServletRequest request = request("http", "localhost", 80);
+        assertEquals(Arrays.asList(contentSite, content, root),
+            cache.findApplicableHolders(request, "/content/site/en.html"));
+        assertEquals(Arrays.asList(content, root), cache.findApplicableHolders(request, "/content"));
+        assertEquals(Arrays.asList(apps, root), cache.findApplicableHolders(request, "/apps/x"));
+        assertEquals(Arrays.asList(root), cache.findApplicableHolders(request, "/libs"));
+        assertTrue(cache.findApplicableHolders(request, "").isEmpty());
+    }
+
+    public void test_string_prefix() {
+        // holders apply to any path starting with the holder path
+        cache.addHolder(content);
+
+        final HttpServletRequest request = request("http", "localhost", 80);
+        assertEquals(Arrays.asList(content), cache.findApplicableHolders(request, "/contentfoo"));
+        assertTrue(cache.findApplicableHolders(request, "/conte").isEmpty());
+    }
+
+    public void test_protocol_and_host() {
+        final AuthenticationRequirementHolder httpsHost = holder("https://secure.example.com/content");
+        final AuthenticationRequirementHolder https = holder("https:///content");
+        final AuthenticationRequirementHolder host = holder("//secure.example.com/content");
+        final AuthenticationRequirementHolder hostPort = holder("//secure.example.com:8443/content");
+        cache.addHolder(root);
+        cache.addHolder(host);
+        cache.addHolder(https);
+        cache.addHolder(httpsHost);
+        cache.addHolder(hostPort);
+
+        assertEquals(Arrays.asList(httpsHost, https, host, root),
+            cache.findApplicableHolders(request("https", "secure.example.com", 443), "/content/a"));
+        assertEquals(Arrays.asList(host, root),
+            cache.findApplicableHolders(request("http", "secure.example.com", 80), "/content/a"));
+        assertEquals(Arrays.asList(hostPort, root),
+            cache.findApplicableHolders(request("http", "secure.example.com", 8443), "/content/a"));
+        assertEquals(Arrays.asList(root),
+            cache.findApplicableHolders(request("http", "other.example.com", 80), "/content/a"));
+    }
+
+    public void test_remove_and_clear() {
+        cache.addHolder(root);
+        cache.addHolder(content);
+
+        final HttpServletRequest request = request("http", "localhost", 80);
+        final List<AuthenticationRequirementHolder> before = cache.findApplicableHolders(request, "/content");
+        cache.removeHolder(content);
+        assertEquals(Arrays.asList(root), cache.findApplicableHolders(request, "/content"));
+        assertEquals(Arrays.asList(root), cache.getHolders());
+
+        // lists returned before the change are not affected
+        assertEquals(Arrays.asList(content, root), before);
+
+        cache.clear();
+        assertTrue(cache.findApplicableHolders(request, "/content").isEmpty());
+        assertTrue(cache.getHolders().isEmpty());
+    }
+
+    private AuthenticationRequirementHolder holder(final String url) {
+        return new AuthenticationRequirementHolder(url, true, null);
+    }
+
+    private HttpServletRequest request(final String scheme, final String host, final int port) {
+        final HttpServletRequest request = context.mock(HttpServletRequest.class, scheme + "://" + host + ":" + port);
+        context.checking(new Expectations() {
+            {
+                allowing(request).getScheme();
+                will(returnValue(scheme));
+                allowing(request).getServerName();
+                will(returnValue(host));
+                allowing(request).getServerPort();
+                will(returnValue(port));
+            }
+        });
+        return request;
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.auth.core.impl;
+
+import java.lang.ref.Reference;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.jcr.Credentials;
+import javax.jcr.Session;
+import javax.servlet.http.HttpServletRequest;
+
+import junit.framework.TestCase;
+import junitx.util.PrivateAccessor;
+
+import org.apache.sling.api.SlingConstants;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.auth.core.spi.AuthenticationInfo;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeMatcher;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.osgi.service.event.Event;
+
+public class ResolverCacheTest extends TestCase {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    private final ResolverCache cache = new ResolverCache();
+
+    public void test_disabled() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        final ResourceResolver resolver = context.mock(ResourceResolver.class);
+        final AuthenticationInfo authInfo = basic("user", "secret");
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(factory).getResourceResolver(authInfo);
+                will(returnValue(resolver));
+            }
+        });
+
+        assertFalse(cache.isEnabled());
+        assertSame(resolver, cache.getResourceResolver(factory, authInfo));
+        assertSame(resolver, cache.getResourceResolver(factory, authInfo));
+        assertEquals(0, cache.size());
+        context.assertIsSatisfied();
+    }
+
+    public void test_same_credentials() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        final ResourceResolver master = context.mock(ResourceResolver.class, "master");
+        final Session session = context.mock(Session.class);
+        final ResourceResolver resolver = context.mock(ResourceResolver.class, "resolver");
+        context.checking(new Expectations() {
+            {
+                // the first request logs in, the others use the session of the master
+                exactly(1).of(factory).getResourceResolver(with(new LoginMatcher("user")));
+                will(returnValue(master));
+                exactly(3).of(factory).getResourceResolver(with(new SessionMatcher(session)));
+                will(returnValue(resolver));
+                allowing(master).getUserID();
+                will(returnValue("user"));
+                allowing(master).adaptTo(Session.class);
+                will(returnValue(session));
+                allowing(master).isLive();
+                will(returnValue(true));
+                exactly(3).of(session).refresh(false);
+                never(master).close();
+            }
+        });
+
+        cache.configure(10, 60000);
+        for (int i = 0; i < 3; i++) {
+            final ResourceResolver r = cache.getResourceResolver(factory, basic("user", "secret"));
+            assertSame(resolver, r);
+            cache.release(r);
+        }
+        assertEquals(1, cache.size());
+        context.assertIsSatisfied();
+    }
+
+    public void test_concurrent_requests() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        final ResourceResolver master1 = context.mock(ResourceResolver.class, "master1");
+        final ResourceResolver master2 = context.mock(ResourceResolver.class, "master2");
+        final Session session1 = context.mock(Session.class, "session1");
+        final Session session2 = context.mock(Session.class, "session2");
+        final ResourceResolver resolver1 = context.mock(ResourceResolver.class, "resolver1");
+        final ResourceResolver resolver2 = context.mock(ResourceResolver.class, "resolver2");
+        final ResourceResolver resolver3 = context.mock(ResourceResolver.class, "resolver3");
+        context.checking(new Expectations() {
+            {
+                // a session is never shared by two requests at the same time
+                exactly(2).of(factory).getResourceResolver(with(new LoginMatcher("user")));
+                will(onConsecutiveCalls(returnValue(master1), returnValue(master2)));
+                oneOf(factory).getResourceResolver(with(new SessionMatcher(session1)));
+                will(returnValue(resolver1));
+                exactly(2).of(factory).getResourceResolver(with(new SessionMatcher(session2)));
+                will(onConsecutiveCalls(returnValue(resolver2), returnValue(resolver3)));
+                allowing(master1).getUserID();
+                will(returnValue("user"));
+                allowing(master1).adaptTo(Session.class);
+                will(returnValue(session1));
+                allowing(master2).adaptTo(Session.class);
+                will(returnValue(session2));
+                allowing(master2).isLive();
+                will(returnValue(true));
+                allowing(session1).refresh(false);
+                allowing(session2).refresh(false);
+            }
+        });
+
+        cache.configure(10, 60000);
+        final ResourceResolver first = cache.getResourceResolver(factory, basic("user", "secret"));
+        final ResourceResolver second = cache.getResourceResolver(factory, basic("user", "secret"));
+        assertSame(resolver1, first);
+        assertSame(resolver2, second);
+        cache.release(first);
+        cache.release(second);
+
+        // the most recently returned master is used first
+        assertSame(resolver3, cache.getResourceResolver(factory, basic("user", "secret")));
+        context.assertIsSatisfied();
+    }
+
+    public void test_lent_master_closed_after_invalidation() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        final ResourceResolver master = context.mock(ResourceResolver.class, "master");
+        final Session session = context.mock(Session.class);
+        final ResourceResolver resolver = context.mock(ResourceResolver.class, "resolver");
+        context.checking(new Expectations() {
+            {
+                oneOf(factory).getResourceResolver(with(new LoginMatcher("user")));
+                will(returnValue(master));
+                oneOf(factory).getResourceResolver(with(new SessionMatcher(session)));
+                will(returnValue(resolver));
+                allowing(master).getUserID();
+                will(returnValue("user"));
+                allowing(master).adaptTo(Session.class);
+                will(returnValue(session));
+                allowing(session).refresh(false);
+            }
+        });
+
+        cache.configure(10, 60000);
+        assertSame(resolver, cache.getResourceResolver(factory, basic("user", "secret")));
+        cache.invalidate("user");
+        assertEquals(0, cache.size());
+
+        // the master is still in use and only closed once the request is done
+        context.checking(new Expectations() {
+            {
+                oneOf(master).close();
+            }
+        });
+        cache.release(resolver);
+        context.assertIsSatisfied();
+    }
+
+    public void test_lent_master_closed_if_never_released() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        final ResourceResolver master = context.mock(ResourceResolver.class, "master");
+        final Session session = context.mock(Session.class);
+        final ResourceResolver resolver = context.mock(ResourceResolver.class, "resolver");
+        final ResourceResolver other = context.mock(ResourceResolver.class, "other");
+        context.checking(new Expectations() {
+            {
+                oneOf(factory).getResourceResolver(with(new LoginMatcher("user")));
+                will(returnValue(master));
+                oneOf(factory).getResourceResolver(with(new SessionMatcher(session)));
+                will(returnValue(resolver));
+                allowing(master).getUserID();
+                will(returnValue("user"));
+                allowing(master).adaptTo(Session.class);
+                will(returnValue(session));
+                allowing(session).refresh(false);
+            }
+        });
+
+        cache.configure(10, 60000);
+        assertSame(resolver, cache.getResourceResolver(factory, basic("user", "secret")));
+        final Map<?, ?> leases = (Map<?, ?>) PrivateAccessor.getField(cache, "leases");
+        assertEquals(1, leases.size());
+
+        // the resolver is garbage collected without ever being released
+        final Reference<?> lease = (Reference<?>) leases.keySet().iterator().next();
+        lease.clear();
+        lease.enqueue();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(master).close();
+            }
+        });
+        cache.release(other);
+        assertEquals(0, leases.size());
+        context.assertIsSatisfied();
+    }
+
+    public void test_different_password() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        final ResourceResolver resolver = mockLogin(factory, "user", "first");
+        final AuthenticationInfo wrong = basic("user", "wrong");
+        context.checking(new Expectations() {
+            {
+                oneOf(factory).getResourceResolver(wrong);
+                will(throwException(new LoginException("wrong password")));
+            }
+        });
+
+        cache.configure(10, 60000);
+        assertSame(resolver, cache.getResourceResolver(factory, basic("user", "secret")));
+        try {
+            cache.getResourceResolver(factory, wrong);
+            fail("Expected LoginException for wrong password");
+        } catch (LoginException le) {
+            // expected
+        }
+        context.assertIsSatisfied();
+    }
+
+    public void test_invalidate_user() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        mockLogin(factory, "user", "first");
+
+        cache.configure(10, 60000);
+        cache.getResourceResolver(factory, basic("user", "secret"));
+        assertEquals(1, cache.size());
+
+        cache.invalidate("other");
+        assertEquals(1, cache.size());
+
+        cache.invalidate("user");
+        assertEquals(0, cache.size());
+        context.assertIsSatisfied();
+    }
+
+    public void test_invalidate_event() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        mockLogin(factory, "user", "first");
+
+        cache.configure(10, 60000);
+        cache.getResourceResolver(factory, basic("user", "secret"));
+        assertEquals(1, cache.size());
+
+        final Hashtable<String, Object> props = new Hashtable<String, Object>();
+        props.put(SlingConstants.PROPERTY_PATH, "/home/groups/g");
+        cache.handleEvent(new Event(SlingConstants.TOPIC_RESOURCE_CHANGED, props));
+        assertEquals(0, cache.size());
+        context.assertIsSatisfied();
+    }
+
+    public void test_size_limit() throws Exception {
+        final ResourceResolverFactory factory = context.mock(ResourceResolverFactory.class);
+        mockLogin(factory, "a", "a");
+        mockLogin(factory, "b", "b");
+        mockLogin(factory, "c", "c");
+
+        cache.configure(2, 60000);
+        cache.getResourceResolver(factory, basic("a", "secret"));
+        cache.getResourceResolver(factory, basic("b", "secret"));
+        cache.getResourceResolver(factory, basic("c", "secret"));
+        assertEquals(2, cache.size());
+        context.assertIsSatisfied();
+    }
+
+    public void test_getKey() {
+        final AuthenticationInfo secret = basic("user", "secret");
+        assertNotNull(ResolverCache.getKey(secret));
+        assertEquals(ResolverCache.getKey(secret), ResolverCache.getKey(basic("user", "secret")));
+        assertFalse(ResolverCache.getKey(secret).equals(ResolverCache.getKey(basic("user", "other"))));
+        assertFalse(ResolverCache.getKey(secret).equals(ResolverCache.getKey(basic("other", "secret"))));
+
+        // anonymous
+        assertNull(ResolverCache.getKey(new AuthenticationInfo("BASIC")));
+
+        // impersonation and password change
+        final AuthenticationInfo sudo = basic("user", "secret");
+        sudo.put(ResourceResolverFactory.USER_IMPERSONATION, "admin");
+        assertNull(ResolverCache.getKey(sudo));
+        final AuthenticationInfo newPassword = basic("user", "secret");
+        newPassword.put("user.newpassword", "changed");
+        assertNull(ResolverCache.getKey(newPassword));
+
+        // credentials which cannot be compared
+        final AuthenticationInfo creds = new AuthenticationInfo("TOKEN", "user");
+        creds.put("user.jcr.credentials", new Credentials() {
+            private static final long serialVersionUID = 1L;
+        });
+        assertNull(ResolverCache.getKey(creds));
+    }
+
+    private AuthenticationInfo basic(final String user, final String password) {
+        return new AuthenticationInfo(HttpServletRequest.BASIC_AUTH, user, password.toCharArray());
+    }
+
+    /**
+     * Mocks a single login of the given user and returns the resolver using
+     * the session of the master. The master is expected to be closed at most
+     * once.
+     */
+    private ResourceResolver mockLogin(final ResourceResolverFactory factory, final String user,
+            final String name) throws Exception {
+        final ResourceResolver master = context.mock(ResourceResolver.class, "master-" + name);
+        final Session session = context.mock(Session.class, "session-" + name);
+        final ResourceResolver resolver = context.mock(ResourceResolver.class, "resolver-" + name);
+        context.checking(new Expectations() {
+            {
+                oneOf(factory).getResourceResolver(with(new LoginMatcher(user)));
+                will(returnValue(master));
+                oneOf(factory).getResourceResolver(with(new SessionMatcher(session)));
+                will(returnValue(resolver));
+                allowing(master).getUserID();
+                will(returnValue(user));
+                allowing(master).adaptTo(Session.class);
+                will(returnValue(session));
+                allowing(session).refresh(false);
+                atMost(1).of(master).close();
+            }
+        });
+        return resolver;
+    }
+
+    /**
+     * Matches authentication infos which log in the user.
+     */
+    private static final class LoginMatcher extends TypeSafeMatcher<Map<String, Object>> {
+
+        private final String user;
+
+        LoginMatcher(final String user) {
+            this.user = user;
+        }
+
+        @Override
+        public boolean matchesSafely(final Map<String, Object> item) {
+            return user.equals(item.get(ResourceResolverFactory.USER)) && !item.containsKey("user.jcr.session");
+        }
+
+        public void describeTo(final Description description) {
+            description.appendText("login of ").appendValue(user);
+        }
+    }
+
+    /**
+     * Matches authentication infos which use the session.
+     */
+    private static final class SessionMatcher extends TypeSafeMatcher<Map<String, Object>> {
+
+        private final Session session;
+
+        SessionMatcher(final Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public boolean matchesSafely(final Map<String, Object> item) {
+            return item.get("user.jcr.session") == session;
+        }
+
+        public void describeTo(final Description description) {
+            description.appendText("authentication info with session ").appendValue(session);
+        }
+    }
+}
@@ -28,6 +28,13 @@ import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -40,6 +47,12 @@ import org.slf4j.LoggerFactory;
  * The <code>TokenStore</code> class provides the secure token hash
  * implementation used by the {@link FormAuthenticationHandler} to generate,
  * validate and persist secure tokens.
+ * <p>
+ * The secret keys are kept in an immutable {@link Tokens} ring which is
+ * replaced atomically when a new key is created, so reading the keys does
+ * not require any locking. Each key keeps a pool of initialized
+ * <code>Mac</code> instances and recently verified cookie values are
+ * remembered until they expire or their key is replaced.
  */
 class TokenStore {
 
@@ -68,6 +81,9 @@ class TokenStore {
     /** The number of secret keys in the token buffer currentTokens */
     private static final int TOKEN_BUFFER_SIZE = 5;
 
+    /** The maximum number of verified cookie values remembered */
+    private static final int VERIFIED_CACHE_SIZE = 1000;
+
     public final Logger log = LoggerFactory.getLogger(TokenStore.class);
 
     /**
@@ -76,19 +92,15 @@ class TokenStore {
     private final long ttl;
 
     /**
-     * The time when a new token should be created.
+     * The ring of tokens used to encrypt, the current token and the time when
+     * a new token should be created.
      */
-    private long nextUpdate = System.currentTimeMillis();
+    private final AtomicReference<Tokens> currentTokens = new AtomicReference<Tokens>();
 
     /**
-     * The location of the current token.
+     * Recently verified cookie values.
      */
-    private volatile int currentToken = 0;
-
-    /**
-     * A ring of tokens used to encrypt.
-     */
-    private volatile SecretKey[] currentTokens;
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<String, VerifiedToken>();
 
     /**
      * A secure random used for generating new tokens.
@@ -158,22 +170,22 @@ class TokenStore {
     String encode(final long expires, final String userId)
             throws IllegalStateException, UnsupportedEncodingException,
             NoSuchAlgorithmException, InvalidKeyException {
-        int token = getActiveToken();
-        SecretKey key = currentTokens[token];
-        return encode(expires, userId, token, key);
+        final Tokens tokens = getActiveTokens();
+        return encode(expires, userId, tokens.current, tokens.keys[tokens.current]);
     }
 
     private String encode(final long expires, final String userId,
-            final int token, final SecretKey key) throws IllegalStateException,
+            final int token, final TokenKey key) throws IllegalStateException,
             UnsupportedEncodingException, NoSuchAlgorithmException,
             InvalidKeyException {
 
         String cookiePayload = String.valueOf(token) + String.valueOf(expires)
             + "@" + userId;
-        Mac m = Mac.getInstance(HMAC_SHA1);
-        m.init(key);
-        m.update(cookiePayload.getBytes(UTF_8));
-        String cookieValue = byteToHex(m.doFinal());
+        final Mac m = key.acquireMac();
+        String cookieValue = byteToHex(m.doFinal(cookiePayload.getBytes(UTF_8)));
+        // doFinal resets the Mac, so it can be used again; if it failed the
+        // Mac is not returned to the pool
+        key.releaseMac(m);
         return cookieValue + "@" + cookiePayload;
     }
 
@@ -214,17 +226,30 @@ class TokenStore {
         if (parts != null) {
 
             // single digit token number
+            final Tokens tokens = currentTokens.get();
             int tokenNumber = parts[1].charAt(0) - '0';
-            if (tokenNumber >= 0 && tokenNumber < currentTokens.length) {
+            if (tokenNumber >= 0 && tokenNumber < tokens.keys.length) {
 
                 long cookieTime = Long.parseLong(parts[1].substring(1));
                 if (System.currentTimeMillis() < cookieTime) {
 
+                    final TokenKey key = tokens.keys[tokenNumber];
+                    final VerifiedToken verified = verifiedTokens.get(value);
+                    if (verified != null && verified.key == key) {
+                        return true;
+                    }
+
                     try {
-                        SecretKey secretKey = currentTokens[tokenNumber];
+                        if (key == null) {
+                            throw new InvalidKeyException("No key for token " + tokenNumber);
+                        }
                         String hmac = encode(cookieTime, parts[2], tokenNumber,
-                            secretKey);
-                        return value.equals(hmac);
+                            key);
+                        if (value.equals(hmac)) {
+                            addVerifiedToken(value, new VerifiedToken(key, cookieTime));
+                            return true;
+                        }
+                        return false;
                     } catch (ArrayIndexOutOfBoundsException e) {
                         log.error(e.getMessage(), e);
                     } catch (InvalidKeyException e) {
@@ -259,36 +284,72 @@ class TokenStore {
     }
 
     /**
-     * Maintain a circular buffer to tokens, and return the current one.
+     * Remembers a verified cookie value. If the cache is full, the values
+     * which expired or whose key has been replaced are removed first and if
+     * this does not help the cache is cleared.
+     */
+    private void addVerifiedToken(final String value, final VerifiedToken verified) {
+        if (verifiedTokens.size() >= VERIFIED_CACHE_SIZE) {
+            final long now = System.currentTimeMillis();
+            final TokenKey[] keys = currentTokens.get().keys;
+            final Iterator<VerifiedToken> iter = verifiedTokens.values().iterator();
+            while (iter.hasNext()) {
+                final VerifiedToken token = iter.next();
+                if (token.expires <= now || !contains(keys, token.key)) {
+                    iter.remove();
+                }
+            }
+            if (verifiedTokens.size() >= VERIFIED_CACHE_SIZE) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(value, verified);
+    }
+
+    private static boolean contains(final TokenKey[] keys, final TokenKey key) {
+        for (final TokenKey k : keys) {
+            if (k == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Maintain a circular buffer to tokens, and return it with the current
+     * token. If a new token has to be created, the ring is replaced without
+     * locking; if another thread replaced it first, its ring is used.
      *
-     * @return the current token.
+     * @return the tokens with the current token.
      */
-    private synchronized int getActiveToken() {
-        if (System.currentTimeMillis() > nextUpdate
-            || currentTokens[currentToken] == null) {
+    private Tokens getActiveTokens() {
+        Tokens tokens = currentTokens.get();
+        while (System.currentTimeMillis() > tokens.nextUpdate
+            || tokens.keys[tokens.current] == null) {
             // cycle so that during a typical ttl the tokens get completely
             // refreshed.
-            nextUpdate = System.currentTimeMillis() + ttl
-                / (currentTokens.length - 1);
+            final long nextUpdate = System.currentTimeMillis() + ttl
+                / (tokens.keys.length - 1);
             byte[] b = new byte[20];
             random.nextBytes(b);
 
-            SecretKey newToken = new SecretKeySpec(b, HMAC_SHA1);
-            int nextToken = currentToken + 1;
-            if (nextToken == currentTokens.length) {
-                nextToken = 0;
+            final Tokens newTokens = tokens.next(new TokenKey(new SecretKeySpec(b, HMAC_SHA1)), nextUpdate);
+            if (currentTokens.compareAndSet(tokens, newTokens)) {
+                saveTokens();
+                return newTokens;
             }
-            currentTokens[nextToken] = newToken;
-            currentToken = nextToken;
-            saveTokens();
+            tokens = currentTokens.get();
         }
-        return currentToken;
+        return tokens;
     }
 
     /**
      * Stores the current set of tokens to the token file
      */
-    private void saveTokens() {
+    private synchronized void saveTokens() {
+        // always write the latest tokens even if they have been replaced
+        // concurrently by another thread
+        final Tokens tokens = currentTokens.get();
         FileOutputStream fout = null;
         DataOutputStream keyOutputStream = null;
         try {
@@ -299,14 +360,14 @@ class TokenStore {
             }
             fout = new FileOutputStream(tmpTokenFile);
             keyOutputStream = new DataOutputStream(fout);
-            keyOutputStream.writeInt(currentToken);
-            keyOutputStream.writeLong(nextUpdate);
-            for (int i = 0; i < currentTokens.length; i++) {
-                if (currentTokens[i] == null) {
+            keyOutputStream.writeInt(tokens.current);
+            keyOutputStream.writeLong(tokens.nextUpdate);
+            for (int i = 0; i < tokens.keys.length; i++) {
+                if (tokens.keys[i] == null) {
                     keyOutputStream.writeInt(0);
                 } else {
                     keyOutputStream.writeInt(1);
-                    byte[] b = currentTokens[i].getEncoded();
+                    byte[] b = tokens.keys[i].secretKey.getEncoded();
                     keyOutputStream.writeInt(b.length);
                     keyOutputStream.write(b);
                 }
@@ -342,23 +403,21 @@ class TokenStore {
                 keyInputStream = new DataInputStream(fin);
                 int newCurrentToken = keyInputStream.readInt();
                 long newNextUpdate = keyInputStream.readLong();
-                SecretKey[] newKeys = new SecretKey[TOKEN_BUFFER_SIZE];
+                TokenKey[] newKeys = new TokenKey[TOKEN_BUFFER_SIZE];
                 for (int i = 0; i < newKeys.length; i++) {
                     int isNull = keyInputStream.readInt();
                     if (isNull == 1) {
                         int l = keyInputStream.readInt();
                         byte[] b = new byte[l];
                         keyInputStream.read(b);
-                        newKeys[i] = new SecretKeySpec(b, HMAC_SHA1);
+                        newKeys[i] = new TokenKey(new SecretKeySpec(b, HMAC_SHA1));
                     } else {
                         newKeys[i] = null;
                     }
                 }
 
                 // assign the tokes and schedule a next update
-                nextUpdate = newNextUpdate;
-                currentToken = newCurrentToken;
-                currentTokens = newKeys;
+                currentTokens.set(new Tokens(newKeys, newCurrentToken, newNextUpdate));
 
             } catch (IOException e) {
 
@@ -381,10 +440,8 @@ class TokenStore {
         }
 
         // if there was a failure to read the current tokens, create new ones
-        if (currentTokens == null) {
-            currentTokens = new SecretKey[TOKEN_BUFFER_SIZE];
-            nextUpdate = System.currentTimeMillis();
-            currentToken = 0;
+        if (currentTokens.get() == null) {
+            currentTokens.set(new Tokens(new TokenKey[TOKEN_BUFFER_SIZE], 0, System.currentTimeMillis()));
         }
     }
 
@@ -465,4 +522,83 @@ class TokenStore {
             value >>= 8;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * An immutable ring of secret keys together with the index of the key
+     * currently used to encode new cookies.
+     */
+    private static final class Tokens {
+
+        final TokenKey[] keys;
+
+        final int current;
+
+        /** The time when a new token should be created. */
+        final long nextUpdate;
+
+        Tokens(final TokenKey[] keys, final int current, final long nextUpdate) {
+            this.keys = keys;
+            this.current = current;
+            this.nextUpdate = nextUpdate;
+        }
+
+        /**
+         * Returns a new ring with the key replacing the key after the
+         * current one, which becomes the current key.
+         */
+        Tokens next(final TokenKey key, final long nextUpdate) {
+            final TokenKey[] newKeys = keys.clone();
+            int nextToken = current + 1;
+            if (nextToken == newKeys.length) {
+                nextToken = 0;
+            }
+            newKeys[nextToken] = key;
+            return new Tokens(newKeys, nextToken, nextUpdate);
+        }
+    }
+
+    /**
+     * A secret key with a pool of <code>Mac</code> instances initialized with
+     * it. The pool grows up to the number of threads using the key
+     * concurrently and is dropped together with the key.
+     */
+    private static final class TokenKey {
+
+        final SecretKey secretKey;
+
+        private final Queue<Mac> macs = new ConcurrentLinkedQueue<Mac>();
+
+        TokenKey(final SecretKey secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        Mac acquireMac() throws NoSuchAlgorithmException, InvalidKeyException {
+            Mac m = macs.poll();
+            if (m == null) {
+                m = Mac.getInstance(HMAC_SHA1);
+                m.init(secretKey);
+            }
+            return m;
+        }
+
+        void releaseMac(final Mac m) {
+            macs.offer(m);
+        }
+    }
+
+    /**
+     * A verified cookie value, valid as long as the key it was verified
+     * with is in use and it has not expired.
+     */
+    private static final class VerifiedToken {
+
+        final TokenKey key;
+
+        final long expires;
+
+        VerifiedToken(final TokenKey key, final long expires) {
+            this.key = key;
+            this.expires = expires;
+        }
+    }
+}
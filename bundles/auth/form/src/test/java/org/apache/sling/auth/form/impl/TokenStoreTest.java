@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.auth.form.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TokenStoreTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private File tokenFile;
+
+    @Before
+    public void setup() throws IOException {
+        tokenFile = File.createTempFile("tokenstore", ".bin");
+        tokenFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        tokenFile.delete();
+    }
+
+    @Test
+    public void testEncodeAndValidate() throws Exception {
+        final TokenStore store = new TokenStore(tokenFile, HOUR, true);
+        final String value = store.encode(System.currentTimeMillis() + HOUR, "admin");
+        assertTrue(store.isValid(value));
+        // validated again from the verified tokens
+        assertTrue(store.isValid(value));
+
+        final String[] parts = TokenStore.split(value);
+        assertFalse(store.isValid(parts[0] + "@" + parts[1] + "@other"));
+        assertFalse(store.isValid(parts[0] + "@" + parts[1].charAt(0) + (System.currentTimeMillis() + 2 * HOUR) + "@" + parts[2]));
+        assertFalse(store.isValid("invalid"));
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        final TokenStore store = new TokenStore(tokenFile, HOUR, true);
+        final String value = store.encode(System.currentTimeMillis() + 50, "admin");
+        assertTrue(store.isValid(value));
+        Thread.sleep(100);
+        assertFalse(store.isValid(value));
+    }
+
+    @Test
+    public void testPersistedTokens() throws Exception {
+        final String value = new TokenStore(tokenFile, HOUR, true).encode(System.currentTimeMillis() + HOUR, "admin");
+        assertTrue(new TokenStore(tokenFile, HOUR, true).isValid(value));
+    }
+
+    @Test
+    public void testKeyRotation() throws Exception {
+        // a new key every 10ms
+        final TokenStore store = new TokenStore(tokenFile, 40, true);
+        final String value = store.encode(System.currentTimeMillis() + HOUR, "admin");
+        assertTrue(store.isValid(value));
+
+        // four more keys, the first one is still in the ring
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(15);
+            store.encode(System.currentTimeMillis() + HOUR, "admin");
+        }
+        assertTrue(store.isValid(value));
+
+        // the fifth key replaces the key the value has been encoded with
+        Thread.sleep(15);
+        store.encode(System.currentTimeMillis() + HOUR, "admin");
+        assertFalse(store.isValid(value));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final TokenStore store = new TokenStore(tokenFile, HOUR, true);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 100; i++) {
+                final String userId = "user" + (i % 10);
+                results.add(executor.submit(new Callable<Boolean>() {
+
+                    public Boolean call() throws Exception {
+                        final String value = store.encode(System.currentTimeMillis() + HOUR, userId);
+                        return store.isValid(value) && store.isValid(value);
+                    }
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertEquals(Boolean.TRUE, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -82,4 +82,15 @@ public interface ScheduleOptions {
      * @param slingIds Array of Sling IDs this job should run on
      */
     ScheduleOptions onInstancesOnly(final String[] slingIds);
+
+    /**
+     * Define the thread pool the job is run with.
+     * By default all jobs share the thread pool configured for the scheduler. A job
+     * using a different pool can't be delayed by slow jobs of other pools. The pool
+     * name must be in the list of allowed pool names of the scheduler configuration,
+     * otherwise the default pool is used.
+     * @param name The thread pool name or <code>null</code> for the default pool.
+     * @since 2.5
+     */
+    ScheduleOptions threadPoolName(final String name);
 }
@@ -101,6 +101,14 @@ public interface Scheduler {
      */
     String VALUE_RUN_ON_SINGLE = "SINGLE";
 
+    /**
+     * Name of the optional configuration property to define the thread pool
+     * the job is run with. This property needs to be of type String.
+     * @see ScheduleOptions#threadPoolName(String)
+     * @since 2.5.0
+     */
+    String PROPERTY_SCHEDULER_THREAD_POOL = "scheduler.threadPool";
+
     /**
      * Schedule a job based on the options.
      *
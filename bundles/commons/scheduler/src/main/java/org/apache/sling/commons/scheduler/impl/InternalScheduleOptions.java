@@ -42,6 +42,8 @@ public class InternalScheduleOptions implements ScheduleOptions {
 
     public String[] runOn;
 
+    public String threadPoolName;
+
     public InternalScheduleOptions(final TriggerBuilder<? extends Trigger> trigger) {
         this.trigger = trigger;
         this.argumentException = null;
@@ -107,4 +109,12 @@ public class InternalScheduleOptions implements ScheduleOptions {
         this.runOn = slingIds;
         return this;
     }
+
+    /**
+     * @see org.apache.sling.commons.scheduler.ScheduleOptions#threadPoolName(java.lang.String)
+     */
+    public ScheduleOptions threadPoolName(final String name) {
+        this.threadPoolName = name;
+        return this;
+    }
 }
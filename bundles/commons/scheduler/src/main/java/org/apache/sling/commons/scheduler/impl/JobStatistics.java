@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.scheduler.impl;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Execution statistics of a scheduled job.
+ * An instance is kept in the job data map of the job and in the
+ * data map of its trigger, so it lives as long as the job is scheduled.
+ */
+public class JobStatistics {
+
+    /**
+     * Upper bounds in milliseconds of the execution time histogram buckets,
+     * a last bucket holds all longer execution times.
+     */
+    private static final long[] EXECUTION_TIME_BOUNDARIES = {1, 10, 100, 1000, 10000, 60000};
+
+    private final AtomicLongArray executionTimes = new AtomicLongArray(EXECUTION_TIME_BOUNDARIES.length + 1);
+
+    private final AtomicLong executionCount = new AtomicLong();
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    private final AtomicLong overlapCount = new AtomicLong();
+
+    private final AtomicLong misfireCount = new AtomicLong();
+
+    private final AtomicLong totalExecutionTime = new AtomicLong();
+
+    private final AtomicLong maxExecutionTime = new AtomicLong();
+
+    private final AtomicLong maxStartDelay = new AtomicLong();
+
+    private final AtomicInteger runningCount = new AtomicInteger();
+
+    /** Can the job run concurrently? */
+    private final boolean concurrent;
+
+    /** End time of the last execution. */
+    private volatile long lastFinished;
+
+    public JobStatistics(final boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    public boolean isConcurrent() {
+        return this.concurrent;
+    }
+
+    /**
+     * Record the start of an execution.
+     * An execution of a concurrent job overlaps if another execution is still
+     * running. An execution of a job which can't run concurrently overlaps if
+     * it was due before the last execution finished and therefore had to wait.
+     * @param scheduledFireTime The time the execution was due or <code>null</code>
+     * @return The start time
+     */
+    public long started(final Date scheduledFireTime) {
+        final long now = System.currentTimeMillis();
+        final boolean running = this.runningCount.getAndIncrement() > 0;
+        final boolean overlap;
+        if ( this.concurrent ) {
+            overlap = running;
+        } else {
+            overlap = scheduledFireTime != null && this.lastFinished > scheduledFireTime.getTime();
+        }
+        if ( overlap ) {
+            this.overlapCount.incrementAndGet();
+        }
+        if ( scheduledFireTime != null ) {
+            updateMax(this.maxStartDelay, now - scheduledFireTime.getTime());
+        }
+        return now;
+    }
+
+    /**
+     * Record the end of an execution.
+     * @param startTime The start time as returned by {@link #started(Date)}
+     * @param failed Whether the execution failed
+     */
+    public void finished(final long startTime, final boolean failed) {
+        final long now = System.currentTimeMillis();
+        final long time = now - startTime;
+        this.lastFinished = now;
+        this.runningCount.decrementAndGet();
+        this.executionCount.incrementAndGet();
+        if ( failed ) {
+            this.failureCount.incrementAndGet();
+        }
+        this.totalExecutionTime.addAndGet(time);
+        updateMax(this.maxExecutionTime, time);
+
+        int index = 0;
+        while ( index < EXECUTION_TIME_BOUNDARIES.length && time > EXECUTION_TIME_BOUNDARIES[index] ) {
+            index++;
+        }
+        this.executionTimes.incrementAndGet(index);
+    }
+
+    /**
+     * Record a misfire, a fire time which was missed as no thread was
+     * available or the previous execution was still running.
+     */
+    public void misfired() {
+        this.misfireCount.incrementAndGet();
+    }
+
+    private static void updateMax(final AtomicLong max, final long value) {
+        long current = max.get();
+        while ( value > current && !max.compareAndSet(current, value) ) {
+            current = max.get();
+        }
+    }
+
+    public long getExecutionCount() {
+        return this.executionCount.get();
+    }
+
+    public long getFailureCount() {
+        return this.failureCount.get();
+    }
+
+    public long getOverlapCount() {
+        return this.overlapCount.get();
+    }
+
+    public long getMisfireCount() {
+        return this.misfireCount.get();
+    }
+
+    public int getRunningCount() {
+        return this.runningCount.get();
+    }
+
+    public long getMaxExecutionTime() {
+        return this.maxExecutionTime.get();
+    }
+
+    public long getAverageExecutionTime() {
+        final long count = this.executionCount.get();
+        return count == 0 ? 0 : this.totalExecutionTime.get() / count;
+    }
+
+    public long getMaxStartDelay() {
+        return this.maxStartDelay.get();
+    }
+
+    /**
+     * Return the number of executions per execution time bucket.
+     * @see #getExecutionTimeBoundaries()
+     */
+    public long[] getExecutionTimeHistogram() {
+        final long[] result = new long[this.executionTimes.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.executionTimes.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Return the upper bounds in milliseconds of the execution time buckets.
+     * The histogram has one more bucket for all longer execution times.
+     */
+    public static long[] getExecutionTimeBoundaries() {
+        return EXECUTION_TIME_BOUNDARIES.clone();
+    }
+}
@@ -103,6 +103,9 @@ public class QuartzJobExecutor implements Job {
         }
 
         final String name = (String) data.get(QuartzScheduler.DATA_MAP_NAME);
+        final JobStatistics statistics = (JobStatistics) data.get(QuartzScheduler.DATA_MAP_STATISTICS);
+        final long startTime = (statistics != null ? statistics.started(context.getScheduledFireTime()) : 0);
+        boolean failed = false;
         String origThreadName = Thread.currentThread().getName();
         try {
             Thread.currentThread().setName(origThreadName + "-" + name);
@@ -120,6 +123,7 @@ public class QuartzJobExecutor implements Job {
                 logger.error("Scheduled job {} is neither a job nor a runnable.", job);
             }
         } catch (final Throwable t) {
+            failed = true;
             // if this is a quartz exception, rethrow it
             if (t instanceof JobExecutionException) {
                 throw (JobExecutionException) t;
@@ -128,6 +132,9 @@ public class QuartzJobExecutor implements Job {
             logger.error("Exception during job execution of " + job + " : " + t.getMessage(), t);
         } finally {
             Thread.currentThread().setName(origThreadName);
+            if ( statistics != null ) {
+                statistics.finished(startTime, failed);
+            }
         }
     }
 
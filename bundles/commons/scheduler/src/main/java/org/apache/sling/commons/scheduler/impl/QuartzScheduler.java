@@ -17,27 +17,40 @@
 package org.apache.sling.commons.scheduler.impl;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.PropertyUnbounded;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.commons.scheduler.Job;
 import org.apache.sling.commons.scheduler.ScheduleOptions;
+import org.apache.sling.commons.scheduler.jmx.SchedulerMBean;
 import org.apache.sling.commons.threads.ThreadPool;
 import org.apache.sling.commons.threads.ThreadPoolManager;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleEvent;
 import org.osgi.framework.BundleListener;
+import org.osgi.framework.ServiceRegistration;
 import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.JobBuilder;
@@ -51,6 +64,7 @@ import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.impl.DirectSchedulerFactory;
 import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.listeners.TriggerListenerSupport;
 import org.quartz.simpl.RAMJobStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -94,6 +108,12 @@ public class QuartzScheduler implements BundleListener {
     /** Map key for the bundle information (Long). */
     static final String DATA_MAP_SERVICE_ID = "QuartzJobScheduler.serviceId";
 
+    /** Map key for the thread pool name (String). */
+    static final String DATA_MAP_THREAD_POOL = "QuartzJobScheduler.threadPool";
+
+    /** Map key for the job statistics ({@link JobStatistics}). */
+    static final String DATA_MAP_STATISTICS = "QuartzJobScheduler.statistics";
+
     /** The quartz scheduler. */
     private volatile org.quartz.Scheduler scheduler;
 
@@ -102,11 +122,35 @@ public class QuartzScheduler implements BundleListener {
 
     private ThreadPool threadPool;
 
+    /** The quartz wrapper for the thread pool of the scheduler. */
+    private volatile QuartzThreadPool quartzThreadPool;
+
+    /** The name of the thread pool of the scheduler. */
+    private volatile String poolName;
+
+    /** The thread pools jobs are allowed to use. */
+    private volatile Set<String> allowedPoolNames = Collections.emptySet();
+
+    /**
+     * Additional schedulers for jobs using another thread pool than the
+     * pool of the scheduler, by pool name. Guarded by this.
+     */
+    private final Map<String, PoolScheduler> poolSchedulers = new HashMap<String, PoolScheduler>();
+
+    private ServiceRegistration mbeanRegistration;
+
     @Property(label="Thread Pool Name",
               description="The name of a configured thread pool - if no name is configured " +
                           "the default pool is used.")
     private static final String PROPERTY_POOL_NAME = "poolName";
 
+    @Property(unbounded=PropertyUnbounded.ARRAY,
+              label="Allowed Thread Pools",
+              description="The names of thread pools jobs may select to run with, so slow jobs " +
+                          "can't delay other jobs. Jobs selecting a pool not in this list run " +
+                          "with the thread pool of the scheduler.")
+    private static final String PROPERTY_ALLOWED_POOL_NAMES = "allowedPoolNames";
+
     /**
      * Activate this component.
      * Start the scheduler.
@@ -121,11 +165,31 @@ public class QuartzScheduler implements BundleListener {
         } else {
             poolName = null;
         }
+        this.poolName = (poolName != null ? poolName : ThreadPoolManager.DEFAULT_THREADPOOL_NAME);
+
+        final Object allowedPoolNamesObj = props.get(PROPERTY_ALLOWED_POOL_NAMES);
+        final Set<String> allowed = new HashSet<String>();
+        if ( allowedPoolNamesObj instanceof String[] ) {
+            allowed.addAll(Arrays.asList((String[])allowedPoolNamesObj));
+        } else if ( allowedPoolNamesObj != null ) {
+            allowed.add(allowedPoolNamesObj.toString());
+        }
+        allowed.remove("");
+        this.allowedPoolNames = allowed;
 
         ctx.addBundleListener(this);
 
         // start scheduler
         this.scheduler = this.init(poolName);
+
+        try {
+            final Dictionary<String, String> mbeanProps = new Hashtable<String, String>();
+            mbeanProps.put("jmx.objectname", "org.apache.sling:type=scheduler,service=Scheduler");
+            this.mbeanRegistration = ctx.registerService(SchedulerMBean.class.getName(),
+                    new SchedulerMBeanImpl(this), mbeanProps);
+        } catch (final Throwable t) {
+            this.logger.warn("Unable to register Scheduler MBean", t);
+        }
     }
 
     /**
@@ -135,9 +199,20 @@ public class QuartzScheduler implements BundleListener {
     @Deactivate
     protected void deactivate(final BundleContext ctx) {
         ctx.removeBundleListener(this);
+        if ( this.mbeanRegistration != null ) {
+            this.mbeanRegistration.unregister();
+            this.mbeanRegistration = null;
+        }
 
         final org.quartz.Scheduler s = this.scheduler;
         this.scheduler = null;
+        synchronized ( this ) {
+            for(final PoolScheduler ps : this.poolSchedulers.values()) {
+                this.shutdown(ps.scheduler);
+                this.release(ps.threadPool);
+            }
+            this.poolSchedulers.clear();
+        }
         this.dispose(s);
     }
 
@@ -148,29 +223,30 @@ public class QuartzScheduler implements BundleListener {
         if ( event.getType() == BundleEvent.STOPPED ) {
             final Long bundleId = event.getBundle().getBundleId();
 
-            final org.quartz.Scheduler s = this.scheduler;
-            if ( s != null ) {
+            if ( this.scheduler != null ) {
                 synchronized ( this ) {
-                    try {
-                        final List<String> groups = s.getJobGroupNames();
-                        for(final String group : groups) {
-                            final Set<JobKey> keys = s.getJobKeys(GroupMatcher.jobGroupEquals(group));
-                            for(final JobKey key : keys) {
-                                final JobDetail detail = s.getJobDetail(key);
-                                final String jobName = (String) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_NAME);
-                                final Object job = detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_OBJECT);
-
-                                if ( jobName != null && job != null ) {
-                                    final Long jobBundleId = (Long) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_BUNDLE_ID);
-                                    if ( jobBundleId != null && jobBundleId.equals(bundleId) ) {
-                                        s.deleteJob(key);
-                                        this.logger.debug("Unscheduling job with name {}", jobName);
+                    for(final org.quartz.Scheduler s : this.getAllSchedulers()) {
+                        try {
+                            final List<String> groups = s.getJobGroupNames();
+                            for(final String group : groups) {
+                                final Set<JobKey> keys = s.getJobKeys(GroupMatcher.jobGroupEquals(group));
+                                for(final JobKey key : keys) {
+                                    final JobDetail detail = s.getJobDetail(key);
+                                    final String jobName = (String) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_NAME);
+                                    final Object job = detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_OBJECT);
+
+                                    if ( jobName != null && job != null ) {
+                                        final Long jobBundleId = (Long) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_BUNDLE_ID);
+                                        if ( jobBundleId != null && jobBundleId.equals(bundleId) ) {
+                                            s.deleteJob(key);
+                                            this.logger.debug("Unscheduling job with name {}", jobName);
+                                        }
                                     }
                                 }
                             }
+                        } catch ( final SchedulerException ignore) {
+                            // we ignore this as there is nothing to do
                         }
-                    } catch ( final SchedulerException ignore) {
-                        // we ignore this as there is nothing to do
                     }
                 }
             }
@@ -196,26 +272,39 @@ public class QuartzScheduler implements BundleListener {
 
         // create the pool
         this.threadPool = tpm.get(poolName);
-        final QuartzThreadPool quartzPool = new QuartzThreadPool(this.threadPool);
+        this.quartzThreadPool = new QuartzThreadPool(this.threadPool);
+
+        return this.createScheduler(QUARTZ_SCHEDULER_NAME, this.quartzThreadPool);
+    }
 
+    /**
+     * Create and start a quartz scheduler
+     * @param name The scheduler name
+     * @param quartzPool The thread pool
+     * @return Return the new scheduler instance.
+     * @throws SchedulerException
+     */
+    private org.quartz.Scheduler createScheduler(final String name, final QuartzThreadPool quartzPool)
+    throws SchedulerException {
         final DirectSchedulerFactory factory = DirectSchedulerFactory.getInstance();
         // unique run id
         final String runID = new Date().toString().replace(' ', '_');
-        factory.createScheduler(QUARTZ_SCHEDULER_NAME, runID, quartzPool, new RAMJobStore());
+        factory.createScheduler(name, runID, quartzPool, new RAMJobStore());
         // quartz does not provide a way to get the scheduler by name AND runID, so we have to iterate!
         final Iterator<org.quartz.Scheduler> allSchedulersIter = factory.getAllSchedulers().iterator();
         org.quartz.Scheduler s = null;
         while ( s == null && allSchedulersIter.hasNext() ) {
             final org.quartz.Scheduler current = allSchedulersIter.next();
-            if ( QUARTZ_SCHEDULER_NAME.equals(current.getSchedulerName())
+            if ( name.equals(current.getSchedulerName())
                  && runID.equals(current.getSchedulerInstanceId()) ) {
                 s = current;
             }
         }
         if ( s == null ) {
-            throw new SchedulerException("Unable to find new scheduler with name " + QUARTZ_SCHEDULER_NAME + " and run ID " + runID);
+            throw new SchedulerException("Unable to find new scheduler with name " + name + " and run ID " + runID);
         }
 
+        s.getListenerManager().addTriggerListener(new MisfireListener());
         s.start();
         if ( this.logger.isDebugEnabled() ) {
             this.logger.debug(PREFIX + "started.");
@@ -228,6 +317,17 @@ public class QuartzScheduler implements BundleListener {
      * @param s The scheduler.
      */
     private void dispose(final org.quartz.Scheduler s) {
+        this.shutdown(s);
+        this.release(this.threadPool);
+        this.threadPool = null;
+        this.quartzThreadPool = null;
+    }
+
+    /**
+     * Shutdown a quartz scheduler
+     * @param s The scheduler.
+     */
+    private void shutdown(final org.quartz.Scheduler s) {
         if ( s != null ) {
             try {
                 s.shutdown();
@@ -238,11 +338,74 @@ public class QuartzScheduler implements BundleListener {
                 this.logger.debug(PREFIX + "stopped.");
             }
         }
+    }
+
+    /**
+     * Release a thread pool
+     * @param pool The thread pool.
+     */
+    private void release(final ThreadPool pool) {
         final ThreadPoolManager tpm = this.threadPoolManager;
-        if ( tpm != null && this.threadPool != null ) {
-            tpm.release(this.threadPool);
+        if ( tpm != null && pool != null ) {
+            tpm.release(pool);
         }
-        this.threadPool = null;
+    }
+
+    /**
+     * Return the scheduler for the jobs using the thread pool.
+     * If no pool name is given or the pool is not allowed, the scheduler
+     * with the thread pool of this component is returned. Otherwise a
+     * scheduler for the pool is created on first use.
+     * This method must be called while holding the lock on this.
+     * @param s The scheduler with the thread pool of this component
+     * @param name The thread pool name or <code>null</code>
+     * @return The scheduler
+     * @throws SchedulerException If the scheduler can't be created
+     */
+    private org.quartz.Scheduler getScheduler(final org.quartz.Scheduler s, final String name)
+    throws SchedulerException {
+        if ( name == null || name.equals(this.poolName) ) {
+            return s;
+        }
+        if ( !this.allowedPoolNames.contains(name) ) {
+            this.logger.warn("Thread pool {} is not allowed for jobs, using thread pool {} instead.", name, this.poolName);
+            return s;
+        }
+        PoolScheduler ps = this.poolSchedulers.get(name);
+        if ( ps == null ) {
+            final ThreadPoolManager tpm = this.threadPoolManager;
+            if ( tpm == null ) {
+                throw new SchedulerException("Thread pool manager missing");
+            }
+            final ThreadPool pool = tpm.get(name);
+            final QuartzThreadPool quartzPool = new QuartzThreadPool(pool);
+            try {
+                ps = new PoolScheduler(this.createScheduler(QUARTZ_SCHEDULER_NAME + "-" + name, quartzPool),
+                        pool, quartzPool);
+            } catch (final SchedulerException se) {
+                tpm.release(pool);
+                throw se;
+            }
+            this.poolSchedulers.put(name, ps);
+        }
+        return ps.scheduler;
+    }
+
+    /**
+     * Return the scheduler with the thread pool of this component followed by
+     * the schedulers for other thread pools.
+     * This method must be called while holding the lock on this.
+     */
+    private List<org.quartz.Scheduler> getAllSchedulers() {
+        final List<org.quartz.Scheduler> result = new ArrayList<org.quartz.Scheduler>();
+        final org.quartz.Scheduler s = this.scheduler;
+        if ( s != null ) {
+            result.add(s);
+        }
+        for(final PoolScheduler ps : this.poolSchedulers.values()) {
+            result.add(ps.scheduler);
+        }
+        return result;
     }
 
 
@@ -262,6 +425,7 @@ public class QuartzScheduler implements BundleListener {
         final JobDataMap jobDataMap = new JobDataMap();
 
         jobDataMap.put(DATA_MAP_OBJECT, job);
+        jobDataMap.put(DATA_MAP_STATISTICS, new JobStatistics(options.canRunConcurrently));
 
         jobDataMap.put(DATA_MAP_NAME, jobName);
         jobDataMap.put(DATA_MAP_LOGGER, this.logger);
@@ -428,7 +592,9 @@ public class QuartzScheduler implements BundleListener {
         if ( s != null ) {
             synchronized ( this ) {
                 try {
-                    s.deleteJob(JobKey.jobKey(name));
+                    for(final org.quartz.Scheduler current : this.getAllSchedulers()) {
+                        current.deleteJob(JobKey.jobKey(name));
+                    }
                     this.logger.debug("Unscheduling job with name {}", name);
                 } catch (final SchedulerException se) {
                     throw new NoSuchElementException(se.getMessage());
@@ -442,11 +608,92 @@ public class QuartzScheduler implements BundleListener {
         return this.scheduler;
     }
 
+    /** Used by the web console plugin and the MBean: all schedulers by thread pool name. */
+    Map<String, org.quartz.Scheduler> getSchedulers() {
+        final Map<String, org.quartz.Scheduler> result = new LinkedHashMap<String, org.quartz.Scheduler>();
+        synchronized ( this ) {
+            final org.quartz.Scheduler s = this.scheduler;
+            if ( s != null ) {
+                result.put(this.poolName, s);
+                for(final Map.Entry<String, PoolScheduler> entry : this.poolSchedulers.entrySet()) {
+                    result.put(entry.getKey(), entry.getValue().scheduler);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Used by the web console plugin and the MBean: all thread pools by name. */
+    Map<String, QuartzThreadPool> getThreadPools() {
+        final Map<String, QuartzThreadPool> result = new LinkedHashMap<String, QuartzThreadPool>();
+        synchronized ( this ) {
+            final QuartzThreadPool pool = this.quartzThreadPool;
+            if ( pool != null ) {
+                result.put(this.poolName, pool);
+                for(final Map.Entry<String, PoolScheduler> entry : this.poolSchedulers.entrySet()) {
+                    result.put(entry.getKey(), entry.getValue().quartzPool);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A scheduler running the jobs of an additional thread pool.
+     */
+    private static final class PoolScheduler {
+
+        final org.quartz.Scheduler scheduler;
+
+        final ThreadPool threadPool;
+
+        final QuartzThreadPool quartzPool;
+
+        PoolScheduler(final org.quartz.Scheduler scheduler, final ThreadPool threadPool, final QuartzThreadPool quartzPool) {
+            this.scheduler = scheduler;
+            this.threadPool = threadPool;
+            this.quartzPool = quartzPool;
+        }
+    }
+
+    /**
+     * Counts the misfires of the jobs in their statistics.
+     */
+    private static final class MisfireListener extends TriggerListenerSupport {
+
+        /**
+         * @see org.quartz.TriggerListener#getName()
+         */
+        public String getName() {
+            return "ApacheSlingMisfireListener";
+        }
+
+        /**
+         * @see org.quartz.listeners.TriggerListenerSupport#triggerMisfired(org.quartz.Trigger)
+         */
+        @Override
+        public void triggerMisfired(final Trigger trigger) {
+            final JobStatistics statistics = (JobStatistics) trigger.getJobDataMap().get(DATA_MAP_STATISTICS);
+            if ( statistics != null ) {
+                statistics.misfired();
+            }
+        }
+    }
+
     public static final class QuartzThreadPool implements org.quartz.spi.ThreadPool {
 
         /** Our executor thread pool */
         private ThreadPool executor;
 
+        /** The number of jobs running or waiting for a thread. */
+        private final AtomicInteger busyCount = new AtomicInteger();
+
+        /** The largest number of jobs running or waiting for a thread. */
+        private final AtomicInteger largestBusyCount = new AtomicInteger();
+
+        /** The number of jobs which had to wait as all threads were busy. */
+        private final AtomicLong saturatedCount = new AtomicLong();
+
         /**
          * Create a new wrapper implementation for Quartz.
          */
@@ -486,11 +733,55 @@ public class QuartzScheduler implements BundleListener {
          * @see org.quartz.spi.QuartzThreadPool#runInThread(java.lang.Runnable)
          */
         public boolean runInThread(final Runnable job) {
-            this.executor.execute(job);
+            final int poolSize = this.getPoolSize();
+            final int busy = this.busyCount.incrementAndGet();
+            int largest = this.largestBusyCount.get();
+            while ( busy > largest && !this.largestBusyCount.compareAndSet(largest, busy) ) {
+                largest = this.largestBusyCount.get();
+            }
+            if ( busy > poolSize ) {
+                this.saturatedCount.incrementAndGet();
+            }
+            try {
+                this.executor.execute(new Runnable() {
+
+                    public void run() {
+                        try {
+                            job.run();
+                        } finally {
+                            busyCount.decrementAndGet();
+                        }
+                    }
+                });
+            } catch (final RuntimeException re) {
+                this.busyCount.decrementAndGet();
+                throw re;
+            }
 
             return true;
         }
 
+        /**
+         * Return the number of jobs running or waiting for a thread.
+         */
+        public int getBusyCount() {
+            return this.busyCount.get();
+        }
+
+        /**
+         * Return the largest number of jobs running or waiting for a thread.
+         */
+        public int getLargestBusyCount() {
+            return this.largestBusyCount.get();
+        }
+
+        /**
+         * Return the number of jobs which had to wait as all threads were busy.
+         */
+        public long getSaturatedCount() {
+            return this.saturatedCount.get();
+        }
+
         /**
          * @see org.quartz.spi.ThreadPool#blockForAvailableThreads()
          */
@@ -610,16 +901,18 @@ public class QuartzScheduler implements BundleListener {
         final org.quartz.Scheduler s = this.scheduler;
         if ( jobName != null && s != null ) {
             synchronized ( this ) {
-                try {
-                    final JobKey key = JobKey.jobKey(jobName);
-                    final JobDetail jobdetail = s.getJobDetail(key);
-                    if (jobdetail != null) {
-                        s.deleteJob(key);
-                        this.logger.debug("Unscheduling job with name {}", jobName);
-                        return true;
+                for(final org.quartz.Scheduler current : this.getAllSchedulers()) {
+                    try {
+                        final JobKey key = JobKey.jobKey(jobName);
+                        final JobDetail jobdetail = current.getJobDetail(key);
+                        if (jobdetail != null) {
+                            current.deleteJob(key);
+                            this.logger.debug("Unscheduling job with name {}", jobName);
+                            return true;
+                        }
+                    } catch (final SchedulerException ignored) {
+                        // ignore
                     }
-                } catch (final SchedulerException ignored) {
-                    // ignore
                 }
             }
         }
@@ -655,30 +948,40 @@ public class QuartzScheduler implements BundleListener {
             final String name;
             if ( opts.name != null ) {
                 // if there is already a job with the name, remove it first
-                try {
-                    final JobKey key = JobKey.jobKey(opts.name);
-                    final JobDetail jobdetail = s.getJobDetail(key);
-                    if (jobdetail != null) {
-                        s.deleteJob(key);
-                        this.logger.debug("Unscheduling job with name {}", opts.name);
+                for(final org.quartz.Scheduler current : this.getAllSchedulers()) {
+                    try {
+                        final JobKey key = JobKey.jobKey(opts.name);
+                        final JobDetail jobdetail = current.getJobDetail(key);
+                        if (jobdetail != null) {
+                            current.deleteJob(key);
+                            this.logger.debug("Unscheduling job with name {}", opts.name);
+                        }
+                    } catch (final SchedulerException ignored) {
+                        // ignore
                     }
-                } catch (final SchedulerException ignored) {
-                    // ignore
                 }
                 name = opts.name;
             } else {
                 name = job.getClass().getName() + ':' + UUID.randomUUID();
             }
 
-            final Trigger trigger = opts.trigger.withIdentity(name).build();
+            final org.quartz.Scheduler poolScheduler = this.getScheduler(s, opts.threadPoolName);
 
             // create the data map
             final JobDataMap jobDataMap = this.initDataMap(bundleId, serviceId, name, job, opts);
+            if ( poolScheduler != s ) {
+                jobDataMap.put(DATA_MAP_THREAD_POOL, opts.threadPoolName);
+            }
+
+            // the trigger gets the statistics as well for counting misfires
+            final JobDataMap triggerDataMap = new JobDataMap();
+            triggerDataMap.put(DATA_MAP_STATISTICS, jobDataMap.get(DATA_MAP_STATISTICS));
+            final Trigger trigger = opts.trigger.withIdentity(name).usingJobData(triggerDataMap).build();
 
             final JobDetail detail = this.createJobDetail(name, jobDataMap, opts.canRunConcurrently);
 
             this.logger.debug("Scheduling job {} with name {} and trigger {}", new Object[] {job, name, trigger});
-            s.scheduleJob(detail, trigger);
+            poolScheduler.scheduleJob(detail, trigger);
         }
     }
 }
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.scheduler.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.apache.sling.commons.scheduler.jmx.SchedulerMBean;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
+
+class SchedulerMBeanImpl extends StandardMBean implements SchedulerMBean {
+
+    private static final String[] JOB_ITEMS = {"name", "threadPool", "concurrent", "executions", "failures",
+        "overlaps", "misfires", "running", "averageTime", "maxTime", "maxStartDelay", "executionTimeHistogram"};
+
+    private static final String[] POOL_ITEMS = {"name", "poolSize", "busy", "largestBusy", "saturated"};
+
+    private final QuartzScheduler scheduler;
+
+    SchedulerMBeanImpl(final QuartzScheduler scheduler) throws NotCompliantMBeanException {
+        super(SchedulerMBean.class);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Collect the statistics of all jobs scheduled through the sling scheduler, by job name.
+     */
+    private Map<String, JobInfo> getJobs() {
+        final Map<String, JobInfo> result = new HashMap<String, JobInfo>();
+        for(final Map.Entry<String, Scheduler> entry : this.scheduler.getSchedulers().entrySet()) {
+            final Scheduler s = entry.getValue();
+            try {
+                for(final String group : s.getJobGroupNames()) {
+                    final Set<JobKey> keys = s.getJobKeys(GroupMatcher.jobGroupEquals(group));
+                    for(final JobKey key : keys) {
+                        final JobDetail detail = s.getJobDetail(key);
+                        if ( detail == null ) {
+                            continue;
+                        }
+                        final String jobName = (String) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_NAME);
+                        final JobStatistics statistics = (JobStatistics) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_STATISTICS);
+                        if ( jobName != null && statistics != null ) {
+                            result.put(jobName, new JobInfo(entry.getKey(), statistics));
+                        }
+                    }
+                }
+            } catch ( final SchedulerException ignore ) {
+                // the scheduler has been shut down
+            }
+        }
+        return result;
+    }
+
+    public TabularData getJobStatistics() throws OpenDataException {
+        final OpenType<?>[] types = {SimpleType.STRING, SimpleType.STRING, SimpleType.BOOLEAN, SimpleType.LONG,
+                SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.INTEGER, SimpleType.LONG,
+                SimpleType.LONG, SimpleType.LONG, new ArrayType<long[]>(SimpleType.LONG, true)};
+        final CompositeType rowType = new CompositeType("JobStatistics", "Statistics of a scheduled job",
+                JOB_ITEMS, JOB_ITEMS, types);
+        final TabularDataSupport result = new TabularDataSupport(
+                new TabularType("JobStatistics", "Statistics of the scheduled jobs", rowType, new String[] {"name"}));
+        for(final Map.Entry<String, JobInfo> entry : this.getJobs().entrySet()) {
+            final JobStatistics statistics = entry.getValue().statistics;
+            result.put(new CompositeDataSupport(rowType, JOB_ITEMS, new Object[] {
+                    entry.getKey(),
+                    entry.getValue().threadPool,
+                    statistics.isConcurrent(),
+                    statistics.getExecutionCount(),
+                    statistics.getFailureCount(),
+                    statistics.getOverlapCount(),
+                    statistics.getMisfireCount(),
+                    statistics.getRunningCount(),
+                    statistics.getAverageExecutionTime(),
+                    statistics.getMaxExecutionTime(),
+                    statistics.getMaxStartDelay(),
+                    statistics.getExecutionTimeHistogram()}));
+        }
+        return result;
+    }
+
+    public long[] getExecutionTimeHistogramBoundaries() {
+        return JobStatistics.getExecutionTimeBoundaries();
+    }
+
+    public TabularData getThreadPoolStatistics() throws OpenDataException {
+        final OpenType<?>[] types = {SimpleType.STRING, SimpleType.INTEGER, SimpleType.INTEGER,
+                SimpleType.INTEGER, SimpleType.LONG};
+        final CompositeType rowType = new CompositeType("ThreadPoolStatistics", "Statistics of a scheduler thread pool",
+                POOL_ITEMS, POOL_ITEMS, types);
+        final TabularDataSupport result = new TabularDataSupport(
+                new TabularType("ThreadPoolStatistics", "Statistics of the scheduler thread pools", rowType, new String[] {"name"}));
+        for(final Map.Entry<String, QuartzScheduler.QuartzThreadPool> entry : this.scheduler.getThreadPools().entrySet()) {
+            final QuartzScheduler.QuartzThreadPool pool = entry.getValue();
+            result.put(new CompositeDataSupport(rowType, POOL_ITEMS, new Object[] {
+                    entry.getKey(),
+                    pool.getPoolSize(),
+                    pool.getBusyCount(),
+                    pool.getLargestBusyCount(),
+                    pool.getSaturatedCount()}));
+        }
+        return result;
+    }
+
+    private List<JobStatistics> getAllStatistics() {
+        final List<JobStatistics> result = new ArrayList<JobStatistics>();
+        for(final JobInfo info : this.getJobs().values()) {
+            result.add(info.statistics);
+        }
+        return result;
+    }
+
+    public long getMisfireCount() {
+        long count = 0;
+        for(final JobStatistics statistics : this.getAllStatistics()) {
+            count += statistics.getMisfireCount();
+        }
+        return count;
+    }
+
+    public long getOverlapCount() {
+        long count = 0;
+        for(final JobStatistics statistics : this.getAllStatistics()) {
+            count += statistics.getOverlapCount();
+        }
+        return count;
+    }
+
+    public int getJobCount() {
+        return this.getJobs().size();
+    }
+
+    private static final class JobInfo {
+
+        final String threadPool;
+
+        final JobStatistics statistics;
+
+        JobInfo(final String threadPool, final JobStatistics statistics) {
+            this.threadPool = threadPool;
+            this.statistics = statistics;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.sling.commons.scheduler.impl;
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.felix.scr.annotations.Component;
@@ -64,97 +65,169 @@ public class WebConsolePrinter {
     public void printConfiguration(PrintWriter pw) {
         pw.println(HEADLINE);
         pw.println();
-        final Scheduler s = this.scheduler.getScheduler();
-        if ( s != null ) {
+        final Map<String, Scheduler> schedulers = this.scheduler.getSchedulers();
+        if ( !schedulers.isEmpty() ) {
             pw.println("Status : active");
-            try {
-                pw.print  ("Name   : ");
-                pw.println(s.getSchedulerName());
-                pw.print  ("Id     : ");
-                pw.println(s.getSchedulerInstanceId());
+            for(final Scheduler s : schedulers.values()) {
+                this.printScheduler(pw, s);
+            }
+            for(final Map.Entry<String, QuartzScheduler.QuartzThreadPool> entry : this.scheduler.getThreadPools().entrySet()) {
+                final QuartzScheduler.QuartzThreadPool pool = entry.getValue();
+                pw.print("Thread Pool : ");
+                pw.print(entry.getKey());
+                pw.print(", size: ");
+                pw.print(pool.getPoolSize());
+                pw.print(", busy: ");
+                pw.print(pool.getBusyCount());
+                pw.print(", largest busy: ");
+                pw.print(pool.getLargestBusyCount());
+                pw.print(", saturated: ");
+                pw.print(pool.getSaturatedCount());
                 pw.println();
-                final List<String> groups = s.getJobGroupNames();
-                for(final String group : groups) {
-                    final Set<JobKey> keys = s.getJobKeys(GroupMatcher.jobGroupEquals(group));
-                    for(final JobKey key : keys) {
-                        final JobDetail detail = s.getJobDetail(key);
-                        final String jobName = (String) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_NAME);
-                        final Object job = detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_OBJECT);
-                        // only print jobs started through the sling scheduler
-                        if ( jobName != null && job != null ) {
-                            pw.print("Job : ");
-                            pw.print(detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_NAME));
-                            if ( detail.getDescription() != null && detail.getDescription().length() > 0 ) {
-                                pw.print(" (");
-                                pw.print(detail.getDescription());
-                                pw.print(")");
-                            }
-                            pw.print(", class: ");
-                            pw.print(job.getClass().getName());
-                            pw.print(", concurrent: ");
-                            pw.print(!detail.isConcurrentExectionDisallowed());
-                            final String[] runOn = (String[])detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_RUN_ON);
-                            if ( runOn != null ) {
-                                pw.print(", runOn: ");
-                                pw.print(Arrays.toString(runOn));
-                                // check run on information
-                                if ( runOn.length == 1 &&
-                                     (org.apache.sling.commons.scheduler.Scheduler.VALUE_RUN_ON_LEADER.equals(runOn[0]) || org.apache.sling.commons.scheduler.Scheduler.VALUE_RUN_ON_SINGLE.equals(runOn[0])) ) {
-                                    if ( QuartzJobExecutor.DISCOVERY_AVAILABLE.get() ) {
-                                        if ( QuartzJobExecutor.DISCOVERY_INFO_AVAILABLE.get() ) {
-                                            if ( !QuartzJobExecutor.IS_LEADER.get() ) {
-                                                pw.print(" (inactive: not leader)");
-                                            }
-                                        } else {
-                                            pw.print(" (inactive: no discovery info)");
+            }
+        } else {
+            pw.println("Status : not active");
+        }
+        pw.println();
+    }
+
+    /**
+     * Print the jobs of a scheduler
+     */
+    private void printScheduler(final PrintWriter pw, final Scheduler s) {
+        try {
+            pw.print  ("Name   : ");
+            pw.println(s.getSchedulerName());
+            pw.print  ("Id     : ");
+            pw.println(s.getSchedulerInstanceId());
+            pw.println();
+            final List<String> groups = s.getJobGroupNames();
+            for(final String group : groups) {
+                final Set<JobKey> keys = s.getJobKeys(GroupMatcher.jobGroupEquals(group));
+                for(final JobKey key : keys) {
+                    final JobDetail detail = s.getJobDetail(key);
+                    final String jobName = (String) detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_NAME);
+                    final Object job = detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_OBJECT);
+                    // only print jobs started through the sling scheduler
+                    if ( jobName != null && job != null ) {
+                        pw.print("Job : ");
+                        pw.print(detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_NAME));
+                        if ( detail.getDescription() != null && detail.getDescription().length() > 0 ) {
+                            pw.print(" (");
+                            pw.print(detail.getDescription());
+                            pw.print(")");
+                        }
+                        pw.print(", class: ");
+                        pw.print(job.getClass().getName());
+                        pw.print(", concurrent: ");
+                        pw.print(!detail.isConcurrentExectionDisallowed());
+                        final String[] runOn = (String[])detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_RUN_ON);
+                        if ( runOn != null ) {
+                            pw.print(", runOn: ");
+                            pw.print(Arrays.toString(runOn));
+                            // check run on information
+                            if ( runOn.length == 1 &&
+                                 (org.apache.sling.commons.scheduler.Scheduler.VALUE_RUN_ON_LEADER.equals(runOn[0]) || org.apache.sling.commons.scheduler.Scheduler.VALUE_RUN_ON_SINGLE.equals(runOn[0])) ) {
+                                if ( QuartzJobExecutor.DISCOVERY_AVAILABLE.get() ) {
+                                    if ( QuartzJobExecutor.DISCOVERY_INFO_AVAILABLE.get() ) {
+                                        if ( !QuartzJobExecutor.IS_LEADER.get() ) {
+                                            pw.print(" (inactive: not leader)");
                                         }
                                     } else {
-                                        pw.print(" (inactive: no discovery)");
+                                        pw.print(" (inactive: no discovery info)");
                                     }
-                                } else { // sling IDs
-                                    final String myId = QuartzJobExecutor.SLING_ID;
-                                    if ( myId == null ) {
-                                        pw.print(" (inactive: no Sling settings)");
-                                    } else {
-                                        boolean schedule = false;
-                                        for(final String id : runOn ) {
-                                            if ( myId.equals(id) ) {
-                                                schedule = true;
-                                                break;
-                                            }
-                                        }
-                                        if ( !schedule ) {
-                                            pw.print(" (inactive: Sling ID)");
+                                } else {
+                                    pw.print(" (inactive: no discovery)");
+                                }
+                            } else { // sling IDs
+                                final String myId = QuartzJobExecutor.SLING_ID;
+                                if ( myId == null ) {
+                                    pw.print(" (inactive: no Sling settings)");
+                                } else {
+                                    boolean schedule = false;
+                                    for(final String id : runOn ) {
+                                        if ( myId.equals(id) ) {
+                                            schedule = true;
+                                            break;
                                         }
                                     }
-                                }                            }
-                            final Long bundleId = (Long)detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_BUNDLE_ID);
-                            if ( bundleId != null ) {
-                                pw.print(", bundleId: ");
-                                pw.print(String.valueOf(bundleId));
-                            }
-                            final Long serviceId = (Long)detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_SERVICE_ID);
-                            if ( serviceId != null ) {
-                                pw.print(", serviceId: ");
-                                pw.print(String.valueOf(serviceId));
-                            }
-                            pw.println();
-                            for(final Trigger trigger : s.getTriggersOfJob(key)) {
-                                pw.print("Trigger : ");
-                                pw.print(trigger);
-                                pw.println();
-                            }
+                                    if ( !schedule ) {
+                                        pw.print(" (inactive: Sling ID)");
+                                    }
+                                }
+                            }                            }
+                        final Long bundleId = (Long)detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_BUNDLE_ID);
+                        if ( bundleId != null ) {
+                            pw.print(", bundleId: ");
+                            pw.print(String.valueOf(bundleId));
+                        }
+                        final Long serviceId = (Long)detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_SERVICE_ID);
+                        if ( serviceId != null ) {
+                            pw.print(", serviceId: ");
+                            pw.print(String.valueOf(serviceId));
+                        }
+                        final String threadPool = (String)detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_THREAD_POOL);
+                        if ( threadPool != null ) {
+                            pw.print(", threadPool: ");
+                            pw.print(threadPool);
+                        }
+                        final JobStatistics statistics = (JobStatistics)detail.getJobDataMap().get(QuartzScheduler.DATA_MAP_STATISTICS);
+                        if ( statistics != null ) {
+                            this.printStatistics(pw, statistics);
+                        }
+                        pw.println();
+                        for(final Trigger trigger : s.getTriggersOfJob(key)) {
+                            pw.print("Trigger : ");
+                            pw.print(trigger);
                             pw.println();
                         }
+                        pw.println();
                     }
                 }
-            } catch ( final SchedulerException se ) {
-                pw.print  ("Unable to print complete configuration: ");
-                pw.println(se.getMessage());
             }
-        } else {
-            pw.println("Status : not active");
+        } catch ( final SchedulerException se ) {
+            pw.print  ("Unable to print complete configuration: ");
+            pw.println(se.getMessage());
+        }
+    }
+
+    /**
+     * Print the statistics of a job
+     */
+    private void printStatistics(final PrintWriter pw, final JobStatistics statistics) {
+        pw.print(", executions: ");
+        pw.print(statistics.getExecutionCount());
+        pw.print(", failures: ");
+        pw.print(statistics.getFailureCount());
+        pw.print(", overlaps: ");
+        pw.print(statistics.getOverlapCount());
+        pw.print(", misfires: ");
+        pw.print(statistics.getMisfireCount());
+        if ( statistics.getExecutionCount() > 0 ) {
+            pw.print(", average time: ");
+            pw.print(statistics.getAverageExecutionTime());
+            pw.print("ms, max time: ");
+            pw.print(statistics.getMaxExecutionTime());
+            pw.print("ms, max start delay: ");
+            pw.print(statistics.getMaxStartDelay());
+            pw.print("ms, execution times: [");
+            final long[] boundaries = JobStatistics.getExecutionTimeBoundaries();
+            final long[] histogram = statistics.getExecutionTimeHistogram();
+            for(int i = 0; i < histogram.length; i++) {
+                if ( i > 0 ) {
+                    pw.print(", ");
+                }
+                if ( i < boundaries.length ) {
+                    pw.print("<=");
+                    pw.print(boundaries[i]);
+                } else {
+                    pw.print(">");
+                    pw.print(boundaries[boundaries.length - 1]);
+                }
+                pw.print("ms: ");
+                pw.print(histogram[i]);
+            }
+            pw.print("]");
         }
-        pw.println();
     }
 }
@@ -255,7 +255,8 @@ public class WhiteboardHandler {
         final ScheduleOptions options = scheduleOptions
                 .name(name)
                 .canRunConcurrently((concurrent != null ? concurrent : true))
-                .onInstancesOnly(runOnOpts);
+                .onInstancesOnly(runOnOpts)
+                .threadPoolName(getStringProperty(ref, Scheduler.PROPERTY_SCHEDULER_THREAD_POOL));
 
         final long bundleId = ref.getBundle().getBundleId();
         final Long serviceId = getLongProperty(ref, Constants.SERVICE_ID);
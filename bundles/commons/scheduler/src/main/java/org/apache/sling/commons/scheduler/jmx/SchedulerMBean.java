@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.scheduler.jmx;
+
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+
+import aQute.bnd.annotation.ProviderType;
+
+/**
+ * This is the management interface for the Sling Scheduler.
+ * @since 1.0
+ */
+@ProviderType
+public interface SchedulerMBean {
+
+    /**
+     * Retrieve the statistics of all scheduled jobs. Each row contains the job name,
+     * the thread pool name, whether the job can run concurrently, the number of
+     * executions, failures, overlapping executions, misfires and currently running
+     * executions, the average and maximum execution time and the maximum start delay
+     * in milliseconds and the execution time histogram.
+     *
+     * @return the job statistics
+     * @throws OpenDataException If the statistics can't be converted
+     */
+    TabularData getJobStatistics() throws OpenDataException;
+
+    /**
+     * Retrieve the upper bounds of the execution time histogram buckets.
+     * The histogram has one more bucket for all longer execution times.
+     *
+     * @return the upper bounds in milliseconds
+     */
+    long[] getExecutionTimeHistogramBoundaries();
+
+    /**
+     * Retrieve the statistics of all thread pools used by the scheduler. Each row
+     * contains the pool name, the pool size, the number of jobs currently running
+     * or waiting for a thread, the largest number of such jobs and the number of
+     * times a job had to wait as all threads were busy.
+     *
+     * @return the thread pool statistics
+     * @throws OpenDataException If the statistics can't be converted
+     */
+    TabularData getThreadPoolStatistics() throws OpenDataException;
+
+    /**
+     * Return the total number of misfires of all scheduled jobs.
+     *
+     * @return the number of misfires
+     */
+    long getMisfireCount();
+
+    /**
+     * Return the total number of overlapping executions of all scheduled jobs.
+     *
+     * @return the number of overlapping executions
+     */
+    long getOverlapCount();
+
+    /**
+     * Return the number of scheduled jobs.
+     *
+     * @return the number of jobs
+     */
+    int getJobCount();
+}
@@ -17,6 +17,7 @@
 package org.apache.sling.commons.scheduler.impl;
 
 import org.apache.sling.commons.threads.impl.DefaultThreadPoolManager;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 
@@ -31,6 +32,10 @@ import java.util.Map;
  * since we need an activated QuartzScheduler in many tests.
  */
 class ActivatedQuartzSchedulerFactory {
+
+    /** A thread pool jobs are allowed to use. */
+    public static final String ALLOWED_POOL_NAME = "allowedPool";
+
     public static QuartzScheduler create(BundleContext context, String poolName) throws Exception {
         QuartzScheduler quartzScheduler = null;
         if (context != null) {
@@ -41,10 +46,13 @@ class ActivatedQuartzSchedulerFactory {
 
             Field f = QuartzScheduler.class.getDeclaredField("threadPoolManager");
             f.setAccessible(true);
-            f.set(quartzScheduler, new DefaultThreadPoolManager(context, props));
+            // the thread pool manager gets its own context, as the mock service tracker
+            // for the configuration admin would otherwise track the scheduler services
+            f.set(quartzScheduler, new DefaultThreadPoolManager(MockOsgi.newBundleContext(), props));
 
             Map<String, Object> scheduleActivationProps = new HashMap<String, Object>();
             scheduleActivationProps.put("poolName", poolName == null ? "testName" : poolName);
+            scheduleActivationProps.put("allowedPoolNames", new String[] {ALLOWED_POOL_NAME});
 
             quartzScheduler.activate(context, scheduleActivationProps);
             context.registerService("scheduler", quartzScheduler, props);
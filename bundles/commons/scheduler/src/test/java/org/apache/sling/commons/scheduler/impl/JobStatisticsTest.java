@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.scheduler.impl;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JobStatisticsTest {
+
+    @Test
+    public void testConcurrentOverlap() {
+        final JobStatistics statistics = new JobStatistics(true);
+        final long first = statistics.started(new Date());
+        final long second = statistics.started(new Date());
+        assertEquals(2, statistics.getRunningCount());
+        assertEquals(1, statistics.getOverlapCount());
+
+        statistics.finished(first, false);
+        statistics.finished(second, true);
+        assertEquals(0, statistics.getRunningCount());
+        assertEquals(2, statistics.getExecutionCount());
+        assertEquals(1, statistics.getFailureCount());
+    }
+
+    @Test
+    public void testNonConcurrentOverlap() throws InterruptedException {
+        final JobStatistics statistics = new JobStatistics(false);
+        final Date due = new Date();
+        Thread.sleep(5);
+        // the previous execution finished after the next one was due
+        statistics.finished(statistics.started(new Date(due.getTime() - 10)), false);
+        statistics.finished(statistics.started(due), false);
+        assertEquals(1, statistics.getOverlapCount());
+        assertEquals(2, statistics.getExecutionCount());
+    }
+
+    @Test
+    public void testHistogram() {
+        final JobStatistics statistics = new JobStatistics(true);
+        statistics.finished(System.currentTimeMillis() - 50, false);
+        statistics.finished(System.currentTimeMillis() - 120000, false);
+        statistics.misfired();
+
+        final long[] histogram = statistics.getExecutionTimeHistogram();
+        assertEquals(JobStatistics.getExecutionTimeBoundaries().length + 1, histogram.length);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[histogram.length - 1]);
+        assertEquals(120000, statistics.getMaxExecutionTime(), 100);
+        assertEquals(1, statistics.getMisfireCount());
+    }
+}
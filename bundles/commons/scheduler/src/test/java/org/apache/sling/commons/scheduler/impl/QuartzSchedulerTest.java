@@ -265,6 +265,57 @@ public class QuartzSchedulerTest {
         returnInternalSchedulerBack();
     }
 
+    @Test
+    public void testThreadPoolName() throws SchedulerException {
+        quartzScheduler.schedule(1L, 1L, new Thread(), quartzScheduler.EXPR("0 * * * * ?")
+                .name("allowedPoolJob").threadPoolName(ActivatedQuartzSchedulerFactory.ALLOWED_POOL_NAME));
+        quartzScheduler.schedule(1L, 1L, new Thread(), quartzScheduler.EXPR("0 * * * * ?")
+                .name("otherPoolJob").threadPoolName("otherPool"));
+
+        assertEquals(2, quartzScheduler.getSchedulers().size());
+        assertEquals(2, quartzScheduler.getThreadPools().size());
+        final Scheduler poolScheduler = quartzScheduler.getSchedulers().get(ActivatedQuartzSchedulerFactory.ALLOWED_POOL_NAME);
+        assertTrue(poolScheduler.checkExists(JobKey.jobKey("allowedPoolJob")));
+        assertFalse(s.checkExists(JobKey.jobKey("allowedPoolJob")));
+        // pool not allowed, the job runs with the default pool
+        assertTrue(s.checkExists(JobKey.jobKey("otherPoolJob")));
+
+        // rescheduling with the default pool moves the job
+        quartzScheduler.schedule(1L, 1L, new Thread(), quartzScheduler.EXPR("0 * * * * ?").name("allowedPoolJob"));
+        assertFalse(poolScheduler.checkExists(JobKey.jobKey("allowedPoolJob")));
+        assertTrue(s.checkExists(JobKey.jobKey("allowedPoolJob")));
+
+        quartzScheduler.schedule(1L, 1L, new Thread(), quartzScheduler.EXPR("0 * * * * ?")
+                .name("allowedPoolJob").threadPoolName(ActivatedQuartzSchedulerFactory.ALLOWED_POOL_NAME));
+        assertTrue(quartzScheduler.unschedule(1L, "allowedPoolJob"));
+        assertFalse(poolScheduler.checkExists(JobKey.jobKey("allowedPoolJob")));
+    }
+
+    @Test
+    public void testJobStatistics() throws Exception {
+        final String jobName = "statisticsJob";
+        quartzScheduler.schedule(1L, 1L, new Runnable() {
+
+            public void run() {
+                throw new IllegalStateException("failure");
+            }
+        }, quartzScheduler.NOW(-1, 1).name(jobName));
+
+        final JobStatistics statistics = (JobStatistics) s.getJobDetail(JobKey.jobKey(jobName))
+                .getJobDataMap().get(QuartzScheduler.DATA_MAP_STATISTICS);
+        assertNotNull(statistics);
+        final long end = System.currentTimeMillis() + 5000;
+        while ( statistics.getExecutionCount() == 0 && System.currentTimeMillis() < end ) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, statistics.getExecutionCount());
+        assertEquals(1, statistics.getFailureCount());
+        assertEquals(0, statistics.getRunningCount());
+        assertEquals(1, statistics.getExecutionTimeHistogram()[0]
+                + statistics.getExecutionTimeHistogram()[1]
+                + statistics.getExecutionTimeHistogram()[2]);
+    }
+
     @After
     public void deactivateScheduler() throws NoSuchFieldException, IllegalAccessException {
         if (quartzScheduler.getScheduler() == null) {
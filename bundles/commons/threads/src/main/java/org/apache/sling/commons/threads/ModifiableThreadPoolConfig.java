@@ -36,6 +36,7 @@ import java.util.concurrent.TimeUnit;
  * - priority: NORM
  * - daemon: false
  * - factory: null (= default jvm thread factory)
+ * - type: DEFAULT
  */
 @ProviderType
 public final class ModifiableThreadPoolConfig implements ThreadPoolConfig {
@@ -62,6 +63,11 @@ public final class ModifiableThreadPoolConfig implements ThreadPoolConfig {
     public static final String PROPERTY_DAEMON = "daemon";
     /** Configuration property for the thread pool name. */
     public static final String PROPERTY_NAME = "name";
+    /**
+     * Configuration property for the thread pool type.
+     * @since 3.4
+     */
+    public static final String PROPERTY_TYPE = "type";
 
     /** The min pool size. */
     private int minPoolSize = 5;
@@ -96,6 +102,9 @@ public final class ModifiableThreadPoolConfig implements ThreadPoolConfig {
     /** Create daemon threads? */
     private  boolean isDaemon = false;
 
+    /** The thread pool type. */
+    private ThreadPoolType type = ThreadPoolType.DEFAULT;
+
     /**
      * Create a new default configuration.
      */
@@ -120,6 +129,7 @@ public final class ModifiableThreadPoolConfig implements ThreadPoolConfig {
             this.factory = copy.getFactory();
             this.priority = copy.getPriority();
             this.isDaemon = copy.isDaemon();
+            this.type = copy.getType();
         }
     }
 
@@ -298,6 +308,27 @@ public final class ModifiableThreadPoolConfig implements ThreadPoolConfig {
         this.isDaemon = isDaemon;
     }
 
+    /**
+     * @see org.apache.sling.commons.threads.ThreadPoolConfig#getType()
+     * @since 3.4
+     */
+    public ThreadPoolType getType() {
+        return type;
+    }
+
+    /**
+     * Set the thread pool type.
+     * @param type The thread pool type.
+     * @throws IllegalArgumentException If type is null.
+     * @since 3.4
+     */
+    public void setType(final ThreadPoolType type) {
+        if ( type == null ) {
+            throw new IllegalArgumentException("Type must not be null.");
+        }
+        this.type = type;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if ( obj instanceof ModifiableThreadPoolConfig ) {
@@ -311,7 +342,8 @@ public final class ModifiableThreadPoolConfig implements ThreadPoolConfig {
                 && this.shutdownGraceful == o.shutdownGraceful
                 && this.shutdownWaitTimeMs == o.shutdownWaitTimeMs
                 && this.priority.equals(o.priority)
-                && this.isDaemon == o.isDaemon;
+                && this.isDaemon == o.isDaemon
+                && this.type.equals(o.type);
         }
         return false;
     }
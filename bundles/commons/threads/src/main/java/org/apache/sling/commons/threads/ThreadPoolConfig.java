@@ -40,6 +40,26 @@ public interface ThreadPoolConfig {
         MAX
     };
 
+    /**
+     * The thread pool types.
+     * <ul>
+     *   <li>{@link #DEFAULT}: a thread pool executor with a bounded number
+     *   of threads and the configured queue and block policy.</li>
+     *   <li>{@link #WORK_STEALING}: a fork join pool with a parallelism of
+     *   the maximum pool size. Queue size, block policy and maximum thread
+     *   age do not apply.</li>
+     *   <li>{@link #VIRTUAL}: a new virtual thread per task. This requires
+     *   a Java runtime supporting virtual threads, on other runtimes the
+     *   {@link #DEFAULT} type is used instead.</li>
+     * </ul>
+     * @since 3.4
+     */
+    public enum ThreadPoolType {
+        DEFAULT,
+        WORK_STEALING,
+        VIRTUAL
+    };
+
     /**
      * Return the minimum pool size.
      * @return The minimum pool size.
@@ -107,4 +127,11 @@ public interface ThreadPoolConfig {
      * @return <code>true</code> if daemon threads should be created.
      */
     boolean isDaemon();
+
+    /**
+     * Return the type of the thread pool.
+     * @return The type of the thread pool.
+     * @since 3.4
+     */
+    ThreadPoolType getType();
 }
\ No newline at end of file
@@ -18,7 +18,9 @@ package org.apache.sling.commons.threads.impl;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -30,6 +32,7 @@ import java.util.concurrent.TimeUnit;
 import org.apache.sling.commons.threads.ModifiableThreadPoolConfig;
 import org.apache.sling.commons.threads.ThreadPool;
 import org.apache.sling.commons.threads.ThreadPoolConfig;
+import org.apache.sling.commons.threads.ThreadPoolConfig.ThreadPoolType;
 import org.apache.sling.commons.threads.ThreadPoolManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,10 +41,15 @@ import org.slf4j.LoggerFactory;
 /**
  * The DefaultThreadPool class implements the {@link ThreadPool} interface.
  * Instances of this class are managed by the {@link ThreadPoolManager}.
+ * Depending on the configured {@link ThreadPoolType} the tasks are run by
+ * a thread pool executor, a fork join pool or a virtual thread per task.
  */
 public class DefaultThreadPool
     implements ThreadPool {
 
+    /** The maximum parallelism of a fork join pool. */
+    private static final int MAX_PARALLELISM = 0x7fff;
+
     /** By default we use the logger for this class. */
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -49,10 +57,16 @@ public class DefaultThreadPool
     protected final String name;
 
     /** The executor. */
-    protected ThreadPoolExecutor executor;
+    protected ExecutorService executor;
 
     protected final ModifiableThreadPoolConfig configuration;
 
+    /** The type of the executor, which might differ from the configured one. */
+    private final ThreadPoolType type;
+
+    /** The task statistics. */
+    private final ThreadPoolStatistics statistics = new ThreadPoolStatistics();
+
     /**
      * Create a new thread pool.
      * @param name - The name of the thread pool. If null {@link DefaultThreadPoolManager#DEFAULT_THREADPOOL_NAME}
@@ -104,6 +118,60 @@ public class DefaultThreadPool
             this.logger.warn("keep-alive-time-ms < 0 for pool \"" + this.name + "\". Set to 1000");
         }
 
+        ExecutorService executorService = null;
+        if ( this.configuration.getType() == ThreadPoolType.VIRTUAL ) {
+            executorService = createVirtualThreadExecutor(threadFactory);
+            if ( executorService == null ) {
+                this.logger.warn("Virtual threads are not supported by this JVM for pool \"" + this.name
+                        + "\". Using type " + ThreadPoolType.DEFAULT);
+            }
+        } else if ( this.configuration.getType() == ThreadPoolType.WORK_STEALING ) {
+            executorService = createForkJoinPool(threadFactory);
+        }
+        if ( executorService != null ) {
+            this.type = this.configuration.getType();
+            this.executor = executorService;
+            this.warnAboutIgnoredSettings();
+        } else {
+            this.type = ThreadPoolType.DEFAULT;
+            this.executor = createThreadPoolExecutor(threadFactory);
+        }
+        this.logger.info("Thread pool [{}] initialized.", name);
+    }
+
+    /**
+     * Only a {@link ThreadPoolType#DEFAULT} pool has a queue and expires its
+     * threads. Log a warning if any of these settings differs from its default
+     * for another type.
+     */
+    private void warnAboutIgnoredSettings() {
+        final ThreadPoolConfig defaults = new ModifiableThreadPoolConfig();
+        final StringBuilder ignored = new StringBuilder();
+        if ( this.configuration.getQueueSize() != defaults.getQueueSize() ) {
+            ignored.append(ModifiableThreadPoolConfig.PROPERTY_QUEUE_SIZE);
+        }
+        if ( this.configuration.getBlockPolicy() != defaults.getBlockPolicy() ) {
+            if ( ignored.length() > 0 ) {
+                ignored.append(", ");
+            }
+            ignored.append(ModifiableThreadPoolConfig.PROPERTY_BLOCK_POLICY);
+        }
+        if ( this.configuration.getMaxThreadAge() != defaults.getMaxThreadAge() ) {
+            if ( ignored.length() > 0 ) {
+                ignored.append(", ");
+            }
+            ignored.append(ModifiableThreadPoolConfig.PROPERTY_MAX_THREAD_AGE);
+        }
+        if ( ignored.length() > 0 ) {
+            this.logger.warn("Ignoring " + ignored + " for pool \"" + this.name + "\" of type " + this.type
+                    + ". These settings only apply to type " + ThreadPoolType.DEFAULT);
+        }
+    }
+
+    /**
+     * Create the thread pool executor for the {@link ThreadPoolType#DEFAULT} type.
+     */
+    private ThreadPoolExecutor createThreadPoolExecutor(final ThreadFactory threadFactory) {
         // Queue
         final BlockingQueue<Runnable> queue;
         if (this.configuration.getQueueSize() != 0) {
@@ -132,7 +200,7 @@ public class DefaultThreadPool
                 break;
         }
 
-        this.executor = new ThreadExpiringThreadPool(this.configuration.getMinPoolSize(),
+        return new ThreadExpiringThreadPool(this.configuration.getMinPoolSize(),
                 this.configuration.getMaxPoolSize(),
                 this.configuration.getMaxThreadAge(),
                 TimeUnit.MILLISECONDS,
@@ -141,7 +209,46 @@ public class DefaultThreadPool
                 queue,
                 threadFactory,
                 handler);
-        this.logger.info("Thread pool [{}] initialized.", name);
+    }
+
+    /**
+     * Create the fork join pool for the {@link ThreadPoolType#WORK_STEALING} type.
+     * The parallelism is the max pool size, limited to the maximum supported by
+     * the fork join pool. Tasks are processed in FIFO order. The submission
+     * queue of the pool is unbounded, therefore the queue size and the block
+     * policy are not used; threads are managed by the pool itself and are
+     * not expired after the max thread age.
+     */
+    private ForkJoinPool createForkJoinPool(final ExtendedThreadFactory threadFactory) {
+        final int parallelism;
+        if ( this.configuration.getMaxPoolSize() == Integer.MAX_VALUE ) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        } else {
+            parallelism = Math.min(this.configuration.getMaxPoolSize(), MAX_PARALLELISM);
+        }
+        return new ForkJoinPool(parallelism, threadFactory.getForkJoinWorkerThreadFactory(), null, true);
+    }
+
+    /**
+     * Create an executor starting a new virtual thread per task for the
+     * {@link ThreadPoolType#VIRTUAL} type. Virtual threads are looked up by
+     * reflection as they are not available on all supported JVMs; they are
+     * always daemon threads and have normal priority.
+     * @return The executor or {@code null} if virtual threads are not supported.
+     */
+    private ExecutorService createVirtualThreadExecutor(final ExtendedThreadFactory threadFactory) {
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, threadFactory.getThreadNamePrefix(), 1L);
+            final ThreadFactory virtualThreadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, virtualThreadFactory);
+        } catch (final Exception e) {
+            this.logger.debug("Unable to create virtual thread executor", e);
+            return null;
+        }
     }
 
     /**
@@ -168,7 +275,7 @@ public class DefaultThreadPool
             if ( logger.isDebugEnabled() ) {
                 logOperation("Executing runnable: ", runnable);
             }
-            executor.execute(runnable);
+            executor.execute(this.statistics.wrap(runnable));
         }
     }
 
@@ -180,7 +287,7 @@ public class DefaultThreadPool
         if ( logger.isDebugEnabled() ) {
             logOperation("Submitting callable: ", callable);
         }
-        return executor.submit(callable);
+        return executor.submit(this.statistics.wrap(callable));
     }
 
     /**
@@ -191,7 +298,7 @@ public class DefaultThreadPool
         if ( logger.isDebugEnabled() ) {
             logOperation("Submitting runnable: ", runnable);
         }
-        return executor.submit(runnable);
+        return executor.submit(this.statistics.wrap(runnable));
     }
 
     /**
@@ -223,8 +330,67 @@ public class DefaultThreadPool
         this.logger.info("Thread pool [{}] is shut down.", this.name);
     }
 
+    /**
+     * Return the thread pool executor.
+     * @return The executor or {@code null} if the pool is shut down or
+     *         is not of type {@link ThreadPoolType#DEFAULT}.
+     */
     public ThreadPoolExecutor getExecutor() {
-        return this.executor;
+        final ExecutorService service = this.executor;
+        if ( service instanceof ThreadPoolExecutor ) {
+            return (ThreadPoolExecutor) service;
+        }
+        return null;
+    }
+
+    /**
+     * Return the type of the executor. This is the configured type unless
+     * it is not supported by the JVM.
+     */
+    public ThreadPoolType getType() {
+        return this.type;
+    }
+
+    /**
+     * Return the number of currently executing tasks.
+     */
+    public int getActiveCount() {
+        final ExecutorService service = this.executor;
+        if ( service instanceof ThreadPoolExecutor ) {
+            return ((ThreadPoolExecutor) service).getActiveCount();
+        }
+        return this.statistics.getActiveCount();
+    }
+
+    /**
+     * Return the number of completed tasks.
+     */
+    public long getCompletedTaskCount() {
+        // the statistics count a task before its future completes, the
+        // count of a thread pool executor is only updated afterwards
+        return this.statistics.getCompletedTaskCount();
+    }
+
+    /**
+     * Return the number of tasks waiting for execution.
+     */
+    public long getQueuedTaskCount() {
+        final ExecutorService service = this.executor;
+        if ( service instanceof ThreadPoolExecutor ) {
+            return ((ThreadPoolExecutor) service).getQueue().size();
+        } else if ( service instanceof ForkJoinPool ) {
+            final ForkJoinPool pool = (ForkJoinPool) service;
+            return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+        }
+        // a virtual thread is started per task
+        return 0;
+    }
+
+    /**
+     * Return the task statistics.
+     */
+    public ThreadPoolStatistics getStatistics() {
+        return this.statistics;
     }
 
     private void checkExecutor() {
@@ -234,11 +400,19 @@ public class DefaultThreadPool
     }
 
     private void logOperation(final String msg, final Object obj) {
-        logger.debug("{} {}, pool={}, active={}, corePoolSize={}, maxPoolSize={}, queueSize={}",
-                new Object[] {msg, obj, name,
-                        executor.getActiveCount(),
-                        executor.getCorePoolSize(),
-                        executor.getMaximumPoolSize(),
-                        executor.getQueue().size()});
+        final ThreadPoolExecutor tpe = this.getExecutor();
+        if ( tpe != null ) {
+            logger.debug("{} {}, pool={}, active={}, corePoolSize={}, maxPoolSize={}, queueSize={}",
+                    new Object[] {msg, obj, name,
+                            tpe.getActiveCount(),
+                            tpe.getCorePoolSize(),
+                            tpe.getMaximumPoolSize(),
+                            tpe.getQueue().size()});
+        } else {
+            logger.debug("{} {}, pool={}, type={}, active={}, queueSize={}",
+                    new Object[] {msg, obj, name, type,
+                            this.getActiveCount(),
+                            this.getQueuedTaskCount()});
+        }
     }
 }
@@ -27,6 +27,7 @@ import org.apache.sling.commons.threads.ModifiableThreadPoolConfig;
 import org.apache.sling.commons.threads.ThreadPool;
 import org.apache.sling.commons.threads.ThreadPoolConfig;
 import org.apache.sling.commons.threads.ThreadPoolConfig.ThreadPoolPolicy;
+import org.apache.sling.commons.threads.ThreadPoolConfig.ThreadPoolType;
 import org.apache.sling.commons.threads.ThreadPoolConfig.ThreadPriority;
 import org.apache.sling.commons.threads.ThreadPoolManager;
 import org.apache.sling.commons.threads.jmx.ThreadPoolMBean;
@@ -119,6 +120,9 @@ public class DefaultThreadPoolManager
         if ( props.get(ModifiableThreadPoolConfig.PROPERTY_DAEMON) != null ) {
             config.setDaemon((Boolean)props.get(ModifiableThreadPoolConfig.PROPERTY_DAEMON));
         }
+        if ( props.get(ModifiableThreadPoolConfig.PROPERTY_TYPE) != null ) {
+            config.setType(ThreadPoolType.valueOf(props.get(ModifiableThreadPoolConfig.PROPERTY_TYPE).toString()));
+        }
         return config;
     }
 
@@ -407,6 +411,14 @@ public class DefaultThreadPoolManager
             return null;
         }
 
+        public DefaultThreadPool getPool() {
+            final ThreadPoolFacade facade = this.pool;
+            if ( facade != null ) {
+                return facade.getPool();
+            }
+            return null;
+        }
+
         protected void unregisterMBean() {
             if ( this.mbeanRegistration != null ) {
                 this.mbeanRegistration.unregister();
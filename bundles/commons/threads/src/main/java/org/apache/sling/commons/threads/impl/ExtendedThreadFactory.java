@@ -17,6 +17,8 @@
 package org.apache.sling.commons.threads.impl;
 
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -30,8 +32,8 @@ import org.apache.sling.commons.threads.ThreadPoolConfig;
  */
 public final class ExtendedThreadFactory implements ThreadFactory {
 
-    /** Template for thread names, for use with String#format() */
-    private static final String THREAD_NAME_TEMPLATE = "sling-%s-%d";
+    /** Template for the thread name prefix, for use with String#format() */
+    private static final String THREAD_NAME_PREFIX_TEMPLATE = "sling-%s-";
 
     /** The real factory. */
     private final ThreadFactory factory;
@@ -99,8 +101,36 @@ public final class ExtendedThreadFactory implements ThreadFactory {
         return thread;
     }
 
+    /**
+     * Return a factory for fork join pool worker threads. As fork join pools
+     * require their own worker threads, these are created by the default
+     * worker thread factory of the JVM instead of the wrapped factory and
+     * only get the name, daemon flag and priority applied.
+     */
+    public ForkJoinPool.ForkJoinWorkerThreadFactory getForkJoinWorkerThreadFactory() {
+        return new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+
+            public ForkJoinWorkerThread newThread( final ForkJoinPool pool ) {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(nextThreadName());
+                thread.setPriority( priority );
+                thread.setDaemon( isDaemon );
+
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Return the prefix of the thread names, for thread builders
+     * appending the counter themselves.
+     */
+    public String getThreadNamePrefix() {
+        return String.format(THREAD_NAME_PREFIX_TEMPLATE, this.name);
+    }
+
     private String nextThreadName() {
-        return String.format(THREAD_NAME_TEMPLATE, this.name, this.threadCounter.getAndIncrement());
+        return getThreadNamePrefix() + this.threadCounter.getAndIncrement();
     }
 
     private static String stripPrefixes(final String name, final String... prefixes) {
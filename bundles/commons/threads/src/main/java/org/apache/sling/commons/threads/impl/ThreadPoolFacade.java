@@ -103,4 +103,8 @@ public final class ThreadPoolFacade implements ThreadPool {
     public ThreadPoolExecutor getExecutor() {
         return this.delegatee.getExecutor();
     }
+
+    public DefaultThreadPool getPool() {
+        return this.delegatee;
+    }
 }
@@ -38,18 +38,18 @@ class ThreadPoolMBeanImpl extends StandardMBean implements ThreadPoolMBean {
     }
 
     public int getExecutorActiveCount() {
-        final ThreadPoolExecutor tpe = this.entry.getExecutor();
-        if ( tpe != null ) {
-            return tpe.getActiveCount();
+        final DefaultThreadPool pool = this.entry.getPool();
+        if ( pool != null ) {
+            return pool.getActiveCount();
         } else {
             return -1;
         }
     }
 
     public long getExecutorCompletedTaskCount() {
-        final ThreadPoolExecutor tpe = this.entry.getExecutor();
-        if ( tpe != null ) {
-            return tpe.getCompletedTaskCount();
+        final DefaultThreadPool pool = this.entry.getPool();
+        if ( pool != null ) {
+            return pool.getCompletedTaskCount();
         } else {
             return -1;
         }
@@ -100,6 +100,37 @@ class ThreadPoolMBeanImpl extends StandardMBean implements ThreadPoolMBean {
         }
     }
 
+    public long getExecutorQueuedTaskCount() {
+        final DefaultThreadPool pool = this.entry.getPool();
+        if ( pool != null ) {
+            return pool.getQueuedTaskCount();
+        } else {
+            return -1;
+        }
+    }
+
+    public String getExecutorType() {
+        final DefaultThreadPool pool = this.entry.getPool();
+        if ( pool != null ) {
+            return pool.getType().name();
+        } else {
+            return null;
+        }
+    }
+
+    public long[] getTaskWaitTimeHistogram() {
+        final DefaultThreadPool pool = this.entry.getPool();
+        if ( pool != null ) {
+            return pool.getStatistics().getWaitTimeHistogram();
+        } else {
+            return null;
+        }
+    }
+
+    public long[] getTaskWaitTimeHistogramBoundaries() {
+        return ThreadPoolStatistics.getWaitTimeBoundaries();
+    }
+
     public long getMaxThreadAge() {
         return this.entry.getConfig().getMaxThreadAge();
     }
@@ -132,6 +163,10 @@ class ThreadPoolMBeanImpl extends StandardMBean implements ThreadPoolMBean {
         return this.entry.getConfig().getQueueSize();
     }
 
+    public String getType() {
+        return this.entry.getConfig().getType().name();
+    }
+
     public int getShutdownWaitTimeMs() {
         return this.entry.getConfig().getShutdownWaitTimeMs();
     }
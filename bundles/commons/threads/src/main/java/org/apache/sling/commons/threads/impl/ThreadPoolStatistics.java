@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.threads.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Task statistics of a {@link DefaultThreadPool}, independent of the
+ * executor type. Tasks are wrapped on submission to count active and
+ * completed tasks and to record the time a task waited between its
+ * submission and the start of its execution into a histogram.
+ */
+public final class ThreadPoolStatistics {
+
+    /**
+     * Upper bounds in microseconds of the wait time histogram buckets,
+     * a last bucket holds all longer wait times.
+     */
+    private static final long[] WAIT_TIME_BOUNDARIES = {10, 100, 1000, 10000, 100000, 1000000};
+
+    private final AtomicLongArray waitTimes = new AtomicLongArray(WAIT_TIME_BOUNDARIES.length + 1);
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final AtomicLong completedCount = new AtomicLong();
+
+    /**
+     * Wrap a runnable to record its statistics.
+     */
+    public Runnable wrap(final Runnable runnable) {
+        final long submitted = System.nanoTime();
+        return new Runnable() {
+
+            public void run() {
+                started(submitted);
+                try {
+                    runnable.run();
+                } finally {
+                    finished();
+                }
+            }
+
+            @Override
+            public String toString() {
+                return runnable.toString();
+            }
+        };
+    }
+
+    /**
+     * Wrap a callable to record its statistics.
+     */
+    public <T> Callable<T> wrap(final Callable<T> callable) {
+        final long submitted = System.nanoTime();
+        return new Callable<T>() {
+
+            public T call() throws Exception {
+                started(submitted);
+                try {
+                    return callable.call();
+                } finally {
+                    finished();
+                }
+            }
+
+            @Override
+            public String toString() {
+                return callable.toString();
+            }
+        };
+    }
+
+    private void started(final long submitted) {
+        this.activeCount.incrementAndGet();
+        final long waitTime = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - submitted);
+        int index = 0;
+        while ( index < WAIT_TIME_BOUNDARIES.length && waitTime > WAIT_TIME_BOUNDARIES[index] ) {
+            index++;
+        }
+        this.waitTimes.incrementAndGet(index);
+    }
+
+    private void finished() {
+        this.activeCount.decrementAndGet();
+        this.completedCount.incrementAndGet();
+    }
+
+    /**
+     * Return the number of tasks currently executing.
+     */
+    public int getActiveCount() {
+        return this.activeCount.get();
+    }
+
+    /**
+     * Return the number of tasks which completed execution.
+     */
+    public long getCompletedTaskCount() {
+        return this.completedCount.get();
+    }
+
+    /**
+     * Return the number of started tasks per wait time bucket.
+     * @see #getWaitTimeBoundaries()
+     */
+    public long[] getWaitTimeHistogram() {
+        final long[] result = new long[this.waitTimes.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.waitTimes.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Return the upper bounds in microseconds of the wait time buckets.
+     * The histogram has one more bucket for all longer wait times.
+     */
+    public static long[] getWaitTimeBoundaries() {
+        return WAIT_TIME_BOUNDARIES.clone();
+    }
+}
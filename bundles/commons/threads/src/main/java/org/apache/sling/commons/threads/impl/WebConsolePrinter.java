@@ -104,6 +104,17 @@ public class WebConsolePrinter {
                 pw.println(config.getShutdownWaitTimeMs());
                 pw.print("- daemon : ");
                 pw.println(config.isDaemon());
+                pw.print("- type : ");
+                pw.println(config.getType());
+                final DefaultThreadPool pool = entry.getPool();
+                if ( pool != null ) {
+                    pw.print("- executor type : ");
+                    pw.println(pool.getType());
+                    pw.print("- queued task count : ");
+                    pw.println(pool.getQueuedTaskCount());
+                    pw.print("- task wait time histogram : ");
+                    pw.println(formatHistogram(pool.getStatistics().getWaitTimeHistogram()));
+                }
                 final ThreadPoolExecutor tpe = entry.getExecutor();
                 if ( tpe != null ) {
                     pw.print("- active count : ");
@@ -120,6 +131,11 @@ public class WebConsolePrinter {
                     pw.println(tpe.getPoolSize());
                     pw.print("- task count : ");
                     pw.println(tpe.getTaskCount());
+                } else if ( pool != null ) {
+                    pw.print("- active count : ");
+                    pw.println(pool.getActiveCount());
+                    pw.print("- completed task count : ");
+                    pw.println(pool.getCompletedTaskCount());
                 }
                 pw.println();
             }
@@ -127,4 +143,25 @@ public class WebConsolePrinter {
             pw.println("No pools configured.");
         }
     }
+
+    /**
+     * Format the wait time histogram as a list of bucket upper bounds
+     * in microseconds and task counts.
+     */
+    private String formatHistogram(final long[] histogram) {
+        final long[] boundaries = ThreadPoolStatistics.getWaitTimeBoundaries();
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < histogram.length; i++) {
+            if ( i > 0 ) {
+                sb.append(", ");
+            }
+            if ( i < boundaries.length ) {
+                sb.append("<=").append(boundaries[i]).append("us");
+            } else {
+                sb.append(">").append(boundaries[boundaries.length - 1]).append("us");
+            }
+            sb.append(": ").append(histogram[i]);
+        }
+        return sb.toString();
+    }
 }
@@ -82,6 +82,42 @@ public interface ThreadPoolMBean {
      */
     long getExecutorTaskCount();
 
+    /**
+     * Retrieve the number of tasks waiting for execution in the pool's Executor.
+     *
+     * @return the queued task count or -1 if the thread pool does not have an Executor
+     * @since 1.2
+     */
+    long getExecutorQueuedTaskCount();
+
+    /**
+     * Retrieve the type of the pool's Executor. This is the configured type
+     * unless it is not supported by the JVM.
+     *
+     * @return the executor type or <code>null</code> if the thread pool does not have an Executor
+     * @since 1.2
+     */
+    String getExecutorType();
+
+    /**
+     * Retrieve the histogram of the times tasks waited between their submission
+     * and the start of their execution. Each value is the number of tasks in the
+     * corresponding bucket of {@link #getTaskWaitTimeHistogramBoundaries()}, the
+     * last value is the number of tasks which waited longer.
+     *
+     * @return the histogram or <code>null</code> if the thread pool does not have an Executor
+     * @since 1.2
+     */
+    long[] getTaskWaitTimeHistogram();
+
+    /**
+     * Retrieve the upper bounds of the task wait time histogram buckets.
+     *
+     * @return the upper bounds in microseconds
+     * @since 1.2
+     */
+    long[] getTaskWaitTimeHistogramBoundaries();
+
     /**
      * Return the configured max thread age.
      *
@@ -138,6 +174,14 @@ public interface ThreadPoolMBean {
      */
     int getQueueSize();
 
+    /**
+     * Return the configured type of the thread pool.
+     *
+     * @return The configured type.
+     * @since 1.2
+     */
+    String getType();
+
     /**
      * Return the configured shutdown wait time in milliseconds.
      * 
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.commons.threads.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.commons.threads.ModifiableThreadPoolConfig;
+import org.apache.sling.commons.threads.ThreadPoolConfig.ThreadPoolType;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultThreadPoolTest {
+
+    private DefaultThreadPool pool;
+
+    @After
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private DefaultThreadPool createPool(final ThreadPoolType type) {
+        final ModifiableThreadPoolConfig config = new ModifiableThreadPoolConfig();
+        config.setMinPoolSize(1);
+        config.setMaxPoolSize(2);
+        config.setType(type);
+        pool = new DefaultThreadPool("test pool", config);
+        return pool;
+    }
+
+    private static long sum(final long[] values) {
+        long sum = 0;
+        for (final long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Test
+    public void shouldRunTasksInDefaultPool() throws Exception {
+        final DefaultThreadPool pool = createPool(ThreadPoolType.DEFAULT);
+        assertEquals(ThreadPoolType.DEFAULT, pool.getType());
+        assertNotNull(pool.getExecutor());
+
+        assertEquals("sling-test-pool-1", pool.submit(new CurrentThreadName()).get());
+        assertEquals(1, pool.getCompletedTaskCount());
+        assertEquals(1, sum(pool.getStatistics().getWaitTimeHistogram()));
+    }
+
+    @Test
+    public void shouldRunTasksInWorkStealingPool() throws Exception {
+        final DefaultThreadPool pool = createPool(ThreadPoolType.WORK_STEALING);
+        assertEquals(ThreadPoolType.WORK_STEALING, pool.getType());
+        assertNull(pool.getExecutor());
+
+        final int tasks = 20;
+        final List<Future<String>> futures = new ArrayList<Future<String>>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(pool.submit(new CurrentThreadName()));
+        }
+        for (final Future<String> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS).startsWith("sling-test-pool-"));
+        }
+
+        assertEquals(tasks, pool.getCompletedTaskCount());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(0, pool.getQueuedTaskCount());
+        assertEquals(tasks, sum(pool.getStatistics().getWaitTimeHistogram()));
+    }
+
+    @Test
+    public void shouldRunTasksInVirtualPoolOrFallBack() throws ExecutionException, InterruptedException {
+        final DefaultThreadPool pool = createPool(ThreadPoolType.VIRTUAL);
+        if (pool.getType() == ThreadPoolType.DEFAULT) {
+            // the JVM does not support virtual threads
+            assertNotNull(pool.getExecutor());
+        } else {
+            assertEquals(ThreadPoolType.VIRTUAL, pool.getType());
+            assertNull(pool.getExecutor());
+        }
+        assertTrue(pool.submit(new CurrentThreadName()).get().startsWith("sling-test-pool-"));
+        assertEquals(1, pool.getCompletedTaskCount());
+    }
+
+    @Test
+    public void shouldRecordWaitTimes() throws Exception {
+        final ThreadPoolStatistics statistics = new ThreadPoolStatistics();
+        final Runnable runnable = statistics.wrap(new Runnable() {
+
+            public void run() {
+                // nothing to do
+            }
+        });
+        Thread.sleep(2);
+        runnable.run();
+
+        final long[] histogram = statistics.getWaitTimeHistogram();
+        assertEquals(ThreadPoolStatistics.getWaitTimeBoundaries().length + 1, histogram.length);
+        // waited more than one millisecond
+        assertEquals(0, histogram[0] + histogram[1] + histogram[2]);
+        assertEquals(1, sum(histogram));
+        assertEquals(1, statistics.getCompletedTaskCount());
+        assertEquals(0, statistics.getActiveCount());
+    }
+
+    private static final class CurrentThreadName implements Callable<String> {
+
+        public String call() {
+            return Thread.currentThread().getName();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.sling.engine.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values with log-linear buckets.
+ * <p>
+ * Values below 64 are counted exactly, larger values in 32 linear sub
+ * buckets per power of two, which bounds the relative error of the
+ * reported percentiles to about 3%. Values larger than
+ * {@link #MAX_VALUE} are counted as {@link #MAX_VALUE}.
+ * <p>
+ * Recording a value does a single atomic increment and does not allocate.
+ * The counts are striped by thread like the cells of the
+ * {@link RequestProcessorMBeanImpl}, so that threads recording the same
+ * value do not contend on one counter. Each stripe takes about 7KB.
+ */
+final class LogLinearHistogram {
+
+    /** The largest value tracked with the bucket precision. */
+    static final long MAX_VALUE = Integer.MAX_VALUE;
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets, the last one holds {@link #MAX_VALUE}. */
+    static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final int stripes;
+
+    // BUCKETS counts per stripe, the stripes are far apart enough not to share cache lines
+    private final AtomicLongArray counts;
+
+    /**
+     * @param stripes The number of stripes, a power of two
+     */
+    LogLinearHistogram(final int stripes) {
+        this.stripes = stripes;
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+    }
+
+    void record(final long value) {
+        final int stripe = (int) (Thread.currentThread().getId() & (stripes - 1)) * BUCKETS;
+        counts.incrementAndGet(stripe + index(value));
+    }
+
+    /**
+     * Adds the counts of this histogram to the given bucket counts.
+     */
+    void addTo(final long[] bucketCounts) {
+        for (int stripe = 0; stripe < stripes * BUCKETS; stripe += BUCKETS) {
+            for (int i = 0; i < BUCKETS; i++) {
+                bucketCounts[i] += counts.get(stripe + i);
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of this histogram multiplied by <code>weight</code>
+     * to the given bucket counts, rounding per bucket.
+     */
+    void addTo(final long[] bucketCounts, final double weight) {
+        final long[] own = new long[BUCKETS];
+        addTo(own);
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] += Math.round(own[i] * weight);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < stripes * BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the value below or at which the given fraction of the values
+     * counted in the bucket counts lies, or 0 if no value has been counted.
+     *
+     * @param bucketCounts The bucket counts as filled by {@link #addTo(long[])}
+     * @param fraction The percentile as a fraction between 0 and 1
+     */
+    static long percentile(final long[] bucketCounts, final double fraction) {
+        final long total = count(bucketCounts);
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of values counted in the bucket counts.
+     */
+    static long count(final long[] bucketCounts) {
+        long total = 0;
+        for (final long count : bucketCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    static int index(final long value) {
+        final long v = Math.max(0, Math.min(value, MAX_VALUE));
+        final int shift = Math.max(0, 64 - SUB_BUCKET_BITS - 1 - Long.numberOfLeadingZeros(v));
+        return shift * SUB_BUCKETS + (int) (v >>> shift);
+    }
+
+    /**
+     * Returns the highest value counted in the bucket with the given index.
+     */
+    static long highestValue(final int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long subBucket = index - shift * SUB_BUCKETS;
+        return Math.min(MAX_VALUE, ((subBucket + 1) << shift) - 1);
+    }
+}
@@ -16,7 +16,7 @@
  */
 package org.apache.sling.engine.impl;
 
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
@@ -27,256 +27,405 @@ import org.apache.sling.engine.jmx.RequestProcessorMBean;
 /**
  * This is the implementation of the management interface for the
  * RequestProcessor.
+ * <p>
+ * Requests are recorded without locking or allocation: the sums, minima
+ * and maxima are kept in cells striped by thread, the distributions in
+ * {@link LogLinearHistogram}s and the rolling windows in one histogram per
+ * minute. The statistics are aggregated when read, so a value read while
+ * requests are recorded or the statistics are reset may be slightly off.
  */
 class RequestProcessorMBeanImpl extends StandardMBean implements RequestProcessorMBean {
 
-    private final AtomicReference<Data> dataRef = new AtomicReference<Data>(new Data());
+    // cell offsets within a stripe
+    private static final int N = 0;
+
+    private static final int DURATION = 1;
+
+    private static final int SERVLET_CALL_COUNT = 5;
+
+    private static final int PEAK_RECURSION_DEPTH = 9;
+
+    // offsets of the values of a measure, relative to its first cell
+    private static final int SUM_X = 0;
+
+    private static final int SUM_X2 = 1;
+
+    private static final int MIN = 2;
+
+    private static final int MAX = 3;
+
+    // cells per stripe, 16 longs keep the stripes on separate cache lines
+    private static final int CELLS = 16;
+
+    private static final int STRIPES = stripes();
+
+    // histogram stripes are much larger than cell stripes, so use fewer of them
+    private static final int HISTOGRAM_STRIPES = Math.min(STRIPES, 8);
+
+    private static final long MINUTE_MSEC = 60 * 1000L;
+
+    // one slot per minute, covering the longest window plus the current minute
+    private static final int WINDOW_SLOTS = 16;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * CELLS);
+
+    private final LogLinearHistogram durations = new LogLinearHistogram(HISTOGRAM_STRIPES);
+
+    private final LogLinearHistogram servletCallCounts = new LogLinearHistogram(HISTOGRAM_STRIPES);
+
+    private final LogLinearHistogram peakRecursionDepths = new LogLinearHistogram(HISTOGRAM_STRIPES);
+
+    private final WindowSlot[] windowSlots = new WindowSlot[WINDOW_SLOTS];
 
     RequestProcessorMBeanImpl() throws NotCompliantMBeanException {
         super(RequestProcessorMBean.class);
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            windowSlots[i] = new WindowSlot();
+        }
+        resetStatistics();
     }
 
     void addRequestData(final RequestData data) {
-        
-        // do a non-blocking busy loop and atomically set the new data
-        // the advantage of this algorithm is that there is no blocking
-        // involved
-        // 
-        // there might be some memory churn under high contention, but that
-        // remains to be seen
-        for ( ;; ) {
-
-            Data oldVal = dataRef.get();
-            Data newVal = new Data(oldVal, data);
-
-            boolean success = dataRef.compareAndSet(oldVal, newVal);
-            if ( success ) {
-                break;
+        addRequestData(data, System.currentTimeMillis());
+    }
+
+    void addRequestData(final RequestData data, final long now) {
+        final long duration = data.getElapsedTimeMsec();
+        final int servletCallCount = data.getServletCallCount();
+        final int peakRecursionDepth = data.getPeakRecusionDepth();
+
+        final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * CELLS;
+        cells.incrementAndGet(stripe + N);
+        addValue(stripe + DURATION, duration);
+        addValue(stripe + SERVLET_CALL_COUNT, servletCallCount);
+        addValue(stripe + PEAK_RECURSION_DEPTH, peakRecursionDepth);
+
+        durations.record(duration);
+        servletCallCounts.record(servletCallCount);
+        peakRecursionDepths.record(peakRecursionDepth);
+        getWindowSlot(now).durations.record(duration);
+    }
+
+    public void resetStatistics() {
+        for (int stripe = 0; stripe < STRIPES * CELLS; stripe += CELLS) {
+            cells.set(stripe + N, 0);
+            resetValue(stripe + DURATION, Long.MAX_VALUE);
+            resetValue(stripe + SERVLET_CALL_COUNT, Integer.MAX_VALUE);
+            resetValue(stripe + PEAK_RECURSION_DEPTH, Integer.MAX_VALUE);
+        }
+        durations.clear();
+        servletCallCounts.clear();
+        peakRecursionDepths.clear();
+        for (final WindowSlot slot : windowSlots) {
+            synchronized (slot) {
+                slot.durations.clear();
+                slot.minute = -1;
             }
         }
     }
-    
-    public void resetStatistics() {
-        dataRef.set(new Data());
-    }    
 
     public long getRequestsCount() {
-        return dataRef.get().n;
+        return sum(N);
     }
 
     public long getMinRequestDurationMsec() {
-        return dataRef.get().durationMsecMin;
+        return min(DURATION);
     }
 
     public long getMaxRequestDurationMsec() {
-        return dataRef.get().durationMsecMax;
+        return max(DURATION);
     }
 
     public double getStandardDeviationDurationMsec() {
-        return dataRef.get().standardDeviationDurationMsec;
+        return standardDeviation(DURATION);
     }
 
     public double getMeanRequestDurationMsec() {
-        return dataRef.get().meanRequestDurationMsec;
+        return mean(DURATION);
     }
 
     public int getMaxPeakRecursionDepth() {
-        return dataRef.get().peakRecursionDepthMax;
+        return (int) max(PEAK_RECURSION_DEPTH);
     }
 
     public int getMinPeakRecursionDepth() {
-        return dataRef.get().peakRecursionDepthMin;
+        return (int) min(PEAK_RECURSION_DEPTH);
     }
 
     public double getMeanPeakRecursionDepth() {
-        return dataRef.get().meanPeakRecursionDepth;
+        return mean(PEAK_RECURSION_DEPTH);
     }
 
     public double getStandardDeviationPeakRecursionDepth() {
-        return dataRef.get().standardDeviationPeakRecursionDepth;
+        return standardDeviation(PEAK_RECURSION_DEPTH);
     }
 
     public int getMaxServletCallCount() {
-        return dataRef.get().servletCallCountMax;
+        return (int) max(SERVLET_CALL_COUNT);
     }
 
     public int getMinServletCallCount() {
-        return dataRef.get().servletCallCountMin;
+        return (int) min(SERVLET_CALL_COUNT);
     }
 
     public double getMeanServletCallCount() {
-        
-        return dataRef.get().meanServletCallCount;
+        return mean(SERVLET_CALL_COUNT);
     }
 
     public double getStandardDeviationServletCallCount() {
-        
-        return dataRef.get().standardDeviationServletCallCount;
+        return standardDeviation(SERVLET_CALL_COUNT);
+    }
+
+    public long getP50RequestDurationMsec() {
+        return percentile(durations, 0.5);
+    }
+
+    public long getP90RequestDurationMsec() {
+        return percentile(durations, 0.9);
     }
-    
+
+    public long getP99RequestDurationMsec() {
+        return percentile(durations, 0.99);
+    }
+
+    public long getP999RequestDurationMsec() {
+        return percentile(durations, 0.999);
+    }
+
+    public int getP50ServletCallCount() {
+        return (int) percentile(servletCallCounts, 0.5);
+    }
+
+    public int getP90ServletCallCount() {
+        return (int) percentile(servletCallCounts, 0.9);
+    }
+
+    public int getP99ServletCallCount() {
+        return (int) percentile(servletCallCounts, 0.99);
+    }
+
+    public int getP999ServletCallCount() {
+        return (int) percentile(servletCallCounts, 0.999);
+    }
+
+    public int getP50PeakRecursionDepth() {
+        return (int) percentile(peakRecursionDepths, 0.5);
+    }
+
+    public int getP90PeakRecursionDepth() {
+        return (int) percentile(peakRecursionDepths, 0.9);
+    }
+
+    public int getP99PeakRecursionDepth() {
+        return (int) percentile(peakRecursionDepths, 0.99);
+    }
+
+    public int getP999PeakRecursionDepth() {
+        return (int) percentile(peakRecursionDepths, 0.999);
+    }
+
+    public long getRequestsCountLast1Min() {
+        return getRequestsCount(1, System.currentTimeMillis());
+    }
+
+    public long getRequestsCountLast5Min() {
+        return getRequestsCount(5, System.currentTimeMillis());
+    }
+
+    public long getRequestsCountLast15Min() {
+        return getRequestsCount(15, System.currentTimeMillis());
+    }
+
+    public long getP50RequestDurationMsecLast1Min() {
+        return getRequestDurationMsec(0.5, 1, System.currentTimeMillis());
+    }
+
+    public long getP90RequestDurationMsecLast1Min() {
+        return getRequestDurationMsec(0.9, 1, System.currentTimeMillis());
+    }
+
+    public long getP99RequestDurationMsecLast1Min() {
+        return getRequestDurationMsec(0.99, 1, System.currentTimeMillis());
+    }
+
+    public long getP999RequestDurationMsecLast1Min() {
+        return getRequestDurationMsec(0.999, 1, System.currentTimeMillis());
+    }
+
+    public long getP50RequestDurationMsecLast5Min() {
+        return getRequestDurationMsec(0.5, 5, System.currentTimeMillis());
+    }
+
+    public long getP90RequestDurationMsecLast5Min() {
+        return getRequestDurationMsec(0.9, 5, System.currentTimeMillis());
+    }
+
+    public long getP99RequestDurationMsecLast5Min() {
+        return getRequestDurationMsec(0.99, 5, System.currentTimeMillis());
+    }
+
+    public long getP999RequestDurationMsecLast5Min() {
+        return getRequestDurationMsec(0.999, 5, System.currentTimeMillis());
+    }
+
+    public long getP50RequestDurationMsecLast15Min() {
+        return getRequestDurationMsec(0.5, 15, System.currentTimeMillis());
+    }
+
+    public long getP90RequestDurationMsecLast15Min() {
+        return getRequestDurationMsec(0.9, 15, System.currentTimeMillis());
+    }
+
+    public long getP99RequestDurationMsecLast15Min() {
+        return getRequestDurationMsec(0.99, 15, System.currentTimeMillis());
+    }
+
+    public long getP999RequestDurationMsecLast15Min() {
+        return getRequestDurationMsec(0.999, 15, System.currentTimeMillis());
+    }
+
+    long getRequestsCount(final int minutes, final long now) {
+        return LogLinearHistogram.count(windowCounts(minutes, now));
+    }
+
+    long getRequestDurationMsec(final double fraction, final int minutes, final long now) {
+        return LogLinearHistogram.percentile(windowCounts(minutes, now), fraction);
+    }
+
     /**
-     * Helper class to atomically hold raw data and compute statistics
+     * Returns the duration histogram of the requests completed in the given
+     * number of minutes up to {@code now}.
+     * <p>
+     * The window reaches back into the minute {@code minutes} before the
+     * minute of {@code now}. That minute is only partly in the window, its
+     * counts are weighted with the part of it in the window, assuming the
+     * requests were evenly spread over the minute. The minutes after it up
+     * to and including the minute of {@code now} are counted completely.
      */
-    private static class Data {
-        
-        // number of requests
-        private final long n;
-
-        // shortest request
-        private final long durationMsecMin;
-
-        // longest request
-        private final long durationMsecMax;
-
-        // sum of request durations
-        private final double durationMsecSumX;
-
-        // sum of squared request durations
-        private final double durationMsecSumX2;
-
-        private final int servletCallCountMin;
-
-        private final int servletCallCountMax;
-
-        private final double servletCallCountSumX;
-
-        private final double servletCallCountSumX2;
-
-        private final int peakRecursionDepthMin;
-
-        private final int peakRecursionDepthMax;
-
-        private final double peakRecursionDepthSumX;
-
-        private final double peakRecursionDepthSumX2;
-
-        private final double standardDeviationDurationMsec;
-
-        private final double meanRequestDurationMsec;
-
-        private final double meanPeakRecursionDepth;
-        
-        private final double standardDeviationPeakRecursionDepth;
-        
-        private final double meanServletCallCount;
-
-        private final double standardDeviationServletCallCount;
-        
-        // computed fields
-        
-        Data() {
-            n = 0;
-            
-            durationMsecMin = Long.MAX_VALUE;
-            durationMsecMax = 0;
-            durationMsecSumX = 0;
-            durationMsecSumX2 = 0;
-            
-            servletCallCountMin = Integer.MAX_VALUE;
-            servletCallCountMax = 0;
-            servletCallCountSumX = 0;
-            servletCallCountSumX2 = 0;
-            
-            peakRecursionDepthMin = Integer.MAX_VALUE;
-            peakRecursionDepthMax = 0;
-            peakRecursionDepthSumX = 0;
-            peakRecursionDepthSumX2 = 0;
-            
-            standardDeviationDurationMsec = computeStandardDeviationDurationMsec();
-            meanRequestDurationMsec = computeMeanRequestDurationMsec();
-            meanPeakRecursionDepth = computeMeanPeakRecursionDepth();
-            standardDeviationPeakRecursionDepth = computeStandardDeviationPeakRecursionDepth();
-            meanServletCallCount = computeMeanServletCallCount();
-            standardDeviationServletCallCount = computeStandardDeviationServletCallCount();
-        }
-        
-        Data(Data other, RequestData data) {
-            if ( other == null || data == null ) {
-                throw new IllegalArgumentException("Neither 'other' nor 'data' may be null");
+    private long[] windowCounts(final int minutes, final long now) {
+        final long current = now / MINUTE_MSEC;
+        final long oldest = current - minutes;
+        final double oldestWeight = (double) (MINUTE_MSEC - now % MINUTE_MSEC) / MINUTE_MSEC;
+        final long[] counts = new long[LogLinearHistogram.BUCKETS];
+        for (final WindowSlot slot : windowSlots) {
+            final long minute = slot.minute;
+            if (minute > oldest && minute <= current) {
+                slot.durations.addTo(counts);
+            } else if (minute == oldest) {
+                slot.durations.addTo(counts, oldestWeight);
             }
-            
-            final long duration = data.getElapsedTimeMsec();
-            final int servletCallCount = data.getServletCallCount();
-            final int peakRecursionDepth = data.getPeakRecusionDepth();
-
-            n = other.n + 1;
-            
-            durationMsecMin = Math.min(duration, other.durationMsecMin);
-            durationMsecMax = Math.max(duration, other.durationMsecMax);
-            durationMsecSumX = other.durationMsecSumX + duration;
-            durationMsecSumX2 = other.durationMsecSumX2 + (duration * duration);
-            
-            servletCallCountMin = Math.min(servletCallCount, other.servletCallCountMin);
-            servletCallCountMax = Math.max(servletCallCount, other.servletCallCountMax);
-            servletCallCountSumX = other.servletCallCountSumX + servletCallCount;
-            servletCallCountSumX2 = other.servletCallCountSumX2 + (servletCallCount * servletCallCount);
-            
-            peakRecursionDepthMin = Math.min(peakRecursionDepth , other.peakRecursionDepthMin);
-            peakRecursionDepthMax = Math.max(peakRecursionDepth , other.peakRecursionDepthMax);
-            peakRecursionDepthSumX = other.peakRecursionDepthSumX + peakRecursionDepth;
-            peakRecursionDepthSumX2 = other.peakRecursionDepthSumX2 + (peakRecursionDepth * peakRecursionDepth);
-            
-            standardDeviationDurationMsec = computeStandardDeviationDurationMsec();
-            meanRequestDurationMsec = computeMeanRequestDurationMsec();
-            meanPeakRecursionDepth = computeMeanPeakRecursionDepth();
-            standardDeviationPeakRecursionDepth = computeStandardDeviationPeakRecursionDepth();
-            meanServletCallCount = computeMeanServletCallCount();
-            standardDeviationServletCallCount = computeStandardDeviationServletCallCount();
         }
+        return counts;
+    }
 
-        private double computeStandardDeviationDurationMsec() {
-            if (this.n > 1) {
-                // algorithm taken from
-                // http://de.wikipedia.org/wiki/Standardabweichung section
-                // "Berechnung fuer auflaufende Messwerte"
-                return Math.sqrt((this.durationMsecSumX2 - this.durationMsecSumX * this.durationMsecSumX / this.n) / (this.n - 1));
+    private WindowSlot getWindowSlot(final long now) {
+        final long minute = now / MINUTE_MSEC;
+        final WindowSlot slot = windowSlots[(int) (minute % WINDOW_SLOTS)];
+        if (slot.minute < minute) {
+            // first request of a new minute recycles the slot
+            synchronized (slot) {
+                if (slot.minute < minute) {
+                    slot.durations.clear();
+                    slot.minute = minute;
+                }
             }
+        }
+        return slot;
+    }
+
+    private void addValue(final int cell, final long value) {
+        cells.addAndGet(cell + SUM_X, value);
+        cells.addAndGet(cell + SUM_X2, value * value);
 
-            // single data point has no deviation
-            return 0;
+        long current;
+        while (value < (current = cells.get(cell + MIN)) && !cells.compareAndSet(cell + MIN, current, value)) {
+            // retry
         }
+        while (value > (current = cells.get(cell + MAX)) && !cells.compareAndSet(cell + MAX, current, value)) {
+            // retry
+        }
+    }
 
-        private double computeMeanRequestDurationMsec() {
-            if (this.n > 0) {
-                return this.durationMsecSumX / this.n;
-            } else {
-                return 0;
-            }
+    private void resetValue(final int cell, final long min) {
+        cells.set(cell + SUM_X, 0);
+        cells.set(cell + SUM_X2, 0);
+        cells.set(cell + MIN, min);
+        cells.set(cell + MAX, 0);
+    }
+
+    private long sum(final int cell) {
+        long sum = 0;
+        for (int stripe = 0; stripe < STRIPES * CELLS; stripe += CELLS) {
+            sum += cells.get(stripe + cell);
         }
-        
-        private double computeMeanPeakRecursionDepth() {
-            if (this.n > 0) {
-                return this.peakRecursionDepthSumX / this.n;
-            } else {
-                return 0;
-            }
+        return sum;
+    }
+
+    private long min(final int measure) {
+        long min = Long.MAX_VALUE;
+        for (int stripe = 0; stripe < STRIPES * CELLS; stripe += CELLS) {
+            min = Math.min(min, cells.get(stripe + measure + MIN));
         }
+        return min;
+    }
 
-        private double computeStandardDeviationPeakRecursionDepth() {
-            if (this.n > 1) {
-                return Math.sqrt((this.peakRecursionDepthSumX2 - this.peakRecursionDepthSumX * this.peakRecursionDepthSumX / this.n) / (this.n - 1));
-            }
+    private long max(final int measure) {
+        long max = 0;
+        for (int stripe = 0; stripe < STRIPES * CELLS; stripe += CELLS) {
+            max = Math.max(max, cells.get(stripe + measure + MAX));
+        }
+        return max;
+    }
 
-            // single data point has no deviation
-            return 0;
+    private double mean(final int measure) {
+        final long n = sum(N);
+        if (n > 0) {
+            return (double) sum(measure + SUM_X) / n;
         }
-        
-        private double computeMeanServletCallCount() {
-            if (this.n > 0) {
-                return this.servletCallCountSumX / this.n;
-            } else {
-                return 0;
-            }
+        return 0;
+    }
+
+    private double standardDeviation(final int measure) {
+        final long n = sum(N);
+        if (n > 1) {
+            // algorithm taken from
+            // http://de.wikipedia.org/wiki/Standardabweichung section
+            // "Berechnung fuer auflaufende Messwerte"
+            final double sumX = sum(measure + SUM_X);
+            final double sumX2 = sum(measure + SUM_X2);
+            return Math.sqrt((sumX2 - sumX * sumX / n) / (n - 1));
         }
 
-        private double computeStandardDeviationServletCallCount() {
-            if (this.n > 1) {
-                return Math.sqrt((this.servletCallCountSumX2 - this.servletCallCountSumX * this.servletCallCountSumX / this.n) / (this.n - 1));
-            }
+        // single data point has no deviation
+        return 0;
+    }
+
+    private static long percentile(final LogLinearHistogram histogram, final double fraction) {
+        final long[] counts = new long[LogLinearHistogram.BUCKETS];
+        histogram.addTo(counts);
+        return LogLinearHistogram.percentile(counts, fraction);
+    }
 
-            // single data point has no deviation
-            return 0;
+    /**
+     * Returns the number of stripes, a power of two of at least twice the
+     * number of processors, capped at 64.
+     */
+    private static int stripes() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < 2 * processors && stripes < 64) {
+            stripes <<= 1;
         }
+        return stripes;
     }
 
+    /**
+     * The durations of the requests completed in one minute.
+     */
+    private static final class WindowSlot {
+
+        volatile long minute;
+
+        final LogLinearHistogram durations = new LogLinearHistogram(HISTOGRAM_STRIPES);
+    }
 }
@@ -19,6 +19,7 @@
 package org.apache.sling.engine.impl.filter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -36,19 +37,25 @@ public abstract class AbstractSlingFilterChain implements FilterChain {
 
     private int current;
 
+    // nanoseconds spent in each doFilter call, the last for rendering
     private long[] times;
 
+    // whether the filter at the index has been called
+    private boolean[] called;
+
     protected AbstractSlingFilterChain(FilterHandle[] filters) {
         this.filters = filters;
         this.current = -1;
         this.times = (filters != null) ? new long[filters.length + 1] : null;
+        this.called = (filters != null) ? new boolean[filters.length] : null;
     }
 
     public void doFilter(ServletRequest request, ServletResponse response)
             throws ServletException, IOException {
 
         final int filterIdx = ++this.current;
-        final long start = System.currentTimeMillis();
+        int idx = filterIdx;
+        final long start = System.nanoTime();
 
         // the previous filter may have wrapped non-Sling request and response
         // wrappers (e.g. WebCastellum does this), so we have to make
@@ -58,27 +65,29 @@ public abstract class AbstractSlingFilterChain implements FilterChain {
 
         try {
 
-            if (this.current < this.filters.length) {
+            // skip the filters not selected for this request
+            while (idx < this.filters.length && !this.filters[idx].select(slingRequest)) {
+                idx++;
+            }
+            this.current = idx;
+
+            if (idx < this.filters.length) {
 
                 // continue filtering with the next filter
-                FilterHandle filter = this.filters[this.current];
-                
-                if (filter.select(slingRequest)) {
-                    trackFilter(slingRequest, filter);
-                    filter.getFilter().doFilter(slingRequest, slingResponse, this);
-                } else {
-                    if (this.current == this.filters.length-1) {
-                        this.render(slingRequest, slingResponse);
-                    } else {
-                       doFilter(slingRequest, slingResponse);
-                    }
-                }
+                FilterHandle filter = this.filters[idx];
+                this.called[idx] = true;
+                trackFilter(slingRequest, filter);
+                filter.getFilter().doFilter(slingRequest, slingResponse, this);
             } else {
                 this.render(slingRequest, slingResponse);
             }
 
         } finally {
-            times[filterIdx] = System.currentTimeMillis() - start;
+            // skipped filters take no time of their own
+            final long time = System.nanoTime() - start;
+            for (int i = filterIdx; i <= idx; i++) {
+                times[i] = time;
+            }
             if (filterIdx == 0) {
                 consolidateFilterTimings(slingRequest);
             }
@@ -106,16 +115,23 @@ public abstract class AbstractSlingFilterChain implements FilterChain {
             RequestData data = RequestData.getRequestData(request);
             RequestProgressTracker tracker = (data != null) ? data.getRequestProgressTracker() : null;
 
-            for (int i = filters.length - 1; i > 0; i--) {
-                filters[i].trackTime(times[i] - times[i + 1]);
-                if (tracker != null) {
-                    tracker.log("Filter timing: filter={0}, inner={1}, total={2}, outer={3}",
-                        filters[i].getFilter().getClass().getName(), times[i + 1], times[i], (times[i] - times[i + 1]));
+            for (int i = filters.length - 1; i >= 0; i--) {
+                if (called[i]) {
+                    filters[i].trackTime(times[i] - times[i + 1]);
+                    if (tracker != null) {
+                        tracker.log("Filter timing: filter={0}, inner={1}, total={2}, outer={3}",
+                            filters[i].getFilter().getClass().getName(), toMillis(times[i + 1]),
+                            toMillis(times[i]), toMillis(times[i] - times[i + 1]));
+                    }
                 }
             }
         }
     }
 
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
     private SlingHttpServletRequest toSlingRequest(ServletRequest request) {
         if (request instanceof SlingHttpServletRequest) {
             return (SlingHttpServletRequest) request;
@@ -18,8 +18,8 @@
  */
 package org.apache.sling.engine.impl.filter;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.regex.Pattern;
 
 import javax.servlet.Filter;
 
@@ -29,7 +29,7 @@ public class FilterHandle implements Comparable<FilterHandle> {
 
     private final Filter filter;
     
-    private final Pattern regex;
+    private final FilterPathMatcher matcher;
 
     private final Long filterId;
 
@@ -39,18 +39,15 @@ public class FilterHandle implements Comparable<FilterHandle> {
 
     private AtomicLong calls;
 
+    // nanoseconds spent in the filter itself
     private AtomicLong time;
     
     FilterProcessorMBeanImpl mbean;
 
     FilterHandle(Filter filter, String pattern, Long filterId, int order, final String orderSource, FilterProcessorMBeanImpl mbean) {
         this.filter = filter;
-        if (pattern != null && pattern.length() > 0) {
-            this.regex = Pattern.compile(pattern);
-        } else {
-            this.regex = null;
-        }
-        
+        this.matcher = FilterPathMatcher.compile(pattern);
+
         this.filterId = filterId;
         this.order = order;
         this.orderSource = orderSource;
@@ -76,16 +73,16 @@ public class FilterHandle implements Comparable<FilterHandle> {
     }
     
     boolean select(SlingHttpServletRequest slingHttpServletRequest) {
-        boolean select = true;        
-        if (regex != null) {
+        boolean select = true;
+        if (matcher != null) {
             String uri = slingHttpServletRequest.getPathInfo();
             // assume root if uri is null
             if (uri == null)
             {
                 uri = "/";
             }
-            select = this.regex.matcher(uri).matches();
-        }        
+            select = this.matcher.matches(uri);
+        }
         return select;
     }
 
@@ -93,22 +90,33 @@ public class FilterHandle implements Comparable<FilterHandle> {
         return calls.get();
     }
 
+    /**
+     * Returns the time spent in the filter in milliseconds.
+     */
     public long getTime() {
-        return time.get();
+        return TimeUnit.NANOSECONDS.toMillis(time.get());
     }
 
+    /**
+     * Returns the mean time spent in the filter per call in microseconds or
+     * -1 if the filter has not been called yet.
+     */
     public long getTimePerCall() {
-        return (getCalls() > 0) ? (1000L * getTime() / getCalls()) : -1;
+        final long calls = getCalls();
+        return (calls > 0) ? (TimeUnit.NANOSECONDS.toMicros(time.get()) / calls) : -1;
     }
 
     void track() {
         calls.incrementAndGet();
     }
 
+    /**
+     * @param time The nanoseconds spent in the filter during one call
+     */
     void trackTime(long time) {
         this.time.addAndGet(time);
         if (mbean != null) {
-            mbean.addFilterHandle(this);
+            mbean.addInvocation(time);
         }
     }
 
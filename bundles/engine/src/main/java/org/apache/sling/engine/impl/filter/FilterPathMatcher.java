@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The <code>FilterPathMatcher</code> decides whether the
+ * <code>sling.filter.pattern</code> of a filter matches the path info of a
+ * request.
+ * <p>
+ * Most patterns are literal paths, path prefixes (<code>/content/.*</code>),
+ * extensions (<code>.*\.html</code>) or selectors
+ * (<code>.*\.print\..*</code>), that is literal segments separated by
+ * <code>.*</code>. Such patterns are matched with string operations instead
+ * of evaluating a regular expression for every filter of every chain.
+ * Other patterns are matched with the regular expression, after rejecting
+ * paths not starting with the literal prefix of the pattern, if any.
+ */
+abstract class FilterPathMatcher {
+
+    // characters with special meaning in a regular expression
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    // characters quantifying the preceding character
+    private static final String QUANTIFIERS = "?*+{";
+
+    /**
+     * Returns <code>true</code> if the pattern matches the whole path.
+     */
+    abstract boolean matches(String path);
+
+    /**
+     * Returns a matcher for the regular expression or <code>null</code> if
+     * the pattern is <code>null</code> or empty and thus matches any path.
+     *
+     * @throws java.util.regex.PatternSyntaxException If the pattern is not a
+     *             valid regular expression.
+     */
+    static FilterPathMatcher compile(final String pattern) {
+        if (pattern == null || pattern.length() == 0) {
+            return null;
+        }
+
+        // split the pattern into literal segments separated by .*
+        final List<String> segments = new ArrayList<String>();
+        StringBuilder segment = new StringBuilder();
+        final int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            final char c = pattern.charAt(i);
+            final char next = (i + 1 < length) ? pattern.charAt(i + 1) : 0;
+            if (c == '\\' && next != 0 && !Character.isLetterOrDigit(next)) {
+                // escaped meta character
+                segment.append(next);
+                i += 2;
+            } else if (c == '.' && next == '*') {
+                if (i + 2 < length && (pattern.charAt(i + 2) == '?' || pattern.charAt(i + 2) == '+')) {
+                    break;
+                }
+                segments.add(segment.toString());
+                segment = new StringBuilder();
+                i += 2;
+            } else if (META_CHARACTERS.indexOf(c) >= 0 || isLineTerminator(c)) {
+                break;
+            } else {
+                segment.append(c);
+                i++;
+            }
+        }
+
+        if (i == length) {
+            segments.add(segment.toString());
+            if (segments.size() == 1) {
+                return new LiteralMatcher(segments.get(0));
+            }
+            return new SegmentsMatcher(segments.toArray(new String[segments.size()]));
+        }
+
+        // a literal prefix can be checked unless the pattern has alternatives
+        // or the prefix is cut short by a quantifier for its last character
+        String prefix = segments.isEmpty() ? segment.toString() : segments.get(0);
+        if (pattern.indexOf('|') >= 0) {
+            prefix = "";
+        } else if (segments.isEmpty() && prefix.length() > 0 && QUANTIFIERS.indexOf(pattern.charAt(i)) >= 0) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        return new RegexMatcher(Pattern.compile(pattern), prefix);
+    }
+
+    private static boolean isLineTerminator(final char c) {
+        // the characters not matched by . unless in DOTALL mode
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Matches a pattern without any meta characters.
+     */
+    private static final class LiteralMatcher extends FilterPathMatcher {
+
+        private final String literal;
+
+        LiteralMatcher(final String literal) {
+            this.literal = literal;
+        }
+
+        @Override
+        boolean matches(final String path) {
+            return literal.equals(path);
+        }
+    }
+
+    /**
+     * Matches a pattern of literal segments separated by <code>.*</code>:
+     * the path must start with the first and end with the last segment and
+     * contain the other segments in order in between.
+     */
+    private static final class SegmentsMatcher extends FilterPathMatcher {
+
+        private final String[] segments;
+
+        private final int minLength;
+
+        SegmentsMatcher(final String[] segments) {
+            this.segments = segments;
+            int minLength = 0;
+            for (final String segment : segments) {
+                minLength += segment.length();
+            }
+            this.minLength = minLength;
+        }
+
+        @Override
+        boolean matches(final String path) {
+            final String first = segments[0];
+            final String last = segments[segments.length - 1];
+            if (path.length() < minLength || !path.startsWith(first) || !path.endsWith(last)) {
+                return false;
+            }
+
+            int pos = first.length();
+            final int end = path.length() - last.length();
+            for (int i = 1; i < segments.length - 1; i++) {
+                final int idx = path.indexOf(segments[i], pos);
+                if (idx < 0 || idx + segments[i].length() > end) {
+                    return false;
+                }
+                pos = idx + segments[i].length();
+            }
+
+            // the segments have no line terminators, so any line terminator
+            // would have to be matched by .* which it is not
+            for (int i = 0; i < path.length(); i++) {
+                if (isLineTerminator(path.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Matches any other pattern with the regular expression.
+     */
+    private static final class RegexMatcher extends FilterPathMatcher {
+
+        private final Pattern regex;
+
+        private final String prefix;
+
+        RegexMatcher(final Pattern regex, final String prefix) {
+            this.regex = regex;
+            this.prefix = prefix;
+        }
+
+        @Override
+        boolean matches(final String path) {
+            return path.startsWith(prefix) && regex.matcher(path).matches();
+        }
+    }
+}
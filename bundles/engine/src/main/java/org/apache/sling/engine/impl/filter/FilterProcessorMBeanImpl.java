@@ -16,6 +16,8 @@
  */
 package org.apache.sling.engine.impl.filter;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
 
@@ -24,37 +26,64 @@ import org.apache.sling.engine.jmx.FilterProcessorMBean;
 /**
  * This is the implementation of the management interface for the
  * FilterProcessorMBean.
+ * <p>
+ * A filter registered for more than one scope shares this instance among
+ * its filter handles, so the statistics cover all scopes.
  */
 public class FilterProcessorMBeanImpl extends StandardMBean implements FilterProcessorMBean{
-    
+
+    private static final double NANOS_PER_MSEC = 1000000d;
+
     // number of filter invocations
-    private volatile long n;
-    
-    private volatile double meanDuration;
-    
+    private final AtomicLong n = new AtomicLong();
+
+    // nanoseconds spent in the filter
+    private final AtomicLong duration = new AtomicLong();
+
+    private final AtomicLong maxDuration = new AtomicLong();
+
     public FilterProcessorMBeanImpl() throws NotCompliantMBeanException{
         super(FilterProcessorMBean.class);
         resetStatistics();
     }
 
-    void addFilterHandle(FilterHandle filterHandle) {        
-        this.n = filterHandle.getCalls();        
-        this.meanDuration = (double)filterHandle.getTimePerCall()/1000;
+    /**
+     * @param duration The nanoseconds spent in the filter during one call
+     */
+    void addInvocation(final long duration) {
+        this.n.incrementAndGet();
+        this.duration.addAndGet(duration);
+        long max = this.maxDuration.get();
+        while (duration > max && !this.maxDuration.compareAndSet(max, duration)) {
+            max = this.maxDuration.get();
+        }
     }
 
     @Override
     public long getInvocationsCount() {
-        return this.n;
+        return this.n.get();
     }
 
     @Override
     public double getMeanFilterDurationMsec() {
-        return this.meanDuration;
+        final long n = this.n.get();
+        return (n > 0) ? this.duration.get() / NANOS_PER_MSEC / n : 0;
     }
-    
+
+    @Override
+    public double getTotalFilterDurationMsec() {
+        return this.duration.get() / NANOS_PER_MSEC;
+    }
+
+    @Override
+    public double getMaxFilterDurationMsec() {
+        return this.maxDuration.get() / NANOS_PER_MSEC;
+    }
+
     @Override
     public void resetStatistics() {
-        this.n = 0;
-        this.meanDuration = 0;
+        this.n.set(0);
+        this.duration.set(0);
+        this.maxDuration.set(0);
     }
 }
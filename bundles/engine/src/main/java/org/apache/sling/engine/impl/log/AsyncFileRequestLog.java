@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+
+import org.apache.sling.engine.RequestLog;
+import org.apache.sling.engine.jmx.FileRequestLogMBean;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * The <code>AsyncFileRequestLog</code> class is an implementation of the
+ * {@link RequestLog} interface handing the log messages to an
+ * {@link AsyncFileWriter} which writes them to a plain file in the
+ * background.
+ * <p>
+ * Like the {@link FileRequestLog} the writers are shared by all logs writing
+ * to the same file; the buffer size, flush interval and rollover size of the
+ * log first opening a file apply. The {@link RequestLoggerFilter} calls
+ * {@link #dispose()} when it is being deactivated to write pending lines and
+ * close the files.
+ */
+class AsyncFileRequestLog implements RequestLog {
+
+    // The map of shared writers indexed by absolute file name
+    private static Map<String, AsyncFileWriter> writers = new HashMap<String, AsyncFileWriter>();
+
+    // The FileRequestLogMBean registrations indexed by absolute file name
+    private static Map<String, ServiceRegistration> mbeans = new HashMap<String, ServiceRegistration>();
+
+    // Dispose class by stopping all writers
+    static void dispose() {
+        synchronized (writers) {
+            for (final ServiceRegistration reg : mbeans.values()) {
+                try {
+                    reg.unregister();
+                } catch (final IllegalStateException ise) {
+                    // already unregistered
+                }
+            }
+            mbeans.clear();
+
+            for (final AsyncFileWriter writer : writers.values()) {
+                writer.stop();
+            }
+            writers.clear();
+        }
+    }
+
+    // The writer used by this instance to write the messages
+    private volatile AsyncFileWriter writer;
+
+    AsyncFileRequestLog(final BundleContext bundleContext, final File logFile, final int bufferSize,
+            final long flushInterval, final long rolloverSize) throws IOException {
+        synchronized (writers) {
+            final String fileName = logFile.getAbsolutePath();
+            this.writer = writers.get(fileName);
+            if (this.writer == null) {
+                this.writer = new AsyncFileWriter(logFile, bufferSize, flushInterval, rolloverSize);
+                writers.put(fileName, this.writer);
+                if (bundleContext != null) {
+                    mbeans.put(fileName, registerMBean(bundleContext, this.writer));
+                }
+            }
+        }
+    }
+
+    /**
+     * @see org.apache.sling.engine.RequestLog#write(java.lang.String)
+     */
+    public void write(final String message) {
+        final AsyncFileWriter writer = this.writer;
+        if (writer != null) {
+            writer.write(message);
+        }
+    }
+
+    public void close() {
+        // just drop the reference to the writer
+        this.writer = null;
+    }
+
+    AsyncFileWriter getWriter() {
+        return this.writer;
+    }
+
+    private static ServiceRegistration registerMBean(final BundleContext bundleContext, final AsyncFileWriter writer) {
+        final FileRequestLogMBeanImpl mbean;
+        try {
+            mbean = new FileRequestLogMBeanImpl(writer);
+        } catch (final NotCompliantMBeanException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final Hashtable<String, Object> props = new Hashtable<String, Object>();
+        props.put("jmx.objectname", "org.apache.sling:type=engine,service=RequestLog,name="
+            + ObjectName.quote(writer.getFileName()));
+        props.put("service.vendor", "The Apache Software Foundation");
+        props.put("service.description", "Apache Sling Request Log " + writer.getFileName());
+        return bundleContext.registerService(FileRequestLogMBean.class.getName(), mbean, props);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>AsyncFileWriter</code> writes the lines queued in a
+ * {@link LogLineBuffer} to a file from a dedicated thread.
+ * <p>
+ * Lines are collected in a direct byte buffer which is written to the file
+ * channel once it is full or the flush interval has elapsed since the last
+ * write. Request threads therefore never block on the file: if the queue is
+ * full the line is dropped and counted.
+ * <p>
+ * If a rollover size is configured, the file is renamed by appending the
+ * current time once it has grown beyond that size and a new file is started.
+ */
+class AsyncFileWriter implements Runnable {
+
+    private static final int BATCH_SIZE = 64 * 1024;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long STOP_TIMEOUT_MSEC = 5000;
+
+    private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator", "\n").getBytes();
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final File file;
+
+    private final LogLineBuffer queue;
+
+    private final long flushIntervalNanos;
+
+    private final long rolloverSize;
+
+    private final Charset charset = Charset.defaultCharset();
+
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+
+    private final AtomicLong writtenLines = new AtomicLong();
+
+    private final AtomicLong droppedLines = new AtomicLong();
+
+    private final AtomicLong rollovers = new AtomicLong();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    // set if the writer thread did not stop in time; remaining lines are dropped
+    private volatile boolean abandoned;
+
+    // written by the writer thread, closed by stop() if the thread hangs
+    private volatile FileChannel channel;
+
+    // lines in the batch not yet written to the channel
+    private int batchLines;
+
+    private long lastWrite;
+
+    /**
+     * @param file The absolute file to write to
+     * @param bufferSize The maximum number of lines queued
+     * @param flushInterval The maximum number of milliseconds a line is kept
+     *            in memory before being written to the file
+     * @param rolloverSize The size in bytes after which the file is rolled
+     *            over or zero to never roll over the file
+     */
+    AsyncFileWriter(final File file, final int bufferSize, final long flushInterval, final long rolloverSize)
+            throws IOException {
+        this.file = file;
+        this.queue = new LogLineBuffer(bufferSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.rolloverSize = rolloverSize;
+
+        open();
+
+        this.thread = new Thread(this, "Apache Sling Request Log Writer " + file.getName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a line to be written or drops it if the queue is full.
+     */
+    void write(final String line) {
+        if (!running || !queue.offer(line)) {
+            droppedLines.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the writer thread after all queued lines have been written and
+     * closes the file. If the thread does not stop in time, for example
+     * because the file system hangs, the remaining lines are dropped and the
+     * file is closed from the calling thread.
+     */
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(STOP_TIMEOUT_MSEC);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("Request log writer for {} did not stop within {}ms, closing the file and dropping {} queued lines",
+                new Object[] { file, STOP_TIMEOUT_MSEC, queue.size() });
+            abandoned = true;
+            // interrupting a thread blocked on the channel closes the channel
+            thread.interrupt();
+            close();
+        }
+    }
+
+    String getFileName() {
+        return file.getAbsolutePath();
+    }
+
+    int getQueuedLines() {
+        return queue.size();
+    }
+
+    int getQueueCapacity() {
+        return queue.capacity();
+    }
+
+    long getWrittenLines() {
+        return writtenLines.get();
+    }
+
+    long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    long getRollovers() {
+        return rollovers.get();
+    }
+
+    // ---------- Writer thread ------------------------------------------------
+
+    public void run() {
+        lastWrite = System.nanoTime();
+        try {
+            while (running) {
+                final String line = queue.poll();
+                if (line != null) {
+                    append(line);
+                } else if (batchLines > 0 && System.nanoTime() - lastWrite >= flushIntervalNanos) {
+                    flush();
+                } else {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+
+            // drain lines queued before stopping
+            for (String line = queue.poll(); !abandoned && (line != null || queue.size() > 0); line = queue.poll()) {
+                if (line != null) {
+                    append(line);
+                }
+            }
+            flush();
+        } finally {
+            close();
+        }
+    }
+
+    private void append(final String line) {
+        final byte[] bytes = line.getBytes(charset);
+        if (bytes.length + LINE_SEPARATOR.length > batch.remaining()) {
+            flush();
+        }
+
+        if (bytes.length + LINE_SEPARATOR.length > batch.capacity()) {
+            // too long for the batch, write it directly
+            write(ByteBuffer.wrap(bytes), 1);
+            write(ByteBuffer.wrap(LINE_SEPARATOR), 0);
+        } else {
+            batch.put(bytes).put(LINE_SEPARATOR);
+            batchLines++;
+            if (System.nanoTime() - lastWrite >= flushIntervalNanos) {
+                flush();
+            }
+        }
+    }
+
+    private void flush() {
+        batch.flip();
+        write(batch, batchLines);
+        batch.clear();
+        batchLines = 0;
+    }
+
+    private void write(final ByteBuffer buffer, final int lines) {
+        lastWrite = System.nanoTime();
+        if (!buffer.hasRemaining()) {
+            return;
+        }
+        if (abandoned) {
+            droppedLines.addAndGet(lines);
+            return;
+        }
+
+        try {
+            FileChannel current = channel;
+            if (current == null) {
+                current = open();
+            }
+            while (buffer.hasRemaining()) {
+                current.write(buffer);
+            }
+            writtenLines.addAndGet(lines);
+
+            if (rolloverSize > 0 && current.size() >= rolloverSize) {
+                rollover();
+            }
+        } catch (final IOException ioe) {
+            log.error("Cannot write request log " + file, ioe);
+            droppedLines.addAndGet(lines);
+            close();
+        }
+    }
+
+    private void rollover() throws IOException {
+        close();
+
+        final String suffix = new SimpleDateFormat("yyyy-MM-dd-HHmmss").format(new Date());
+        File target = new File(file.getParentFile(), file.getName() + "." + suffix);
+        for (int i = 1; target.exists(); i++) {
+            target = new File(file.getParentFile(), file.getName() + "." + suffix + "." + i);
+        }
+        if (!file.renameTo(target)) {
+            log.warn("Cannot rename request log {} to {}", file, target);
+        } else {
+            rollovers.incrementAndGet();
+        }
+
+        open();
+    }
+
+    private FileChannel open() throws IOException {
+        file.getParentFile().mkdirs();
+        final FileChannel opened = new FileOutputStream(file, true).getChannel();
+        channel = opened;
+        return opened;
+    }
+
+    private void close() {
+        final FileChannel current = channel;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (final IOException ioe) {
+                // don't care
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.log;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+
+import org.apache.sling.engine.jmx.FileRequestLogMBean;
+
+/**
+ * This is the implementation of the management interface for an
+ * asynchronously written request log file.
+ */
+class FileRequestLogMBeanImpl extends StandardMBean implements FileRequestLogMBean {
+
+    private final AsyncFileWriter writer;
+
+    FileRequestLogMBeanImpl(final AsyncFileWriter writer) throws NotCompliantMBeanException {
+        super(FileRequestLogMBean.class);
+        this.writer = writer;
+    }
+
+    public String getFileName() {
+        return writer.getFileName();
+    }
+
+    public int getQueuedLines() {
+        return writer.getQueuedLines();
+    }
+
+    public int getQueueCapacity() {
+        return writer.getQueueCapacity();
+    }
+
+    public long getWrittenLines() {
+        return writer.getWrittenLines();
+    }
+
+    public long getDroppedLines() {
+        return writer.getDroppedLines();
+    }
+
+    public long getRollovers() {
+        return writer.getRollovers();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The <code>LogLineBuffer</code> is a bounded, lock-free ring buffer of log
+ * lines written by any number of request threads and read by a single
+ * writer thread.
+ * <p>
+ * Each slot carries a sequence number telling whether the slot is free for
+ * the producer of a given position or holds a line for the consumer. A
+ * producer claims a position by a compare-and-set of the tail and publishes
+ * the line by advancing the sequence of the slot; the consumer frees a slot
+ * by advancing its sequence by the capacity. If the buffer is full,
+ * {@link #offer(String)} fails instead of waiting.
+ */
+class LogLineBuffer {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<String> lines;
+
+    private final AtomicLongArray sequences;
+
+    // next position to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // next position to be read by the consumer, only written by the consumer
+    private volatile long head;
+
+    /**
+     * @param minCapacity The minimum number of lines buffered, rounded up to
+     *            the next power of two.
+     */
+    LogLineBuffer(final int minCapacity) {
+        int size = 1;
+        while (size < minCapacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.lines = new AtomicReferenceArray<String>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a line to the buffer.
+     *
+     * @return <code>false</code> if the buffer is full and the line has not
+     *         been added.
+     */
+    boolean offer(final String line) {
+        long position;
+        for (;;) {
+            position = tail.get();
+            final long available = sequences.get((int) (position & mask)) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                // the consumer has not yet read the line a full turn ago
+                return false;
+            }
+            // else another producer claimed the position, retry
+        }
+
+        final int index = (int) (position & mask);
+        lines.set(index, line);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest line or returns <code>null</code> if
+     * the buffer is empty. This method must only be called by a single
+     * thread.
+     */
+    String poll() {
+        final long position = head;
+        final int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        final String line = lines.get(index);
+        lines.set(index, null);
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        return line;
+    }
+
+    /**
+     * Returns the number of lines currently buffered.
+     */
+    int size() {
+        final long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
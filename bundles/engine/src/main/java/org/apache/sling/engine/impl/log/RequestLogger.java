@@ -48,7 +48,8 @@ public class RequestLogger {
 
     @Property(intValue = 0, options = {
         @PropertyOption(name = "0", value = "Logger Name"), @PropertyOption(name = "1", value = "File Name"),
-        @PropertyOption(name = "2", value = "RequestLog Service")
+        @PropertyOption(name = "2", value = "RequestLog Service"),
+        @PropertyOption(name = "3", value = "Asynchronous File Name")
     })
     public static final String PROP_REQUEST_LOG_OUTPUT_TYPE = "request.log.outputtype";
 
@@ -60,7 +61,8 @@ public class RequestLogger {
 
     @Property(intValue = 0, options = {
         @PropertyOption(name = "0", value = "Logger Name"), @PropertyOption(name = "1", value = "File Name"),
-        @PropertyOption(name = "2", value = "RequestLog Service")
+        @PropertyOption(name = "2", value = "RequestLog Service"),
+        @PropertyOption(name = "3", value = "Asynchronous File Name")
     })
     public static final String PROP_ACCESS_LOG_OUTPUT_TYPE = "access.log.outputtype";
 
@@ -81,6 +81,7 @@ public final class RequestLoggerFilter implements Filter {
 
     public void destroy() {
         FileRequestLog.dispose();
+        AsyncFileRequestLog.dispose();
     }
 
     // ---------- SCR Integration ----------------------------------------------
@@ -32,6 +32,7 @@ import org.apache.felix.scr.annotations.PropertyOption;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.engine.RequestLog;
 import org.osgi.framework.BundleContext;
+import org.slf4j.LoggerFactory;
 
 /**
  * The <code>RequestLoggerService</code> is a factory component which gets
@@ -58,19 +59,35 @@ public class RequestLoggerService {
 
     @Property(intValue = 0, options = {
         @PropertyOption(name = "0", value = "Logger Name"), @PropertyOption(name = "1", value = "File Name"),
-        @PropertyOption(name = "2", value = "RequestLog Service")
+        @PropertyOption(name = "2", value = "RequestLog Service"),
+        @PropertyOption(name = "3", value = "Asynchronous File Name")
     })
     public static final String PARAM_OUTPUT_TYPE = "request.log.service.outputtype";
 
     @Property(boolValue = false)
     public static final String PARAM_ON_ENTRY = "request.log.service.onentry";
 
+    @Property(intValue = 8192)
+    public static final String PARAM_ASYNC_BUFFER_SIZE = "request.log.service.async.buffersize";
+
+    @Property(longValue = 1000)
+    public static final String PARAM_ASYNC_FLUSH_INTERVAL = "request.log.service.async.flushinterval";
+
+    @Property(longValue = 0)
+    public static final String PARAM_ASYNC_ROLLOVER_SIZE = "request.log.service.async.rolloversize";
+
+    private static final int DEFAULT_ASYNC_BUFFER_SIZE = 8192;
+
+    private static final long DEFAULT_ASYNC_FLUSH_INTERVAL = 1000;
+
     private static final int OUTPUT_TYPE_LOGGER = 0;
 
     private static final int OUTPUT_TYPE_FILE = 1;
 
     private static final int OUTPUT_TYPE_CLASS = 2;
 
+    private static final int OUTPUT_TYPE_ASYNC_FILE = 3;
+
     private boolean onEntry;
 
     private CustomLogFormat logFormat;
@@ -106,7 +123,7 @@ public class RequestLoggerService {
             int outputType = (outputTypeObject instanceof Number)
                     ? ((Number) outputTypeObject).intValue()
                     : OUTPUT_TYPE_LOGGER;
-            this.log = this.getLog(bundleContext, output.toString(), outputType);
+            this.log = this.getLog(bundleContext, output.toString(), outputType, configuration);
         }
     }
 
@@ -130,27 +147,32 @@ public class RequestLoggerService {
         return this.onEntry;
     }
 
-    private RequestLog getLog(BundleContext bundleContext, String output, int outputType) {
+    private RequestLog getLog(BundleContext bundleContext, String output, int outputType,
+            Map<String, Object> configuration) {
         switch (outputType) {
             case OUTPUT_TYPE_FILE:
                 // file logging
                 try {
-                    // ensure the path is absolute
-                    File file = new File(output);
-                    if (!file.isAbsolute()) {
-                        final String home = bundleContext.getProperty("sling.home");
-                        if (home != null) {
-                            file = new File(home, output);
-                        }
-                        file = file.getAbsoluteFile();
-                    }
-
-                    return new FileRequestLog(file);
+                    return new FileRequestLog(getFile(bundleContext, output));
                 } catch (IOException ioe) {
                     // TODO: log
                 }
                 break;
 
+            case OUTPUT_TYPE_ASYNC_FILE:
+                // file logging from a background thread
+                try {
+                    final int bufferSize = (int) getLong(configuration, PARAM_ASYNC_BUFFER_SIZE, DEFAULT_ASYNC_BUFFER_SIZE);
+                    final long flushInterval = getLong(configuration, PARAM_ASYNC_FLUSH_INTERVAL,
+                        DEFAULT_ASYNC_FLUSH_INTERVAL);
+                    final long rolloverSize = getLong(configuration, PARAM_ASYNC_ROLLOVER_SIZE, 0);
+                    return new AsyncFileRequestLog(bundleContext, getFile(bundleContext, output), bufferSize,
+                        flushInterval, rolloverSize);
+                } catch (IOException ioe) {
+                    LoggerFactory.getLogger(getClass()).error("Cannot open request log file " + output, ioe);
+                }
+                break;
+
             case OUTPUT_TYPE_CLASS:
                 // only try to use service if we have a bundle context
                 if (bundleContext != null) {
@@ -166,4 +188,31 @@ public class RequestLoggerService {
         // fallback in case of issue or so...
         return null;
     }
+
+    private static File getFile(BundleContext bundleContext, String output) {
+        // ensure the path is absolute
+        File file = new File(output);
+        if (!file.isAbsolute()) {
+            final String home = (bundleContext != null) ? bundleContext.getProperty("sling.home") : null;
+            if (home != null) {
+                file = new File(home, output);
+            }
+            file = file.getAbsoluteFile();
+        }
+        return file;
+    }
+
+    private static long getLong(Map<String, Object> configuration, String name, long defaultValue) {
+        final Object value = configuration.get(name);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value != null) {
+            try {
+                return Long.parseLong(value.toString());
+            } catch (NumberFormatException nfe) {
+                // fall back to default
+            }
+        }
+        return defaultValue;
+    }
 }
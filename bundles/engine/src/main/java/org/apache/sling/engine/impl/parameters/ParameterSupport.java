@@ -34,11 +34,15 @@ import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.RequestContext;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.commons.fileupload.servlet.ServletRequestContext;
+import org.apache.commons.fileupload.util.Streams;
 import org.apache.sling.api.request.RequestParameter;
 import org.apache.sling.api.request.RequestParameterMap;
 import org.apache.sling.api.resource.ResourceResolver;
@@ -63,6 +67,36 @@ public class ParameterSupport {
      */
     public final static String MARKER_IS_SERVICE_PROCESSING = ParameterSupport.class.getName() + "/ServiceProcessingMarker";
 
+    /**
+     * Request attribute providing an {@code Iterator<RequestParameter>} over
+     * the parts of a streamed multipart/form-data request starting with the
+     * first file part. Only the form fields preceding the first file part
+     * are available as request parameters of such a request.
+     *
+     * @see #HEADER_UPLOAD_MODE
+     */
+    public final static String ATTR_REQUEST_PARTS_ITERATOR = "request-parts-iterator";
+
+    /**
+     * Request header requesting streamed processing of a multipart/form-data
+     * request if set to {@value #UPLOAD_MODE_STREAM}. Alternatively the
+     * {@value #PARAMETER_UPLOAD_MODE} query parameter may be used.
+     */
+    public final static String HEADER_UPLOAD_MODE = "Sling-UploadMode";
+
+    /**
+     * Query parameter requesting streamed processing of a
+     * multipart/form-data request if set to {@value #UPLOAD_MODE_STREAM}.
+     */
+    public final static String PARAMETER_UPLOAD_MODE = "uploadmode";
+
+    /**
+     * Value of the {@value #HEADER_UPLOAD_MODE} header or the
+     * {@value #PARAMETER_UPLOAD_MODE} query parameter requesting streamed
+     * processing.
+     */
+    public final static String UPLOAD_MODE_STREAM = "stream";
+
     // name of the request attribute caching the ParameterSupport instance
     // used during the request
     private static final String ATTR_NAME = ParameterSupport.class.getName();
@@ -98,6 +132,12 @@ public class ParameterSupport {
      */
     private static int fileSizeThreshold = 256000;
 
+    /**
+     * Whether clients may request multipart/form-data requests to be streamed
+     * instead of buffered.
+     */
+    private static boolean streamedUploadEnabled = true;
+
     private final HttpServletRequest servletRequest;
 
     private ParameterMap postParameterMap;
@@ -139,11 +179,12 @@ public class ParameterSupport {
     }
 
     static void configure(final long maxRequestSize, final String location, final long maxFileSize,
-            final int fileSizeThreshold) {
+            final int fileSizeThreshold, final boolean streamedUploadEnabled) {
         ParameterSupport.maxRequestSize = (maxRequestSize > 0) ? maxRequestSize : -1;
         ParameterSupport.location = (location != null) ? new File(location) : null;
         ParameterSupport.maxFileSize = (maxFileSize > 0) ? maxFileSize : -1;
         ParameterSupport.fileSizeThreshold = (fileSizeThreshold > 0) ? fileSizeThreshold : 256000;
+        ParameterSupport.streamedUploadEnabled = streamedUploadEnabled;
     }
 
     private ParameterSupport(HttpServletRequest servletRequest) {
@@ -267,7 +308,11 @@ public class ParameterSupport {
 
                 // Multipart POST
                 if (ServletFileUpload.isMultipartContent(new ServletRequestContext(this.getServletRequest()))) {
-                    this.parseMultiPartPost(parameters);
+                    if (isStreamedUpload(parameters)) {
+                        this.parseStreamedMultiPartPost(parameters);
+                    } else {
+                        this.parseMultiPartPost(parameters);
+                    }
                     this.requestDataUsed = true;
                     useFallback = false;
                 }
@@ -279,6 +324,12 @@ public class ParameterSupport {
             // apply any form encoding (from '_charset_') in the parameter map
             Util.fixEncoding(parameters);
 
+            // and to the streamed parts following the parameters
+            final Object parts = getServletRequest().getAttribute(ATTR_REQUEST_PARTS_ITERATOR);
+            if (parts instanceof StreamedPartsIterator) {
+                ((StreamedPartsIterator) parts).setEncoding(Util.getFormEncoding(parameters));
+            }
+
             this.postParameterMap = parameters;
         }
         return this.postParameterMap;
@@ -317,22 +368,41 @@ public class ParameterSupport {
     }
 
 
-    private void parseMultiPartPost(ParameterMap parameters) {
+    private boolean isStreamedUpload(final ParameterMap parameters) {
+        if (!ParameterSupport.streamedUploadEnabled) {
+            return false;
+        }
+        if (UPLOAD_MODE_STREAM.equalsIgnoreCase(getServletRequest().getHeader(HEADER_UPLOAD_MODE))) {
+            return true;
+        }
+        final RequestParameter mode = parameters.getValue(PARAMETER_UPLOAD_MODE);
+        return mode != null && UPLOAD_MODE_STREAM.equalsIgnoreCase(mode.getString());
+    }
 
-        // Create a new file upload handler
+    private ServletFileUpload createFileUpload() {
         ServletFileUpload upload = new ServletFileUpload();
         upload.setSizeMax(ParameterSupport.maxRequestSize);
         upload.setFileSizeMax(ParameterSupport.maxFileSize);
         upload.setFileItemFactory(new DiskFileItemFactory(ParameterSupport.fileSizeThreshold,
             ParameterSupport.location));
+        return upload;
+    }
 
-        RequestContext rc = new ServletRequestContext(this.getServletRequest()) {
+    private RequestContext createRequestContext() {
+        return new ServletRequestContext(this.getServletRequest()) {
             @Override
             public String getCharacterEncoding() {
                 String enc = super.getCharacterEncoding();
                 return (enc != null) ? enc : Util.ENCODING_DIRECT;
             }
         };
+    }
+
+    private void parseMultiPartPost(ParameterMap parameters) {
+
+        // Create a new file upload handler
+        ServletFileUpload upload = createFileUpload();
+        RequestContext rc = createRequestContext();
 
         // Parse the request
         List<?> /* FileItem */items = null;
@@ -351,4 +421,36 @@ public class ParameterSupport {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Reads the form fields up to the first file part of the request into
+     * the {@code parameters} and provides the remaining parts in the
+     * {@link #ATTR_REQUEST_PARTS_ITERATOR} request attribute to be read
+     * directly from the request input stream.
+     */
+    private void parseStreamedMultiPartPost(ParameterMap parameters) {
+
+        final ServletFileUpload upload = createFileUpload();
+        final FileItemFactory factory = upload.getFileItemFactory();
+        try {
+            final FileItemIterator items = upload.getItemIterator(createRequestContext());
+            while (items.hasNext()) {
+                final FileItemStream item = items.next();
+                if (!item.isFormField()) {
+                    this.getServletRequest().setAttribute(ATTR_REQUEST_PARTS_ITERATOR,
+                        new StreamedPartsIterator(item, items));
+                    return;
+                }
+
+                final FileItem fileItem = factory.createItem(item.getFieldName(), item.getContentType(),
+                    item.isFormField(), item.getName());
+                Streams.copy(item.openStream(), fileItem.getOutputStream(), true);
+                fileItem.setHeaders(item.getHeaders());
+                parameters.addParameter(new MultipartRequestParameter(fileItem), false);
+            }
+        } catch (FileUploadException fue) {
+            this.log.error("parseStreamedMultiPartPost: Error parsing request", fue);
+        } catch (IOException ioe) {
+            this.log.error("parseStreamedMultiPartPost: Error parsing request", ioe);
+        }
+    }
+}
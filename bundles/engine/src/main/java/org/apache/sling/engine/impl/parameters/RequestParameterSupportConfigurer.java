@@ -89,6 +89,17 @@ public class RequestParameterSupportConfigurer {
             description = "The maximum size allowed for multipart/form-data requests. The default is -1, which means unlimited.")
     private static final String PROP_MAX_REQUEST_SIZE = "request.max";
 
+    @Property(
+            boolValue = true,
+            label = "Enable Streamed Uploads",
+            description = "Whether clients may request multipart/form-data requests to be processed without "
+                + "buffering file parts in memory or temporary files by setting the 'Sling-UploadMode' request "
+                + "header or the 'uploadmode' query parameter to 'stream'. Only form fields preceding the first "
+                + "file part are available as request parameters of such requests, the remaining parts can be "
+                + "read once and in order from the 'request-parts-iterator' request attribute. If disabled, "
+                + "all multipart/form-data requests are buffered. The default is true.")
+    private static final String PROP_STREAMED_UPLOAD = "file.streaming";
+
     @Reference
     private SlingSettingsService settignsService;
 
@@ -105,6 +116,7 @@ public class RequestParameterSupportConfigurer {
             PropertiesUtil.toString(props.get(PROP_FILE_LOCATION), null));
         final long maxFileSize = PropertiesUtil.toLong(props.get(PROP_FILE_SIZE_MAX), -1);
         final int fileSizeThreshold = PropertiesUtil.toInteger(props.get(PROP_FILE_SIZE_THRESHOLD), -1);
+        final boolean streamedUpload = PropertiesUtil.toBoolean(props.get(PROP_STREAMED_UPLOAD), true);
 
         if (log.isInfoEnabled()) {
             log.info("Default Character Encoding: {}", fixEncoding);
@@ -113,11 +125,13 @@ public class RequestParameterSupportConfigurer {
             log.info("Temporary File Location: {}", fileLocation);
             log.info("Maximum File Size: {}", maxFileSize);
             log.info("Tempory File Creation Threshold: {}", fileSizeThreshold);
+            log.info("Streamed Uploads: {}", streamedUpload ? "enabled" : "disabled");
         }
 
         Util.setDefaultFixEncoding(fixEncoding);
         ParameterMap.setMaxParameters(maxParams);
-        ParameterSupport.configure(maxRequestSize, fileLocation, maxFileSize, fileSizeThreshold);
+        ParameterSupport.configure(maxRequestSize, fileLocation, maxFileSize, fileSizeThreshold,
+            streamedUpload);
     }
 
     private String getFileLocation(final ComponentContext context, String fileLocation) {
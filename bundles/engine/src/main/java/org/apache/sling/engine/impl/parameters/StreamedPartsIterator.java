@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.parameters;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.sling.api.SlingException;
+import org.apache.sling.api.SlingIOException;
+import org.apache.sling.api.request.RequestParameter;
+
+/**
+ * The <code>StreamedPartsIterator</code> provides the parts of a streamed
+ * multipart/form-data POST request starting with the first file part in the
+ * order they are sent by the client. Each part must be consumed before
+ * advancing to the next one as the parts are read directly from the request
+ * input stream.
+ *
+ * @see ParameterSupport#ATTR_REQUEST_PARTS_ITERATOR
+ */
+class StreamedPartsIterator implements Iterator<RequestParameter> {
+
+    private final FileItemIterator items;
+
+    private FileItemStream next;
+
+    private String encoding;
+
+    StreamedPartsIterator(final FileItemStream first, final FileItemIterator items) {
+        this.next = first;
+        this.items = items;
+    }
+
+    /**
+     * Sets the encoding applied to the names and values of the parts. This is
+     * the encoding of the request parameters preceding the first file part.
+     */
+    void setEncoding(final String encoding) {
+        this.encoding = encoding;
+    }
+
+    public boolean hasNext() {
+        if (this.next == null) {
+            try {
+                if (this.items.hasNext()) {
+                    this.next = this.items.next();
+                }
+            } catch (IOException ioe) {
+                throw new SlingIOException(ioe);
+            } catch (FileUploadException fue) {
+                throw new SlingException("Error reading the next part of the request", fue);
+            }
+        }
+        return this.next != null;
+    }
+
+    public RequestParameter next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final StreamedRequestParameter param = new StreamedRequestParameter(this.next, this.encoding);
+        if (this.encoding != null) {
+            param.setName(Util.reencode(param.getName(), this.encoding));
+        }
+        this.next = null;
+        return param;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.parameters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.util.Streams;
+import org.apache.sling.api.SlingIOException;
+
+/**
+ * The <code>StreamedRequestParameter</code> represents a part of a
+ * multipart/form-data POST request which is read directly from the request
+ * input stream instead of being buffered in memory or a temporary file.
+ * <p>
+ * The content of the part can only be read while the
+ * {@link StreamedPartsIterator} providing it has not moved on to the next
+ * part. The input stream can only be retrieved once unless the content has
+ * been loaded with {@link #get()} before. The size of the part is not known
+ * until the content has been loaded, {@link #getSize()} returns -1 up to then.
+ */
+public class StreamedRequestParameter extends AbstractRequestParameter {
+
+    private final FileItemStream item;
+
+    private boolean streamOpened;
+
+    private byte[] content;
+
+    private String encodedFileName;
+
+    StreamedRequestParameter(final FileItemStream item, final String encoding) {
+        super(item.getFieldName(), encoding);
+        this.item = item;
+    }
+
+    public boolean isFormField() {
+        return this.item.isFormField();
+    }
+
+    public String getContentType() {
+        return this.item.getContentType();
+    }
+
+    public String getFileName() {
+        if (this.encodedFileName == null && this.item.getName() != null) {
+            String tmpFileName = this.item.getName();
+            if (this.getEncoding() != null) {
+                try {
+                    byte[] rawName = tmpFileName.getBytes(Util.ENCODING_DIRECT);
+                    tmpFileName = new String(rawName, this.getEncoding());
+                } catch (UnsupportedEncodingException uee) {
+                    // might log, but actually don't care
+                }
+            }
+            this.encodedFileName = tmpFileName;
+        }
+
+        return this.encodedFileName;
+    }
+
+    public long getSize() {
+        return (this.content != null) ? this.content.length : -1;
+    }
+
+    /**
+     * Returns the input stream of the part. The stream reads directly from
+     * the request unless the content has already been loaded by
+     * {@link #get()}.
+     *
+     * @throws IOException If the stream has already been retrieved or the
+     *             iterator has moved on to the next part.
+     */
+    public InputStream getInputStream() throws IOException {
+        if (this.content != null) {
+            return new ByteArrayInputStream(this.content);
+        }
+        if (this.streamOpened) {
+            throw new IOException("The input stream of part " + getName() + " has already been consumed");
+        }
+        this.streamOpened = true;
+        return this.item.openStream();
+    }
+
+    /**
+     * Loads the complete content of the part into memory.
+     *
+     * @throws SlingIOException If the part cannot be read anymore.
+     */
+    public byte[] get() {
+        if (this.content == null) {
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                Streams.copy(getInputStream(), out, true);
+                this.content = out.toByteArray();
+            } catch (IOException ioe) {
+                throw new SlingIOException(ioe);
+            }
+        }
+        return this.content;
+    }
+
+    public String getString() {
+        // only apply encoding in the case of a form field
+        if (this.isFormField() && this.getEncoding() != null) {
+            try {
+                return new String(get(), this.getEncoding());
+            } catch (UnsupportedEncodingException uee) {
+                // don't care, fall back to platform default
+            }
+            return new String(get());
+        }
+
+        try {
+            return getString(Util.ENCODING_DIRECT);
+        } catch (UnsupportedEncodingException uee) {
+            // not expected for ISO-8859-1
+            return new String(get());
+        }
+    }
+
+    public String getString(String enc) throws UnsupportedEncodingException {
+        return new String(get(), enc);
+    }
+
+    public String toString() {
+        if (this.isFormField()) {
+            return this.getString();
+        }
+
+        return "File: " + this.getFileName() + " (streamed)";
+    }
+}
@@ -108,7 +108,7 @@ public class Util {
         return new ByteArrayInputStream(data);
     }
 
-    static void fixEncoding(ParameterMap parameterMap) {
+    static String getFormEncoding(ParameterMap parameterMap) {
         // default the encoding to defaultFixEncoding
         String formEncoding = getDefaultFixEncoding();
 
@@ -120,6 +120,11 @@ public class Util {
             formEncoding = toIdentityEncodedString(rawEncoding);
             formEncoding = validateEncoding(formEncoding);
         }
+        return formEncoding;
+    }
+
+    static void fixEncoding(ParameterMap parameterMap) {
+        final String formEncoding = getFormEncoding(parameterMap);
 
         // map for rename parameters due to encoding fixes
         LinkedHashMap<String, String> renameMap = new LinkedHashMap<String, String>();
@@ -157,7 +162,7 @@ public class Util {
         }
     }
 
-    private static String reencode(String parName, String encoding) {
+    static String reencode(String parName, String encoding) {
         // re-encode the parameter to the encoding
         if (!ENCODING_DIRECT.equalsIgnoreCase(encoding)) {
             try {
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.sling.engine.jmx;
+
+import aQute.bnd.annotation.ProviderType;
+
+/**
+ * This is the management interface of a request log asynchronously written
+ * to a file.
+ */
+@ProviderType
+public interface FileRequestLogMBean {
+
+    /**
+     * Returns the absolute path of the log file.
+     */
+    String getFileName();
+
+    /**
+     * Returns the number of lines waiting to be written to the file.
+     */
+    int getQueuedLines();
+
+    /**
+     * Returns the maximum number of lines waiting to be written to the file.
+     * Lines logged while this many lines are waiting are dropped.
+     */
+    int getQueueCapacity();
+
+    /**
+     * Returns the number of lines written to the file.
+     */
+    long getWrittenLines();
+
+    /**
+     * Returns the number of lines dropped because the queue was full or
+     * writing to the file failed.
+     */
+    long getDroppedLines();
+
+    /**
+     * Returns the number of times the log file has been rolled over.
+     */
+    long getRollovers();
+}
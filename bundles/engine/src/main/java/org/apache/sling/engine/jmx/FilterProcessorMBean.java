@@ -39,6 +39,23 @@ public interface FilterProcessorMBean {
      * @see #resetStatistics()
      */
     double getMeanFilterDurationMsec();
+
+    /**
+     * Returns the total time in milliseconds spent in the filter since
+     * resetting the statistics, not counting the time spent in the rest of
+     * the filter chain.
+     *
+     * @see #resetStatistics()
+     */
+    double getTotalFilterDurationMsec();
+
+    /**
+     * Returns the longest filter invocation time in milliseconds since
+     * resetting the statistics.
+     *
+     * @see #resetStatistics()
+     */
+    double getMaxFilterDurationMsec();
    
     /**
      * Resets all statistics values and restarts from zero.
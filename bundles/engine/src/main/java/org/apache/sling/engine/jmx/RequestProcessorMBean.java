@@ -133,6 +133,226 @@ public interface RequestProcessorMBean {
      */
     double getStandardDeviationServletCallCount();
 
+    /**
+     * Returns the request processing time in milliseconds below or at which
+     * half of the requests since last resetting the statistics completed.
+     * Percentiles are computed from a histogram with a relative error of
+     * at most about 3%.
+     *
+     * @see #resetStatistics()
+     */
+    long getP50RequestDurationMsec();
+
+    /**
+     * Returns the 90th percentile of the request processing time in
+     * milliseconds since last resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    long getP90RequestDurationMsec();
+
+    /**
+     * Returns the 99th percentile of the request processing time in
+     * milliseconds since last resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    long getP99RequestDurationMsec();
+
+    /**
+     * Returns the 99.9th percentile of the request processing time in
+     * milliseconds since last resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    long getP999RequestDurationMsec();
+
+    /**
+     * Returns the median servlet call count since last resetting the
+     * statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP50ServletCallCount();
+
+    /**
+     * Returns the 90th percentile of the servlet call count since last
+     * resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP90ServletCallCount();
+
+    /**
+     * Returns the 99th percentile of the servlet call count since last
+     * resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP99ServletCallCount();
+
+    /**
+     * Returns the 99.9th percentile of the servlet call count since last
+     * resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP999ServletCallCount();
+
+    /**
+     * Returns the median peak recursive execution depth since last
+     * resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP50PeakRecursionDepth();
+
+    /**
+     * Returns the 90th percentile of the peak recursive execution depth
+     * since last resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP90PeakRecursionDepth();
+
+    /**
+     * Returns the 99th percentile of the peak recursive execution depth
+     * since last resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP99PeakRecursionDepth();
+
+    /**
+     * Returns the 99.9th percentile of the peak recursive execution depth
+     * since last resetting the statistics.
+     *
+     * @see #getP50RequestDurationMsec()
+     */
+    int getP999PeakRecursionDepth();
+
+    /**
+     * Returns the number of requests completed in the last minute.
+     * <p>
+     * The rolling windows count the requests per minute of the clock. A
+     * window of n minutes counts the requests of the current minute and of
+     * the n - 1 minutes before it. The requests of the minute before those
+     * are counted in proportion to the part of that minute still in the
+     * window, assuming they were evenly spread over it.
+     */
+    long getRequestsCountLast1Min();
+
+    /**
+     * Returns the number of requests completed in the last five minutes.
+     *
+     * @see #getRequestsCountLast1Min()
+     */
+    long getRequestsCountLast5Min();
+
+    /**
+     * Returns the number of requests completed in the last fifteen minutes.
+     *
+     * @see #getRequestsCountLast1Min()
+     */
+    long getRequestsCountLast15Min();
+
+    /**
+     * Returns the median request processing time in milliseconds of the
+     * requests completed in the last minute.
+     *
+     * @see #getRequestsCountLast1Min()
+     * @see #getP50RequestDurationMsec()
+     */
+    long getP50RequestDurationMsecLast1Min();
+
+    /**
+     * Returns the 90th percentile of the request processing time in
+     * milliseconds of the requests completed in the last minute.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP90RequestDurationMsecLast1Min();
+
+    /**
+     * Returns the 99th percentile of the request processing time in
+     * milliseconds of the requests completed in the last minute.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP99RequestDurationMsecLast1Min();
+
+    /**
+     * Returns the 99.9th percentile of the request processing time in
+     * milliseconds of the requests completed in the last minute.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP999RequestDurationMsecLast1Min();
+
+    /**
+     * Returns the median request processing time in milliseconds of the
+     * requests completed in the last five minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP50RequestDurationMsecLast5Min();
+
+    /**
+     * Returns the 90th percentile of the request processing time in
+     * milliseconds of the requests completed in the last five minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP90RequestDurationMsecLast5Min();
+
+    /**
+     * Returns the 99th percentile of the request processing time in
+     * milliseconds of the requests completed in the last five minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP99RequestDurationMsecLast5Min();
+
+    /**
+     * Returns the 99.9th percentile of the request processing time in
+     * milliseconds of the requests completed in the last five minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP999RequestDurationMsecLast5Min();
+
+    /**
+     * Returns the median request processing time in milliseconds of the
+     * requests completed in the last fifteen minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP50RequestDurationMsecLast15Min();
+
+    /**
+     * Returns the 90th percentile of the request processing time in
+     * milliseconds of the requests completed in the last fifteen minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP90RequestDurationMsecLast15Min();
+
+    /**
+     * Returns the 99th percentile of the request processing time in
+     * milliseconds of the requests completed in the last fifteen minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP99RequestDurationMsecLast15Min();
+
+    /**
+     * Returns the 99.9th percentile of the request processing time in
+     * milliseconds of the requests completed in the last fifteen minutes.
+     *
+     * @see #getP50RequestDurationMsecLast1Min()
+     */
+    long getP999RequestDurationMsecLast15Min();
+
     /**
      * Resets all statistics values and restarts from zero.
      */
@@ -17,7 +17,7 @@
  * under the License.
  */
 
-@Version("1.1")
+@Version("1.2")
 package org.apache.sling.engine.jmx;
 
 import aQute.bnd.annotation.Version;
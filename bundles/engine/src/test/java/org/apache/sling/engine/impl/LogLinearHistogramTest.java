@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LogLinearHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (int i = 0; i < 64; i++) {
+            assertEquals(i, LogLinearHistogram.index(i));
+            assertEquals(i, LogLinearHistogram.highestValue(i));
+        }
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        long previousHighest = -1;
+        for (int i = 0; i < LogLinearHistogram.BUCKETS; i++) {
+            final long highest = LogLinearHistogram.highestValue(i);
+            assertTrue(highest > previousHighest);
+            assertEquals(i, LogLinearHistogram.index(previousHighest + 1));
+            assertEquals(i, LogLinearHistogram.index(highest));
+            previousHighest = highest;
+        }
+        assertEquals(LogLinearHistogram.MAX_VALUE, previousHighest);
+    }
+
+    @Test
+    public void testRelativeError() {
+        for (long value = 1; value < LogLinearHistogram.MAX_VALUE; value = value * 3 + 1) {
+            final long highest = LogLinearHistogram.highestValue(LogLinearHistogram.index(value));
+            assertTrue(highest >= value);
+            assertTrue("error for " + value, highest - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        assertEquals(0, LogLinearHistogram.index(-5));
+        assertEquals(LogLinearHistogram.BUCKETS - 1, LogLinearHistogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LogLinearHistogram histogram = new LogLinearHistogram(4);
+        final long[] empty = new long[LogLinearHistogram.BUCKETS];
+        histogram.addTo(empty);
+        assertEquals(0, LogLinearHistogram.percentile(empty, 0.5));
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        final long[] counts = new long[LogLinearHistogram.BUCKETS];
+        histogram.addTo(counts);
+        assertEquals(100, LogLinearHistogram.count(counts));
+        assertEquals(50, LogLinearHistogram.percentile(counts, 0.5));
+        assertEquals(1, LogLinearHistogram.percentile(counts, 0));
+        // 90 and 91 share a bucket
+        assertEquals(91, LogLinearHistogram.percentile(counts, 0.9));
+        assertEquals(101, LogLinearHistogram.percentile(counts, 1));
+
+        histogram.clear();
+        final long[] cleared = new long[LogLinearHistogram.BUCKETS];
+        histogram.addTo(cleared);
+        assertEquals(0, LogLinearHistogram.count(cleared));
+    }
+
+    @Test
+    public void testStripesAreAdded() throws Exception {
+        final LogLinearHistogram histogram = new LogLinearHistogram(4);
+        final Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        histogram.record(7);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final long[] counts = new long[LogLinearHistogram.BUCKETS];
+        histogram.addTo(counts);
+        assertEquals(8000, counts[7]);
+        assertEquals(8000, LogLinearHistogram.count(counts));
+    }
+
+    @Test
+    public void testWeightedCounts() {
+        final LogLinearHistogram histogram = new LogLinearHistogram(1);
+        for (int i = 0; i < 10; i++) {
+            histogram.record(3);
+        }
+        histogram.record(5);
+
+        final long[] counts = new long[LogLinearHistogram.BUCKETS];
+        histogram.addTo(counts, 0.25);
+        // 2.5 and 0.25 are rounded
+        assertEquals(3, counts[3]);
+        assertEquals(0, counts[5]);
+    }
+}
@@ -161,6 +161,103 @@ public class RequestProcessorMBeanImplTest {
         assertEquals("After resetStatistics Mean Peak Recursion Depth", bean.getMeanPeakRecursionDepth(), (double)peakRecursionDepthValue, 0d);
     }
 
+    @Test
+    public void test_percentiles() throws NotCompliantMBeanException {
+        final RequestProcessorMBeanImpl bean = new RequestProcessorMBeanImpl();
+        assertEquals(0, bean.getP50RequestDurationMsec());
+        assertEquals(0, bean.getP999PeakRecursionDepth());
+
+        for (int i = 1; i <= 1000; i++) {
+            bean.addRequestData(requestData("requestData" + i, i, i % 10, 1 + i % 4));
+        }
+
+        assertEquals(1000, bean.getRequestsCount());
+        assertAlmostEqual("P50 Duration", 500, bean.getP50RequestDurationMsec(), 32);
+        assertAlmostEqual("P90 Duration", 900, bean.getP90RequestDurationMsec(), 32);
+        assertAlmostEqual("P99 Duration", 990, bean.getP99RequestDurationMsec(), 32);
+        assertAlmostEqual("P999 Duration", 999, bean.getP999RequestDurationMsec(), 32);
+        assertEquals(4, bean.getP50ServletCallCount());
+        assertEquals(9, bean.getP99ServletCallCount());
+        assertEquals(2, bean.getP50PeakRecursionDepth());
+        assertEquals(4, bean.getP90PeakRecursionDepth());
+
+        bean.resetStatistics();
+        assertEquals(0, bean.getP999RequestDurationMsec());
+        assertEquals(0, bean.getRequestsCountLast15Min());
+    }
+
+    @Test
+    public void test_rolling_windows() throws NotCompliantMBeanException {
+        final RequestProcessorMBeanImpl bean = new RequestProcessorMBeanImpl();
+        final long now = 1000 * 60 * 1000L + 30 * 1000L;
+        final long minute = 60 * 1000L;
+
+        addRequests(bean, 10, 50, now - 20 * minute);
+        // uses the same slot as the requests twenty minutes ago
+        addRequests(bean, 4, 40, now - 4 * minute);
+        addRequests(bean, 5, 10, now - 10 * minute);
+        addRequests(bean, 2, 1, now);
+
+        assertEquals(21, bean.getRequestsCount());
+        assertEquals(2, bean.getRequestsCount(1, now));
+        assertEquals(6, bean.getRequestsCount(5, now));
+        assertEquals(11, bean.getRequestsCount(15, now));
+        assertEquals(1, bean.getRequestDurationMsec(0.99, 1, now));
+        assertEquals(40, bean.getRequestDurationMsec(0.99, 5, now));
+        assertEquals(10, bean.getRequestDurationMsec(0.5, 15, now));
+        assertEquals(40, bean.getRequestDurationMsec(0.999, 15, now));
+
+        // the window moves on with time
+        assertEquals(0, bean.getRequestsCount(1, now + 2 * minute));
+        // half of the minute with the requests four minutes ago is still in the window
+        assertEquals(4, bean.getRequestsCount(5, now + minute));
+        assertEquals(2, bean.getRequestsCount(5, now + 2 * minute));
+    }
+
+    @Test
+    public void test_rolling_window_minute_boundary() throws NotCompliantMBeanException {
+        final RequestProcessorMBeanImpl bean = new RequestProcessorMBeanImpl();
+        final long minute = 60 * 1000L;
+        final long start = 1000 * minute;
+
+        // the last second of the previous minute and the first of the current one
+        addRequests(bean, 8, 20, start - 1000);
+        addRequests(bean, 1, 10, start);
+
+        // at the start of the minute, the window covers the whole previous minute
+        assertEquals(9, bean.getRequestsCount(1, start));
+        assertEquals(20, bean.getRequestDurationMsec(0.5, 1, start));
+        // a quarter of the previous minute is left in the window
+        assertEquals(3, bean.getRequestsCount(1, start + 45 * 1000L));
+        // just before the next minute, only the current minute is left
+        assertEquals(1, bean.getRequestsCount(1, start + minute - 1));
+        assertEquals(10, bean.getRequestDurationMsec(0.5, 1, start + minute - 1));
+        assertEquals(1, bean.getRequestsCount(1, start + minute));
+        assertEquals(0, bean.getRequestsCount(1, start + 2 * minute));
+    }
+
+    private void addRequests(final RequestProcessorMBeanImpl bean, final int count, final long duration, final long time) {
+        for (int i = 0; i < count; i++) {
+            bean.addRequestData(requestData("requestData" + time + "-" + i, duration, 1, 1), time);
+        }
+    }
+
+    private RequestData requestData(final String name, final long duration, final int servletCallCount,
+            final int peakRecursionDepth) {
+        final RequestData requestData = context.mock(RequestData.class, name);
+        context.checking(new Expectations() {{
+            allowing(requestData).getElapsedTimeMsec();
+            will(returnValue(duration));
+
+            allowing(requestData).getServletCallCount();
+            will(returnValue(servletCallCount));
+
+            allowing(requestData).getPeakRecusionDepth();
+            will(returnValue(peakRecursionDepth));
+        }});
+        return requestData;
+    }
+
     private void assertAlmostEqual(final String message, final double v1, final double v2, int samples) {
         final double centi = v1 / samples;
         if (v2 < (v1 - centi) || v2 > (v1 + centi)) {
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.sling.engine.impl.filter;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class FilterPathMatcherTest {
+
+    private static final String[] PATTERNS = {
+        "/content/site/en.html",
+        "/content/.*",
+        ".*\\.html",
+        ".*\\.print\\..*",
+        "/content/.*\\.json",
+        "/content/.*/jcr:content.*",
+        ".*.*",
+        "/apps/.*\\..*\\.js",
+        "/content/a+.*",
+        "/content/ab?",
+        "/content/x{2}",
+        "/content/(en|de)/.*",
+        "/content|/apps/.*",
+        "/content/[a-z]+\\.html",
+        "(?i)/CONTENT/.*",
+        "/content/\\d+",
+        "/content/.*?\\.html",
+        "/content/.*+\\.html",
+        "/content/\\Q.*\\E"
+    };
+
+    private static final String[] PATHS = {
+        "/",
+        "",
+        "/content",
+        "/content/",
+        "/content/site/en.html",
+        "/content/site/en.print.html",
+        "/content/site/en.print.a4.html",
+        "/content/site/en.json",
+        "/content/site/en/jcr:content",
+        "/content/site/en/jcr:content.html",
+        "/content/aaa",
+        "/content/a",
+        "/content/ab",
+        "/content/xx",
+        "/content/en/page",
+        "/content/abc.html",
+        "/content/123",
+        "/content/.*",
+        "/apps/lib/script.min.js",
+        "/apps/lib/script.js",
+        "/content/site\n/en.html",
+        "/content/site /en.print.html",
+        ".html",
+        "/CONTENT/page"
+    };
+
+    @Test
+    public void test_matches_like_regex() {
+        for (final String pattern : PATTERNS) {
+            final FilterPathMatcher matcher = FilterPathMatcher.compile(pattern);
+            final Pattern regex = Pattern.compile(pattern);
+            for (final String path : PATHS) {
+                assertEquals(pattern + " on " + path, regex.matcher(path).matches(), matcher.matches(path));
+            }
+        }
+    }
+
+    @Test
+    public void test_no_pattern() {
+        assertNull(FilterPathMatcher.compile(null));
+        assertNull(FilterPathMatcher.compile(""));
+    }
+
+    @Test(expected = java.util.regex.PatternSyntaxException.class)
+    public void test_invalid_pattern() {
+        FilterPathMatcher.compile("/content/(");
+    }
+}
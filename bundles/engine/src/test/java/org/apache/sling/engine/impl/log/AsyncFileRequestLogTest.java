@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.engine.impl.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AsyncFileRequestLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void dispose() {
+        AsyncFileRequestLog.dispose();
+    }
+
+    @Test
+    public void test_buffer_full() {
+        final LogLineBuffer buffer = new LogLineBuffer(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("line" + i));
+        }
+        assertFalse(buffer.offer("line4"));
+        assertEquals(4, buffer.size());
+
+        assertEquals("line0", buffer.poll());
+        assertTrue(buffer.offer("line4"));
+        for (int i = 1; i < 5; i++) {
+            assertEquals("line" + i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void test_buffer_concurrent_producers() throws InterruptedException {
+        final int producers = 4;
+        final int linesPerProducer = 10000;
+        final LogLineBuffer buffer = new LogLineBuffer(64);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            final Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (final InterruptedException ie) {
+                        return;
+                    }
+                    for (int i = 0; i < linesPerProducer; i++) {
+                        while (!buffer.offer(producer + ":" + i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+
+        // lines of each producer are read in order and none is lost
+        final int[] next = new int[producers];
+        final Set<String> seen = new HashSet<String>();
+        while (seen.size() < producers * linesPerProducer) {
+            final String line = buffer.poll();
+            if (line == null) {
+                Thread.yield();
+                continue;
+            }
+            assertTrue(seen.add(line));
+            final int sep = line.indexOf(':');
+            final int producer = Integer.parseInt(line.substring(0, sep));
+            assertEquals(next[producer]++, Integer.parseInt(line.substring(sep + 1)));
+        }
+        for (final Thread t : threads) {
+            t.join();
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void test_lines_written() throws IOException {
+        final File file = new File(folder.getRoot(), "logs/request.log");
+        final AsyncFileRequestLog log = new AsyncFileRequestLog(null, file, 1024, 1000, 0);
+        final AsyncFileWriter writer = log.getWriter();
+        for (int i = 0; i < 100; i++) {
+            log.write("line" + i);
+        }
+        AsyncFileRequestLog.dispose();
+
+        final List<String> lines = readLines(file);
+        assertEquals(100, lines.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("line" + i, lines.get(i));
+        }
+        assertEquals(100, writer.getWrittenLines());
+        assertEquals(0, writer.getDroppedLines());
+        assertEquals(0, writer.getQueuedLines());
+    }
+
+    @Test
+    public void test_shared_writer() throws IOException {
+        final File file = new File(folder.getRoot(), "access.log");
+        final AsyncFileRequestLog log1 = new AsyncFileRequestLog(null, file, 1024, 1000, 0);
+        final AsyncFileRequestLog log2 = new AsyncFileRequestLog(null, file, 16, 10, 0);
+        assertSame(log1.getWriter(), log2.getWriter());
+        assertEquals(1024, log2.getWriter().getQueueCapacity());
+
+        log1.write("one");
+        log2.write("two");
+        log2.close();
+        log2.write("dropped");
+        AsyncFileRequestLog.dispose();
+
+        assertEquals(2, readLines(file).size());
+    }
+
+    @Test
+    public void test_flush_interval() throws Exception {
+        final File file = new File(folder.getRoot(), "request.log");
+        final AsyncFileRequestLog log = new AsyncFileRequestLog(null, file, 1024, 10, 0);
+        log.write("line");
+
+        final long end = System.currentTimeMillis() + 5000;
+        while (file.length() == 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, readLines(file).size());
+    }
+
+    @Test
+    public void test_dropped_after_dispose() throws IOException {
+        final File file = new File(folder.getRoot(), "request.log");
+        final AsyncFileRequestLog log = new AsyncFileRequestLog(null, file, 16, 1000, 0);
+        final AsyncFileWriter writer = log.getWriter();
+        AsyncFileRequestLog.dispose();
+
+        log.write("line");
+        assertEquals(1, writer.getDroppedLines());
+        assertEquals(0, writer.getWrittenLines());
+    }
+
+    @Test
+    public void test_rollover() throws IOException {
+        final File file = new File(folder.getRoot(), "request.log");
+        final AsyncFileRequestLog log = new AsyncFileRequestLog(null, file, 1024, 0, 100);
+        final AsyncFileWriter writer = log.getWriter();
+        for (int i = 0; i < 50; i++) {
+            log.write("0123456789012345678901234567890123456789");
+        }
+        AsyncFileRequestLog.dispose();
+
+        assertTrue(writer.getRollovers() > 0);
+        final File[] files = folder.getRoot().listFiles();
+        assertEquals(writer.getRollovers() + 1, files.length);
+        int lines = 0;
+        for (final File f : files) {
+            assertTrue(f.getName().startsWith("request.log"));
+            lines += readLines(f).size();
+        }
+        assertEquals(50, lines);
+    }
+
+    private static List<String> readLines(final File file) throws IOException {
+        final List<String> lines = new ArrayList<String>();
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.parameters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.fileupload.util.Streams;
+import org.apache.sling.api.request.RequestParameter;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParameterSupportTest {
+
+    private static final String BOUNDARY = "----boundary";
+
+    private static final String BODY = "--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"_charset_\"\r\n\r\n"
+        + "UTF-8\r\n"
+        + "--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+        + "\u00c3\u00a4rger\r\n"
+        + "--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"./file1\"; filename=\"one.txt\"\r\n"
+        + "Content-Type: text/plain\r\n\r\n"
+        + "first file\r\n"
+        + "--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"./file2\"; filename=\"two.txt\"\r\n"
+        + "Content-Type: text/plain\r\n\r\n"
+        + "second file\r\n"
+        + "--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"after\"\r\n\r\n"
+        + "trailing field\r\n"
+        + "--" + BOUNDARY + "--\r\n";
+
+    @After
+    public void resetConfiguration() {
+        ParameterSupport.configure(-1, null, -1, -1, true);
+    }
+
+    @Test
+    public void test_buffered() {
+        final HttpServletRequest request = newRequest(null, null);
+        final ParameterSupport support = ParameterSupport.getInstance(request);
+
+        assertEquals("\u00e4rger", support.getParameter("title"));
+        assertEquals("first file", support.getRequestParameter("./file1").getString());
+        assertEquals("trailing field", support.getParameter("after"));
+        assertNull(request.getAttribute(ParameterSupport.ATTR_REQUEST_PARTS_ITERATOR));
+    }
+
+    @Test
+    public void test_streamed_by_header() throws IOException {
+        final HttpServletRequest request = newRequest(ParameterSupport.UPLOAD_MODE_STREAM, null);
+        final ParameterSupport support = ParameterSupport.getInstance(request);
+
+        // only the fields preceding the first file are parameters
+        assertEquals("\u00e4rger", support.getParameter("title"));
+        assertNull(support.getRequestParameter("./file1"));
+        assertNull(support.getRequestParameter("after"));
+
+        final Iterator<?> parts = (Iterator<?>) request.getAttribute(ParameterSupport.ATTR_REQUEST_PARTS_ITERATOR);
+        assertTrue(parts.hasNext());
+        final RequestParameter file1 = (RequestParameter) parts.next();
+        assertEquals("./file1", file1.getName());
+        assertEquals("one.txt", file1.getFileName());
+        assertEquals("text/plain", file1.getContentType());
+        assertFalse(file1.isFormField());
+        assertEquals(-1, file1.getSize());
+        assertEquals("first file", read(file1.getInputStream()));
+        try {
+            file1.getInputStream();
+            fail("Stream must only be retrieved once");
+        } catch (final IOException expected) {
+            // expected
+        }
+
+        final RequestParameter file2 = (RequestParameter) parts.next();
+        assertEquals("./file2", file2.getName());
+        assertEquals("second file", file2.getString());
+        assertEquals(11, file2.getSize());
+
+        final RequestParameter after = (RequestParameter) parts.next();
+        assertTrue(after.isFormField());
+        assertEquals("trailing field", after.getString());
+        assertFalse(parts.hasNext());
+    }
+
+    @Test
+    public void test_streamed_by_query_parameter() {
+        final HttpServletRequest request = newRequest(null,
+            ParameterSupport.PARAMETER_UPLOAD_MODE + "=" + ParameterSupport.UPLOAD_MODE_STREAM);
+        ParameterSupport.getInstance(request).getParameterMap();
+
+        final Iterator<?> parts = (Iterator<?>) request.getAttribute(ParameterSupport.ATTR_REQUEST_PARTS_ITERATOR);
+        assertEquals("./file1", ((RequestParameter) parts.next()).getName());
+    }
+
+    @Test
+    public void test_streaming_disabled() {
+        ParameterSupport.configure(-1, null, -1, -1, false);
+        final HttpServletRequest request = newRequest(ParameterSupport.UPLOAD_MODE_STREAM, null);
+        final ParameterSupport support = ParameterSupport.getInstance(request);
+
+        assertEquals("second file", support.getRequestParameter("./file2").getString());
+        assertNull(request.getAttribute(ParameterSupport.ATTR_REQUEST_PARTS_ITERATOR));
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.copy(in, out, true);
+        return out.toString("UTF-8");
+    }
+
+    /**
+     * Returns a multipart/form-data POST request for {@link #BODY}.
+     */
+    private static HttpServletRequest newRequest(final String uploadModeHeader, final String queryString) {
+        final byte[] body;
+        try {
+            body = BODY.getBytes(Util.ENCODING_DIRECT);
+        } catch (final IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+        final InputStream in = new ByteArrayInputStream(body);
+        final ServletInputStream sin = new ServletInputStream() {
+
+            @Override
+            public int read() throws IOException {
+                return in.read();
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                return in.read(b, off, len);
+            }
+        };
+
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        final String[] encoding = new String[1];
+        return (HttpServletRequest) Proxy.newProxyInstance(ParameterSupportTest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class}, new InvocationHandler() {
+
+                public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                    final String name = method.getName();
+                    if (name.equals("getMethod")) {
+                        return "POST";
+                    } else if (name.equals("getContentType")) {
+                        return "multipart/form-data; boundary=" + BOUNDARY;
+                    } else if (name.equals("getContentLength")) {
+                        return body.length;
+                    } else if (name.equals("getInputStream")) {
+                        return sin;
+                    } else if (name.equals("getQueryString")) {
+                        return queryString;
+                    } else if (name.equals("getHeader")) {
+                        return ParameterSupport.HEADER_UPLOAD_MODE.equals(args[0]) ? uploadModeHeader : null;
+                    } else if (name.equals("getCharacterEncoding")) {
+                        return encoding[0];
+                    } else if (name.equals("setCharacterEncoding")) {
+                        encoding[0] = (String) args[0];
+                        return null;
+                    } else if (name.equals("getAttribute")) {
+                        return attributes.get(args[0]);
+                    } else if (name.equals("setAttribute")) {
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(name);
+                }
+            });
+    }
+}
@@ -61,13 +61,25 @@ public class EventingThreadPool implements ThreadPool {
                         + "limits the maximum number of jobs executed in parallel.")
     private static final String PROPERTY_POOL_SIZE = "minPoolSize";
 
+    private static final long DEFAULT_STARVATION_TIME = 10000;
+
+    @Property(longValue=DEFAULT_STARVATION_TIME,
+              label="Starvation Time",
+              description="If all threads are in use, the queues sharing this pool get threads "
+                        + "according to their weight. A job waiting longer than this number of "
+                        + "milliseconds for a thread is started first, regardless of the weights.")
+    private static final String PROPERTY_STARVATION_TIME = "starvationTime";
+
+    /** Distributes the threads across the queues. */
+    private FairShareExecutor fairShareExecutor;
+
     public EventingThreadPool() {
         // default constructor
     }
 
     public EventingThreadPool(final ThreadPoolManager tpm, final int poolSize) {
         this.threadPoolManager = tpm;
-        this.configure(poolSize);
+        this.configure(poolSize, DEFAULT_STARVATION_TIME);
     }
 
     public void release() {
@@ -81,10 +93,11 @@ public class EventingThreadPool implements ThreadPool {
     @Modified
     protected void activate(final Map<String, Object> props) {
         final int maxPoolSize = PropertiesUtil.toInteger(props.get(PROPERTY_POOL_SIZE), DEFAULT_POOL_SIZE);
-        this.configure(maxPoolSize);
+        final long starvationTime = PropertiesUtil.toLong(props.get(PROPERTY_STARVATION_TIME), DEFAULT_STARVATION_TIME);
+        this.configure(maxPoolSize, starvationTime);
     }
 
-    private void configure(final int maxPoolSize) {
+    private void configure(final int maxPoolSize, final long starvationTime) {
         final ModifiableThreadPoolConfig config = new ModifiableThreadPoolConfig();
         config.setMinPoolSize(maxPoolSize);
         config.setMaxPoolSize(config.getMinPoolSize());
@@ -93,6 +106,11 @@ public class EventingThreadPool implements ThreadPool {
         config.setPriority(ThreadPriority.NORM);
         config.setDaemon(true);
         this.threadPool = threadPoolManager.create(config, "Apache Sling Job Thread Pool");
+        if ( this.fairShareExecutor == null ) {
+            this.fairShareExecutor = new FairShareExecutor(this, maxPoolSize, starvationTime);
+        } else {
+            this.fairShareExecutor.configure(maxPoolSize, starvationTime);
+        }
     }
 
     /**
@@ -100,6 +118,7 @@ public class EventingThreadPool implements ThreadPool {
      */
     @Deactivate
     protected void deactivate() {
+        this.fairShareExecutor.clear();
         this.threadPoolManager.release(this.threadPool);
     }
 
@@ -111,6 +130,18 @@ public class EventingThreadPool implements ThreadPool {
         threadPool.execute(runnable);
     }
 
+    /**
+     * Execute a job of a queue.
+     * If all threads are in use, the job waits until the queue gets
+     * a thread based on its weight.
+     * @param queueName The name of the queue
+     * @param weight The weight of the queue
+     * @param runnable The job
+     */
+    public void execute(final String queueName, final int weight, final Runnable runnable) {
+        this.fairShareExecutor.execute(queueName, weight, runnable);
+    }
+
     /**
      * @see org.apache.sling.commons.threads.ThreadPool#getConfiguration()
      */
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.event.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.sling.commons.threads.ThreadPool;
+
+/**
+ * The fair share executor distributes the threads of a thread pool
+ * across the job queues using it.
+ * <p>
+ * As long as threads are available, a job is executed immediately.
+ * Otherwise the job waits and once a thread becomes available, the
+ * queue with the lowest pass is selected (stride scheduling): each
+ * time a queue gets a thread, its pass is advanced by a stride which
+ * is inversely proportional to the weight of the queue. A queue with
+ * weight two therefore gets twice as many threads as a queue with
+ * weight one. If a job waits longer than the starvation time, it is
+ * executed first, regardless of the weights.
+ */
+class FairShareExecutor {
+
+    /** The stride for a queue with weight one. */
+    private static final long STRIDE = 1L << 20;
+
+    /** The thread pool executing the jobs. */
+    private final ThreadPool threadPool;
+
+    /** Waiting jobs by queue name, only contains queues with waiting jobs. */
+    private final Map<String, QueueEntry> queues = new LinkedHashMap<String, QueueEntry>();
+
+    /** The maximum number of jobs executed in parallel. */
+    private int maxRunning;
+
+    /** The starvation time in milliseconds. */
+    private long starvationTime;
+
+    /** The number of jobs currently executed. */
+    private int running;
+
+    /** The pass of the last selected queue. */
+    private long globalPass;
+
+    FairShareExecutor(final ThreadPool threadPool, final int maxRunning, final long starvationTime) {
+        this.threadPool = threadPool;
+        this.configure(maxRunning, starvationTime);
+    }
+
+    /**
+     * Update the configuration.
+     */
+    void configure(final int maxRunning, final long starvationTime) {
+        synchronized ( this ) {
+            this.maxRunning = Math.max(1, maxRunning);
+            this.starvationTime = starvationTime;
+        }
+        // more threads might be available now
+        Task task;
+        do {
+            synchronized ( this ) {
+                task = this.nextTask();
+            }
+            this.executeTask(task);
+        } while ( task != null );
+    }
+
+    /**
+     * Execute a job of a queue.
+     * @param queueName The queue name
+     * @param weight The weight of the queue
+     * @param runnable The job
+     */
+    void execute(final String queueName, final int weight, final Runnable runnable) {
+        final Task task;
+        synchronized ( this ) {
+            QueueEntry entry = this.queues.get(queueName);
+            if ( entry == null ) {
+                // a queue becoming active does not get credit for the time it was idle
+                entry = new QueueEntry(this.globalPass);
+                this.queues.put(queueName, entry);
+            }
+            entry.weight = Math.max(1, weight);
+            entry.tasks.add(new Task(runnable, System.currentTimeMillis()));
+            task = this.nextTask();
+        }
+        this.executeTask(task);
+    }
+
+    /**
+     * The number of waiting jobs.
+     */
+    synchronized int getWaitingCount() {
+        int count = 0;
+        for(final QueueEntry entry : this.queues.values()) {
+            count += entry.tasks.size();
+        }
+        return count;
+    }
+
+    /**
+     * Select the next job if a thread is available.
+     * This method must be called while holding the lock.
+     * @return The task or {@code null}
+     */
+    private Task nextTask() {
+        if ( this.running >= this.maxRunning || this.queues.isEmpty() ) {
+            return null;
+        }
+        final long now = System.currentTimeMillis();
+        String selectedName = null;
+        QueueEntry selected = null;
+        String starvedName = null;
+        QueueEntry starved = null;
+        for(final Map.Entry<String, QueueEntry> e : this.queues.entrySet()) {
+            final QueueEntry entry = e.getValue();
+            final long queued = entry.tasks.peek().queued;
+            if ( now - queued >= this.starvationTime
+                 && (starved == null || queued < starved.tasks.peek().queued) ) {
+                starvedName = e.getKey();
+                starved = entry;
+            }
+            if ( selected == null || entry.pass < selected.pass ) {
+                selectedName = e.getKey();
+                selected = entry;
+            }
+        }
+        if ( starved != null ) {
+            selectedName = starvedName;
+            selected = starved;
+        }
+        final Task task = selected.tasks.poll();
+        this.globalPass = Math.max(this.globalPass, selected.pass);
+        selected.pass += STRIDE / selected.weight;
+        if ( selected.tasks.isEmpty() ) {
+            this.queues.remove(selectedName);
+        }
+        this.running++;
+        return task;
+    }
+
+    private void executeTask(final Task task) {
+        if ( task != null ) {
+            try {
+                this.threadPool.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            task.runnable.run();
+                        } finally {
+                            finished();
+                        }
+                    }
+                });
+            } catch ( final RuntimeException re ) {
+                this.finished();
+                throw re;
+            }
+        }
+    }
+
+    private void finished() {
+        final Task task;
+        synchronized ( this ) {
+            this.running--;
+            task = this.nextTask();
+        }
+        this.executeTask(task);
+    }
+
+    /**
+     * Remove all waiting jobs.
+     */
+    synchronized void clear() {
+        this.queues.clear();
+    }
+
+    private static final class QueueEntry {
+
+        public final Deque<Task> tasks = new ArrayDeque<Task>();
+
+        public int weight = 1;
+
+        public long pass;
+
+        public QueueEntry(final long pass) {
+            this.pass = pass;
+        }
+    }
+
+    private static final class Task {
+
+        public final Runnable runnable;
+
+        public final long queued;
+
+        public Task(final Runnable runnable, final long queued) {
+            this.runnable = runnable;
+            this.queued = queued;
+        }
+    }
+}
@@ -43,6 +43,18 @@ public class JobBuilderImpl implements JobBuilder {
     }
 
 
+    JobManagerImpl getJobManager() {
+        return this.jobManager;
+    }
+
+    String getTopic() {
+        return this.topic;
+    }
+
+    Map<String, Object> getProperties() {
+        return this.properties;
+    }
+
     @Override
     public JobBuilder properties(final Map<String, Object> props) {
         this.properties = props;
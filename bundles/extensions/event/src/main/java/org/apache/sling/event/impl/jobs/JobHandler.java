@@ -74,12 +74,24 @@ public class JobHandler {
         return this.persistJobProperties(this.job.prepare(queue));
     }
 
+    /**
+     * Is the job only kept in memory?
+     */
+    public boolean isTransient() {
+        return this.job.isTransient();
+    }
+
     /**
      * Reschedule the job
      * Update the retry count and remove the started time.
      * @return <code>true</code> if rescheduling was successful, <code>false</code> otherwise.
      */
     public boolean reschedule() {
+        if ( this.isTransient() ) {
+            job.getProperties().remove(Job.PROPERTY_JOB_STARTED_TIME);
+            job.getProperties().put(JobImpl.PROPERTY_JOB_QUEUED, Calendar.getInstance());
+            return true;
+        }
         final ResourceResolver resolver = this.configuration.createResourceResolver();
         try {
             final Resource jobResource = resolver.getResource(job.getResourcePath());
@@ -114,6 +126,10 @@ public class JobHandler {
     public void finished(final Job.JobState state,
                           final boolean keepJobInHistory,
                           final Long duration) {
+        if ( this.isTransient() ) {
+            // nothing to remove and no history for transient jobs
+            return;
+        }
         final boolean isSuccess = (state == Job.JobState.SUCCEEDED);
         final ResourceResolver resolver = this.configuration.createResourceResolver();
         try {
@@ -168,6 +184,11 @@ public class JobHandler {
      * Reassign to a new instance.
      */
     public void reassign() {
+        if ( this.isTransient() ) {
+            // transient jobs can't be moved to another instance
+            this.configuration.getMainLogger().warn("Dropping transient job {} : no consumer available.", Utility.toString(job));
+            return;
+        }
         final QueueInfo queueInfo = this.configuration.getQueueConfigurationManager().getQueueInfo(job.getTopic());
         // Sanity check if queue configuration has changed
         final TopologyCapabilities caps = this.configuration.getTopologyCapabilities();
@@ -213,7 +234,7 @@ public class JobHandler {
      * @return {@code true} if the update was successful.
      */
     public boolean persistJobProperties(final String... propNames) {
-        if ( propNames != null ) {
+        if ( propNames != null && !this.isTransient() ) {
             final ResourceResolver resolver = this.configuration.createResourceResolver();
             try {
                 final Resource jobResource = resolver.getResource(job.getResourcePath());
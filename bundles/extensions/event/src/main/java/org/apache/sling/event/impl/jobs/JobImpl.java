@@ -67,6 +67,8 @@ public class JobImpl implements Job, Comparable<JobImpl> {
 
     private final long counter;
 
+    private final boolean isTransient;
+
     /**
      * Create a new job instance
      *
@@ -75,11 +77,27 @@ public class JobImpl implements Job, Comparable<JobImpl> {
      * @param jobId The unique (internal) job id
      * @param properties Non-null map of properties, at least containing {@link #PROPERTY_RESOURCE_PATH}
      */
-    @SuppressWarnings("unchecked")
     public JobImpl(final String topic,
                    final String jobId,
                    final Map<String, Object> properties) {
+        this(topic, jobId, properties, false);
+    }
+
+    /**
+     * Create a new job instance
+     *
+     * @param topic The job topic
+     * @param jobId The unique (internal) job id
+     * @param properties Non-null map of properties, at least containing {@link #PROPERTY_RESOURCE_PATH}
+     * @param isTransient Whether the job is only kept in memory
+     */
+    @SuppressWarnings("unchecked")
+    public JobImpl(final String topic,
+                   final String jobId,
+                   final Map<String, Object> properties,
+                   final boolean isTransient) {
         this.topic = topic;
+        this.isTransient = isTransient;
         this.jobId = jobId;
         this.path = (String)properties.remove(PROPERTY_RESOURCE_PATH);
         this.readErrorList = (List<Exception>) properties.remove(ResourceHelper.PROPERTY_MARKER_READ_ERROR_LIST);
@@ -97,6 +115,14 @@ public class JobImpl implements Job, Comparable<JobImpl> {
         return this.path;
     }
 
+    /**
+     * Is this job only kept in memory?
+     * Transient jobs have a resource path but no resource.
+     */
+    public boolean isTransient() {
+        return this.isTransient;
+    }
+
     /**
      * Did we have read errors?
      */
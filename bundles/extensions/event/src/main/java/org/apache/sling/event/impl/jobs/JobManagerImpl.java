@@ -21,8 +21,10 @@ package org.apache.sling.event.impl.jobs;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +47,7 @@ import org.apache.sling.commons.threads.ThreadPoolManager;
 import org.apache.sling.event.impl.jobs.config.JobManagerConfiguration;
 import org.apache.sling.event.impl.jobs.config.QueueConfigurationManager.QueueInfo;
 import org.apache.sling.event.impl.jobs.config.TopologyCapabilities;
+import org.apache.sling.event.impl.jobs.notifications.NewJobSender;
 import org.apache.sling.event.impl.jobs.notifications.NotificationUtility;
 import org.apache.sling.event.impl.jobs.queues.JobQueueImpl;
 import org.apache.sling.event.impl.jobs.queues.QueueManager;
@@ -89,6 +92,9 @@ import org.slf4j.LoggerFactory;
 public class JobManagerImpl
     implements JobManager, EventHandler, Runnable {
 
+    /** Number of jobs committed at once when adding several jobs. */
+    private static final int BATCH_COMMIT_SIZE = 500;
+
     /** Default logger. */
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -117,6 +123,9 @@ public class JobManagerImpl
     @Reference
     private QueueManager qManager;
 
+    @Reference
+    private NewJobSender newJobSender;
+
     private volatile CleanUpTask maintenanceTask;
 
     /** Job Scheduler. */
@@ -534,31 +543,18 @@ public class JobManagerImpl
     private Job addJobInteral(final String jobTopic,
             final Map<String, Object> jobProperties,
             final List<String> errors) {
-        final QueueInfo info = this.configuration.getQueueConfigurationManager().getQueueInfo(jobTopic);
-
-        final TopologyCapabilities caps = this.configuration.getTopologyCapabilities();
-        info.targetId = (caps == null ? null : caps.detectTarget(jobTopic, jobProperties, info));
-
-        if ( logger.isDebugEnabled() ) {
-            if ( info.targetId != null ) {
-                logger.debug("Persisting job {} into queue {}, target={}", new Object[] {Utility.toString(jobTopic, jobProperties), info.queueName, info.targetId});
-            } else {
-                logger.debug("Persisting job {} into queue {}", Utility.toString(jobTopic, jobProperties), info.queueName);
-            }
+        final QueueInfo info = this.getQueueInfo(jobTopic, jobProperties);
+        if ( info.queueConfiguration.isTransient() ) {
+            return this.addTransientJob(jobTopic, jobProperties, info, errors);
         }
         final ResourceResolver resolver = this.configuration.createResourceResolver();
         try {
             final JobImpl job = this.writeJob(resolver,
                     jobTopic,
                     jobProperties,
-                    info);
-            if ( info.targetId != null ) {
-                this.configuration.getAuditLogger().debug("ASSIGN OK {} : {}",
-                        info.targetId, job.getId());
-            } else {
-                this.configuration.getAuditLogger().debug("UNASSIGN OK : {}",
-                        job.getId());
-            }
+                    info,
+                    true);
+            this.logAssignment(info, job);
             return job;
         } catch (final PersistenceException re ) {
             // something went wrong, so let's log it
@@ -573,22 +569,85 @@ public class JobManagerImpl
         return null;
     }
 
+    /**
+     * Get the queue information and the target instance for a new job.
+     */
+    private QueueInfo getQueueInfo(final String jobTopic,
+            final Map<String, Object> jobProperties) {
+        final QueueInfo info = this.configuration.getQueueConfigurationManager().getQueueInfo(jobTopic);
+
+        // transient jobs are always processed locally
+        if ( !info.queueConfiguration.isTransient() ) {
+            final TopologyCapabilities caps = this.configuration.getTopologyCapabilities();
+            info.targetId = (caps == null ? null : caps.detectTarget(jobTopic, jobProperties, info));
+        }
+
+        if ( logger.isDebugEnabled() ) {
+            if ( info.targetId != null ) {
+                logger.debug("Persisting job {} into queue {}, target={}", new Object[] {Utility.toString(jobTopic, jobProperties), info.queueName, info.targetId});
+            } else {
+                logger.debug("Persisting job {} into queue {}", Utility.toString(jobTopic, jobProperties), info.queueName);
+            }
+        }
+        return info;
+    }
+
+    private void logAssignment(final QueueInfo info, final JobImpl job) {
+        if ( info.targetId != null ) {
+            this.configuration.getAuditLogger().debug("ASSIGN OK {} : {}",
+                    info.targetId, job.getId());
+        } else {
+            this.configuration.getAuditLogger().debug("UNASSIGN OK : {}",
+                    job.getId());
+        }
+    }
+
     /**
      * Write a job to the resource tree.
      * @param resolver The resolver resolver
      * @param event The event
      * @param info The queue information (queue name etc.)
+     * @param commit Whether the changes should be committed
      * @throws PersistenceException
      */
     private JobImpl writeJob(final ResourceResolver resolver,
             final String jobTopic,
             final Map<String, Object> jobProperties,
-            final QueueInfo info)
+            final QueueInfo info,
+            final boolean commit)
     throws PersistenceException {
         final String jobId = this.configuration.getUniqueId(jobTopic);
         final String path = this.configuration.getUniquePath(info.targetId, jobTopic, jobId, jobProperties);
 
-        // create properties
+        final Map<String, Object> properties = this.createJobProperties(jobId, jobTopic, jobProperties, info);
+
+        // create path and resource
+        properties.put(ResourceResolver.PROPERTY_RESOURCE_TYPE, ResourceHelper.RESOURCE_TYPE_JOB);
+        if ( logger.isDebugEnabled() ) {
+            logger.debug("Storing new job {} at {}", Utility.toString(jobTopic, properties), path);
+        }
+        if ( commit ) {
+            ResourceHelper.getOrCreateResource(resolver,
+                    path,
+                    properties);
+        } else {
+            ResourceHelper.getOrCreateResourceWithoutCommit(resolver,
+                    path,
+                    properties);
+        }
+
+        // update property types - priority, add path and create job
+        properties.put(JobImpl.PROPERTY_RESOURCE_PATH, path);
+        return new JobImpl(jobTopic, jobId, properties);
+    }
+
+    /**
+     * Create the properties of a new job
+     */
+    private Map<String, Object> createJobProperties(final String jobId,
+            final String jobTopic,
+            final Map<String, Object> jobProperties,
+            final QueueInfo info) {
         final Map<String, Object> properties = new HashMap<String, Object>();
 
         if ( jobProperties != null ) {
@@ -614,19 +673,32 @@ public class JobManagerImpl
         } else {
             properties.remove(Job.PROPERTY_JOB_TARGET_INSTANCE);
         }
+        return properties;
+    }
 
-        // create path and resource
-        properties.put(ResourceResolver.PROPERTY_RESOURCE_TYPE, ResourceHelper.RESOURCE_TYPE_JOB);
-        if ( logger.isDebugEnabled() ) {
-            logger.debug("Storing new job {} at {}", Utility.toString(jobTopic, properties), path);
+    /**
+     * Add a job to a transient queue. The job is not persisted
+     * but directly handed over to the queue.
+     * @return The job or {@code null} if the queue is full.
+     */
+    private JobImpl addTransientJob(final String jobTopic,
+            final Map<String, Object> jobProperties,
+            final QueueInfo info,
+            final List<String> errors) {
+        final String jobId = this.configuration.getUniqueId(jobTopic);
+        final Map<String, Object> properties = this.createJobProperties(jobId, jobTopic, jobProperties, info);
+        // the path is never written, but used to identify the job
+        properties.put(JobImpl.PROPERTY_RESOURCE_PATH,
+                this.configuration.getUniquePath(null, jobTopic, jobId, jobProperties));
+        final JobImpl job = new JobImpl(jobTopic, jobId, properties, true);
+        if ( !this.qManager.addTransientJob(info, job) ) {
+            this.logger.warn("Transient queue {} is full, rejecting job {}", info.queueName, Utility.toString(jobTopic, jobProperties));
+            if ( errors != null ) {
+                errors.add("Transient queue " + info.queueName + " is full.");
+            }
+            return null;
         }
-        ResourceHelper.getOrCreateResource(resolver,
-                path,
-                properties);
-
-        // update property types - priority, add path and create job
-        properties.put(JobImpl.PROPERTY_RESOURCE_PATH, path);
-        return new JobImpl(jobTopic, jobId, properties);
+        return job;
     }
 
     /**
@@ -664,6 +736,173 @@ public class JobManagerImpl
         return new JobBuilderImpl(this, topic);
     }
 
+    /**
+     * @see org.apache.sling.event.jobs.JobManager#addJobs(java.util.Collection, java.util.Map)
+     */
+    @Override
+    public List<Job> addJobs(final Collection<JobBuilder> jobs,
+            final Map<JobBuilder, List<String>> errors) {
+        final List<Job> result = new ArrayList<Job>(jobs.size());
+
+        final ResourceResolver resolver = this.configuration.createResourceResolver();
+        try {
+            final List<PendingJob> pendingJobs = new ArrayList<PendingJob>();
+            for(final JobBuilder builder : jobs) {
+                final int index = result.size();
+                result.add(null);
+
+                final String errorMessage;
+                if ( !(builder instanceof JobBuilderImpl) || ((JobBuilderImpl)builder).getJobManager() != this ) {
+                    errorMessage = "Job builder has not been created by this job manager : " + builder;
+                } else {
+                    errorMessage = Utility.checkJob(((JobBuilderImpl)builder).getTopic(), ((JobBuilderImpl)builder).getProperties());
+                }
+                if ( errorMessage != null ) {
+                    logger.warn("{}", errorMessage);
+                    addErrors(errors, builder, Collections.singletonList(errorMessage));
+                    this.configuration.getAuditLogger().debug("ADD FAILED builder={} : {}",
+                            builder, errorMessage);
+                    continue;
+                }
+
+                final JobBuilderImpl jobBuilder = (JobBuilderImpl)builder;
+                final QueueInfo info = this.getQueueInfo(jobBuilder.getTopic(), jobBuilder.getProperties());
+                if ( info.queueConfiguration.isTransient() ) {
+                    // transient jobs are not part of the batch
+                    final List<String> errorList = new ArrayList<String>();
+                    final Job job = this.addJob(jobBuilder.getTopic(), jobBuilder.getProperties(), errorList);
+                    result.set(index, job);
+                    if ( job == null ) {
+                        addErrors(errors, builder, errorList);
+                    }
+                    continue;
+                }
+                final PendingJob pending = new PendingJob(index, jobBuilder);
+                pendingJobs.add(pending);
+                pending.info = info;
+                try {
+                    pending.job = this.writeJob(resolver,
+                            pending.builder.getTopic(),
+                            pending.builder.getProperties(),
+                            pending.info,
+                            false);
+                } catch ( final PersistenceException pe ) {
+                    this.logger.warn("Unable to persist new jobs at once, adding them one by one.", pe);
+                    this.addJobsOneByOne(resolver, pendingJobs, result, errors);
+                    continue;
+                }
+                if ( pendingJobs.size() == BATCH_COMMIT_SIZE ) {
+                    this.commitJobs(resolver, pendingJobs, result, errors);
+                }
+            }
+            if ( !pendingJobs.isEmpty() ) {
+                this.commitJobs(resolver, pendingJobs, result, errors);
+            }
+        } finally {
+            resolver.close();
+        }
+        return result;
+    }
+
+    /**
+     * Commit the pending jobs. If the commit fails, the jobs are added one by one.
+     * Once committed, one notification per topic is sent for the local jobs, so
+     * their queues start processing while the next chunk is written.
+     * The list of pending jobs is cleared afterwards.
+     */
+    private void commitJobs(final ResourceResolver resolver,
+            final List<PendingJob> pendingJobs,
+            final List<Job> result,
+            final Map<JobBuilder, List<String>> errors) {
+        // no event is sent by the new job sender for jobs which are part of the batch event
+        final List<String> localPaths = new ArrayList<String>();
+        for(final PendingJob pending : pendingJobs) {
+            if ( this.configuration.isLocalJob(pending.job.getResourcePath()) ) {
+                localPaths.add(pending.job.getResourcePath());
+            }
+        }
+        this.newJobSender.announce(localPaths);
+        try {
+            resolver.commit();
+        } catch ( final PersistenceException pe ) {
+            this.newJobSender.revoke(localPaths);
+            this.logger.warn("Unable to persist " + pendingJobs.size() + " new jobs at once, adding them one by one.", pe);
+            this.addJobsOneByOne(resolver, pendingJobs, result, errors);
+            return;
+        }
+        // the ids of the added local jobs by topic
+        final Map<String, List<String>> addedJobs = new LinkedHashMap<String, List<String>>();
+        for(final PendingJob pending : pendingJobs) {
+            this.logAssignment(pending.info, pending.job);
+            this.configuration.getAuditLogger().debug("ADD OK topic={}, properties={} : {}",
+                    new Object[] {pending.builder.getTopic(),
+                                  pending.builder.getProperties(),
+                                  pending.job.getId()});
+            result.set(pending.index, pending.job);
+            if ( this.configuration.isLocalJob(pending.job.getResourcePath()) ) {
+                List<String> ids = addedJobs.get(pending.job.getTopic());
+                if ( ids == null ) {
+                    ids = new ArrayList<String>();
+                    addedJobs.put(pending.job.getTopic(), ids);
+                }
+                ids.add(pending.job.getId());
+            }
+        }
+        pendingJobs.clear();
+        for(final Map.Entry<String, List<String>> entry : addedJobs.entrySet()) {
+            this.newJobSender.sendBatchEvent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Discard the uncommitted changes and add the pending jobs one by one.
+     * The list of pending jobs is cleared afterwards.
+     */
+    private void addJobsOneByOne(final ResourceResolver resolver,
+            final List<PendingJob> pendingJobs,
+            final List<Job> result,
+            final Map<JobBuilder, List<String>> errors) {
+        resolver.revert();
+        resolver.refresh();
+        for(final PendingJob pending : pendingJobs) {
+            final List<String> errorList = new ArrayList<String>();
+            final Job job = this.addJob(pending.builder.getTopic(), pending.builder.getProperties(), errorList);
+            result.set(pending.index, job);
+            if ( job == null ) {
+                addErrors(errors, pending.builder, errorList);
+            }
+        }
+        pendingJobs.clear();
+    }
+
+    private static void addErrors(final Map<JobBuilder, List<String>> errors,
+            final JobBuilder builder,
+            final List<String> messages) {
+        if ( errors != null ) {
+            errors.put(builder, new ArrayList<String>(messages));
+        }
+    }
+
+    /**
+     * A job of a batch which has been written but not committed yet.
+     */
+    private static final class PendingJob {
+
+        /** The position in the result list. */
+        public final int index;
+
+        public final JobBuilderImpl builder;
+
+        public QueueInfo info;
+
+        public JobImpl job;
+
+        public PendingJob(final int index, final JobBuilderImpl builder) {
+            this.index = index;
+            this.builder = builder;
+        }
+    }
+
     /**
      * @see org.apache.sling.event.jobs.JobManager#getScheduledJobs()
      */
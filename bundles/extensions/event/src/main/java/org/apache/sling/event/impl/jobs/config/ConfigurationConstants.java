@@ -33,6 +33,9 @@ public abstract class ConfigurationConstants {
     public static final boolean DEFAULT_KEEP_JOBS = false;
     public static final int DEFAULT_THREAD_POOL_SIZE = 0;
     public static final boolean DEFAULT_PREFER_RUN_ON_CREATION_INSTANCE = false;
+    public static final boolean DEFAULT_TRANSIENT = false;
+    public static final int DEFAULT_TRANSIENT_CAPACITY = 1000;
+    public static final int DEFAULT_WEIGHT = 1;
 
     public static final String PROP_NAME = "queue.name";
     public static final String PROP_TYPE = "queue.type";
@@ -44,5 +47,8 @@ public abstract class ConfigurationConstants {
     public static final String PROP_KEEP_JOBS = "queue.keepJobs";
     public static final String PROP_THREAD_POOL_SIZE = "queue.threadPoolSize";
     public static final String PROP_PREFER_RUN_ON_CREATION_INSTANCE = "queue.preferRunOnCreationInstance";
+    public static final String PROP_TRANSIENT = "queue.transient";
+    public static final String PROP_TRANSIENT_CAPACITY = "queue.transientCapacity";
+    public static final String PROP_WEIGHT = "queue.weight";
 
 }
@@ -105,6 +105,25 @@ import org.slf4j.LoggerFactory;
               description="Optional configuration value for a thread pool to be used by "
                         + "this queue. If this is value has a positive number of threads configuration, this queue uses "
                         + "an own thread pool with the configured number of threads."),
+    @Property(name=ConfigurationConstants.PROP_TRANSIENT,
+              boolValue=ConfigurationConstants.DEFAULT_TRANSIENT,
+              label="Transient",
+              description="If this option is enabled, jobs for this queue are not persisted "
+                        + "but kept in memory and always processed on the instance where they "
+                        + "are created. Transient jobs are lost if the instance is stopped, they "
+                        + "are not kept in the history and can't be found through the job manager."),
+    @Property(name=ConfigurationConstants.PROP_TRANSIENT_CAPACITY,
+              intValue=ConfigurationConstants.DEFAULT_TRANSIENT_CAPACITY,
+              label="Transient Capacity",
+              description="The maximum number of transient jobs waiting in this queue. If the "
+                        + "queue is full, adding a new job fails until jobs have been processed. "
+                        + "This value is only used for transient queues."),
+    @Property(name=ConfigurationConstants.PROP_WEIGHT,
+              intValue=ConfigurationConstants.DEFAULT_WEIGHT,
+              label="Weight",
+              description="The share of this queue if all threads of the job thread pool are in use. "
+                        + "A queue with weight two gets twice as many threads as a queue with weight one. "
+                        + "This value is not used if the queue has an own thread pool."),
     @Property(name=Constants.SERVICE_RANKING,
               intValue=0,
               propertyPrivate=false,
@@ -158,6 +177,15 @@ public class InternalQueueConfiguration
     /** Prefer creation instance. */
     private boolean preferCreationInstance;
 
+    /** Transient queue. */
+    private boolean isTransient;
+
+    /** The maximum number of waiting jobs for a transient queue. */
+    private int transientCapacity;
+
+    /** The weight for sharing the thread pool. */
+    private int weight;
+
     private String pid;
 
     /**
@@ -210,6 +238,9 @@ public class InternalQueueConfiguration
         this.serviceRanking = PropertiesUtil.toInteger(params.get(Constants.SERVICE_RANKING), 0);
         this.ownThreadPoolSize = PropertiesUtil.toInteger(params.get(ConfigurationConstants.PROP_THREAD_POOL_SIZE), ConfigurationConstants.DEFAULT_THREAD_POOL_SIZE);
         this.preferCreationInstance = PropertiesUtil.toBoolean(params.get(ConfigurationConstants.PROP_PREFER_RUN_ON_CREATION_INSTANCE), ConfigurationConstants.DEFAULT_PREFER_RUN_ON_CREATION_INSTANCE);
+        this.isTransient = PropertiesUtil.toBoolean(params.get(ConfigurationConstants.PROP_TRANSIENT), ConfigurationConstants.DEFAULT_TRANSIENT);
+        this.transientCapacity = PropertiesUtil.toInteger(params.get(ConfigurationConstants.PROP_TRANSIENT_CAPACITY), ConfigurationConstants.DEFAULT_TRANSIENT_CAPACITY);
+        this.weight = PropertiesUtil.toInteger(params.get(ConfigurationConstants.PROP_WEIGHT), ConfigurationConstants.DEFAULT_WEIGHT);
         this.pid = (String)params.get(Constants.SERVICE_PID);
         this.valid = this.checkIsValid();
     }
@@ -243,6 +274,12 @@ public class InternalQueueConfiguration
         if ( maxParallelProcesses < 1 ) {
             return false;
         }
+        if ( isTransient && transientCapacity < 1 ) {
+            return false;
+        }
+        if ( weight < 1 ) {
+            return false;
+        }
         return true;
     }
 
@@ -343,6 +380,27 @@ public class InternalQueueConfiguration
         return this.preferCreationInstance;
     }
 
+    /**
+     * Are the jobs of this queue kept in memory only?
+     */
+    public boolean isTransient() {
+        return this.isTransient;
+    }
+
+    /**
+     * The maximum number of transient jobs waiting in this queue.
+     */
+    public int getTransientCapacity() {
+        return this.transientCapacity;
+    }
+
+    /**
+     * The weight of this queue for sharing the thread pool.
+     */
+    public int getWeight() {
+        return this.weight;
+    }
+
     @Override
     public String toString() {
         return "Queue-Configuration(" + this.hashCode() + ") : {" +
@@ -355,6 +413,9 @@ public class InternalQueueConfiguration
             ", keepJobs=" + this.keepJobs +
             ", preferRunOnCreationInstance=" + this.preferCreationInstance +
             ", ownThreadPoolSize=" + this.ownThreadPoolSize +
+            ", transient=" + this.isTransient +
+            ", transientCapacity=" + this.transientCapacity +
+            ", weight=" + this.weight +
             ", serviceRanking=" + this.serviceRanking +
             ", pid=" + this.pid +
             ", isValid=" + this.isValid() + "}";
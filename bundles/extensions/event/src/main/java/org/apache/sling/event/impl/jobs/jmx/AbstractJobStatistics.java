@@ -28,7 +28,11 @@ public abstract class AbstractJobStatistics extends StandardMBean implements
         StatisticsMBean {
 
     public AbstractJobStatistics() {
-        super(StatisticsMBean.class, false);
+        this(StatisticsMBean.class);
+    }
+
+    protected AbstractJobStatistics(final Class<? extends StatisticsMBean> mbeanInterface) {
+        super(mbeanInterface, false);
     }
 
     protected abstract Statistics getStatistics();
@@ -17,34 +17,62 @@
  */
 package org.apache.sling.event.impl.jobs.jmx;
 
+import org.apache.sling.event.impl.jobs.config.InternalQueueConfiguration;
+import org.apache.sling.event.impl.jobs.stats.StatisticsImpl;
 import org.apache.sling.event.jobs.Queue;
 import org.apache.sling.event.jobs.Statistics;
 
 /**
  * An MBean that provides statistics from
  */
-public class QueueMBeanImpl extends AbstractJobStatistics {
+public class QueueMBeanImpl extends AbstractJobStatistics implements QueueStatisticsMBean {
+
+    private static final Statistics EMPTY_STATISTICS = new EmptyStatistics();
 
     private final String name;
 
-    private final Statistics statistics;
+    private final Queue queue;
 
     public QueueMBeanImpl(Queue queue) {
+        super(QueueStatisticsMBean.class);
         this.name = queue.getName();
-        if (queue instanceof Statistics) {
-            this.statistics = (Statistics) queue;
-        } else {
-            this.statistics = new EmptyStatistics();
-        }
+        this.queue = queue;
     }
 
     @Override
     protected Statistics getStatistics() {
-        return this.statistics;
+        if (queue instanceof Statistics) {
+            return (Statistics) queue;
+        }
+        // the statistics object of a queue might change, so always get the current one
+        final Statistics statistics = queue.getStatistics();
+        return statistics != null ? statistics : EMPTY_STATISTICS;
     }
 
     @Override
     public String getName() {
         return name;
     }
+
+    @Override
+    public long[] getWaitingTimeHistogramBuckets() {
+        return StatisticsImpl.WAITING_TIME_BUCKETS.clone();
+    }
+
+    @Override
+    public long[] getWaitingTimeHistogram() {
+        final Statistics statistics = getStatistics();
+        if (statistics instanceof StatisticsImpl) {
+            return ((StatisticsImpl) statistics).getWaitingTimeHistogram();
+        }
+        return new long[StatisticsImpl.WAITING_TIME_BUCKETS.length + 1];
+    }
+
+    @Override
+    public int getWeight() {
+        if (queue.getConfiguration() instanceof InternalQueueConfiguration) {
+            return ((InternalQueueConfiguration) queue.getConfiguration()).getWeight();
+        }
+        return 1;
+    }
 }
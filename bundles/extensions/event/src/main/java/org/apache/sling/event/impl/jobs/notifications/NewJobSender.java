@@ -18,13 +18,20 @@
  */
 package org.apache.sling.event.impl.jobs.notifications;
 
+import java.util.Collection;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.api.SlingConstants;
 import org.apache.sling.event.impl.jobs.config.JobManagerConfiguration;
 import org.apache.sling.event.jobs.Job;
@@ -42,13 +49,22 @@ import org.slf4j.LoggerFactory;
 /**
  * This component receives resource added events and sends a job
  * created event.
+ * Jobs added in a batch are announced before they are committed, for
+ * those a single event per topic is sent by the job manager.
  */
 @Component
+@Service(value=NewJobSender.class)
 public class NewJobSender implements EventHandler {
 
+    /** Announced jobs are forgotten if no resource event is received within this time. */
+    private static final long ANNOUNCEMENT_TIMEOUT = 5 * 60 * 1000;
+
     /** Logger. */
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    /** The paths of the announced jobs with the time of the announcement. */
+    private final ConcurrentMap<String, Long> announcedJobs = new ConcurrentHashMap<String, Long>();
+
     /** The job manager configuration. */
     @Reference
     private JobManagerConfiguration configuration;
@@ -88,10 +104,61 @@ public class NewJobSender implements EventHandler {
         }
     }
 
+    /**
+     * Announce jobs which are about to be committed. No event is sent
+     * when the resources of these jobs are added.
+     * @param jobPaths The resource paths of the jobs
+     */
+    public void announce(final Collection<String> jobPaths) {
+        final long now = System.currentTimeMillis();
+        // forget about jobs for which we never got an event
+        final Iterator<Map.Entry<String, Long>> iter = this.announcedJobs.entrySet().iterator();
+        while ( iter.hasNext() ) {
+            if ( iter.next().getValue() < now - ANNOUNCEMENT_TIMEOUT ) {
+                iter.remove();
+            }
+        }
+        final Long time = now;
+        for(final String path : jobPaths) {
+            this.announcedJobs.put(path, time);
+        }
+    }
+
+    /**
+     * Revoke the announcement of jobs which could not be committed.
+     * @param jobPaths The resource paths of the jobs
+     */
+    public void revoke(final Collection<String> jobPaths) {
+        for(final String path : jobPaths) {
+            this.announcedJobs.remove(path);
+        }
+    }
+
+    /**
+     * Send a single job added event for several jobs of a topic.
+     * @param topic The job topic
+     * @param jobIds The ids of the added jobs
+     */
+    public void sendBatchEvent(final String topic, final List<String> jobIds) {
+        final Dictionary<String, Object> properties = new Hashtable<String, Object>();
+        properties.put(NotificationConstants.NOTIFICATION_PROPERTY_JOB_IDS, jobIds.toArray(new String[jobIds.size()]));
+        properties.put(NotificationConstants.NOTIFICATION_PROPERTY_JOB_TOPIC, topic);
+
+        // we also set internally the queue name
+        final String queueName = this.configuration.getQueueConfigurationManager().getQueueInfo(topic).queueName;
+        properties.put(Job.PROPERTY_JOB_QUEUE_NAME, queueName);
+
+        this.eventAdmin.postEvent(new Event(NotificationConstants.TOPIC_JOB_ADDED, properties));
+    }
+
     @Override
     public void handleEvent(final Event event) {
         logger.debug("Received event {}", event);
         final String path = (String) event.getProperty(SlingConstants.PROPERTY_PATH);
+        if ( path != null && this.announcedJobs.remove(path) != null ) {
+            // covered by a batch event
+            return;
+        }
         if ( this.configuration.isLocalJob(path) ) {
             // get topic and id from path
             final int topicStart = this.configuration.getLocalJobsPath().length() + 1;
@@ -135,6 +135,25 @@ public class JobQueueImpl
         return new JobQueueImpl(name, config, services, cache);
     }
 
+    /**
+     * Create a new queue for transient jobs.
+     * Unlike {@link #createQueue(String, InternalQueueConfiguration, QueueServices, Set)}
+     * the queue is created even if there are no jobs yet and its cache
+     * never loads jobs from the repository.
+     *
+     * @param name The queue name
+     * @param config The queue configuration
+     * @param services The queue services
+     *
+     * @return {@code JobQueueImpl}
+     */
+    public static JobQueueImpl createTransientQueue(final String name,
+                        final InternalQueueConfiguration config,
+                        final QueueServices services) {
+        final QueueJobCache cache = new QueueJobCache(services.configuration, config.getType());
+        return new JobQueueImpl(name, config, services, cache);
+    }
+
     /**
      * Create a new queue.
      *
@@ -202,7 +221,7 @@ public class JobQueueImpl
                             this.services.statisticsManager, this, this.doFullCacheSearch.getAndSet(false));
                     if ( handler != null ) {
                         started = true;
-                        this.threadPool.execute(new Runnable() {
+                        final Runnable task = new Runnable() {
 
                             @Override
                             public void run() {
@@ -232,7 +251,12 @@ public class JobQueueImpl
                                 // and try to launch another job
                                 startJobs();
                             }
-                        });
+                        };
+                        if ( this.threadPool instanceof EventingThreadPool ) {
+                            ((EventingThreadPool)this.threadPool).execute(this.queueName, this.configuration.getWeight(), task);
+                        } else {
+                            this.threadPool.execute(task);
+                        }
                     } else {
                         // no job available, stop look
                         break;
@@ -370,6 +394,7 @@ public class JobQueueImpl
      */
     private boolean canBeClosed() {
         return !this.isSuspended()
+            && (!this.configuration.isTransient() || this.cache.isEmpty())
             && this.asyncCounter.get() == 0
             && this.waitCounter.get() == 0
             && this.available.availablePermits() == this.configuration.getMaxParallel();
@@ -410,6 +435,20 @@ public class JobQueueImpl
         this.startJobs();
     }
 
+    /**
+     * Add a transient job to this queue.
+     * The job is not started, this is up to the caller.
+     * @param job The transient job
+     * @return {@code true} if the job has been added, {@code false} if the queue is full.
+     */
+    public boolean addTransientJob(final JobImpl job) {
+        if ( !this.running ) {
+            return false;
+        }
+        return this.cache.addTransientJob(this.queueName, job,
+                this.configuration.getTransientCapacity(), this.services.statisticsManager);
+    }
+
     /**
      * Inform the queue about new job for the given topics.
      * @param topics the new topics
@@ -562,6 +601,11 @@ public class JobQueueImpl
      */
     @Override
     public synchronized void removeAll() {
+        if ( this.configuration.isTransient() ) {
+            final int count = this.cache.removeTransientJobs(this.queueName, this.services.statisticsManager);
+            logger.debug("Removed {} transient jobs from queue {}", count, queueName);
+            return;
+        }
         final Set<String> topics = this.cache.getTopics();
         logger.debug("Removing all jobs for queue {} : {}", queueName, topics);
 
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +38,7 @@ import org.apache.sling.event.impl.jobs.JobTopicTraverser;
 import org.apache.sling.event.impl.jobs.Utility;
 import org.apache.sling.event.impl.jobs.config.JobManagerConfiguration;
 import org.apache.sling.event.impl.jobs.stats.StatisticsManager;
+import org.apache.sling.event.jobs.Job;
 import org.apache.sling.event.jobs.Job.JobState;
 import org.apache.sling.event.jobs.Queue;
 import org.apache.sling.event.jobs.QueueConfiguration;
@@ -75,6 +77,12 @@ public class QueueJobCache {
     /** Block the cache - for ordered queues only. */
     private final AtomicBoolean queueIsBlocked = new AtomicBoolean(false);
 
+    /** The number of transient jobs in the cache. */
+    private int transientJobCount;
+
+    /** Whether this cache only holds transient jobs and never reads the repository. */
+    private final boolean transientOnly;
+
     /**
      * Create a new queue job cache
      * @param configuration Current job manager configuration
@@ -89,9 +97,25 @@ public class QueueJobCache {
         this.configuration = configuration;
         this.queueType = queueType;
         this.topics = new ConcurrentSkipListSet<String>(topics);
+        this.transientOnly = false;
         this.fillCache(queueName, statisticsManager);
     }
 
+    /**
+     * Create a new queue job cache for transient jobs.
+     * This cache is only filled through {@link #addTransientJob(String, JobImpl, int, StatisticsManager)}
+     * and never loads jobs from the repository.
+     * @param configuration Current job manager configuration
+     * @param queueType The queue type
+     */
+    public QueueJobCache(final JobManagerConfiguration configuration,
+            final QueueConfiguration.Type queueType) {
+        this.configuration = configuration;
+        this.queueType = queueType;
+        this.topics = new ConcurrentSkipListSet<String>();
+        this.transientOnly = true;
+    }
+
     /**
      * All topics of this queue.
      * @return The topics.
@@ -117,6 +141,30 @@ public class QueueJobCache {
         return result;
     }
 
+    /**
+     * Add a transient job to the cache.
+     * @param queueName The queue name
+     * @param job The transient job
+     * @param capacity The maximum number of transient jobs in the cache
+     * @param statisticsManager The statistics manager
+     * @return {@code true} if the job has been added, {@code false} if the cache is full.
+     */
+    public boolean addTransientJob(final String queueName,
+            final JobImpl job,
+            final int capacity,
+            final StatisticsManager statisticsManager) {
+        synchronized ( this.cache ) {
+            if ( this.transientJobCount >= capacity ) {
+                return false;
+            }
+            this.cache.add(job);
+            this.transientJobCount++;
+        }
+        this.topics.add(job.getTopic());
+        statisticsManager.jobQueued(queueName, job.getTopic());
+        return true;
+    }
+
     public void setIsBlocked(final boolean value) {
         this.queueIsBlocked.set(value);
     }
@@ -150,7 +198,7 @@ public class QueueJobCache {
                 boolean retry;
                 do {
                     retry = false;
-                    if ( this.cache.isEmpty() ) {
+                    if ( this.cache.isEmpty() && !this.transientOnly ) {
                         final Set<String> checkingTopics = new HashSet<String>();
                         synchronized ( this.topicsWithNewJobs ) {
                             checkingTopics.addAll(this.topicsWithNewJobs);
@@ -165,7 +213,10 @@ public class QueueJobCache {
                     }
 
                     if ( !this.cache.isEmpty() ) {
-                        final JobImpl job = this.cache.remove(0);
+                        final JobImpl job = this.cache.remove(this.getNextJobIndex());
+                        if ( job.isTransient() ) {
+                            this.transientJobCount--;
+                        }
                         final JobExecutor consumer = jobConsumerManager.getExecutor(job.getTopic());
 
                         handler = new JobHandler(job, consumer, this.configuration);
@@ -194,6 +245,27 @@ public class QueueJobCache {
         return handler;
     }
 
+    /**
+     * Get the index of the next job to process.
+     * For ordered queues this is always the first job, otherwise
+     * the first job with the highest priority.
+     * This method must be called while holding the lock on the cache.
+     */
+    private int getNextJobIndex() {
+        int index = 0;
+        if ( this.queueType != Type.ORDERED ) {
+            int priority = Integer.MIN_VALUE;
+            for(int i = 0; i < this.cache.size(); i++) {
+                final int jobPriority = this.cache.get(i).getProperty(Job.PROPERTY_JOB_PRIORITY, 0);
+                if ( jobPriority > priority ) {
+                    priority = jobPriority;
+                    index = i;
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      * Load the next N x numberOf(topics) jobs
      * @param checkingTopics The set of topics to check.
@@ -308,6 +380,10 @@ public class QueueJobCache {
      * @param topics The set of topics to scan
      */
     public void handleNewTopics(final Set<String> topics) {
+        if ( this.transientOnly ) {
+            // transient jobs are never stored, there is nothing to scan
+            return;
+        }
         logger.debug("Update cache to handle new event for topics {}", topics);
         synchronized ( this.topicsWithNewJobs ) {
             this.topicsWithNewJobs.addAll(topics);
@@ -328,8 +404,37 @@ public class QueueJobCache {
                 } else {
                     this.cache.add(handler.getJob());
                 }
+                // rescheduled jobs are always taken back, even if this exceeds the capacity
+                if ( handler.isTransient() ) {
+                    this.transientJobCount++;
+                }
                 statisticsManager.jobQueued(queueName, handler.getJob().getTopic());
             }
         }
     }
+
+    /**
+     * Remove all transient jobs from the cache.
+     * @param queueName The queue name
+     * @param statisticsManager The statistics manager
+     * @return The number of removed jobs.
+     */
+    public int removeTransientJobs(final String queueName, final StatisticsManager statisticsManager) {
+        final List<JobImpl> removed = new ArrayList<JobImpl>();
+        synchronized ( this.cache ) {
+            final Iterator<JobImpl> iter = this.cache.iterator();
+            while ( iter.hasNext() ) {
+                final JobImpl job = iter.next();
+                if ( job.isTransient() ) {
+                    iter.remove();
+                    removed.add(job);
+                }
+            }
+            this.transientJobCount = 0;
+        }
+        for(final JobImpl job : removed) {
+            statisticsManager.jobDequeued(queueName, job.getTopic());
+        }
+        return removed.size();
+    }
 }
@@ -253,6 +253,42 @@ public class QueueManager
         }
     }
 
+    /**
+     * Add a transient job.
+     * The job is put into the queue directly, if the queue does not
+     * exist yet, it is created.
+     *
+     * @param queueInfo The queue info
+     * @param job The transient job
+     * @return {@code true} if the job has been added, {@code false} if the queue is full.
+     */
+    public boolean addTransientJob(final QueueInfo queueInfo, final JobImpl job) {
+        final InternalQueueConfiguration config = queueInfo.queueConfiguration;
+        final JobQueueImpl queue;
+        final boolean added;
+        // we synchronize to avoid adding to a queue which is about to be removed during cleanup
+        synchronized ( queuesLock ) {
+            JobQueueImpl current = this.queues.get(queueInfo.queueName);
+            // check for reconfiguration, we really do an identity check here(!)
+            if ( current != null && current.getConfiguration() != config ) {
+                this.outdateQueue(current);
+                current = null;
+            }
+            if ( current == null ) {
+                current = JobQueueImpl.createTransientQueue(queueInfo.queueName, config, queueServices);
+                queues.put(queueInfo.queueName, current);
+                ((QueuesMBeanImpl)queuesMBean).sendEvent(new QueueStatusEvent(current, null));
+            }
+            queue = current;
+            added = queue.addTransientJob(job);
+        }
+        // if we're not active, the job is started by the next maintenance run
+        if ( added && this.isActive.get() ) {
+            queue.startJobs();
+        }
+        return added;
+    }
+
     /**
      * This method is invoked periodically by the scheduler.
      * In the default configuration every minute
@@ -303,8 +339,14 @@ public class QueueManager
         if ( config != null ) {
             final List<Job> rescheduleList = this.configuration.clearJobRetryList();
             for(final Job j : rescheduleList) {
-                final JobHandler jh = new JobHandler((JobImpl)j, null, this.configuration);
-                jh.reschedule();
+                final JobImpl job = (JobImpl)j;
+                if ( job.isTransient() ) {
+                    // transient jobs are only known to their queue which requeues them
+                    config.addJobToRetryList(job);
+                } else {
+                    final JobHandler jh = new JobHandler(job, null, this.configuration);
+                    jh.reschedule();
+                }
             }
         }
     }
@@ -18,6 +18,8 @@
  */
 package org.apache.sling.event.impl.jobs.stats;
 
+import java.util.Arrays;
+
 import org.apache.sling.event.jobs.Statistics;
 
 /**
@@ -25,6 +27,9 @@ import org.apache.sling.event.jobs.Statistics;
  */
 public class StatisticsImpl implements Statistics {
 
+    /** The upper bounds of the waiting time histogram buckets in milliseconds. */
+    public static final long[] WAITING_TIME_BUCKETS = {10, 50, 100, 500, 1000, 5000, 10000, 60000};
+
     private volatile long startTime;
 
     private volatile long activeJobs;
@@ -53,6 +58,9 @@ public class StatisticsImpl implements Statistics {
 
     private volatile long cancelledJobs;
 
+    /** The waiting time histogram, the last entry counts the jobs waiting longer than the last bucket. */
+    private final long[] waitingTimeHistogram = new long[WAITING_TIME_BUCKETS.length + 1];
+
     public StatisticsImpl() {
         this(System.currentTimeMillis());
     }
@@ -157,6 +165,17 @@ public class StatisticsImpl implements Statistics {
         return this.lastFinished;
     }
 
+    /**
+     * Get the waiting time histogram.
+     * The entry at index i counts the jobs which waited at most {@link #WAITING_TIME_BUCKETS}[i]
+     * milliseconds (and longer than the previous bucket), the last entry counts the
+     * jobs which waited longer than the last bucket.
+     * @return A copy of the histogram.
+     */
+    public synchronized long[] getWaitingTimeHistogram() {
+        return this.waitingTimeHistogram.clone();
+    }
+
     /**
      * Add a finished job
      * @param jobTime The processing time for this job.
@@ -218,6 +237,11 @@ public class StatisticsImpl implements Statistics {
         this.waitingTime += queueTime;
         this.averageWaitingTime = this.waitingTime / this.waitingCount;
         this.lastActivated = System.currentTimeMillis();
+        int bucket = 0;
+        while ( bucket < WAITING_TIME_BUCKETS.length && queueTime > WAITING_TIME_BUCKETS[bucket] ) {
+            bucket++;
+        }
+        this.waitingTimeHistogram[bucket]++;
     }
 
     /**
@@ -246,6 +270,9 @@ public class StatisticsImpl implements Statistics {
             this.failedJobs += other.failedJobs;
             this.cancelledJobs += other.cancelledJobs;
             this.activeJobs += other.activeJobs;
+            for(int i = 0; i < this.waitingTimeHistogram.length; i++) {
+                this.waitingTimeHistogram[i] += other.waitingTimeHistogram[i];
+            }
         }
     }
 
@@ -266,6 +293,7 @@ public class StatisticsImpl implements Statistics {
         final long localFailedJobs;
         final long localCancelledJobs;
         final long localActiveJobs;
+        final long[] localWaitingTimeHistogram;
         synchronized ( other ) {
             localQueuedJobs = other.queuedJobs;
             localLastActivated = other.lastActivated;
@@ -280,6 +308,7 @@ public class StatisticsImpl implements Statistics {
             localFailedJobs = other.failedJobs;
             localCancelledJobs = other.cancelledJobs;
             localActiveJobs = other.activeJobs;
+            localWaitingTimeHistogram = other.waitingTimeHistogram.clone();
         }
         synchronized ( this ) {
             this.queuedJobs = localQueuedJobs;
@@ -295,6 +324,7 @@ public class StatisticsImpl implements Statistics {
             this.failedJobs = localFailedJobs;
             this.cancelledJobs = localCancelledJobs;
             this.activeJobs = localActiveJobs;
+            System.arraycopy(localWaitingTimeHistogram, 0, this.waitingTimeHistogram, 0, this.waitingTimeHistogram.length);
         }
     }
 
@@ -315,5 +345,6 @@ public class StatisticsImpl implements Statistics {
         this.finishedJobs = 0;
         this.failedJobs = 0;
         this.cancelledJobs = 0;
+        Arrays.fill(this.waitingTimeHistogram, 0);
     }
 }
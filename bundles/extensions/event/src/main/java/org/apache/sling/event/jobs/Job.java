@@ -168,6 +168,15 @@ public interface Job {
      */
     String PROPERTY_JOB_DESCRIPTION = "slingevent:jobDescription";
 
+    /**
+     * This is an optional property containing the priority of the job.
+     * The value is an integer, the default is zero. Within a queue, jobs with
+     * a higher priority are processed first. The priority is ignored
+     * for ordered queues.
+     * @since 2.1
+     */
+    String PROPERTY_JOB_PRIORITY = "event.job.priority";
+
     /**
      * The current job state.
      * @since 1.3
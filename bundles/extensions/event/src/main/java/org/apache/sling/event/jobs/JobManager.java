@@ -19,6 +19,7 @@
 package org.apache.sling.event.jobs;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import aQute.bnd.annotation.ProviderType;
@@ -197,6 +198,28 @@ public interface JobManager {
      */
     JobBuilder createJob(final String topic);
 
+    /**
+     * Add several jobs at once.
+     *
+     * All jobs are persisted using a single resource resolver and the changes are
+     * committed in chunks instead of once per job which is considerably faster
+     * when many jobs are added. Instead of a {@link NotificationConstants#TOPIC_JOB_ADDED}
+     * notification per job, a single notification per topic and committed chunk is sent
+     * containing the job ids in the {@link NotificationConstants#NOTIFICATION_PROPERTY_JOB_IDS}
+     * property. Jobs of a chunk may therefore be processed before the method returns.
+     *
+     * The returned list contains an entry for each job builder in the iteration order
+     * of the collection: the new job or <code>null</code> if this job could not be
+     * created - the same rules as for {@link #addJob(String, Map)} apply.
+     *
+     * @param jobs The job builders, created by {@link #createJob(String)}.
+     * @param errors Optional map which will be filled with the error messages for
+     *               each job builder whose job could not be created.
+     * @return A list with the new jobs
+     * @since 2.1
+     */
+    List<Job> addJobs(Collection<JobBuilder> jobs, Map<JobBuilder, List<String>> errors);
+
     /**
      * Return all available job schedules.
      * @since 1.3
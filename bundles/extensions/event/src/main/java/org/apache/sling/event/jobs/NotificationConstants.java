@@ -84,6 +84,8 @@ public abstract class NotificationConstants {
      * Asynchronous notification event when a job is added.
      * The property {@link #NOTIFICATION_PROPERTY_JOB_TOPIC} contains the job topic,
      * the property {@link #NOTIFICATION_PROPERTY_JOB_ID} contains the unique job id.
+     * For jobs added in a batch, a single notification per topic and chunk is sent and the
+     * property {@link #NOTIFICATION_PROPERTY_JOB_IDS} contains the unique job ids.
      * @since 1.6
      */
     public static final String TOPIC_JOB_ADDED = "org/apache/sling/event/notification/job/ADDED";
@@ -100,6 +102,15 @@ public abstract class NotificationConstants {
      */
     public static final String NOTIFICATION_PROPERTY_JOB_ID = "slingevent:eventId";
 
+    /**
+     * Property containing the unique IDs of all jobs of a topic which have been added
+     * with {@link JobManager#addJobs(java.util.Collection, java.util.Map)}.
+     * Value is of type String[]. If this property is set for a {@link #TOPIC_JOB_ADDED}
+     * notification, {@link #NOTIFICATION_PROPERTY_JOB_ID} is not set.
+     * @since 2.1
+     */
+    public static final String NOTIFICATION_PROPERTY_JOB_IDS = "slingevent:eventIds";
+
    private NotificationConstants() {
         // avoid instantiation
     }
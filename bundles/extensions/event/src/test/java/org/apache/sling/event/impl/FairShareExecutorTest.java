@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.event.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.ThreadPoolConfig;
+import org.junit.Test;
+
+public class FairShareExecutorTest {
+
+    /** Thread pool collecting the runnables, they are run by the test. */
+    private final LinkedList<Runnable> pending = new LinkedList<Runnable>();
+
+    private final ThreadPool pool = new ThreadPool() {
+
+        @Override
+        public void execute(final Runnable runnable) {
+            pending.add(runnable);
+        }
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public ThreadPoolConfig getConfiguration() {
+            return null;
+        }
+    };
+
+    private final List<String> executed = new ArrayList<String>();
+
+    private void submit(final FairShareExecutor executor, final String queue, final int weight, final int count) {
+        for(int i = 0; i < count; i++) {
+            executor.execute(queue, weight, new Runnable() {
+
+                @Override
+                public void run() {
+                    executed.add(queue);
+                }
+            });
+        }
+    }
+
+    private void runAll() {
+        while ( !pending.isEmpty() ) {
+            pending.removeFirst().run();
+        }
+    }
+
+    @Test public void testExecuteWithoutContention() {
+        final FairShareExecutor executor = new FairShareExecutor(pool, 5, 10000);
+        submit(executor, "a", 1, 3);
+        assertEquals(3, pending.size());
+        assertEquals(0, executor.getWaitingCount());
+        runAll();
+        assertEquals(3, executed.size());
+    }
+
+    @Test public void testWeights() {
+        final FairShareExecutor executor = new FairShareExecutor(pool, 1, 10000);
+        // blocks the only thread
+        submit(executor, "blocker", 1, 1);
+        submit(executor, "low", 1, 10);
+        submit(executor, "high", 3, 10);
+        assertEquals(1, pending.size());
+        assertEquals(20, executor.getWaitingCount());
+        runAll();
+        assertEquals(21, executed.size());
+
+        // of the first eight jobs after the blocker, six belong to the high weight queue
+        int high = 0;
+        for(final String queue : executed.subList(1, 9)) {
+            if ( "high".equals(queue) ) {
+                high++;
+            }
+        }
+        assertEquals(6, high);
+    }
+
+    @Test public void testStarvation() {
+        // every waiting job is starving, so jobs are run in the order they were added
+        final FairShareExecutor executor = new FairShareExecutor(pool, 1, 0);
+        submit(executor, "blocker", 1, 1);
+        submit(executor, "low", 1, 2);
+        submit(executor, "high", 100, 2);
+        runAll();
+        assertEquals("low", executed.get(1));
+        assertEquals("low", executed.get(2));
+        assertEquals("high", executed.get(3));
+    }
+
+    @Test public void testConfigureMoreThreads() {
+        final FairShareExecutor executor = new FairShareExecutor(pool, 1, 10000);
+        submit(executor, "a", 1, 4);
+        assertEquals(1, pending.size());
+        executor.configure(4, 10000);
+        assertEquals(4, pending.size());
+        assertEquals(0, executor.getWaitingCount());
+    }
+}
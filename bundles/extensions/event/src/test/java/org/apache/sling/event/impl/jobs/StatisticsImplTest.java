@@ -265,4 +265,22 @@ public class StatisticsImplTest {
         assertTrue(this.stat.getLastActivatedJobTime() >= now);
         assertTrue(this.stat.getLastFinishedJobTime() >= now);
     }
+
+    @org.junit.Test public void testWaitingTimeHistogram() {
+        for(int i = 0; i < 4; i++) {
+            this.stat.incQueued();
+        }
+        this.stat.addActive(5);
+        this.stat.addActive(10);
+        this.stat.addActive(700);
+        this.stat.addActive(100000);
+        final long[] histogram = this.stat.getWaitingTimeHistogram();
+        assertEquals(StatisticsImpl.WAITING_TIME_BUCKETS.length + 1, histogram.length);
+        assertEquals(2, histogram[0]);
+        assertEquals(1, histogram[4]);
+        assertEquals(1, histogram[histogram.length - 1]);
+
+        this.stat.reset();
+        assertEquals(0, this.stat.getWaitingTimeHistogram()[0]);
+    }
 }
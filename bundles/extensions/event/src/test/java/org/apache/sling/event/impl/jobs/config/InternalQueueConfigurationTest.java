@@ -149,4 +149,25 @@ public class InternalQueueConfigurationTest {
         InternalQueueConfiguration c = InternalQueueConfiguration.fromConfiguration(p);
         assertFalse(c.isValid());
     }
+
+    @org.junit.Test public void testTransient() {
+        final Map<String, Object> p = new HashMap<String, Object>();
+        p.put(ConfigurationConstants.PROP_TOPICS, new String[] {"a"});
+        p.put(ConfigurationConstants.PROP_NAME, "test");
+
+        InternalQueueConfiguration c = InternalQueueConfiguration.fromConfiguration(p);
+        assertTrue(c.isValid());
+        assertFalse(c.isTransient());
+
+        p.put(ConfigurationConstants.PROP_TRANSIENT, true);
+        p.put(ConfigurationConstants.PROP_TRANSIENT_CAPACITY, 50);
+        c = InternalQueueConfiguration.fromConfiguration(p);
+        assertTrue(c.isValid());
+        assertTrue(c.isTransient());
+        assertEquals(50, c.getTransientCapacity());
+
+        p.put(ConfigurationConstants.PROP_TRANSIENT_CAPACITY, 0);
+        c = InternalQueueConfiguration.fromConfiguration(p);
+        assertFalse(c.isValid());
+    }
 }
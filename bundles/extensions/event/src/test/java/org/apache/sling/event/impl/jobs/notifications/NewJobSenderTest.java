@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.event.impl.jobs.notifications;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import org.apache.sling.api.SlingConstants;
+import org.apache.sling.event.impl.jobs.config.JobManagerConfiguration;
+import org.apache.sling.event.impl.jobs.config.QueueConfigurationManager;
+import org.apache.sling.event.impl.jobs.config.QueueConfigurationManager.QueueInfo;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.NotificationConstants;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
+
+import junitx.util.PrivateAccessor;
+
+public class NewJobSenderTest {
+
+    private static final String JOBS_PATH = "/var/eventing/jobs/assigned/id";
+
+    private static final String TOPIC = "sling/test";
+
+    private NewJobSender sender;
+
+    private EventAdmin eventAdmin;
+
+    @Before
+    public void setup() throws Exception {
+        final JobManagerConfiguration configuration = Mockito.mock(JobManagerConfiguration.class);
+        Mockito.when(configuration.getLocalJobsPath()).thenReturn(JOBS_PATH);
+        Mockito.when(configuration.isLocalJob(Mockito.anyString())).thenReturn(true);
+        final QueueInfo info = new QueueInfo();
+        info.queueName = "test";
+        final QueueConfigurationManager qcm = Mockito.mock(QueueConfigurationManager.class);
+        Mockito.when(qcm.getQueueInfo(TOPIC)).thenReturn(info);
+        Mockito.when(configuration.getQueueConfigurationManager()).thenReturn(qcm);
+
+        eventAdmin = Mockito.mock(EventAdmin.class);
+        sender = new NewJobSender();
+        PrivateAccessor.setField(sender, "configuration", configuration);
+        PrivateAccessor.setField(sender, "eventAdmin", eventAdmin);
+    }
+
+    private Event resourceAdded(final String jobId) {
+        final Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put(SlingConstants.PROPERTY_PATH, JOBS_PATH + "/sling.test/2015/1/1/10/0/" + jobId);
+        return new Event(SlingConstants.TOPIC_RESOURCE_ADDED, props);
+    }
+
+    @Test
+    public void testJobEvent() {
+        sender.handleEvent(resourceAdded("id_1"));
+
+        final ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        Mockito.verify(eventAdmin).sendEvent(captor.capture());
+        assertEquals(NotificationConstants.TOPIC_JOB_ADDED, captor.getValue().getTopic());
+        assertEquals(TOPIC, captor.getValue().getProperty(NotificationConstants.NOTIFICATION_PROPERTY_JOB_TOPIC));
+    }
+
+    @Test
+    public void testAnnouncedJobs() {
+        sender.announce(Arrays.asList(
+                (String)resourceAdded("id_1").getProperty(SlingConstants.PROPERTY_PATH),
+                (String)resourceAdded("id_2").getProperty(SlingConstants.PROPERTY_PATH)));
+        sender.sendBatchEvent(TOPIC, Arrays.asList("id_1", "id_2"));
+        sender.handleEvent(resourceAdded("id_1"));
+        sender.handleEvent(resourceAdded("id_2"));
+
+        final ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        Mockito.verify(eventAdmin).postEvent(captor.capture());
+        Mockito.verify(eventAdmin, Mockito.never()).sendEvent(Mockito.any(Event.class));
+        assertArrayEquals(new String[] {"id_1", "id_2"},
+                (String[])captor.getValue().getProperty(NotificationConstants.NOTIFICATION_PROPERTY_JOB_IDS));
+        assertEquals("test", captor.getValue().getProperty(Job.PROPERTY_JOB_QUEUE_NAME));
+
+        // a second event for the same job is not suppressed
+        sender.handleEvent(resourceAdded("id_1"));
+        Mockito.verify(eventAdmin).sendEvent(Mockito.any(Event.class));
+    }
+
+    @Test
+    public void testRevokedJobs() {
+        final String path = (String)resourceAdded("id_1").getProperty(SlingConstants.PROPERTY_PATH);
+        sender.announce(Collections.singletonList(path));
+        sender.revoke(Collections.singletonList(path));
+        sender.handleEvent(resourceAdded("id_1"));
+        Mockito.verify(eventAdmin).sendEvent(Mockito.any(Event.class));
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.event.impl.jobs.queues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junitx.util.PrivateAccessor;
+
+import org.apache.sling.commons.scheduler.Scheduler;
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.ThreadPoolManager;
+import org.apache.sling.event.impl.jobs.JobConsumerManager;
+import org.apache.sling.event.impl.jobs.JobManagerImpl;
+import org.apache.sling.event.impl.jobs.config.ConfigurationConstants;
+import org.apache.sling.event.impl.jobs.config.InternalQueueConfiguration;
+import org.apache.sling.event.impl.jobs.config.JobManagerConfiguration;
+import org.apache.sling.event.impl.jobs.config.QueueConfigurationManager;
+import org.apache.sling.event.impl.jobs.config.QueueConfigurationManager.QueueInfo;
+import org.apache.sling.event.impl.jobs.jmx.QueuesMBeanImpl;
+import org.apache.sling.event.impl.jobs.stats.StatisticsManager;
+import org.apache.sling.event.impl.support.Environment;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.QueueConfiguration;
+import org.apache.sling.event.jobs.consumer.JobExecutionContext;
+import org.apache.sling.event.jobs.consumer.JobExecutionResult;
+import org.apache.sling.event.jobs.consumer.JobExecutor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.osgi.service.event.EventAdmin;
+import org.slf4j.LoggerFactory;
+
+public class TransientQueueTest {
+
+    private static final String TOPIC = "transient/test";
+
+    private static final String QUEUE_NAME = "transient";
+
+    private static final int CAPACITY = 2;
+
+    private JobManagerConfiguration configuration;
+
+    private JobConsumerManager jobConsumerManager;
+
+    private StatisticsManager statisticsManager;
+
+    private QueueManager queueManager;
+
+    private JobManagerImpl jobManager;
+
+    /** Tasks handed to the thread pool, run by the test itself. */
+    private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+    private final AtomicInteger jobCounter = new AtomicInteger();
+
+    @Before
+    public void setup() throws Throwable {
+        Environment.APPLICATION_ID = "local";
+
+        final Map<String, Object> props = new HashMap<String, Object>();
+        props.put(ConfigurationConstants.PROP_NAME, QUEUE_NAME);
+        props.put(ConfigurationConstants.PROP_TOPICS, new String[] {TOPIC});
+        props.put(ConfigurationConstants.PROP_TYPE, QueueConfiguration.Type.UNORDERED.name());
+        props.put(ConfigurationConstants.PROP_TRANSIENT, true);
+        props.put(ConfigurationConstants.PROP_TRANSIENT_CAPACITY, CAPACITY);
+        // only one job is processed at a time, the others wait in the queue
+        props.put(ConfigurationConstants.PROP_MAX_PARALLEL, 1);
+        final InternalQueueConfiguration queueConfig = InternalQueueConfiguration.fromConfiguration(props);
+
+        final QueueInfo info = new QueueInfo();
+        info.queueConfiguration = queueConfig;
+        info.queueName = QUEUE_NAME;
+        final QueueConfigurationManager queueConfigManager = Mockito.mock(QueueConfigurationManager.class);
+        Mockito.when(queueConfigManager.getQueueInfo(TOPIC)).thenReturn(info);
+
+        configuration = Mockito.mock(JobManagerConfiguration.class);
+        Mockito.when(configuration.getQueueConfigurationManager()).thenReturn(queueConfigManager);
+        Mockito.when(configuration.getAuditLogger()).thenReturn(LoggerFactory.getLogger("audit"));
+        Mockito.when(configuration.getMainLogger()).thenReturn(LoggerFactory.getLogger("main"));
+        Mockito.when(configuration.getUniqueId(TOPIC)).thenAnswer(new Answer<String>() {
+
+            @Override
+            public String answer(final InvocationOnMock invocation) throws Throwable {
+                return "2015/1/1/1/1/test_" + jobCounter.incrementAndGet();
+            }
+        });
+        Mockito.when(configuration.getUniquePath(Mockito.anyString(), Mockito.eq(TOPIC), Mockito.anyString(), Mockito.anyMap()))
+            .thenReturn("/var/eventing/jobs/assigned/transient");
+
+        final ThreadPool threadPool = Mockito.mock(ThreadPool.class);
+        Mockito.doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                tasks.add((Runnable)invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(threadPool).execute(Mockito.any(Runnable.class));
+
+        jobConsumerManager = Mockito.mock(JobConsumerManager.class);
+        Mockito.when(jobConsumerManager.getExecutor(TOPIC)).thenReturn(new JobExecutor() {
+
+            @Override
+            public JobExecutionResult process(final Job job, final JobExecutionContext context) {
+                return context.result().succeeded();
+            }
+        });
+        statisticsManager = Mockito.mock(StatisticsManager.class);
+
+        queueManager = new QueueManager();
+        PrivateAccessor.setField(queueManager, "eventAdmin", Mockito.mock(EventAdmin.class));
+        PrivateAccessor.setField(queueManager, "scheduler", Mockito.mock(Scheduler.class));
+        PrivateAccessor.setField(queueManager, "jobConsumerManager", jobConsumerManager);
+        PrivateAccessor.setField(queueManager, "queuesMBean", Mockito.mock(QueuesMBeanImpl.class));
+        PrivateAccessor.setField(queueManager, "threadPoolManager", Mockito.mock(ThreadPoolManager.class));
+        PrivateAccessor.setField(queueManager, "threadPool", threadPool);
+        PrivateAccessor.setField(queueManager, "configuration", configuration);
+        PrivateAccessor.setField(queueManager, "statisticsManager", statisticsManager);
+        queueManager.activate(Collections.<String, Object> emptyMap());
+        ((AtomicBoolean)PrivateAccessor.getField(queueManager, "isActive")).set(true);
+
+        jobManager = new JobManagerImpl();
+        PrivateAccessor.setField(jobManager, "configuration", configuration);
+        PrivateAccessor.setField(jobManager, "qManager", queueManager);
+    }
+
+    private void runTasks() {
+        while ( !tasks.isEmpty() ) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private JobQueueImpl getQueue() {
+        return (JobQueueImpl) queueManager.getQueue(QUEUE_NAME);
+    }
+
+    private boolean isQueueEmpty() throws NoSuchFieldException {
+        return ((QueueJobCache)PrivateAccessor.getField(getQueue(), "cache")).isEmpty();
+    }
+
+    @Test public void testProcessWithoutRepository() throws Exception {
+        final List<Job> processed = new ArrayList<Job>();
+        Mockito.when(jobConsumerManager.getExecutor(TOPIC)).thenReturn(new JobExecutor() {
+
+            @Override
+            public JobExecutionResult process(final Job job, final JobExecutionContext context) {
+                processed.add(job);
+                return context.result().succeeded();
+            }
+        });
+
+        final Job job = jobManager.addJob(TOPIC, null);
+        assertNotNull(job);
+        runTasks();
+
+        assertEquals(1, processed.size());
+        assertEquals(job.getId(), processed.get(0).getId());
+        Mockito.verify(configuration, Mockito.never()).createResourceResolver();
+    }
+
+    @Test public void testRejectAtCapacity() throws Exception {
+        // the first job is handed to the thread pool, the others stay in the queue
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        for(int i = 0; i < CAPACITY; i++) {
+            assertNotNull(jobManager.addJob(TOPIC, null));
+        }
+        final List<String> errors = new ArrayList<String>();
+        assertNull(jobManager.addJob(TOPIC, null, errors));
+        assertEquals(1, errors.size());
+
+        // removing all jobs frees the capacity again
+        getQueue().removeAll();
+        tasks.clear();
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        Mockito.verify(configuration, Mockito.never()).createResourceResolver();
+    }
+
+    @Test public void testRetry() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        Mockito.when(jobConsumerManager.getExecutor(TOPIC)).thenReturn(new JobExecutor() {
+
+            @Override
+            public JobExecutionResult process(final Job job, final JobExecutionContext context) {
+                if ( calls.incrementAndGet() == 1 ) {
+                    return context.result().failed(0);
+                }
+                assertEquals(1, job.getRetryCount());
+                return context.result().succeeded();
+            }
+        });
+
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        runTasks();
+
+        assertEquals(2, calls.get());
+        assertTrue(isQueueEmpty());
+        Mockito.verify(configuration, Mockito.never()).createResourceResolver();
+    }
+
+    @Test public void testRetryExceedsCapacity() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        Mockito.when(jobConsumerManager.getExecutor(TOPIC)).thenReturn(new JobExecutor() {
+
+            @Override
+            public JobExecutionResult process(final Job job, final JobExecutionContext context) {
+                if ( calls.incrementAndGet() == 1 ) {
+                    // fill the queue while the job is processed
+                    for(int i = 0; i < CAPACITY; i++) {
+                        assertNotNull(jobManager.addJob(TOPIC, null));
+                    }
+                    assertNull(jobManager.addJob(TOPIC, null));
+                    return context.result().failed(0);
+                }
+                return context.result().succeeded();
+            }
+        });
+
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        runTasks();
+
+        // the failed job is taken back although the queue is full
+        assertEquals(1 + CAPACITY + 1, calls.get());
+        assertTrue(isQueueEmpty());
+    }
+
+    @Test public void testDropWithoutConsumer() throws Exception {
+        Mockito.when(jobConsumerManager.getExecutor(TOPIC)).thenReturn(null);
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        runTasks();
+
+        assertTrue(tasks.isEmpty());
+        assertTrue(isQueueEmpty());
+        Mockito.verify(statisticsManager).jobDequeued(QUEUE_NAME, TOPIC);
+        Mockito.verify(configuration, Mockito.never()).createResourceResolver();
+    }
+
+    @Test public void testRemoveAll() throws Exception {
+        // the first job is handed to the thread pool, the others stay in the queue
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        assertNotNull(jobManager.addJob(TOPIC, null));
+        assertFalse(isQueueEmpty());
+
+        getQueue().removeAll();
+
+        assertTrue(isQueueEmpty());
+        Mockito.verify(statisticsManager, Mockito.times(2)).jobDequeued(QUEUE_NAME, TOPIC);
+        Mockito.verify(configuration, Mockito.never()).createResourceResolver();
+    }
+}
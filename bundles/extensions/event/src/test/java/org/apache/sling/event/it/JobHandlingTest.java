@@ -22,6 +22,7 @@ package org.apache.sling.event.it;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -29,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +39,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.sling.event.impl.Barrier;
 import org.apache.sling.event.impl.jobs.config.ConfigurationConstants;
 import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobBuilder;
 import org.apache.sling.event.jobs.JobManager;
 import org.apache.sling.event.jobs.NotificationConstants;
 import org.apache.sling.event.jobs.QueueConfiguration;
@@ -183,6 +186,76 @@ public class JobHandlingTest extends AbstractJobHandlingTest {
         this.sleep(5000);
     }
 
+    /**
+     * Test adding many jobs at once.
+     * All valid jobs are executed, invalid jobs are reported and a single
+     * added notification is sent for all jobs.
+     */
+    @Test(timeout = DEFAULT_TEST_TIMEOUT)
+    public void testAddJobs() throws Exception {
+        final ServiceRegistration reg1 = this.registerJobConsumer(TOPIC,
+                new JobConsumer() {
+
+                    @Override
+                    public JobResult process(final Job job) {
+                        return JobResult.OK;
+                    }
+
+                 });
+        final AtomicInteger count = new AtomicInteger(0);
+        final ServiceRegistration reg2 = this.registerEventHandler(NotificationConstants.TOPIC_JOB_FINISHED,
+                new EventHandler() {
+                    @Override
+                    public void handleEvent(final Event event) {
+                        count.incrementAndGet();
+                    }
+                 });
+        final List<Event> addedEvents = Collections.synchronizedList(new ArrayList<Event>());
+        final ServiceRegistration reg3 = this.registerEventHandler(NotificationConstants.TOPIC_JOB_ADDED,
+                new EventHandler() {
+                    @Override
+                    public void handleEvent(final Event event) {
+                        addedEvents.add(event);
+                    }
+                 });
+
+        try {
+            final int COUNT = 1200;
+            final List<JobBuilder> builders = new ArrayList<JobBuilder>();
+            for(int i = 0; i < COUNT; i++ ) {
+                builders.add(this.getJobManager().createJob(TOPIC));
+            }
+            final JobBuilder invalid = this.getJobManager().createJob("invalid topic");
+            builders.add(invalid);
+
+            final Map<JobBuilder, List<String>> errors = new HashMap<JobBuilder, List<String>>();
+            final List<Job> jobs = this.getJobManager().addJobs(builders, errors);
+            assertEquals(COUNT + 1, jobs.size());
+            for(int i = 0; i < COUNT; i++ ) {
+                assertNotNull(jobs.get(i));
+            }
+            assertNull(jobs.get(COUNT));
+            assertEquals(Collections.singleton(invalid), errors.keySet());
+
+            while ( count.get() < COUNT ) {
+                this.sleep(50);
+            }
+            assertEquals("Finished count", COUNT, count.get());
+
+            int notifiedJobs = 0;
+            for(final Event event : addedEvents) {
+                final String[] ids = (String[])event.getProperty(NotificationConstants.NOTIFICATION_PROPERTY_JOB_IDS);
+                notifiedJobs += (ids == null ? 1 : ids.length);
+            }
+            assertEquals("Notified jobs", COUNT, notifiedJobs);
+            assertTrue("Too many notifications: " + addedEvents.size(), addedEvents.size() < COUNT);
+        } finally {
+            reg1.unregister();
+            reg2.unregister();
+            reg3.unregister();
+        }
+    }
+
     /**
      * Test canceling a job
      * The job execution always fails
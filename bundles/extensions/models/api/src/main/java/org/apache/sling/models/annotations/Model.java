@@ -60,4 +60,13 @@ public @interface Model {
      */
     public ValidationStrategy validation() default ValidationStrategy.DISABLED;
 
+    /**
+     * @return {@code true} if model instances should be cached. A cached instance is returned for every further
+     *  adaptation of the same adaptable object to the same model type; for requests the instances are cached for
+     *  the lifetime of the request, for all other adaptables as long as the model instance is referenced elsewhere.
+     *  Only use this for models which do not change state after construction.
+     * @since 1.3.0
+     */
+    public boolean cache() default false;
+
 }
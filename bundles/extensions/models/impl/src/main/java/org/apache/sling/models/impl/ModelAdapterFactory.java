@@ -23,7 +23,6 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -40,7 +39,6 @@ import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
-import javax.annotation.PostConstruct;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang.StringUtils;
@@ -151,6 +149,10 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
     private final @Nonnull ConcurrentMap<String, RankedServices<Injector>> injectors = new ConcurrentHashMap<String, RankedServices<Injector>>();
     private final @Nonnull RankedServices<Injector> sortedInjectors = new RankedServices<Injector>();
 
+    // snapshots of the injectors in ranking order, all of them and by injector name; rebuilt whenever an injector is bound or unbound
+    private volatile @Nonnull Injector[] sortedInjectorsArray = new Injector[0];
+    private volatile @Nonnull Map<String, Injector[]> injectorsArraysBySource = Collections.emptyMap();
+
     @Reference(name = "injectAnnotationProcessorFactory", referenceInterface = InjectAnnotationProcessorFactory.class,
             cardinality = ReferenceCardinality.OPTIONAL_MULTIPLE, policy = ReferencePolicy.DYNAMIC)
     private final @Nonnull RankedServices<InjectAnnotationProcessorFactory> injectAnnotationProcessorFactories = new RankedServices<InjectAnnotationProcessorFactory>();
@@ -159,6 +161,10 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
             cardinality = ReferenceCardinality.OPTIONAL_MULTIPLE, policy = ReferencePolicy.DYNAMIC)
     private final @Nonnull RankedServices<InjectAnnotationProcessorFactory2> injectAnnotationProcessorFactories2 = new RankedServices<InjectAnnotationProcessorFactory2>();
 
+    // snapshots of the annotation processor factories in ranking order; rebuilt whenever a factory is bound or unbound
+    private volatile @Nonnull InjectAnnotationProcessorFactory[] sortedInjectAnnotationProcessorFactories = new InjectAnnotationProcessorFactory[0];
+    private volatile @Nonnull InjectAnnotationProcessorFactory2[] sortedInjectAnnotationProcessorFactories2 = new InjectAnnotationProcessorFactory2[0];
+
     @Reference(name = "staticInjectAnnotationProcessorFactory", referenceInterface = StaticInjectAnnotationProcessorFactory.class,
             cardinality = ReferenceCardinality.OPTIONAL_MULTIPLE, policy = ReferencePolicy.DYNAMIC)
     private final @Nonnull RankedServices<StaticInjectAnnotationProcessorFactory> staticInjectAnnotationProcessorFactories = new RankedServices<StaticInjectAnnotationProcessorFactory>();
@@ -175,6 +181,8 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
 
     final AdapterImplementations adapterImplementations = new AdapterImplementations();
 
+    final ModelInstanceCache modelInstanceCache = new ModelInstanceCache();
+
     private ServiceRegistration jobRegistration;
 
     private ServiceRegistration configPrinterRegistration;
@@ -292,6 +300,12 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
                 String msg = String.format("Adaptables (%s) are not acceptable for the model class: %s", StringUtils.join(declaredAdaptable), modelClass.getType());
                 return new Result<ModelType>(new InvalidAdaptableException(msg)); 
             } else {
+                if (modelAnnotation.cache()) {
+                    Object cachedModel = modelInstanceCache.get(adaptable, requestedType);
+                    if (cachedModel != null) {
+                        return new Result<ModelType>((ModelType) cachedModel);
+                    }
+                }
                 RuntimeException t = validateModel(adaptable, modelClass.getType(), modelAnnotation);
                 if (t != null) {
                     return new Result<ModelType>(t);
@@ -299,8 +313,13 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
                 if (modelClass.getType().isInterface()) {
                     Result<InvocationHandler> handlerResult = createInvocationHandler(adaptable, modelClass);
                     if (handlerResult.wasSuccessfull()) {
-                        ModelType model = (ModelType) Proxy.newProxyInstance(modelClass.getType().getClassLoader(), new Class<?>[] { modelClass.getType() }, handlerResult.getValue());
-                        result = new Result<ModelType>(model);
+                        try {
+                            ModelType model = (ModelType) modelClass.getProxyConstructor().newInstance(handlerResult.getValue());
+                            result = new Result<ModelType>(model);
+                        } catch (Exception e) {
+                            String msg = String.format("Unable to create model %s", modelClass.getType());
+                            return new Result<ModelType>(new ModelClassException(msg, e));
+                        }
                     } else {
                         return new Result<ModelType>(handlerResult.getThrowable());
                     }
@@ -312,6 +331,9 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
                         return new Result<ModelType>(new ModelClassException(msg, e));
                     }
                 }
+                if (modelAnnotation.cache() && result.wasSuccessfull()) {
+                    modelInstanceCache.put(adaptable, requestedType, result.getValue());
+                }
             }
             return result;
         } finally {
@@ -391,14 +413,14 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         boolean wasInjectionSuccessful = false;
 
         // find an appropriate annotation processor
-        for (InjectAnnotationProcessorFactory2 factory : injectAnnotationProcessorFactories2) {
+        for (InjectAnnotationProcessorFactory2 factory : sortedInjectAnnotationProcessorFactories2) {
             annotationProcessor = factory.createAnnotationProcessor(adaptable, element.getAnnotatedElement());
             if (annotationProcessor != null) {
                 break;
             }
         }
         if (annotationProcessor == null) {
-            for (InjectAnnotationProcessorFactory factory : injectAnnotationProcessorFactories) {
+            for (InjectAnnotationProcessorFactory factory : sortedInjectAnnotationProcessorFactories) {
                 annotationProcessor = factory.createAnnotationProcessor(adaptable, element.getAnnotatedElement());
                 if (annotationProcessor != null) {
                     break;
@@ -413,12 +435,15 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         if (injectionAdaptable != null) {
             
             // prepare the set of injectors to process. if a source is given only use injectors with this name.
-            final RankedServices<Injector> injectorsToProcess;
+            final Injector[] injectorsToProcess;
             if (StringUtils.isEmpty(source)) {
-                injectorsToProcess = sortedInjectors;
+                injectorsToProcess = sortedInjectorsArray;
             }
             else {
-                injectorsToProcess = injectors.get(source);
+                injectorsToProcess = injectorsArraysBySource.get(source);
+                if (injectorsToProcess == null) {
+                    throw new IllegalArgumentException("No Sling Models Injector registered for source '" + source + "'.");
+                }
             }
             
             // find the right injector
@@ -556,7 +581,7 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
             return new Result<ModelType>(missingElements);
         }
         try {
-            invokePostConstruct(object);
+            invokePostConstruct(modelClass, object);
         } catch (InvocationTargetException e) {
             return new Result<ModelType>(new PostConstructException("Post-construct method has thrown an exception for model " + modelClass.getType(), e.getCause()));
         } catch (IllegalAccessException e) {
@@ -710,43 +735,9 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         return element.getName();
     }
 
-    private boolean addMethodIfNotOverriden(List<Method> methods, Method newMethod) {
-        for (Method method : methods) {
-            if (method.getName().equals(newMethod.getName())) {
-                if (Arrays.equals(method.getParameterTypes(),newMethod.getParameterTypes())) {
-                    return false;
-                }
-            }
-        }
-        methods.add(newMethod);
-        return true;
-    }
-
-    private void invokePostConstruct(Object object) throws InvocationTargetException, IllegalAccessException {
-        Class<?> clazz = object.getClass();
-        List<Method> postConstructMethods = new ArrayList<Method>();
-        while (clazz != null) {
-            Method[] methods = clazz.getDeclaredMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(PostConstruct.class)) {
-                    addMethodIfNotOverriden(postConstructMethods, method);
-                }
-            }
-            clazz = clazz.getSuperclass();
-        }
-        Collections.reverse(postConstructMethods);
-        for (Method method : postConstructMethods) {
-            boolean accessible = method.isAccessible();
-            try {
-                if (!accessible) {
-                    method.setAccessible(true);
-                }
-                method.invoke(object);
-            } finally {
-                if (!accessible) {
-                    method.setAccessible(false);
-                }
-            }
+    private void invokePostConstruct(ModelClass<?> modelClass, Object object) throws InvocationTargetException, IllegalAccessException {
+        for (Method method : modelClass.getPostConstructMethods()) {
+            method.invoke(object);
         }
     }
 
@@ -754,18 +745,10 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         Field field = injectableField.getField();
         Result<Object> result = adaptIfNecessary(value, field.getType(), field.getGenericType());
         if (result.wasSuccessfull()) {
-            boolean accessible = field.isAccessible();
             try {
-                if (!accessible) {
-                    field.setAccessible(true);
-                }
                 field.set(createdObject, result.getValue());
             } catch (Exception e) {
                 return new ModelClassException("Could not inject field due to reflection issues", e);
-            } finally {
-                if (!accessible) {
-                    field.setAccessible(false);
-                }
             }
             return null;
         } else {
@@ -933,6 +916,7 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
     protected void deactivate() {
         this.listener.unregisterAll();
         this.adapterImplementations.removeAll();
+        this.modelInstanceCache.clear();
         if (jobRegistration != null) {
             jobRegistration.unregister();
             jobRegistration = null;
@@ -951,6 +935,7 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         }
         injectorsPerInjectorName.bind(injector, props);
         sortedInjectors.bind(injector, props);
+        updateInjectorsArrays();
     }
 
     protected void unbindInjector(final Injector injector, final Map<String, Object> props) {
@@ -959,22 +944,57 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
             injectorsPerInjectorName.unbind(injector, props);
         }
         sortedInjectors.unbind(injector, props);
+        updateInjectorsArrays();
+    }
+
+    private synchronized void updateInjectorsArrays() {
+        Map<String, Injector[]> bySource = new HashMap<String, Injector[]>();
+        for (Map.Entry<String, RankedServices<Injector>> entry : injectors.entrySet()) {
+            // names of injectors which have been unbound again map to an empty array
+            Collection<Injector> injectorsWithName = entry.getValue().get();
+            bySource.put(entry.getKey(), injectorsWithName.toArray(new Injector[injectorsWithName.size()]));
+        }
+        Collection<Injector> allInjectors = sortedInjectors.get();
+        this.sortedInjectorsArray = allInjectors.toArray(new Injector[allInjectors.size()]);
+        this.injectorsArraysBySource = bySource;
     }
 
     protected void bindInjectAnnotationProcessorFactory(final InjectAnnotationProcessorFactory factory, final Map<String, Object> props) {
-        injectAnnotationProcessorFactories.bind(factory, props);
+        synchronized (injectAnnotationProcessorFactories) {
+            injectAnnotationProcessorFactories.bind(factory, props);
+            updateInjectAnnotationProcessorFactoriesArray();
+        }
     }
 
     protected void unbindInjectAnnotationProcessorFactory(final InjectAnnotationProcessorFactory factory, final Map<String, Object> props) {
-        injectAnnotationProcessorFactories.unbind(factory, props);
+        synchronized (injectAnnotationProcessorFactories) {
+            injectAnnotationProcessorFactories.unbind(factory, props);
+            updateInjectAnnotationProcessorFactoriesArray();
+        }
+    }
+
+    private void updateInjectAnnotationProcessorFactoriesArray() {
+        Collection<InjectAnnotationProcessorFactory> factories = injectAnnotationProcessorFactories.get();
+        this.sortedInjectAnnotationProcessorFactories = factories.toArray(new InjectAnnotationProcessorFactory[factories.size()]);
     }
 
     protected void bindInjectAnnotationProcessorFactory2(final InjectAnnotationProcessorFactory2 factory, final Map<String, Object> props) {
-        injectAnnotationProcessorFactories2.bind(factory, props);
+        synchronized (injectAnnotationProcessorFactories2) {
+            injectAnnotationProcessorFactories2.bind(factory, props);
+            updateInjectAnnotationProcessorFactories2Array();
+        }
     }
 
     protected void unbindInjectAnnotationProcessorFactory2(final InjectAnnotationProcessorFactory2 factory, final Map<String, Object> props) {
-        injectAnnotationProcessorFactories2.unbind(factory, props);
+        synchronized (injectAnnotationProcessorFactories2) {
+            injectAnnotationProcessorFactories2.unbind(factory, props);
+            updateInjectAnnotationProcessorFactories2Array();
+        }
+    }
+
+    private void updateInjectAnnotationProcessorFactories2Array() {
+        Collection<InjectAnnotationProcessorFactory2> factories = injectAnnotationProcessorFactories2.get();
+        this.sortedInjectAnnotationProcessorFactories2 = factories.toArray(new InjectAnnotationProcessorFactory2[factories.size()]);
     }
 
     protected void bindStaticInjectAnnotationProcessorFactory(final StaticInjectAnnotationProcessorFactory factory, final Map<String, Object> props) {
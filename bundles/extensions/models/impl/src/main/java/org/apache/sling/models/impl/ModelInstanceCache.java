@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.models.impl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.ServletRequest;
+
+/**
+ * Caches instances of models with {@code @Model(cache=true)}, keyed by the identity of the adaptable and the requested type.
+ * <p>
+ * Instances created from a request are kept in a request attribute and live as long as the request. For all other
+ * adaptables the adaptable and the instances are only weakly referenced: models usually hold on to their adaptable, so
+ * holding them strongly would keep both in memory forever. An instance is therefore cached as long as it is in use,
+ * and once it is no longer referenced it is disposed through the regular disposal callbacks. Entries whose adaptable
+ * or instance has been collected are removed on the next {@link #put(Object, Class, Object)}.
+ * The implementation is thread-safe and lookups do not lock.
+ */
+final class ModelInstanceCache {
+
+    static final String REQUEST_ATTRIBUTE = ModelInstanceCache.class.getName();
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+    private final ConcurrentMap<InstanceKey, InstanceReference> instances = new ConcurrentHashMap<InstanceKey, InstanceReference>();
+
+    /**
+     * @param adaptable Adaptable
+     * @param type Requested model type
+     * @return The cached model instance or null
+     */
+    public Object get(Object adaptable, Class<?> type) {
+        if (adaptable instanceof ServletRequest) {
+            Map<Class<?>, Object> requestInstances = getRequestInstances((ServletRequest) adaptable, false);
+            return requestInstances == null ? null : requestInstances.get(type);
+        }
+        InstanceReference reference = instances.get(new InstanceKey(adaptable, type, null));
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * @param adaptable Adaptable
+     * @param type Requested model type
+     * @param model The model instance to cache
+     */
+    public void put(Object adaptable, Class<?> type, Object model) {
+        if (adaptable instanceof ServletRequest) {
+            getRequestInstances((ServletRequest) adaptable, true).put(type, model);
+            return;
+        }
+        expungeStaleEntries();
+        InstanceKey key = new InstanceKey(adaptable, type, queue);
+        instances.put(key, new InstanceReference(key, model, queue));
+    }
+
+    /**
+     * @return Number of cached instances, not counting requests
+     */
+    public int size() {
+        expungeStaleEntries();
+        return instances.size();
+    }
+
+    public void clear() {
+        instances.clear();
+    }
+
+    /**
+     * The request attribute is shared with all wrappers of the request, which may resolve to different models,
+     * so it holds the instances by request object.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Class<?>, Object> getRequestInstances(ServletRequest request, boolean create) {
+        Map<ServletRequest, Map<Class<?>, Object>> requestInstances =
+                (Map<ServletRequest, Map<Class<?>, Object>>) request.getAttribute(REQUEST_ATTRIBUTE);
+        if (requestInstances == null) {
+            if (!create) {
+                return null;
+            }
+            requestInstances = new IdentityHashMap<ServletRequest, Map<Class<?>, Object>>();
+            request.setAttribute(REQUEST_ATTRIBUTE, requestInstances);
+        }
+        Map<Class<?>, Object> instancesOfRequest = requestInstances.get(request);
+        if (instancesOfRequest == null && create) {
+            instancesOfRequest = new HashMap<Class<?>, Object>(4);
+            requestInstances.put(request, instancesOfRequest);
+        }
+        return instancesOfRequest;
+    }
+
+    private void expungeStaleEntries() {
+        java.lang.ref.Reference<?> ref = queue.poll();
+        while (ref != null) {
+            if (ref instanceof InstanceKey) {
+                // the adaptable has been collected
+                instances.remove(ref);
+            } else {
+                // the instance has been collected, unless it has been replaced in the meantime
+                InstanceReference instance = (InstanceReference) ref;
+                instances.remove(instance.key, instance);
+            }
+            ref = queue.poll();
+        }
+    }
+
+    /**
+     * Weak reference to an adaptable with identity semantics, together with the requested type.
+     */
+    private static final class InstanceKey extends WeakReference<Object> {
+
+        private final Class<?> type;
+
+        private final int hash;
+
+        InstanceKey(Object adaptable, Class<?> type, ReferenceQueue<Object> queue) {
+            super(adaptable, queue);
+            this.type = type;
+            this.hash = System.identityHashCode(adaptable) * 31 + type.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof InstanceKey)) {
+                return false;
+            }
+            InstanceKey other = (InstanceKey) obj;
+            Object referent = get();
+            return referent != null && referent == other.get() && type == other.type;
+        }
+    }
+
+    /**
+     * Weak reference to a cached instance, knowing the key it is cached with.
+     */
+    private static final class InstanceReference extends WeakReference<Object> {
+
+        private final InstanceKey key;
+
+        InstanceReference(InstanceKey key, Object model, ReferenceQueue<Object> queue) {
+            super(model, queue);
+            this.key = key;
+        }
+    }
+}
@@ -31,8 +31,13 @@ public class InjectableField extends AbstractInjectableElement {
     public InjectableField(Field field, StaticInjectAnnotationProcessorFactory[] processorFactories, DefaultInjectionStrategy defaultInjectionStrategy) {
         super(field, ReflectionUtil.mapPrimitiveClasses(field.getGenericType()), field.getName(), processorFactories, defaultInjectionStrategy);
         this.field = field;
+        // make the field accessible once instead of on every injection
+        this.field.setAccessible(true);
     }
     
+    /**
+     * @return The field, already made accessible
+     */
     public Field getField() {
         return field;
     }
@@ -20,10 +20,16 @@ package org.apache.sling.models.impl.model;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.sling.models.annotations.DefaultInjectionStrategy;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.impl.ReflectionUtil;
@@ -37,6 +43,8 @@ public class ModelClass<ModelType> {
     private volatile ModelClassConstructor[] constructors;
     private volatile InjectableField[] injectableFields;
     private volatile InjectableMethod[] injectableMethods;
+    private final Method[] postConstructMethods;
+    private volatile Constructor<?> proxyConstructor;
 
     public ModelClass(Class<ModelType> type, StaticInjectAnnotationProcessorFactory[] processorFactories) {
         this.type = type;
@@ -46,6 +54,7 @@ public class ModelClass<ModelType> {
         } else {
             defaultInjectionStrategy = modelAnnotation.defaultInjectionStrategy();
         }
+        this.postConstructMethods = getPostConstructMethods(type);
         updateProcessorFactories(processorFactories);
     }
     
@@ -100,6 +109,40 @@ public class ModelClass<ModelType> {
         return array;
     }
 
+    private static Method[] getPostConstructMethods(Class<?> type) {
+        if (type.isInterface()) {
+            return new Method[0];
+        }
+        List<Method> postConstructMethods = new ArrayList<Method>();
+        Class<?> clazz = type;
+        while (clazz != null) {
+            Method[] methods = clazz.getDeclaredMethods();
+            for (Method method : methods) {
+                if (method.isAnnotationPresent(PostConstruct.class)) {
+                    addMethodIfNotOverriden(postConstructMethods, method);
+                }
+            }
+            clazz = clazz.getSuperclass();
+        }
+        Collections.reverse(postConstructMethods);
+        for (Method method : postConstructMethods) {
+            method.setAccessible(true);
+        }
+        return postConstructMethods.toArray(new Method[postConstructMethods.size()]);
+    }
+
+    private static boolean addMethodIfNotOverriden(List<Method> methods, Method newMethod) {
+        for (Method method : methods) {
+            if (method.getName().equals(newMethod.getName())) {
+                if (Arrays.equals(method.getParameterTypes(),newMethod.getParameterTypes())) {
+                    return false;
+                }
+            }
+        }
+        methods.add(newMethod);
+        return true;
+    }
+
     public Class<ModelType> getType() {
         return this.type;
     }
@@ -124,4 +167,24 @@ public class ModelClass<ModelType> {
         return this.injectableMethods;
     }
 
+    /**
+     * @return The post-construct methods in invocation order (super classes first), already made accessible
+     */
+    public Method[] getPostConstructMethods() {
+        return this.postConstructMethods;
+    }
+
+    /**
+     * @return Constructor of the dynamic proxy class implementing the model interface, taking an {@link InvocationHandler}
+     */
+    public Constructor<?> getProxyConstructor() throws NoSuchMethodException {
+        Constructor<?> constructor = this.proxyConstructor;
+        if (constructor == null) {
+            Class<?> proxyClass = Proxy.getProxyClass(type.getClassLoader(), new Class<?>[] { type });
+            constructor = proxyClass.getConstructor(InvocationHandler.class);
+            this.proxyConstructor = constructor;
+        }
+        return constructor;
+    }
+
 }
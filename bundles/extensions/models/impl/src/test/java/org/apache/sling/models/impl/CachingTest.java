@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.models.impl;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.SlingHttpServletRequestWrapper;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.models.impl.injectors.RequestAttributeInjector;
+import org.apache.sling.models.impl.injectors.ValueMapInjector;
+import org.apache.sling.models.testmodels.classes.CachedModel;
+import org.apache.sling.models.testmodels.classes.UncachedModel;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingTest {
+
+    @Mock
+    private ComponentContext componentCtx;
+
+    @Mock
+    private BundleContext bundleContext;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private Resource resource;
+
+    private ModelAdapterFactory factory;
+
+    private final Map<String, Object> requestAttributes = new HashMap<String, Object>();
+
+    private final ValueMap vm = new ValueMapDecorator(Collections.<String, Object> singletonMap("testValue", "test"));
+
+    @Before
+    public void setup() {
+        when(componentCtx.getBundleContext()).thenReturn(bundleContext);
+        when(componentCtx.getProperties()).thenReturn(new Hashtable<String, Object>());
+
+        factory = new ModelAdapterFactory();
+        factory.activate(componentCtx);
+        factory.bindInjector(new RequestAttributeInjector(), new ServicePropertiesMap(1, 1));
+        factory.bindInjector(new ValueMapInjector(), new ServicePropertiesMap(2, 2));
+
+        requestAttributes.put("testValue", "test");
+        when(request.getAttribute(anyString())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return requestAttributes.get(invocation.getArguments()[0]);
+            }
+        });
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                requestAttributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(request).setAttribute(anyString(), any());
+
+        when(resource.adaptTo(ValueMap.class)).thenReturn(vm);
+    }
+
+    @Test
+    public void testCachedRequestModel() {
+        CachedModel model = factory.getAdapter(request, CachedModel.class);
+        assertEquals("test", model.getTestValue());
+        assertSame(model, factory.getAdapter(request, CachedModel.class));
+        assertSame(model, factory.createModel(request, CachedModel.class));
+
+        // a wrapper shares the request attributes but is a different adaptable
+        SlingHttpServletRequest wrapper = new SlingHttpServletRequestWrapper(request);
+        CachedModel wrapperModel = factory.getAdapter(wrapper, CachedModel.class);
+        assertNotSame(model, wrapperModel);
+        assertSame(wrapperModel, factory.getAdapter(wrapper, CachedModel.class));
+    }
+
+    @Test
+    public void testUncachedRequestModel() {
+        UncachedModel model = factory.getAdapter(request, UncachedModel.class);
+        assertEquals("test", model.getTestValue());
+        assertNotSame(model, factory.getAdapter(request, UncachedModel.class));
+        assertNull(requestAttributes.get(ModelInstanceCache.REQUEST_ATTRIBUTE));
+    }
+
+    @Test
+    public void testCachedResourceModel() {
+        CachedModel model = factory.getAdapter(resource, CachedModel.class);
+        assertEquals("test", model.getTestValue());
+        assertSame(model, factory.getAdapter(resource, CachedModel.class));
+        assertEquals(1, factory.modelInstanceCache.size());
+
+        Resource other = mock(Resource.class);
+        when(other.adaptTo(ValueMap.class)).thenReturn(vm);
+        assertNotSame(model, factory.getAdapter(other, CachedModel.class));
+        assertEquals(2, factory.modelInstanceCache.size());
+    }
+
+    @Test
+    public void testUncachedResourceModel() {
+        UncachedModel model = factory.getAdapter(resource, UncachedModel.class);
+        assertNotSame(model, factory.getAdapter(resource, UncachedModel.class));
+        assertEquals(0, factory.modelInstanceCache.size());
+    }
+
+    @Test
+    public void testResourceModelIsReleased() throws Exception {
+        factory.getAdapter(mock(Resource.class), CachedModel.class);
+        for (int i = 0; i < 20 && factory.modelInstanceCache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, factory.modelInstanceCache.size());
+    }
+
+    @Test
+    public void testConcurrentResourceModels() throws Exception {
+        final Resource[] resources = new Resource[8];
+        for (int i = 0; i < resources.length; i++) {
+            resources[i] = mock(Resource.class);
+            when(resources[i].adaptTo(ValueMap.class)).thenReturn(vm);
+        }
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 1000; i++) {
+                            Resource adaptable = resources[(i + offset) % resources.length];
+                            CachedModel model = factory.getAdapter(adaptable, CachedModel.class);
+                            if (model == null || !"test".equals(model.getTestValue())) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+
+        // hold on to the instances so that none of them is collected
+        CachedModel[] models = new CachedModel[resources.length];
+        for (int i = 0; i < resources.length; i++) {
+            models[i] = factory.getAdapter(resources[i], CachedModel.class);
+            assertSame(models[i], factory.getAdapter(resources[i], CachedModel.class));
+        }
+        assertEquals(resources.length, factory.modelInstanceCache.size());
+    }
+}
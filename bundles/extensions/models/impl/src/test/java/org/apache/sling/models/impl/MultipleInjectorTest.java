@@ -28,8 +28,10 @@ import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.Source;
+import org.apache.sling.models.factory.ModelClassException;
 import org.apache.sling.models.impl.injectors.BindingsInjector;
 import org.apache.sling.models.impl.injectors.RequestAttributeInjector;
+import org.apache.sling.models.spi.Injector;
 import org.apache.sling.models.spi.DisposalCallbackRegistry;
 import org.junit.Before;
 import org.junit.Test;
@@ -113,6 +115,47 @@ public class MultipleInjectorTest {
         verifyNoMoreInteractions(bindingsInjector);
     }
 
+    @Test
+    public void testInjectorsBoundAfterAdaptation() {
+        bindings.put("firstAttribute", "bindings value");
+        assertEquals("bindings value", factory.getAdapter(request, ForTwoInjectors.class).firstAttribute);
+
+        // a higher ranked injector is used by the next adaptation
+        Injector injector = mock(Injector.class);
+        when(injector.getName()).thenReturn("custom");
+        when(injector.getValue(eq(request), eq("firstAttribute"), eq(String.class), any(AnnotatedElement.class), any(DisposalCallbackRegistry.class)))
+                .thenReturn("custom value");
+        factory.bindInjector(injector, new ServicePropertiesMap(3, 0));
+        assertEquals("custom value", factory.getAdapter(request, ForTwoInjectors.class).firstAttribute);
+
+        factory.unbindInjector(injector, new ServicePropertiesMap(3, 0));
+        assertEquals("bindings value", factory.getAdapter(request, ForTwoInjectors.class).firstAttribute);
+    }
+
+    @Test
+    public void testSourceInjectorUnboundAfterAdaptation() {
+        when(request.getAttribute("firstAttribute")).thenReturn("attribute value");
+        assertNotNull(factory.getAdapter(request, ForTwoInjectorsWithSource.class));
+
+        factory.unbindInjector(attributesInjector, new ServicePropertiesMap(2, 2));
+        assertNull(factory.getAdapter(request, ForTwoInjectorsWithSource.class));
+
+        factory.bindInjector(attributesInjector, new ServicePropertiesMap(2, 2));
+        assertEquals("attribute value", factory.getAdapter(request, ForTwoInjectorsWithSource.class).firstAttribute);
+    }
+
+    @Test
+    public void testSourceOfUnregisteredInjector() {
+        // the adaptation fails as a whole, even if the element were optional
+        assertNull(factory.getAdapter(request, ForUnregisteredSource.class));
+        try {
+            factory.createModel(request, ForUnregisteredSource.class);
+            fail("Expected ModelClassException");
+        } catch (ModelClassException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
     @Model(adaptables = SlingHttpServletRequest.class)
     public static class ForTwoInjectors {
 
@@ -130,4 +173,13 @@ public class MultipleInjectorTest {
 
     }
 
+    @Model(adaptables = SlingHttpServletRequest.class)
+    public static class ForUnregisteredSource {
+
+        @Inject
+        @Source("unregistered")
+        private String firstAttribute;
+
+    }
+
 }
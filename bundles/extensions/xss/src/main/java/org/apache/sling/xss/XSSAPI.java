@@ -19,6 +19,9 @@
 package org.apache.sling.xss;
 
 
+import java.io.IOException;
+import java.io.Writer;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -37,6 +40,11 @@ import aQute.bnd.annotation.ProviderType;
  * (for instance, a javascript: URL within a href attribute.
  * <p>
  * When in doubt, use a validator.
+ * <p>
+ * The encoders return the source string itself if it does not contain any character that needs
+ * to be encoded, so encoding safe content does not allocate. Each encoder also comes in a variant
+ * writing the encoded source directly to a {@link Writer}, which is preferable when the result is
+ * written to the response anyway, for instance by a scripting engine.
  */
 @ProviderType
 public interface XSSAPI {
@@ -163,6 +171,19 @@ public interface XSSAPI {
     @Nullable
     String encodeForHTML(@Nullable String source);
 
+    /**
+     * Writes a source string to a writer, encoded for HTML element content.
+     * DO NOT USE FOR WRITING ATTRIBUTE VALUES!
+     * <p>
+     * Nothing is written if the source is {@code null}.
+     *
+     * @param source the input to encode
+     * @param out    the writer to write the encoded source to
+     * @throws IOException if writing to {@code out} fails
+     * @since 1.2.0
+     */
+    void encodeForHTML(@Nullable String source, @Nonnull Writer out) throws IOException;
+
     /**
      * Encodes a source string for writing to an HTML attribute value.
      * DO NOT USE FOR ACTIONABLE ATTRIBUTES (href, src, event handlers); YOU MUST USE A VALIDATOR FOR THOSE!
@@ -173,6 +194,19 @@ public interface XSSAPI {
     @Nullable
     String encodeForHTMLAttr(@Nullable String source);
 
+    /**
+     * Writes a source string to a writer, encoded for writing to an HTML attribute value.
+     * DO NOT USE FOR ACTIONABLE ATTRIBUTES (href, src, event handlers); YOU MUST USE A VALIDATOR FOR THOSE!
+     * <p>
+     * Nothing is written if the source is {@code null}.
+     *
+     * @param source the input to encode
+     * @param out    the writer to write the encoded source to
+     * @throws IOException if writing to {@code out} fails
+     * @since 1.2.0
+     */
+    void encodeForHTMLAttr(@Nullable String source, @Nonnull Writer out) throws IOException;
+
     /**
      * Encodes a source string for XML element content.
      * DO NOT USE FOR WRITING ATTRIBUTE VALUES!
@@ -183,6 +217,19 @@ public interface XSSAPI {
     @Nullable
     String encodeForXML(@Nullable String source);
 
+    /**
+     * Writes a source string to a writer, encoded for XML element content.
+     * DO NOT USE FOR WRITING ATTRIBUTE VALUES!
+     * <p>
+     * Nothing is written if the source is {@code null}.
+     *
+     * @param source the input to encode
+     * @param out    the writer to write the encoded source to
+     * @throws IOException if writing to {@code out} fails
+     * @since 1.2.0
+     */
+    void encodeForXML(@Nullable String source, @Nonnull Writer out) throws IOException;
+
     /**
      * Encodes a source string for writing to an XML attribute value.
      *
@@ -192,6 +239,18 @@ public interface XSSAPI {
     @Nullable
     String encodeForXMLAttr(@Nullable String source);
 
+    /**
+     * Writes a source string to a writer, encoded for writing to an XML attribute value.
+     * <p>
+     * Nothing is written if the source is {@code null}.
+     *
+     * @param source the input to encode
+     * @param out    the writer to write the encoded source to
+     * @throws IOException if writing to {@code out} fails
+     * @since 1.2.0
+     */
+    void encodeForXMLAttr(@Nullable String source, @Nonnull Writer out) throws IOException;
+
     /**
      * Encodes a source string for writing to JavaScript string content.
      * DO NOT USE FOR WRITING TO ARBITRARY JAVASCRIPT; YOU MUST USE A VALIDATOR FOR THAT.
@@ -203,6 +262,20 @@ public interface XSSAPI {
     @Nullable
     String encodeForJSString(@Nullable String source);
 
+    /**
+     * Writes a source string to a writer, encoded for writing to JavaScript string content.
+     * DO NOT USE FOR WRITING TO ARBITRARY JAVASCRIPT; YOU MUST USE A VALIDATOR FOR THAT.
+     * (Encoding only ensures that the source material cannot break out of its context.)
+     * <p>
+     * Nothing is written if the source is {@code null}.
+     *
+     * @param source the input to encode
+     * @param out    the writer to write the encoded source to
+     * @throws IOException if writing to {@code out} fails
+     * @since 1.2.0
+     */
+    void encodeForJSString(@Nullable String source, @Nonnull Writer out) throws IOException;
+
     /**
      * Encodes a source string for writing to CSS string content.
      * DO NOT USE FOR WRITING OUT ARBITRARY CSS TOKENS; YOU MUST USE A VALIDATOR FOR THAT!
@@ -214,6 +287,20 @@ public interface XSSAPI {
     @Nullable
     String encodeForCSSString(@Nullable String source);
 
+    /**
+     * Writes a source string to a writer, encoded for writing to CSS string content.
+     * DO NOT USE FOR WRITING OUT ARBITRARY CSS TOKENS; YOU MUST USE A VALIDATOR FOR THAT!
+     * (Encoding only ensures the source string cannot break out of its context.)
+     * <p>
+     * Nothing is written if the source is {@code null}.
+     *
+     * @param source the input to encode
+     * @param out    the writer to write the encoded source to
+     * @throws IOException if writing to {@code out} fails
+     * @since 1.2.0
+     */
+    void encodeForCSSString(@Nullable String source, @Nonnull Writer out) throws IOException;
+
 
     // =============================================================================================
     // FILTERS
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one or
+ * more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ ******************************************************************************/
+package org.apache.sling.xss.impl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.xss.ProtectionContext;
+
+/**
+ * A cache of filtered content bounded by the number of characters it holds.
+ * <p>
+ * Results are keyed by the policy handler, the protection context and the
+ * SHA-256 digest of the content; the content itself is not kept. Policy
+ * handlers are compared by identity, reloading a policy therefore never
+ * returns results of the previous policy; {@link #invalidateAll()} is called
+ * nevertheless to release the memory.
+ * <p>
+ * Each result is accounted with its length plus {@link #ENTRY_OVERHEAD}
+ * characters for the key and the map entry. Content longer than
+ * {@link #MAX_CONTENT_LENGTH} characters is not cached.
+ * <p>
+ * Reading and updating the cache does not lock. When the cache is full, one
+ * thread at a time evicts the least recently used results, while the other
+ * threads go on.
+ */
+public class FilterResultCache implements FilterResultCacheMBean {
+
+    /** The maximum length of content which is cached. */
+    static final int MAX_CONTENT_LENGTH = 8 * 1024;
+
+    /** The characters accounted for the key and the map entry of a result. */
+    static final int ENTRY_OVERHEAD = 64;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /** The maximum number of characters, 0 to disable the cache. */
+    private final long maxCharacters;
+
+    /** The cached results. */
+    private final ConcurrentMap<Key, Result> results = new ConcurrentHashMap<Key, Result>();
+
+    /** The number of characters accounted for the cached results. */
+    private final AtomicLong characters = new AtomicLong();
+
+    /** Set while a thread evicts results. */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /** Incremented by every invalidation. */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong filterCount = new AtomicLong();
+
+    private final AtomicLong filterTime = new AtomicLong();
+
+    private final AtomicLong maxFilterTime = new AtomicLong();
+
+    public FilterResultCache(final long maxCharacters) {
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Filter the content, returning a cached result if available.
+     * @param rule The filter rule of the context
+     * @param handler The policy handler
+     * @param context The protection context
+     * @param src The content, not <code>null</code>
+     * @return The filtered content
+     */
+    public String filter(final XSSFilterRule rule,
+            final PolicyHandler handler,
+            final ProtectionContext context,
+            final String src) {
+        if ( this.maxCharacters <= 0 || src.length() > MAX_CONTENT_LENGTH ) {
+            return this.run(rule, handler, src);
+        }
+        final Key key = new Key(handler, context, digest(src));
+        final Result cached = this.results.get(key);
+        if ( cached != null ) {
+            cached.lastAccess = System.nanoTime();
+            this.hits.incrementAndGet();
+            return cached.value;
+        }
+        final long readGeneration = this.generation.get();
+        this.misses.incrementAndGet();
+        final String value = this.run(rule, handler, src);
+        final Result result = new Result(value);
+        if ( result.weight > this.maxCharacters ) {
+            return value;
+        }
+        final Result previous = this.results.put(key, result);
+        this.characters.addAndGet(result.weight - (previous == null ? 0 : previous.weight));
+        // don't keep results of a policy which has been replaced meanwhile
+        if ( readGeneration != this.generation.get() ) {
+            this.remove(key, result);
+            this.invalidations.incrementAndGet();
+        } else if ( this.characters.get() > this.maxCharacters ) {
+            this.evict();
+        }
+        return value;
+    }
+
+    private String run(final XSSFilterRule rule, final PolicyHandler handler, final String src) {
+        final long start = System.nanoTime();
+        try {
+            return rule.filter(handler, src);
+        } finally {
+            final long time = System.nanoTime() - start;
+            this.filterCount.incrementAndGet();
+            this.filterTime.addAndGet(time);
+            long max = this.maxFilterTime.get();
+            while ( time > max && !this.maxFilterTime.compareAndSet(max, time) ) {
+                max = this.maxFilterTime.get();
+            }
+        }
+    }
+
+    /**
+     * Evict the least recently used results down to the maximum number of
+     * characters, less a sixteenth so that not every new result has to evict.
+     */
+    private void evict() {
+        if ( !this.evicting.compareAndSet(false, true) ) {
+            return;
+        }
+        try {
+            // copy the access times, they must not change while sorting
+            final List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(this.results.size());
+            for ( final Map.Entry<Key, Result> entry : this.results.entrySet() ) {
+                candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue()));
+            }
+            Collections.sort(candidates);
+            final long target = this.maxCharacters - this.maxCharacters / 16;
+            final Iterator<EvictionCandidate> iter = candidates.iterator();
+            while ( this.characters.get() > target && iter.hasNext() ) {
+                final EvictionCandidate eldest = iter.next();
+                if ( this.remove(eldest.key, eldest.result) ) {
+                    this.evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            this.evicting.set(false);
+        }
+    }
+
+    private boolean remove(final Key key, final Result result) {
+        if ( this.results.remove(key, result) ) {
+            this.characters.addAndGet(-result.weight);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.generation.incrementAndGet();
+        for ( final Map.Entry<Key, Result> entry : this.results.entrySet() ) {
+            if ( this.remove(entry.getKey(), entry.getValue()) ) {
+                this.invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return this.results.size();
+    }
+
+    @Override
+    public long getCharacters() {
+        return this.characters.get();
+    }
+
+    @Override
+    public long getMaxCharacters() {
+        return this.maxCharacters;
+    }
+
+    @Override
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        final long hits = this.hits.get();
+        final long total = hits + this.misses.get();
+        return total == 0 ? 0 : 100.0 * hits / total;
+    }
+
+    @Override
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return this.invalidations.get();
+    }
+
+    @Override
+    public long getFilterCount() {
+        return this.filterCount.get();
+    }
+
+    @Override
+    public long getAverageFilterTime() {
+        final long count = this.filterCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(this.filterTime.get() / count);
+    }
+
+    @Override
+    public long getMaxFilterTime() {
+        return TimeUnit.NANOSECONDS.toMicros(this.maxFilterTime.get());
+    }
+
+    /**
+     * Returns the digest of all characters of the content. The characters
+     * are digested as they are, so that different strings never share their
+     * input, not even strings with malformed surrogate pairs.
+     */
+    static byte[] digest(final String content) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException nsae) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(nsae);
+        }
+        final byte[] bytes = new byte[content.length() * 2];
+        for (int i = 0; i < content.length(); i++) {
+            final char c = content.charAt(i);
+            bytes[2 * i] = (byte) (c >>> 8);
+            bytes[2 * i + 1] = (byte) c;
+        }
+        return digest.digest(bytes);
+    }
+
+    private static final class Key {
+
+        private final PolicyHandler handler;
+
+        private final ProtectionContext context;
+
+        private final byte[] digest;
+
+        private final int hashCode;
+
+        Key(final PolicyHandler handler, final ProtectionContext context, final byte[] digest) {
+            this.handler = handler;
+            this.context = context;
+            this.digest = digest;
+            this.hashCode = 31 * (31 * System.identityHashCode(handler) + context.hashCode()) + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if ( !(obj instanceof Key) ) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.handler == other.handler
+                    && this.context == other.context
+                    && Arrays.equals(this.digest, other.digest);
+        }
+    }
+
+    private static final class Result {
+
+        final String value;
+
+        final long weight;
+
+        volatile long lastAccess = System.nanoTime();
+
+        Result(final String value) {
+            this.value = value;
+            this.weight = value.length() + ENTRY_OVERHEAD;
+        }
+    }
+
+    private static final class EvictionCandidate implements Comparable<EvictionCandidate> {
+
+        final Key key;
+
+        final Result result;
+
+        final long lastAccess;
+
+        EvictionCandidate(final Key key, final Result result) {
+            this.key = key;
+            this.result = result;
+            this.lastAccess = result.lastAccess;
+        }
+
+        @Override
+        public int compareTo(final EvictionCandidate o) {
+            final long diff = this.lastAccess - o.lastAccess;
+            return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one or
+ * more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ ******************************************************************************/
+package org.apache.sling.xss.impl;
+
+/**
+ * Management interface of the {@link FilterResultCache}.
+ */
+public interface FilterResultCacheMBean {
+
+    /** The current number of cached results. */
+    int getSize();
+
+    /** The number of characters accounted for the cached results. */
+    long getCharacters();
+
+    /** The maximum number of characters of the cached results, 0 if caching is disabled. */
+    long getMaxCharacters();
+
+    /** The number of filter calls answered from the cache. */
+    long getHits();
+
+    /** The number of filter calls which had to run the filter. */
+    long getMisses();
+
+    /** The percentage of filter calls answered from the cache. */
+    double getHitRatio();
+
+    /** The number of results removed to make room for new ones. */
+    long getEvictions();
+
+    /** The number of results removed because a policy changed. */
+    long getInvalidations();
+
+    /** The number of times the filter has been run. */
+    long getFilterCount();
+
+    /** The average time in microseconds it took to run the filter. */
+    long getAverageFilterTime();
+
+    /** The maximum time in microseconds it took to run the filter. */
+    long getMaxFilterTime();
+
+    /** Remove all cached results. */
+    void invalidateAll();
+}
@@ -16,7 +16,9 @@
  ******************************************************************************/
 package org.apache.sling.xss.impl;
 
+import java.io.IOException;
 import java.io.StringReader;
+import java.io.Writer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -383,6 +385,16 @@ public class XSSAPIImpl implements XSSAPI {
         return source == null ? null : Encode.forHtml(source);
     }
 
+    /**
+     * @see org.apache.sling.xss.XSSAPI#encodeForHTML(String, Writer)
+     */
+    @Override
+    public void encodeForHTML(String source, Writer out) throws IOException {
+        if (source != null) {
+            Encode.forHtml(out, source);
+        }
+    }
+
     /**
      * @see org.apache.sling.xss.XSSAPI#encodeForHTMLAttr(String)
      */
@@ -391,6 +403,16 @@ public class XSSAPIImpl implements XSSAPI {
         return source == null ? null : Encode.forHtmlAttribute(source);
     }
 
+    /**
+     * @see org.apache.sling.xss.XSSAPI#encodeForHTMLAttr(String, Writer)
+     */
+    @Override
+    public void encodeForHTMLAttr(String source, Writer out) throws IOException {
+        if (source != null) {
+            Encode.forHtmlAttribute(out, source);
+        }
+    }
+
     /**
      * @see org.apache.sling.xss.XSSAPI#encodeForXML(String)
      */
@@ -399,6 +421,16 @@ public class XSSAPIImpl implements XSSAPI {
         return source == null ? null : Encode.forXml(source);
     }
 
+    /**
+     * @see org.apache.sling.xss.XSSAPI#encodeForXML(String, Writer)
+     */
+    @Override
+    public void encodeForXML(String source, Writer out) throws IOException {
+        if (source != null) {
+            Encode.forXml(out, source);
+        }
+    }
+
     /**
      * @see org.apache.sling.xss.XSSAPI#encodeForXMLAttr(String)
      */
@@ -407,6 +439,16 @@ public class XSSAPIImpl implements XSSAPI {
         return source == null ? null : Encode.forXmlAttribute(source);
     }
 
+    /**
+     * @see org.apache.sling.xss.XSSAPI#encodeForXMLAttr(String, Writer)
+     */
+    @Override
+    public void encodeForXMLAttr(String source, Writer out) throws IOException {
+        if (source != null) {
+            Encode.forXmlAttribute(out, source);
+        }
+    }
+
     /**
      * @see org.apache.sling.xss.XSSAPI#encodeForJSString(String)
      */
@@ -415,6 +457,16 @@ public class XSSAPIImpl implements XSSAPI {
         return source == null ? null : Encode.forJavaScript(source);
     }
 
+    /**
+     * @see org.apache.sling.xss.XSSAPI#encodeForJSString(String, Writer)
+     */
+    @Override
+    public void encodeForJSString(String source, Writer out) throws IOException {
+        if (source != null) {
+            Encode.forJavaScript(out, source);
+        }
+    }
+
     /**
      * @see org.apache.sling.xss.XSSAPI#encodeForCSSString(String)
      */
@@ -423,6 +475,16 @@ public class XSSAPIImpl implements XSSAPI {
         return source == null ? null : Encode.forCssString(source);
     }
 
+    /**
+     * @see org.apache.sling.xss.XSSAPI#encodeForCSSString(String, Writer)
+     */
+    @Override
+    public void encodeForCSSString(String source, Writer out) throws IOException {
+        if (source != null) {
+            Encode.forCssString(out, source);
+        }
+    }
+
     // =============================================================================================
     // FILTERS
     //
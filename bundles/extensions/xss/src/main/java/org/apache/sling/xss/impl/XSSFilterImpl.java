@@ -19,12 +19,15 @@ package org.apache.sling.xss.impl;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
@@ -33,8 +36,12 @@ import org.apache.sling.api.resource.LoginException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.xss.ProtectionContext;
 import org.apache.sling.xss.XSSFilter;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
@@ -47,9 +54,11 @@ import org.slf4j.LoggerFactory;
  * This class implements the <code>XSSFilter</code> using the Antisamy XSS protection library found at
  * <a href="http://code.google.com/p/owaspantisamy/">http://code.google.com/p/owaspantisamy/</a>.
  */
-@Component(immediate = true)
+@Component(immediate = true, metatype = true,
+        label = "Apache Sling XSS Filter",
+        description = "Filters content using the AntiSamy policies of the XSS protection.")
 @Service(value = {EventHandler.class, XSSFilter.class})
-@Property(name = EventConstants.EVENT_TOPIC, value = {"org/apache/sling/api/resource/Resource/*"})
+@Property(name = EventConstants.EVENT_TOPIC, value = {"org/apache/sling/api/resource/Resource/*"}, propertyPrivate = true)
 public class XSSFilterImpl implements XSSFilter, EventHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(XSSFilterImpl.class);
@@ -67,6 +76,17 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
 
     private static final String DEFAULT_POLICY_PATH = "sling/xss/config.xml";
     private static final int DEFAULT_POLICY_CACHE_SIZE = 128;
+
+    private static final long DEFAULT_RESULT_CACHE_CHARACTERS = 2 * 1024 * 1024;
+    @Property(
+            longValue = DEFAULT_RESULT_CACHE_CHARACTERS,
+            label = "Filter Result Cache Characters",
+            description = "Maximum number of characters of the filtered HTML snippets which are kept to avoid " +
+                          "running the AntiSamy filter for the same content again. Each snippet is accounted with " +
+                          "some additional characters for its key, snippets longer than 8192 characters are not " +
+                          "cached. The cache is cleared whenever a policy is reloaded. A value of 0 disables the cache.")
+    private static final String PROP_RESULT_CACHE_CHARACTERS = "filter.result.cache.characters";
+
     private PolicyHandler defaultHandler;
     private Attribute hrefAttribute;
 
@@ -77,6 +97,11 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
     // policies cache
     private Map<String, PolicyHandler> policies = new ConcurrentHashMap<String, PolicyHandler>();
 
+    // filtered content cache
+    private volatile FilterResultCache resultCache = new FilterResultCache(DEFAULT_RESULT_CACHE_CHARACTERS);
+
+    private ServiceRegistration resultCacheRegistration;
+
     @Reference
     private ResourceResolverFactory resourceResolverFactory = null;
 
@@ -106,11 +131,31 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
 
     @Activate
     @SuppressWarnings("unused")
-    protected void activate() {
+    protected void activate(final ComponentContext context) {
+        final long resultCacheCharacters = PropertiesUtil.toLong(context.getProperties().get(PROP_RESULT_CACHE_CHARACTERS),
+                DEFAULT_RESULT_CACHE_CHARACTERS);
+        resultCache = new FilterResultCache(resultCacheCharacters);
+        final Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put("jmx.objectname", "org.apache.sling:type=xss,name=FilterResultCache");
+        props.put(Constants.SERVICE_VENDOR, "The Apache Software Foundation");
+        props.put(Constants.SERVICE_DESCRIPTION, "Apache Sling XSS Filter Result Cache");
+        resultCacheRegistration = context.getBundleContext().registerService(FilterResultCacheMBean.class.getName(),
+                resultCache, props);
+
         // load default handler
         updateDefaultHandler();
     }
 
+    @Deactivate
+    @SuppressWarnings("unused")
+    protected void deactivate() {
+        if (resultCacheRegistration != null) {
+            resultCacheRegistration.unregister();
+            resultCacheRegistration = null;
+        }
+        resultCache.invalidateAll();
+    }
+
     private void updateDefaultHandler() {
         ResourceResolver adminResolver = null;
         try {
@@ -120,10 +165,8 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
                 InputStream policyStream = policyResource.adaptTo(InputStream.class);
                 if (policyStream != null) {
                     try {
-                        if (defaultHandler == null) {
-                            setDefaultHandler(new PolicyHandler(policyStream));
-                            policyStream.close();
-                        }
+                        setDefaultHandler(new PolicyHandler(policyStream));
+                        policyStream.close();
                     } catch (Exception e) {
                         LOGGER.error("Unable to load policy from " + policyResource.getPath(), e);
                     }
@@ -135,10 +178,8 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
                 InputStream policyStream = this.getClass().getClassLoader().getResourceAsStream("SLING-INF/content/config.xml");
                 if (policyStream != null) {
                     try {
-                        if (defaultHandler == null) {
-                            setDefaultHandler(new PolicyHandler(policyStream));
-                            policyStream.close();
-                        }
+                        setDefaultHandler(new PolicyHandler(policyStream));
+                        policyStream.close();
                     } catch (Exception e) {
                         LOGGER.error("Unable to load policy from embedded policy file.", e);
                     }
@@ -196,6 +237,7 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
             if (policy == null || (handler = policies.get(policy)) == null) {
                 handler = defaultHandler;
             }
+            return resultCache.filter(ctx, handler, context, src);
         }
         return ctx.filter(handler, src);
     }
@@ -215,6 +257,7 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
 
         this.defaultHandler = defaultHandler;
         this.hrefAttribute = hrefAttribute;
+        this.resultCache.invalidateAll();
     }
 
     @SuppressWarnings("unused")
@@ -227,12 +270,15 @@ public class XSSFilterImpl implements XSSFilter, EventHandler {
         if (policies.size() < DEFAULT_POLICY_CACHE_SIZE) {
             PolicyHandler policyHandler = new PolicyHandler(policyStream);
             policies.put(policyName, policyHandler);
+            resultCache.invalidateAll();
         }
     }
 
     @SuppressWarnings("unused")
     public void unloadPolicy(String policyName) {
-        policies.remove(policyName);
+        if (policies.remove(policyName) != null) {
+            resultCache.invalidateAll();
+        }
     }
 
     @SuppressWarnings("unused")
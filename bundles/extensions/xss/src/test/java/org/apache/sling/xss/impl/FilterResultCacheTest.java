@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one or
+ * more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain
+ * a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ ******************************************************************************/
+package org.apache.sling.xss.impl;
+
+import java.util.Arrays;
+
+import org.apache.sling.xss.ProtectionContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class FilterResultCacheTest {
+
+    private CountingRule rule;
+
+    private PolicyHandler handler;
+
+    @Before
+    public void setup() {
+        rule = new CountingRule();
+        handler = mock(PolicyHandler.class);
+    }
+
+    @Test
+    public void testCachedResult() {
+        FilterResultCache cache = new FilterResultCache(10000);
+        assertEquals("filtered:<b>a</b>", cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "<b>a</b>"));
+        assertEquals("filtered:<b>a</b>", cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, new String("<b>a</b>")));
+        assertEquals(1, rule.count);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(50.0, cache.getHitRatio(), 0.001);
+        assertEquals(1, cache.getFilterCount());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void testKey() {
+        FilterResultCache cache = new FilterResultCache(10000);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "b");
+        cache.filter(rule, handler, ProtectionContext.PLAIN_HTML_CONTENT, "a");
+        cache.filter(rule, mock(PolicyHandler.class), ProtectionContext.HTML_HTML_CONTENT, "a");
+        assertEquals(4, rule.count);
+        assertEquals(0, cache.getHits());
+        assertEquals(4, cache.getSize());
+    }
+
+    @Test
+    public void testEviction() {
+        // room for two and a half results of one character content
+        FilterResultCache cache = new FilterResultCache(5 * weight("a") / 2);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "b");
+        // a is now the most recently used
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "c");
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getSize());
+        assertEquals(2 * weight("a"), cache.getCharacters());
+
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        assertEquals(3, rule.count);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "b");
+        assertEquals(4, rule.count);
+    }
+
+    @Test
+    public void testBoundedByCharacters() {
+        FilterResultCache cache = new FilterResultCache(10000);
+        char[] chars = new char[4000];
+        Arrays.fill(chars, 'a');
+        String content = new String(chars);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content + "b");
+        assertEquals(2, cache.getSize());
+        // the third result exceeds the characters, the least recently used is evicted
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content + "c");
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getCharacters() <= cache.getMaxCharacters());
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content + "c");
+        assertEquals(3, rule.count);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content);
+        assertEquals(4, rule.count);
+
+        // a result which is larger than the cache is not kept
+        FilterResultCache small = new FilterResultCache(100);
+        small.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content);
+        assertEquals(0, small.getSize());
+        assertEquals(0, small.getCharacters());
+    }
+
+    @Test
+    public void testDigestCoversAllCharacters() {
+        FilterResultCache cache = new FilterResultCache(10000);
+        // a malformed surrogate and a replacement character are different content
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "\ud800");
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "?");
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "\ufffd");
+        assertEquals(3, rule.count);
+        assertEquals(32, FilterResultCache.digest("a").length);
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        FilterResultCache cache = new FilterResultCache(10000);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "b");
+        cache.invalidateAll();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getCharacters());
+        assertEquals(2, cache.getInvalidations());
+
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        assertEquals(3, rule.count);
+    }
+
+    @Test
+    public void testDisabled() {
+        FilterResultCache cache = new FilterResultCache(0);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, "a");
+        assertEquals(2, rule.count);
+        assertEquals(2, cache.getFilterCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testLongContentIsNotCached() {
+        FilterResultCache cache = new FilterResultCache(10000);
+        char[] chars = new char[FilterResultCache.MAX_CONTENT_LENGTH + 1];
+        Arrays.fill(chars, 'a');
+        String content = new String(chars);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content);
+        cache.filter(rule, handler, ProtectionContext.HTML_HTML_CONTENT, content);
+        assertEquals(2, rule.count);
+        assertEquals(0, cache.getSize());
+    }
+
+    private static int weight(String content) {
+        return "filtered:".length() + content.length() + FilterResultCache.ENTRY_OVERHEAD;
+    }
+
+    private static final class CountingRule implements XSSFilterRule {
+
+        private int count;
+
+        public boolean check(PolicyHandler policy, String str) {
+            return true;
+        }
+
+        public String filter(PolicyHandler policy, String str) {
+            count++;
+            return "filtered:" + str;
+        }
+
+        public boolean supportsPolicy() {
+            return true;
+        }
+    }
+}
@@ -17,7 +17,9 @@
 package org.apache.sling.xss.impl;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.lang.reflect.Field;
 
 import org.apache.sling.api.SlingHttpServletRequest;
@@ -91,7 +93,7 @@ public class XSSAPIImplTest {
     }
 
     @Test
-    public void testEncodeForHTML() {
+    public void testEncodeForHTML() throws IOException {
         String[][] testData = {
                 //         Source                            Expected Result
                 //
@@ -110,11 +112,12 @@ public class XSSAPIImplTest {
             String expected = aTestData[1];
 
             TestCase.assertEquals("HTML Encoding '" + source + "'", expected, xssAPI.encodeForHTML(source));
+            TestCase.assertEquals("HTML Encoding '" + source + "'", toString(expected), encodeForHTML(source));
         }
     }
 
     @Test
-    public void testEncodeForHTMLAttr() {
+    public void testEncodeForHTMLAttr() throws IOException {
         String[][] testData = {
                 //         Source                            Expected Result
                 //
@@ -132,11 +135,12 @@ public class XSSAPIImplTest {
             String expected = aTestData[1];
 
             TestCase.assertEquals("HTML Encoding '" + source + "'", expected, xssAPI.encodeForHTMLAttr(source));
+            TestCase.assertEquals("HTML Encoding '" + source + "'", toString(expected), encodeForHTMLAttr(source));
         }
     }
 
     @Test
-    public void testEncodeForXML() {
+    public void testEncodeForXML() throws IOException {
         String[][] testData = {
                 //         Source                            Expected Result
                 //
@@ -154,11 +158,12 @@ public class XSSAPIImplTest {
             String expected = aTestData[1];
 
             TestCase.assertEquals("XML Encoding '" + source + "'", expected, xssAPI.encodeForXML(source));
+            TestCase.assertEquals("XML Encoding '" + source + "'", toString(expected), encodeForXML(source));
         }
     }
 
     @Test
-    public void testEncodeForXMLAttr() {
+    public void testEncodeForXMLAttr() throws IOException {
         String[][] testData = {
                 //         Source                            Expected Result
                 //
@@ -177,6 +182,7 @@ public class XSSAPIImplTest {
             String expected = aTestData[1];
 
             TestCase.assertEquals("XML Encoding '" + source + "'", expected, xssAPI.encodeForXMLAttr(source));
+            TestCase.assertEquals("XML Encoding '" + source + "'", toString(expected), encodeForXMLAttr(source));
         }
     }
 
@@ -371,7 +377,7 @@ public class XSSAPIImplTest {
     }
 
     @Test
-    public void testEncodeForJSString() {
+    public void testEncodeForJSString() throws IOException {
         String[][] testData = {
                 //         Source                            Expected Result
                 //
@@ -389,6 +395,7 @@ public class XSSAPIImplTest {
             String expected = aTestData[1];
 
             TestCase.assertEquals("Encoding '" + source + "'", expected, xssAPI.encodeForJSString(source));
+            TestCase.assertEquals("Encoding '" + source + "'", toString(expected), encodeForJSString(source));
         }
     }
 
@@ -425,7 +432,7 @@ public class XSSAPIImplTest {
     }
 
     @Test
-    public void testEncodeForCSSString() {
+    public void testEncodeForCSSString() throws IOException {
         String[][] testData = {
                 // Source   Expected result
                 {null, null},
@@ -441,6 +448,7 @@ public class XSSAPIImplTest {
 
             String result = xssAPI.encodeForCSSString(source);
             TestCase.assertEquals("Encoding '" + source + "'", expected, result);
+            TestCase.assertEquals("Encoding '" + source + "'", toString(expected), encodeForCSSString(source));
         }
     }
 
@@ -660,4 +668,58 @@ public class XSSAPIImplTest {
             }
         }
     }
+
+    @Test
+    public void testEncodeReturnsSafeSource() {
+        String source = "A page title with 42 safe characters";
+        Assert.assertSame(source, xssAPI.encodeForHTML(source));
+        Assert.assertSame(source, xssAPI.encodeForHTMLAttr(source));
+        Assert.assertSame(source, xssAPI.encodeForXML(source));
+        Assert.assertSame(source, xssAPI.encodeForXMLAttr(source));
+        Assert.assertSame(source, xssAPI.encodeForJSString(source));
+        Assert.assertSame(source, xssAPI.encodeForCSSString(source));
+    }
+
+    private String encodeForHTML(String source) throws IOException {
+        StringWriter out = new StringWriter();
+        xssAPI.encodeForHTML(source, out);
+        return out.toString();
+    }
+
+    private String encodeForHTMLAttr(String source) throws IOException {
+        StringWriter out = new StringWriter();
+        xssAPI.encodeForHTMLAttr(source, out);
+        return out.toString();
+    }
+
+    private String encodeForXML(String source) throws IOException {
+        StringWriter out = new StringWriter();
+        xssAPI.encodeForXML(source, out);
+        return out.toString();
+    }
+
+    private String encodeForXMLAttr(String source) throws IOException {
+        StringWriter out = new StringWriter();
+        xssAPI.encodeForXMLAttr(source, out);
+        return out.toString();
+    }
+
+    private String encodeForJSString(String source) throws IOException {
+        StringWriter out = new StringWriter();
+        xssAPI.encodeForJSString(source, out);
+        return out.toString();
+    }
+
+    private String encodeForCSSString(String source) throws IOException {
+        StringWriter out = new StringWriter();
+        xssAPI.encodeForCSSString(source, out);
+        return out.toString();
+    }
+
+    /**
+     * The writer variants of the encoders write nothing for {@code null}.
+     */
+    private static String toString(String expected) {
+        return expected == null ? "" : expected;
+    }
 }
@@ -33,12 +33,22 @@ public class HelperData {
 
     public final PathMapper pathMapper;
 
+    /** The shared property snapshots, <code>null</code> if disabled. */
+    public final PropertySnapshotCache snapshotCache;
+
     private volatile String[] namespacePrefixes;
 
     public HelperData(final ClassLoader dynamicClassLoader,
             final PathMapper pathMapper) {
+        this(dynamicClassLoader, pathMapper, null);
+    }
+
+    public HelperData(final ClassLoader dynamicClassLoader,
+            final PathMapper pathMapper,
+            final PropertySnapshotCache snapshotCache) {
         this.dynamicClassLoader = dynamicClassLoader;
         this.pathMapper = pathMapper;
+        this.snapshotCache = snapshotCache;
     }
 
     public String[] getNamespacePrefixes(final Session session)
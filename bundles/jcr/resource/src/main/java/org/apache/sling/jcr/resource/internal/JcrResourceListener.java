@@ -135,8 +135,10 @@ public class JcrResourceListener implements EventListener, Closeable {
     @Override
     public void onEvent(final EventIterator events) {
         // if the event admin is currently not available, we just skip this
+        // unless property snapshots need to be invalidated
         final EventAdmin localEA = this.support.getEventAdmin();
-        if ( localEA == null ) {
+        final PropertySnapshotCache snapshotCache = this.support.getSnapshotCache();
+        if ( localEA == null && snapshotCache == null ) {
             return;
         }
         final Map<String, Map<String, Object>> addedEvents = new HashMap<String, Map<String, Object>>();
@@ -157,12 +159,22 @@ public class JcrResourceListener implements EventListener, Closeable {
                     final int lastSlash = eventPath.lastIndexOf('/');
                     final String nodePath = eventPath.substring(0, lastSlash);
                     final String propName = eventPath.substring(lastSlash + 1);
+                    if ( snapshotCache != null ) {
+                        final String jcrPath = event.getPath();
+                        snapshotCache.invalidate(jcrPath.substring(0, Math.max(1, jcrPath.lastIndexOf('/'))), propName);
+                    }
                     this.updateChangedEvent(changedEvents, nodePath, event, propName);
 
                 } else if ( event.getType() == Event.NODE_ADDED ) {
+                    if ( snapshotCache != null ) {
+                        snapshotCache.invalidate(event.getPath(), null);
+                    }
                     addedEvents.put(eventPath, createEventProperties(event));
 
                 } else if ( event.getType() == Event.NODE_REMOVED) {
+                    if ( snapshotCache != null ) {
+                        snapshotCache.invalidateTree(event.getPath());
+                    }
                     // remove is the strongest operation, therefore remove all removed
                     // paths from added
                     addedEvents.remove(eventPath);
@@ -173,6 +185,10 @@ public class JcrResourceListener implements EventListener, Closeable {
             }
         }
 
+        if ( localEA == null ) {
+            return;
+        }
+
         for (final Entry<String, Map<String, Object>> e : removedEvents.entrySet()) {
             // Launch an OSGi event
             sendOsgiEvent(e.getKey(), e.getValue(), SlingConstants.TOPIC_RESOURCE_REMOVED,
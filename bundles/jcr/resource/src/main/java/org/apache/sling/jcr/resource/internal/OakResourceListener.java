@@ -124,6 +124,10 @@ public class OakResourceListener extends NodeObserver implements Closeable {
         if ( logger.isDebugEnabled() ) {
             logger.debug("added(path={}, added={}, deleted={}, changed={})", new Object[] {path, added, deleted, changed});
         }
+        final PropertySnapshotCache snapshotCache = this.support.getSnapshotCache();
+        if ( snapshotCache != null ) {
+            snapshotCache.invalidate(path, null);
+        }
         sendOsgiEvent(path, TOPIC_RESOURCE_ADDED, changes, properties);
     }
 
@@ -139,6 +143,10 @@ public class OakResourceListener extends NodeObserver implements Closeable {
         if ( logger.isDebugEnabled() ) {
             logger.debug("deleted(path={}, added={}, deleted={}, changed={})", new Object[] {path, added, deleted, changed});
         }
+        final PropertySnapshotCache snapshotCache = this.support.getSnapshotCache();
+        if ( snapshotCache != null ) {
+            snapshotCache.invalidateTree(path);
+        }
         sendOsgiEvent(path, TOPIC_RESOURCE_REMOVED, changes, properties);
     }
 
@@ -154,9 +162,23 @@ public class OakResourceListener extends NodeObserver implements Closeable {
         if ( logger.isDebugEnabled() ) {
             logger.debug("changed(path={}, added={}, deleted={}, changed={})", new Object[] {path, added, deleted, changed});
         }
+        final PropertySnapshotCache snapshotCache = this.support.getSnapshotCache();
+        if ( snapshotCache != null ) {
+            invalidate(snapshotCache, path, added);
+            invalidate(snapshotCache, path, deleted);
+            invalidate(snapshotCache, path, changed);
+        }
         sendOsgiEvent(path, TOPIC_RESOURCE_CHANGED, changes, properties);
     }
 
+    private static void invalidate(final PropertySnapshotCache snapshotCache, final String path, final Set<String> propertyNames) {
+        if ( propertyNames != null ) {
+            for(final String name : propertyNames) {
+                snapshotCache.invalidate(path, name);
+            }
+        }
+    }
+
     private static void addCommitInfo(final Map<String, Object> changes, final CommitInfo commitInfo) {
         if ( commitInfo.getUserId() != null ) {
             changes.put(SlingConstants.PROPERTY_USERID, commitInfo.getUserId());
@@ -61,9 +61,20 @@ public class ObservationListenerSupport  {
 
     private final PathSet excludedPaths;
 
+    /** The shared property snapshots, <code>null</code> if disabled. */
+    private final PropertySnapshotCache snapshotCache;
+
     public ObservationListenerSupport(final BundleContext bundleContext,
             final SlingRepository repository,
             final PathSet excludedPaths)
+    throws RepositoryException {
+        this(bundleContext, repository, excludedPaths, null);
+    }
+
+    public ObservationListenerSupport(final BundleContext bundleContext,
+            final SlingRepository repository,
+            final PathSet excludedPaths,
+            final PropertySnapshotCache snapshotCache)
     throws RepositoryException {
         this.bundleContext = bundleContext;
 
@@ -72,12 +83,21 @@ public class ObservationListenerSupport  {
         this.excludedPaths = excludedPaths;
 
         this.session = repository.loginAdministrative(null);
+
+        // snapshots can only be used for the workspace we observe
+        this.snapshotCache = snapshotCache;
+        if ( this.snapshotCache != null ) {
+            this.snapshotCache.setWorkspaceName(this.session.getWorkspace().getName());
+        }
     }
 
     /**
      * Dispose this support object.
      */
     public void dispose() {
+        if ( this.snapshotCache != null ) {
+            this.snapshotCache.setWorkspaceName(null);
+        }
         if ( this.resourceResolver != null ) {
             this.resourceResolver.close();
             this.resourceResolver = null;
@@ -100,6 +120,15 @@ public class ObservationListenerSupport  {
         return this.session;
     }
 
+    /**
+     * Get the shared property snapshots which have to be invalidated
+     * on changes.
+     * @return The snapshots or <code>null</code> if disabled
+     */
+    public PropertySnapshotCache getSnapshotCache() {
+        return this.snapshotCache;
+    }
+
     public EventAdmin getEventAdmin() {
         return (EventAdmin) this.eventAdminTracker.getService();
     }
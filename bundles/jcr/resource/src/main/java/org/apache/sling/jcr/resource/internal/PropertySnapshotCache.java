@@ -0,0 +1,519 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.resource.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.apache.jackrabbit.util.ISO9075;
+import org.apache.jackrabbit.util.Text;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.jcr.resource.JcrResourceUtil;
+import org.apache.sling.jcr.resource.internal.helper.JcrPropertyMapCacheEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>PropertySnapshotCache</code> keeps read-only snapshots of the
+ * properties of nodes which are shared by all resource resolvers.
+ * <p>
+ * Snapshots are kept per user id, a user therefore only gets values
+ * which have been read with its own permissions. Snapshots are removed
+ * by the observation listener whenever a node changes; as the listener
+ * is notified asynchronously, a changed node might be served from the
+ * cache for the duration of the observation delay. Changes to access
+ * control or user management content (items in the <code>rep</code>
+ * namespace) clear the whole cache.
+ * <p>
+ * A snapshot is only taken for nodes without binary properties and for
+ * sessions without pending changes. As long as no observation listener
+ * is active (see {@link #setWorkspaceName(String)}) nothing is cached.
+ * <p>
+ * A session might still see an older revision of the repository than the
+ * one the invalidations have been received for, and the caller's session
+ * is never refreshed by the cache. The time of the last invalidation is
+ * therefore kept per path, and a node which has been invalidated within
+ * the last {@link #STALE_SESSION_WINDOW_MSEC} milliseconds, or while it was
+ * read, is read from the session without taking a snapshot. Sessions used
+ * for requests are refreshed when the request starts, so they are not older
+ * than that. Changes to other nodes do not affect snapshots of a node.
+ * <p>
+ * Reading and updating the cache does not lock. When the cache is full, one
+ * thread at a time evicts the least recently used nodes, while the other
+ * threads go on.
+ */
+public class PropertySnapshotCache implements PropertySnapshotCacheMBean {
+
+    /**
+     * The time in milliseconds after an invalidation during which no
+     * snapshot of the invalidated node is taken, as a session might still
+     * see the state before the change.
+     */
+    static final long STALE_SESSION_WINDOW_MSEC = 10 * 1000;
+
+    /** Logger */
+    private final Logger logger = LoggerFactory.getLogger(PropertySnapshotCache.class);
+
+    /** The maximum number of snapshots. */
+    private final int maxSize;
+
+    /** The snapshots by node path. */
+    private final ConcurrentMap<String, NodeSnapshots> snapshots = new ConcurrentHashMap<String, NodeSnapshots>();
+
+    /** The number of snapshots. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** Set while a thread evicts snapshots. */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /** The name of the observed workspace, <code>null</code> if not observed. */
+    private volatile String workspaceName;
+
+    /** The time of the last invalidation of a single node by path. */
+    private final ConcurrentMap<String, Long> changed = new ConcurrentHashMap<String, Long>();
+
+    /** The time of the last invalidation of a node and its descendants by path. */
+    private final ConcurrentMap<String, Long> removed = new ConcurrentHashMap<String, Long>();
+
+    /** Set while a thread prunes invalidation times older than the window. */
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    /** The time of the last pruning of the invalidation times. */
+    private volatile long lastPrune = System.nanoTime();
+
+    private final long staleSessionWindowNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PropertySnapshotCache(final int maxSize) {
+        this(maxSize, STALE_SESSION_WINDOW_MSEC);
+    }
+
+    PropertySnapshotCache(final int maxSize, final long staleSessionWindow) {
+        this.maxSize = maxSize;
+        this.staleSessionWindowNanos = TimeUnit.MILLISECONDS.toNanos(staleSessionWindow);
+    }
+
+    /**
+     * Set the name of the workspace which is observed for changes. Only
+     * nodes of this workspace are cached, if the name is <code>null</code>
+     * nothing is cached.
+     * @param name The name of the workspace or <code>null</code>
+     */
+    public void setWorkspaceName(final String name) {
+        this.workspaceName = name;
+        for ( final String key : this.snapshots.keySet() ) {
+            this.remove(key);
+        }
+    }
+
+    /**
+     * Get a value map for the node backed by a shared snapshot of its
+     * properties. If there is no snapshot for the node yet, the properties
+     * are read and - if possible - cached. Recently changed nodes are read
+     * without taking a snapshot.
+     * @param node The node
+     * @param helper The helper data
+     * @return A value map or <code>null</code> if the node can't be handled
+     *         by the cache.
+     */
+    public ValueMap getValueMap(final Node node, final HelperData helper) {
+        final String workspace = this.workspaceName;
+        if ( workspace == null ) {
+            return null;
+        }
+        try {
+            final Session session = node.getSession();
+            final String userId = session.getUserID();
+            if ( userId == null
+                 || !workspace.equals(session.getWorkspace().getName())
+                 || session.hasPendingChanges() ) {
+                return null;
+            }
+            final String path = node.getPath();
+            Map<String, JcrPropertyMapCacheEntry> entries = this.get(path, userId);
+            if ( entries != null ) {
+                this.hits.incrementAndGet();
+            } else {
+                this.misses.incrementAndGet();
+                // the session might not see a recent change yet
+                final long since = System.nanoTime() - this.staleSessionWindowNanos;
+                final boolean recentlyChanged = this.isInvalidatedSince(path, since);
+                entries = readProperties(node);
+                if ( entries == null ) {
+                    return null;
+                }
+                if ( !recentlyChanged ) {
+                    this.put(path, userId, entries, since);
+                }
+            }
+            return new SnapshotValueMap(node, entries, helper);
+        } catch (final RepositoryException re) {
+            logger.debug("Unable to use property snapshot for " + node, re);
+            return null;
+        }
+    }
+
+    /**
+     * Remove the snapshots of a node as the node or one of its properties
+     * has changed.
+     * @param path The path of the node
+     * @param propertyName The name of the changed property or <code>null</code>
+     */
+    public void invalidate(final String path, final String propertyName) {
+        if ( isSecurityRelated(path) || (propertyName != null && propertyName.startsWith("rep:")) ) {
+            this.invalidateAll();
+            return;
+        }
+        // record the time before removing, a concurrent put checks it afterwards
+        this.record(this.changed, path);
+        this.remove(path);
+    }
+
+    /**
+     * Remove the snapshots of a node and all its descendants as the
+     * node has been removed.
+     * @param path The path of the node
+     */
+    public void invalidateTree(final String path) {
+        if ( "/".equals(path) || isSecurityRelated(path) ) {
+            this.invalidateAll();
+            return;
+        }
+        final String prefix = path.concat("/");
+        this.record(this.removed, path);
+        this.remove(path);
+        for ( final String key : this.snapshots.keySet() ) {
+            if ( key.startsWith(prefix) ) {
+                this.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.record(this.removed, "/");
+        for ( final String key : this.snapshots.keySet() ) {
+            this.remove(key);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return this.size.get();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    @Override
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return this.invalidations.get();
+    }
+
+    private Map<String, JcrPropertyMapCacheEntry> get(final String path, final String userId) {
+        final NodeSnapshots node = this.snapshots.get(path);
+        if ( node == null ) {
+            return null;
+        }
+        final Map<String, JcrPropertyMapCacheEntry> entries = node.users.get(userId);
+        if ( entries != null ) {
+            node.lastAccess = System.nanoTime();
+        }
+        return entries;
+    }
+
+    private void put(final String path,
+            final String userId,
+            final Map<String, JcrPropertyMapCacheEntry> entries,
+            final long since) {
+        NodeSnapshots current;
+        NodeSnapshots updated;
+        do {
+            current = this.snapshots.get(path);
+            updated = new NodeSnapshots(current, userId, entries);
+        } while ( !replace(path, current, updated) );
+        if ( current == null || !current.users.containsKey(userId) ) {
+            this.size.incrementAndGet();
+        }
+
+        // an invalidation might have happened while the node was read or
+        // before the snapshot was added, remove the snapshot unless it has
+        // already been replaced or removed
+        if ( this.isInvalidatedSince(path, since) ) {
+            this.remove(path, userId, entries);
+        }
+
+        if ( this.size.get() > this.maxSize ) {
+            this.evict();
+        }
+    }
+
+    /**
+     * Evict the least recently used nodes down to the maximum size, less
+     * a sixteenth so that not every new snapshot has to evict.
+     */
+    private void evict() {
+        if ( !this.evicting.compareAndSet(false, true) ) {
+            return;
+        }
+        try {
+            // copy the access times, they must not change while sorting
+            final List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(this.snapshots.size());
+            for ( final Map.Entry<String, NodeSnapshots> entry : this.snapshots.entrySet() ) {
+                candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue()));
+            }
+            Collections.sort(candidates);
+            final int target = this.maxSize - this.maxSize / 16;
+            final Iterator<EvictionCandidate> iter = candidates.iterator();
+            while ( this.size.get() > target && iter.hasNext() ) {
+                final EvictionCandidate eldest = iter.next();
+                if ( this.snapshots.remove(eldest.path, eldest.node) ) {
+                    this.size.addAndGet(-eldest.node.users.size());
+                    this.evictions.addAndGet(eldest.node.users.size());
+                }
+            }
+        } finally {
+            this.evicting.set(false);
+        }
+    }
+
+    /**
+     * Record the current time as the time of the last invalidation of the
+     * path. Once there are more recorded times than snapshots, times older
+     * than the window are dropped, at most once per window.
+     */
+    private void record(final ConcurrentMap<String, Long> times, final String path) {
+        final long now = System.nanoTime();
+        times.put(path, now);
+        if ( times.size() > this.maxSize && now - this.lastPrune >= this.staleSessionWindowNanos
+             && this.pruning.compareAndSet(false, true) ) {
+            try {
+                this.lastPrune = now;
+                final long since = now - this.staleSessionWindowNanos;
+                final Iterator<Map.Entry<String, Long>> iter = times.entrySet().iterator();
+                while ( iter.hasNext() ) {
+                    if ( iter.next().getValue() - since < 0 ) {
+                        iter.remove();
+                    }
+                }
+            } finally {
+                this.pruning.set(false);
+            }
+        }
+    }
+
+    /**
+     * Whether the node or - through a removal - one of its ancestors has been
+     * invalidated at or after the given time.
+     */
+    private boolean isInvalidatedSince(final String path, final long since) {
+        if ( isAfter(this.changed.get(path), since) ) {
+            return true;
+        }
+        String current = path;
+        while ( current != null ) {
+            if ( isAfter(this.removed.get(current), since) ) {
+                return true;
+            }
+            current = "/".equals(current) ? null : Text.getRelativeParent(current, 1);
+            if ( current != null && current.length() == 0 ) {
+                current = "/";
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAfter(final Long time, final long since) {
+        return time != null && time - since >= 0;
+    }
+
+    private void remove(final String path) {
+        final NodeSnapshots node = this.snapshots.remove(path);
+        if ( node != null ) {
+            this.size.addAndGet(-node.users.size());
+            this.invalidations.addAndGet(node.users.size());
+        }
+    }
+
+    /**
+     * Remove the snapshot of the user if it still is the given one.
+     */
+    private void remove(final String path,
+            final String userId,
+            final Map<String, JcrPropertyMapCacheEntry> entries) {
+        NodeSnapshots current;
+        NodeSnapshots updated;
+        do {
+            current = this.snapshots.get(path);
+            if ( current == null || current.users.get(userId) != entries ) {
+                return;
+            }
+            updated = current.users.size() == 1 ? null : new NodeSnapshots(current, userId, null);
+        } while ( !replace(path, current, updated) );
+        this.size.decrementAndGet();
+        this.invalidations.incrementAndGet();
+    }
+
+    /**
+     * Atomically replace the snapshots of a node, <code>null</code> stands
+     * for no snapshots.
+     */
+    private boolean replace(final String path, final NodeSnapshots current, final NodeSnapshots updated) {
+        if ( current == null ) {
+            return this.snapshots.putIfAbsent(path, updated) == null;
+        } else if ( updated == null ) {
+            return this.snapshots.remove(path, current);
+        }
+        return this.snapshots.replace(path, current, updated);
+    }
+
+    private static boolean isSecurityRelated(final String path) {
+        return path.contains("/rep:");
+    }
+
+    /**
+     * Read all properties of the node in the same way as the
+     * {@link org.apache.sling.jcr.resource.JcrPropertyMap} does.
+     * @return The entries or <code>null</code> if the node has a binary property
+     */
+    private static Map<String, JcrPropertyMapCacheEntry> readProperties(final Node node)
+    throws RepositoryException {
+        final Map<String, JcrPropertyMapCacheEntry> entries = new LinkedHashMap<String, JcrPropertyMapCacheEntry>();
+        final PropertyIterator pi = node.getProperties();
+        while ( pi.hasNext() ) {
+            final Property prop = pi.nextProperty();
+            if ( prop.getType() == PropertyType.BINARY ) {
+                return null;
+            }
+            final String name = prop.getName();
+            String key = null;
+            if ( name.indexOf("_x") != -1 ) {
+                // for compatibility with older versions we use the (wrong)
+                // ISO9075 path encoding
+                key = ISO9075.decode(name);
+                if ( key.equals(name) ) {
+                    key = null;
+                }
+            }
+            if ( key == null ) {
+                key = Text.unescapeIllegalJcrChars(name);
+            }
+            if ( !entries.containsKey(key) ) {
+                final Object value = JcrResourceUtil.toJavaObject(prop);
+                if ( value == null ) {
+                    return null;
+                }
+                entries.put(key, new JcrPropertyMapCacheEntry(name, value));
+            }
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * The snapshots of one node by user id. The map of snapshots is never
+     * changed, adding or removing a snapshot replaces the whole object.
+     */
+    private static final class NodeSnapshots {
+
+        final Map<String, Map<String, JcrPropertyMapCacheEntry>> users;
+
+        volatile long lastAccess = System.nanoTime();
+
+        /**
+         * Copy the snapshots of <code>base</code> (if any) and set or, if
+         * <code>entries</code> is <code>null</code>, remove the snapshot of the user.
+         */
+        NodeSnapshots(final NodeSnapshots base,
+                final String userId,
+                final Map<String, JcrPropertyMapCacheEntry> entries) {
+            final Map<String, Map<String, JcrPropertyMapCacheEntry>> copy = base == null
+                    ? new HashMap<String, Map<String, JcrPropertyMapCacheEntry>>(4)
+                    : new HashMap<String, Map<String, JcrPropertyMapCacheEntry>>(base.users);
+            if ( entries == null ) {
+                copy.remove(userId);
+            } else {
+                copy.put(userId, entries);
+            }
+            this.users = copy;
+        }
+    }
+
+    private static final class EvictionCandidate implements Comparable<EvictionCandidate> {
+
+        final String path;
+
+        final NodeSnapshots node;
+
+        final long lastAccess;
+
+        EvictionCandidate(final String path, final NodeSnapshots node) {
+            this.path = path;
+            this.node = node;
+            this.lastAccess = node.lastAccess;
+        }
+
+        @Override
+        public int compareTo(final EvictionCandidate o) {
+            final long diff = this.lastAccess - o.lastAccess;
+            return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+        }
+    }
+}
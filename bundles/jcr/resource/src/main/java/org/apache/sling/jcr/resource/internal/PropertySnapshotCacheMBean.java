@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.resource.internal;
+
+/**
+ * Management interface of the {@link PropertySnapshotCache}.
+ */
+public interface PropertySnapshotCacheMBean {
+
+    /** The current number of snapshots. */
+    int getSize();
+
+    /** The maximum number of snapshots. */
+    int getMaxSize();
+
+    /** The number of value maps served from a snapshot. */
+    long getHits();
+
+    /** The number of value maps for which no snapshot existed. */
+    long getMisses();
+
+    /** The number of snapshots removed to make room for new ones. */
+    long getEvictions();
+
+    /** The number of snapshots removed because of changes. */
+    long getInvalidations();
+
+    /** Remove all snapshots. */
+    void invalidateAll();
+}
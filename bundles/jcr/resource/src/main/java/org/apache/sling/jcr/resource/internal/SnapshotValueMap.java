@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.resource.internal;
+
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.Value;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.jcr.resource.internal.helper.JcrPropertyMapCacheEntry;
+
+/**
+ * A read-only value map backed by a snapshot of the properties of a node
+ * taken from the {@link PropertySnapshotCache}. It behaves like the
+ * {@link JcrValueMap} for the same node.
+ */
+public class SnapshotValueMap implements ValueMap {
+
+    /** The underlying node. */
+    private final Node node;
+
+    /** The shared snapshot of all properties. */
+    private final Map<String, JcrPropertyMapCacheEntry> entries;
+
+    private final HelperData helper;
+
+    /** Value map for keys pointing to properties of child nodes. */
+    private ValueMap nodeValueMap;
+
+    public SnapshotValueMap(final Node node,
+            final Map<String, JcrPropertyMapCacheEntry> entries,
+            final HelperData helper) {
+        this.node = node;
+        this.entries = entries;
+        this.helper = helper;
+    }
+
+    private String checkKey(final String key) {
+        if ( key == null ) {
+            throw new NullPointerException("Key must not be null.");
+        }
+        if ( key.startsWith("./") ) {
+            return key.substring(2);
+        }
+        return key;
+    }
+
+    /**
+     * Relative paths are not part of the snapshot and are read from the node.
+     */
+    private ValueMap getNodeValueMap() {
+        if ( this.nodeValueMap == null ) {
+            this.nodeValueMap = new JcrValueMap(this.node, this.helper);
+        }
+        return this.nodeValueMap;
+    }
+
+    /**
+     * @see org.apache.sling.api.resource.ValueMap#get(java.lang.String, java.lang.Class)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String aKey, final Class<T> type) {
+        final String key = checkKey(aKey);
+        if (type == null) {
+            return (T) get(key);
+        }
+        if ( key.indexOf('/') != -1 ) {
+            return getNodeValueMap().get(key, type);
+        }
+        final JcrPropertyMapCacheEntry entry = this.entries.get(key);
+        if ( entry == null ) {
+            return null;
+        }
+        return entry.convertToType(type, this.node, this.helper.dynamicClassLoader);
+    }
+
+    /**
+     * @see org.apache.sling.api.resource.ValueMap#get(java.lang.String, java.lang.Object)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String aKey, final T defaultValue) {
+        final String key = checkKey(aKey);
+        if (defaultValue == null) {
+            return (T) get(key);
+        }
+
+        // special handling in case the default value implements one
+        // of the interface types supported by the convertToType method
+        Class<T> type = (Class<T>) normalizeClass(defaultValue.getClass());
+
+        T value = get(key, type);
+        if (value == null) {
+            value = defaultValue;
+        }
+
+        return value;
+    }
+
+    // ---------- Map
+
+    /**
+     * @see java.util.Map#get(java.lang.Object)
+     */
+    public Object get(final Object aKey) {
+        final String key = checkKey(aKey.toString());
+        if ( key.indexOf('/') != -1 ) {
+            return getNodeValueMap().get(key);
+        }
+        final JcrPropertyMapCacheEntry entry = this.entries.get(key);
+        return (entry == null ? null : entry.getPropertyValueOrNull());
+    }
+
+    /**
+     * @see java.util.Map#containsKey(java.lang.Object)
+     */
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @see java.util.Map#containsValue(java.lang.Object)
+     */
+    public boolean containsValue(final Object value) {
+        return values().contains(value);
+    }
+
+    /**
+     * @see java.util.Map#isEmpty()
+     */
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    /**
+     * @see java.util.Map#size()
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @see java.util.Map#entrySet()
+     */
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return Collections.unmodifiableSet(this.getValues().entrySet());
+    }
+
+    /**
+     * @see java.util.Map#keySet()
+     */
+    public Set<String> keySet() {
+        return this.entries.keySet();
+    }
+
+    /**
+     * @see java.util.Map#values()
+     */
+    public Collection<Object> values() {
+        return Collections.unmodifiableCollection(this.getValues().values());
+    }
+
+    // ---------- Unsupported Modification methods
+
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object put(final String key, final Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void putAll(final Map<? extends String, ? extends Object> t) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object remove(final Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    // ---------- Implementation helper
+
+    /**
+     * Copy the values as the snapshot is shared.
+     */
+    private Map<String, Object> getValues() {
+        final Map<String, Object> values = new LinkedHashMap<String, Object>(this.entries.size());
+        for ( final Map.Entry<String, JcrPropertyMapCacheEntry> entry : this.entries.entrySet() ) {
+            values.put(entry.getKey(), entry.getValue().getPropertyValueOrNull());
+        }
+        return values;
+    }
+
+    private Class<?> normalizeClass(Class<?> type) {
+        if (Calendar.class.isAssignableFrom(type)) {
+            type = Calendar.class;
+        } else if (Date.class.isAssignableFrom(type)) {
+            type = Date.class;
+        } else if (Value.class.isAssignableFrom(type)) {
+            type = Value.class;
+        } else if (Property.class.isAssignableFrom(type)) {
+            type = Property.class;
+        }
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotValueMap [node=" + this.node + ", values=" + this.getValues() + "]";
+    }
+}
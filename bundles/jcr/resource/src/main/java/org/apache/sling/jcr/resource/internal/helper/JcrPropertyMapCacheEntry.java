@@ -59,6 +59,9 @@ public class JcrPropertyMapCacheEntry {
     /** The value of the object. */
     private final Object propertyValue;
 
+    /** The name of the JCR property - only set for shared snapshot values. */
+    private final String propertyName;
+
     /**
      * Create a new cache entry from a property.
      *
@@ -68,6 +71,7 @@ public class JcrPropertyMapCacheEntry {
     public JcrPropertyMapCacheEntry(final Property prop)
     throws RepositoryException {
         this.property = prop;
+        this.propertyName = null;
         this.isArray = prop.isMultiple();
         if (property.getType() != PropertyType.BINARY) {
             this.propertyValue = JcrResourceUtil.toJavaObject(prop);
@@ -85,6 +89,7 @@ public class JcrPropertyMapCacheEntry {
     public JcrPropertyMapCacheEntry(final Object value, final Node node)
     throws RepositoryException {
         this.property = null;
+        this.propertyName = null;
         this.propertyValue = value;
         this.isArray = value.getClass().isArray();
         // check if values can be stored in JCR
@@ -98,6 +103,22 @@ public class JcrPropertyMapCacheEntry {
         }
      }
 
+    /**
+     * Create a new cache entry for a value read from a property which
+     * is shared between sessions. The value must not be a binary value.
+     * As the entry is not bound to a session, the property itself is
+     * looked up from the node when requested and mutable values are
+     * copied whenever they are handed out.
+     * @param name the name of the JCR property
+     * @param value the non binary value of the property
+     */
+    public JcrPropertyMapCacheEntry(final String name, final Object value) {
+        this.property = null;
+        this.propertyName = name;
+        this.propertyValue = value;
+        this.isArray = value.getClass().isArray();
+    }
+
     private void failIfCannotStore(final Object value, final Node node)
     throws RepositoryException {
         if (value instanceof InputStream) {
@@ -183,9 +204,32 @@ public class JcrPropertyMapCacheEntry {
      * @throws RepositoryException If something goes wrong
      */
     public Object getPropertyValue() throws RepositoryException {
+        if ( this.propertyName != null ) {
+            return copy(this.propertyValue);
+        }
         return this.propertyValue != null ? this.propertyValue : JcrResourceUtil.toJavaObject(property);
     }
 
+    /**
+     * Copy the mutable parts of a shared value.
+     * @param value The shared value
+     * @return A value which can be handed out
+     */
+    private static Object copy(final Object value) {
+        if ( value instanceof Calendar ) {
+            return ((Calendar)value).clone();
+        } else if ( value instanceof Object[] ) {
+            final Object[] values = ((Object[])value).clone();
+            for(int i=0; i<values.length; i++) {
+                if ( values[i] instanceof Calendar ) {
+                    values[i] = ((Calendar)values[i]).clone();
+                }
+            }
+            return values;
+        }
+        return value;
+    }
+
     /**
      * Get the current property value.
      * @return The current value or {@code null} if not possible.
@@ -387,6 +431,9 @@ public class JcrPropertyMapCacheEntry {
             return (T) this.createValue(value, node);
 
         } else if (Property.class == type) {
+            if ( this.property == null && this.propertyName != null ) {
+                return (T) node.getProperty(this.propertyName);
+            }
             return (T) this.property;
         }
 
@@ -131,6 +131,12 @@ class JcrNodeResource extends JcrItemResource<Node> { // this should be package
         } else if (type == InputStream.class) {
             return (Type) getInputStream(); // unchecked cast
         } else if (type == Map.class || type == ValueMap.class) {
+            if ( this.helper.snapshotCache != null ) {
+                final ValueMap snapshot = this.helper.snapshotCache.getValueMap(getNode(), this.helper);
+                if ( snapshot != null ) {
+                    return (Type) snapshot; // unchecked cast
+                }
+            }
             return (Type) new JcrValueMap(getNode(), this.helper); // unchecked cast
         } else if (type == PersistableValueMap.class ) {
             // check write
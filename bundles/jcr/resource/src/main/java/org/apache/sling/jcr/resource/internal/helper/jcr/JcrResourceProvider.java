@@ -22,7 +22,9 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.security.Principal;
 import java.util.Collection;
+import java.util.Dictionary;
 import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -65,13 +67,17 @@ import org.apache.sling.jcr.resource.internal.JcrResourceListener;
 import org.apache.sling.jcr.resource.internal.NodeUtil;
 import org.apache.sling.jcr.resource.internal.OakResourceListener;
 import org.apache.sling.jcr.resource.internal.ObservationListenerSupport;
+import org.apache.sling.jcr.resource.internal.PropertySnapshotCache;
+import org.apache.sling.jcr.resource.internal.PropertySnapshotCacheMBean;
 import org.apache.sling.spi.resource.provider.JCRQueryProvider;
 import org.apache.sling.spi.resource.provider.ProviderContext;
 import org.apache.sling.spi.resource.provider.ResolverContext;
 import org.apache.sling.spi.resource.provider.ResourceContext;
 import org.apache.sling.spi.resource.provider.ResourceProvider;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -114,6 +120,15 @@ public class JcrResourceProvider extends ResourceProvider<JcrProviderState> {
             description = "Maximum number of pending revisions in a observation listener queue")
     private static final String OBSERVATION_QUEUE_LENGTH = "oak.observation.queue-length";
 
+    private static final int DEFAULT_SNAPSHOT_CACHE_SIZE = 0;
+    @Property(
+            intValue = DEFAULT_SNAPSHOT_CACHE_SIZE,
+            label = "Property Snapshot Cache Size",
+            description = "Maximum number of read-only property snapshots of nodes shared by all resource resolvers. " +
+                          "Snapshots are kept per user and removed through observation, changes might therefore " +
+                          "only become visible after the observation delay. A value of 0 disables the cache.")
+    private static final String PROPERTY_SNAPSHOT_CACHE_SIZE = "resource.snapshot.cache.size";
+
     @Reference(name = REPOSITORY_REFERNENCE_NAME, referenceInterface = SlingRepository.class)
     private ServiceReference repositoryReference;
 
@@ -143,6 +158,11 @@ public class JcrResourceProvider extends ResourceProvider<JcrProviderState> {
 
     private JcrProviderStateFactory stateFactory;
 
+    /** The shared property snapshots, <code>null</code> if disabled. */
+    private PropertySnapshotCache snapshotCache;
+
+    private ServiceRegistration snapshotCacheRegistration;
+
     @Activate
     protected void activate(final ComponentContext context) throws RepositoryException {
         SlingRepository repository = (SlingRepository) context.locateService(REPOSITORY_REFERNENCE_NAME,
@@ -161,13 +181,28 @@ public class JcrResourceProvider extends ResourceProvider<JcrProviderState> {
         this.root = PropertiesUtil.toString(context.getProperties().get(ResourceProvider.PROPERTY_ROOT), "/");
         this.bundleCtx = context.getBundleContext();
 
-        HelperData helperData = new HelperData(dynamicClassLoaderManager.getDynamicClassLoader(), pathMapper);
+        final int snapshotCacheSize = PropertiesUtil.toInteger(context.getProperties().get(PROPERTY_SNAPSHOT_CACHE_SIZE), DEFAULT_SNAPSHOT_CACHE_SIZE);
+        if ( snapshotCacheSize > 0 ) {
+            this.snapshotCache = new PropertySnapshotCache(snapshotCacheSize);
+            final Dictionary<String, Object> props = new Hashtable<String, Object>();
+            props.put("jmx.objectname", "org.apache.sling:type=jcr.resource,name=PropertySnapshotCache");
+            props.put(Constants.SERVICE_VENDOR, "The Apache Software Foundation");
+            props.put(Constants.SERVICE_DESCRIPTION, "Apache Sling JCR Resource Property Snapshot Cache");
+            this.snapshotCacheRegistration = this.bundleCtx.registerService(PropertySnapshotCacheMBean.class.getName(), this.snapshotCache, props);
+        }
+
+        HelperData helperData = new HelperData(dynamicClassLoaderManager.getDynamicClassLoader(), pathMapper, this.snapshotCache);
         this.stateFactory = new JcrProviderStateFactory(repositoryReference, repository, helperData);
     }
 
     @Deactivate
     protected void deactivate() {
         unregisterLegacyListener();
+        if ( this.snapshotCacheRegistration != null ) {
+            this.snapshotCacheRegistration.unregister();
+            this.snapshotCacheRegistration = null;
+        }
+        this.snapshotCache = null;
     }
 
 
@@ -213,7 +248,7 @@ public class JcrResourceProvider extends ResourceProvider<JcrProviderState> {
         ObservationListenerSupport support = null;
         boolean closeSupport = true;
         try {
-            support = new ObservationListenerSupport(bundleCtx, repository, this.getProviderContext().getExcludedPaths());
+            support = new ObservationListenerSupport(bundleCtx, repository, this.getProviderContext().getExcludedPaths(), this.snapshotCache);
             if (isOak) {
                 try {
                     this.listener = new OakResourceListener(root, support, bundleCtx, executor, pathMapper, observationQueueLength);
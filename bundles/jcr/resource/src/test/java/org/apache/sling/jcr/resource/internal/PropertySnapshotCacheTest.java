@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.resource.internal;
+
+import java.io.ByteArrayInputStream;
+import java.util.Calendar;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.Repository;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+
+import org.apache.jackrabbit.oak.Oak;
+import org.apache.jackrabbit.oak.jcr.Jcr;
+import org.apache.jackrabbit.oak.plugins.segment.SegmentNodeStore;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.commons.testing.jcr.RepositoryTestBase;
+
+public class PropertySnapshotCacheTest extends RepositoryTestBase {
+
+    private String rootPath;
+
+    private Node rootNode;
+
+    private PropertySnapshotCache cache;
+
+    private HelperData helper;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        rootPath = "/test_" + System.currentTimeMillis();
+        rootNode = getSession().getRootNode().addNode(rootPath.substring(1),
+            "nt:unstructured");
+        rootNode.setProperty("string", "test");
+        rootNode.setProperty("long", 1L);
+        rootNode.setProperty("date", Calendar.getInstance());
+        rootNode.setProperty("multi", new String[] {"a", "b"});
+        getSession().save();
+
+        cache = new PropertySnapshotCache(2);
+        cache.setWorkspaceName(getSession().getWorkspace().getName());
+        helper = new HelperData(null, new PathMapperImpl(), cache);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (rootNode != null) {
+            rootNode.remove();
+            getSession().save();
+        }
+        super.tearDown();
+    }
+
+    public void testSnapshotIsShared() throws Exception {
+        final ValueMap first = cache.getValueMap(rootNode, helper);
+        assertEquals("test", first.get("string", String.class));
+        assertEquals(Long.valueOf(1), first.get("long", Long.class));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getSize());
+
+        final ValueMap second = cache.getValueMap(rootNode, helper);
+        assertEquals(1, cache.getHits());
+        assertEquals(first.keySet(), second.keySet());
+        assertEquals("test", second.get("string"));
+        assertEquals(2, second.get("multi", String[].class).length);
+        assertEquals("1", second.get("long", "0"));
+
+        final Property prop = second.get("string", Property.class);
+        assertNotNull(prop);
+        assertEquals(rootPath + "/string", prop.getPath());
+    }
+
+    public void testSharedValuesAreCopied() throws Exception {
+        final Calendar date = cache.getValueMap(rootNode, helper).get("date", Calendar.class);
+        final String[] multi = (String[]) cache.getValueMap(rootNode, helper).get("multi");
+        date.add(Calendar.YEAR, 1);
+        multi[0] = "changed";
+
+        final ValueMap vm = cache.getValueMap(rootNode, helper);
+        assertEquals(date.get(Calendar.YEAR) - 1, vm.get("date", Calendar.class).get(Calendar.YEAR));
+        assertEquals("a", vm.get("multi", String[].class)[0]);
+    }
+
+    public void testInvalidate() throws Exception {
+        assertEquals("test", cache.getValueMap(rootNode, helper).get("string"));
+
+        rootNode.setProperty("string", "changed");
+        // pending changes are never served from or put into the cache
+        assertNull(cache.getValueMap(rootNode, helper));
+        getSession().save();
+
+        assertEquals("test", cache.getValueMap(rootNode, helper).get("string"));
+        cache.invalidate(rootPath, "string");
+        assertEquals(1, cache.getInvalidations());
+        assertEquals("changed", cache.getValueMap(rootNode, helper).get("string"));
+        // no snapshot of a recently changed node
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testInvalidationsOfOtherNodes() throws Exception {
+        cache.invalidate(rootPath + "/child", "string");
+        cache.invalidate(rootPath + "x", null);
+        cache.invalidateTree(rootPath + "/child");
+        cache.getValueMap(rootNode, helper);
+        assertEquals(1, cache.getSize());
+
+        cache.invalidateTree(rootPath);
+        cache.getValueMap(rootNode, helper);
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testSnapshotAfterWindow() throws Exception {
+        final PropertySnapshotCache noWindow = new PropertySnapshotCache(2, 0);
+        noWindow.setWorkspaceName(getSession().getWorkspace().getName());
+        noWindow.invalidate(rootPath, "string");
+        noWindow.invalidateAll();
+        noWindow.getValueMap(rootNode, helper);
+        assertEquals(1, noWindow.getSize());
+    }
+
+    public void testInvalidateTree() throws Exception {
+        final Node child = rootNode.addNode("child", "nt:unstructured");
+        getSession().save();
+        cache.getValueMap(rootNode, helper);
+        cache.getValueMap(child, helper);
+        assertEquals(2, cache.getSize());
+
+        cache.invalidateTree(rootPath);
+        assertEquals(0, cache.getSize());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    public void testSecurityRelatedChangeClearsCache() throws Exception {
+        cache.getValueMap(rootNode, helper);
+        cache.invalidate("/content/rep:policy/allow", null);
+        assertEquals(0, cache.getSize());
+
+        cache.getValueMap(rootNode, helper);
+        cache.invalidate("/home/groups/g", "rep:members");
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testEviction() throws Exception {
+        final Node a = rootNode.addNode("a", "nt:unstructured");
+        final Node b = rootNode.addNode("b", "nt:unstructured");
+        getSession().save();
+        cache.getValueMap(rootNode, helper);
+        cache.getValueMap(a, helper);
+        cache.getValueMap(rootNode, helper);
+        cache.getValueMap(b, helper);
+
+        // a is the least recently used node
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        cache.getValueMap(rootNode, helper);
+        assertEquals(2, cache.getHits());
+    }
+
+    public void testBinaryNodesAreNotCached() throws Exception {
+        rootNode.setProperty("binary", getSession().getValueFactory().createBinary(new ByteArrayInputStream(new byte[] {1})));
+        getSession().save();
+        assertNull(cache.getValueMap(rootNode, helper));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testNotCachedWithoutObservation() throws Exception {
+        cache.setWorkspaceName(null);
+        assertNull(cache.getValueMap(rootNode, helper));
+        assertEquals(0, cache.getMisses());
+    }
+
+    /**
+     * Oak sessions keep reading the revision they last saw until they are
+     * refreshed. Such a session must not put its old state into the cache
+     * after the change has been invalidated, and the cache must not refresh it.
+     */
+    public void testOutdatedSessionDoesNotCacheOldState() throws Exception {
+        final Repository repository = new Jcr(new Oak(new SegmentNodeStore())).createRepository();
+        final SimpleCredentials admin = new SimpleCredentials("admin", "admin".toCharArray());
+        final Session writer = repository.login(admin);
+        final Session outdated = repository.login(admin);
+        final Session reader = repository.login(admin);
+        try {
+            writer.getRootNode().addNode("test", "nt:unstructured").setProperty("string", "test");
+            writer.save();
+            outdated.refresh(false);
+            final Node node = outdated.getNode("/test");
+
+            // change the node in another thread, oak synchronizes the sessions of one thread
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        writer.getNode("/test").setProperty("string", "changed");
+                        writer.save();
+                    } catch (final Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            thread.start();
+            thread.join();
+            assertEquals("test", node.getProperty("string").getString());
+
+            final PropertySnapshotCache oakCache = new PropertySnapshotCache(10);
+            oakCache.setWorkspaceName(outdated.getWorkspace().getName());
+            oakCache.invalidate("/test", "string");
+
+            assertEquals("test", oakCache.getValueMap(node, helper).get("string"));
+            assertEquals(0, oakCache.getSize());
+            assertEquals("changed", oakCache.getValueMap(reader.getNode("/test"), helper).get("string"));
+            assertEquals(0, oakCache.getHits());
+        } finally {
+            reader.logout();
+            outdated.logout();
+            writer.logout();
+        }
+    }
+}
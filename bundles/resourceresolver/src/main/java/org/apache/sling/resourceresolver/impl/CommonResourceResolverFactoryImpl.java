@@ -37,6 +37,7 @@ import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.resourceresolver.impl.console.ResourceResolverWebConsolePlugin;
 import org.apache.sling.resourceresolver.impl.helper.ResourceDecoratorTracker;
 import org.apache.sling.resourceresolver.impl.helper.ResourceResolverContext;
+import org.apache.sling.resourceresolver.impl.helper.ResourceTypeHierarchyCache;
 import org.apache.sling.resourceresolver.impl.mapping.MapConfigurationProvider;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntries;
 import org.apache.sling.resourceresolver.impl.mapping.Mapping;
@@ -56,6 +57,9 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
     /** Helper for the resource resolver. */
     private MapEntries mapEntries = MapEntries.EMPTY;
 
+    /** Cache for the resource super type hierarchies. */
+    private final ResourceTypeHierarchyCache resourceTypeHierarchyCache = new ResourceTypeHierarchyCache();
+
     /** The web console plugin. */
     private ResourceResolverWebConsolePlugin plugin;
 
@@ -261,6 +265,10 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
         return mapEntries;
     }
 
+    public ResourceTypeHierarchyCache getResourceTypeHierarchyCache() {
+        return resourceTypeHierarchyCache;
+    }
+
     /** Activates this component */
     protected void activate(final BundleContext bundleContext) {
         final Logger logger = LoggerFactory.getLogger(getClass());
@@ -277,6 +285,7 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
         } catch (final Exception e) {
             logger.error("activate: Cannot access repository, failed setting up Mapping Support", e);
         }
+        resourceTypeHierarchyCache.register(bundleContext);
     }
 
     /**
@@ -294,6 +303,7 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
             mapEntries.dispose();
             mapEntries = MapEntries.EMPTY;
         }
+        resourceTypeHierarchyCache.dispose();
         resolverStackHolder = null;
     }
 
@@ -357,11 +367,6 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
         return this.activator.isMaxCachedVanityPathEntriesStartup();
     }
 
-    @Override
-    public int getVanityBloomFilterMaxBytes() {
-        return this.activator.getVanityBloomFilterMaxBytes();
-    }
-
     @Override
     public boolean isOptimizeAliasResolutionEnabled() {
         return this.activator.isOptimizeAliasResolutionEnabled();
@@ -405,6 +410,14 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
         return logResourceResolverClosing;
     }
 
+    /**
+     * The maximum number of resources cached by each resource resolver,
+     * <code>0</code> if resolvers do not cache resources.
+     */
+    public int getResourceCacheSize() {
+        return this.activator.getResourceCacheSize();
+    }
+
     public ResourceProviderTracker getResourceProviderTracker() {
         return activator.getResourceProviderTracker();
     }
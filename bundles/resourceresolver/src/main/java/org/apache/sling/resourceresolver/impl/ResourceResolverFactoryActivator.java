@@ -203,13 +203,6 @@ public class ResourceResolverFactoryActivator implements Runnable {
                             "Default is true")
     private static final String PROP_MAX_CACHED_VANITY_PATHS_STARTUP = "resource.resolver.vanitypath.maxEntries.startup";
 
-    private static final int DEFAULT_VANITY_BLOOM_FILTER_MAX_BYTES = 1024000;
-    @Property(longValue = DEFAULT_VANITY_BLOOM_FILTER_MAX_BYTES,
-              label = "Maximum number of vanity bloom filter bytes",
-              description = "The maximum number of vanity bloom filter bytes. " +
-                            "Changing this value is subject to vanity bloom filter rebuild")
-    private static final String PROP_VANITY_BLOOM_FILTER_MAX_BYTES = " resource.resolver.vanitypath.bloomfilter.maxBytes";
-
     private static final boolean DEFAULT_ENABLE_OPTIMIZE_ALIAS_RESOLUTION = true;
     @Property(boolValue = DEFAULT_ENABLE_OPTIMIZE_ALIAS_RESOLUTION ,
               label = "Optimize alias resolution",
@@ -255,6 +248,16 @@ public class ResourceResolverFactoryActivator implements Runnable {
                   "production systems.")
     private static final String PROP_LOG_RESOURCE_RESOLVER_CLOSING = "resource.resolver.log.closing";
 
+    private static final int DEFAULT_RESOURCE_CACHE_SIZE = 0;
+    @Property(intValue = DEFAULT_RESOURCE_CACHE_SIZE,
+              label = "Resource Cache Size",
+              description = "Maximum number of resources, including non existing ones, cached by each resource " +
+                  "resolver for the lifetime of the resolver (usually a single request). The cache is cleared on " +
+                  "every create, delete, copy, move, commit, revert and refresh of the resolver. Changes made through " +
+                  "an object the resolver has been adapted to (e.g. a JCR session) are not seen until then. " +
+                  "A value of 0 (the default) disables the cache.")
+    private static final String PROP_RESOURCE_CACHE_SIZE = "resource.resolver.cache.size";
+
     /** Tracker for the resource decorators. */
     private final ResourceDecoratorTracker resourceDecoratorTracker = new ResourceDecoratorTracker();
 
@@ -308,15 +311,15 @@ public class ResourceResolverFactoryActivator implements Runnable {
     /** limit max number of cache vanity path entries only at startup*/
     private boolean maxCachedVanityPathEntriesStartup = DEFAULT_MAX_CACHED_VANITY_PATHS_STARTUP;
 
-    /** Maximum number of vanity bloom filter bytes */
-    private int vanityBloomFilterMaxBytes = DEFAULT_VANITY_BLOOM_FILTER_MAX_BYTES;
-
     /** vanity paths will have precedence over existing /etc/map mapping? */
     private boolean vanityPathPrecedence = DEFAULT_VANITY_PATH_PRECEDENCE;
 
     /** log the place where a resource resolver is closed */
     private boolean logResourceResolverClosing = DEFAULT_LOG_RESOURCE_RESOLVER_CLOSING;
 
+    /** maximum number of resources cached per resource resolver, 0 to disable */
+    private int resourceCacheSize = DEFAULT_RESOURCE_CACHE_SIZE;
+
     /** Vanity path whitelist */
     private String[] vanityPathWhiteList;
 
@@ -416,14 +419,14 @@ public class ResourceResolverFactoryActivator implements Runnable {
         return this.maxCachedVanityPathEntriesStartup;
     }
 
-    public int getVanityBloomFilterMaxBytes() {
-        return this.vanityBloomFilterMaxBytes;
-    }
-
     public boolean shouldLogResourceResolverClosing() {
         return logResourceResolverClosing;
     }
 
+    public int getResourceCacheSize() {
+        return resourceCacheSize;
+    }
+
     // ---------- SCR Integration ---------------------------------------------
 
     /**
@@ -546,11 +549,11 @@ public class ResourceResolverFactoryActivator implements Runnable {
         this.enableOptimizeAliasResolution = PropertiesUtil.toBoolean(properties.get(PROP_ENABLE_OPTIMIZE_ALIAS_RESOLUTION), DEFAULT_ENABLE_OPTIMIZE_ALIAS_RESOLUTION);
         this.maxCachedVanityPathEntries = PropertiesUtil.toLong(properties.get(PROP_MAX_CACHED_VANITY_PATHS), DEFAULT_MAX_CACHED_VANITY_PATHS);
         this.maxCachedVanityPathEntriesStartup = PropertiesUtil.toBoolean(properties.get(PROP_MAX_CACHED_VANITY_PATHS_STARTUP), DEFAULT_MAX_CACHED_VANITY_PATHS_STARTUP);
-        this.vanityBloomFilterMaxBytes = PropertiesUtil.toInteger(properties.get(PROP_VANITY_BLOOM_FILTER_MAX_BYTES), DEFAULT_VANITY_BLOOM_FILTER_MAX_BYTES);
 
         this.vanityPathPrecedence = PropertiesUtil.toBoolean(properties.get(PROP_VANITY_PATH_PRECEDENCE), DEFAULT_VANITY_PATH_PRECEDENCE);
         this.logResourceResolverClosing = PropertiesUtil.toBoolean(properties.get(PROP_LOG_RESOURCE_RESOLVER_CLOSING),
             DEFAULT_LOG_RESOURCE_RESOLVER_CLOSING);
+        this.resourceCacheSize = PropertiesUtil.toInteger(properties.get(PROP_RESOURCE_CACHE_SIZE), DEFAULT_RESOURCE_CACHE_SIZE);
 
         final BundleContext bc = componentContext.getBundleContext();
 
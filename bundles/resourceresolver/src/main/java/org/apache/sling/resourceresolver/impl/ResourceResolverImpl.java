@@ -58,6 +58,7 @@ import org.apache.sling.resourceresolver.impl.helper.RedirectResource;
 import org.apache.sling.resourceresolver.impl.helper.ResourceIteratorDecorator;
 import org.apache.sling.resourceresolver.impl.helper.ResourcePathIterator;
 import org.apache.sling.resourceresolver.impl.helper.ResourceResolverContext;
+import org.apache.sling.resourceresolver.impl.helper.ResourceTypeHierarchyCache;
 import org.apache.sling.resourceresolver.impl.helper.StarResource;
 import org.apache.sling.resourceresolver.impl.helper.URI;
 import org.apache.sling.resourceresolver.impl.helper.URIException;
@@ -148,7 +149,8 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
 
     private CombinedResourceProvider createProvider(ResourceProviderStorage storage) throws LoginException {
         final ResourceProviderAuthenticator authenticator = new ResourceProviderAuthenticator(this, authenticationInfo, this.factory.getResourceAccessSecurityTracker());
-        final CombinedResourceProvider provider = new CombinedResourceProvider(storage, this, authenticator);
+        final CombinedResourceProvider provider = new CombinedResourceProvider(storage, this, authenticator,
+                this.factory.getResourceCacheSize());
         authenticator.authenticateAll(storage.getAuthRequiredHandlers(), provider);
         return provider;
     }
@@ -1232,6 +1234,14 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
      */
 	@Override
     public boolean hasChildren(Resource resource) {
+        if (this.provider.getResourceCache() != null) {
+            // answered from the resource cache without reading the first child
+            Resource unwrapped = resource;
+            while (unwrapped instanceof ResourceWrapper) {
+                unwrapped = ((ResourceWrapper) unwrapped).getResource();
+            }
+            return this.provider.hasChildren(unwrapped);
+        }
 		return listChildren(resource).hasNext();
 	}
 
@@ -1255,7 +1265,34 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
      */
     @Override
     public String getParentResourceType(final String resourceType) {
-        return this.context.getParentResourceType(this.factory, this, resourceType);
+        if ( resourceType == null ) {
+            return null;
+        }
+        final ResourceTypeHierarchyCache.Hierarchy hierarchy = this.getResourceTypeHierarchy(resourceType);
+        if ( hierarchy == null ) {
+            return this.context.getParentResourceType(this.factory, this, resourceType);
+        }
+        return hierarchy.getParentResourceType();
+    }
+
+    /**
+     * Get the cached super type chain of the resource type. The cache is
+     * bypassed if this is an admin resolver with unsaved changes, as its
+     * view of the resource types might differ from the persisted one.
+     * @return The chain or {@code null} if the cache must not be used.
+     */
+    private ResourceTypeHierarchyCache.Hierarchy getResourceTypeHierarchy(final String resourceType) {
+        if ( this.context.isAdmin() && this.hasChanges() ) {
+            return null;
+        }
+        return this.factory.getResourceTypeHierarchyCache().getHierarchy(resourceType, this.factory.getSearchPath(),
+                new ResourceTypeHierarchyCache.Loader() {
+
+                    @Override
+                    public String getParentResourceType(final String type) {
+                        return context.getParentResourceType(factory, ResourceResolverImpl.this, type);
+                    }
+                });
     }
 
     /**
@@ -1271,18 +1308,15 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
              if (resourceType.equals(resource.getResourceType())) {
                  result = true;
              } else {
-                 Set<String> superTypesChecked = new HashSet<String>();
-                 String superType = this.getParentResourceType(resource);
-                 while (!result && superType != null) {
-                     if (resourceType.equals(superType)) {
-                         result = true;
-                     } else {
-                         superTypesChecked.add(superType);
-                         superType = this.getParentResourceType(superType);
-                         if (superType != null && superTypesChecked.contains(superType)) {
-                             throw new SlingException("Cyclic dependency for resourceSuperType hierarchy detected on resource " + resource.getPath(), null);
-                         }
+                 final String superType = this.getParentResourceType(resource);
+                 final ResourceTypeHierarchyCache.Hierarchy hierarchy = (superType == null ? null : this.getResourceTypeHierarchy(superType));
+                 if ( hierarchy != null ) {
+                     result = hierarchy.contains(resourceType);
+                     if ( !result && hierarchy.isCyclic() ) {
+                         throw new SlingException("Cyclic dependency for resourceSuperType hierarchy detected on resource " + resource.getPath(), null);
                      }
+                 } else {
+                     result = this.isSuperType(resource, superType, resourceType);
                  }
              }
 
@@ -1290,6 +1324,24 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
         return result;
     }
 
+    private boolean isSuperType(final Resource resource, final String startType, final String resourceType) {
+        boolean result = false;
+        Set<String> superTypesChecked = new HashSet<String>();
+        String superType = startType;
+        while (!result && superType != null) {
+            if (resourceType.equals(superType)) {
+                result = true;
+            } else {
+                superTypesChecked.add(superType);
+                superType = this.getParentResourceType(superType);
+                if (superType != null && superTypesChecked.contains(superType)) {
+                    throw new SlingException("Cyclic dependency for resourceSuperType hierarchy detected on resource " + resource.getPath(), null);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.apache.sling.api.resource.ResourceResolver#refresh()
      */
@@ -44,6 +44,7 @@ import org.apache.sling.api.resource.runtime.dto.ResourceProviderDTO;
 import org.apache.sling.api.resource.runtime.dto.ResourceProviderFailureDTO;
 import org.apache.sling.api.resource.runtime.dto.RuntimeDTO;
 import org.apache.sling.resourceresolver.impl.CommonResourceResolverFactoryImpl;
+import org.apache.sling.resourceresolver.impl.helper.ResourceTypeHierarchyCache;
 import org.apache.sling.resourceresolver.impl.helper.URI;
 import org.apache.sling.resourceresolver.impl.helper.URIException;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntries;
@@ -141,6 +142,14 @@ public class ResourceResolverWebConsolePlugin extends HttpServlet {
         pw.print(resolverFactory.getMapRoot());
         pw.print("</td>");
         pw.println("</tr>");
+        pw.println("<tr class='content'>");
+        pw.println("<td class='content'>Resource Type Hierarchy Cache</td>");
+        pw.print("<td class='content' colspan='2'>");
+        final ResourceTypeHierarchyCache cache = resolverFactory.getResourceTypeHierarchyCache();
+        pw.print("Entries: " + cache.getSize() + ", Hits: " + cache.getHits() + ", Misses: " + cache.getMisses()
+                + ", Invalidations: " + cache.getInvalidations());
+        pw.print("</td>");
+        pw.println("</tr>");
 
         separatorHtml(pw);
 
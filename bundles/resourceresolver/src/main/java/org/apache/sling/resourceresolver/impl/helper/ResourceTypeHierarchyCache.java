@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The SF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.apache.sling.resourceresolver.impl.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.api.SlingConstants;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventConstants;
+import org.osgi.service.event.EventHandler;
+
+/**
+ * The <code>ResourceTypeHierarchyCache</code> caches the resolved resource
+ * super type chain of resource types. It is shared by all resource resolvers
+ * of a factory.
+ * <p>
+ * For every resource type the cache holds the resource type itself followed
+ * by its super types up to the root of the hierarchy. The chain is read once
+ * and checked for cycles at that time, so a lookup is a walk over an array.
+ * <p>
+ * Entries are invalidated through observation: a change to a resource at or
+ * above one of the locations a resource type of a chain may be read from
+ * (the absolute resource type path or the resource type path below each
+ * search path) removes the chain. Changes outside of the search path and
+ * outside of the absolute resource type paths read so far are ignored, so
+ * writes to content do not affect the cache.
+ */
+public class ResourceTypeHierarchyCache implements EventHandler {
+
+    /** Loads the super type of a single resource type. */
+    public interface Loader {
+
+        String getParentResourceType(String resourceType);
+    }
+
+    /** The cached chains keyed by resource type. */
+    private final Map<String, Hierarchy> hierarchies = new ConcurrentHashMap<String, Hierarchy>();
+
+    /**
+     * Incremented on every invalidation; a chain is only stored if no
+     * invalidation happened while it was read.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The paths below which resource types are read: the search path entries
+     * and the absolute resource type paths. Only changes at, above or below
+     * one of these paths invalidate the cache.
+     */
+    private final Set<String> roots = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile ServiceRegistration registration;
+
+    /**
+     * Returns the chain for the given resource type, reading it through the
+     * loader if it is not cached yet.
+     *
+     * @param resourceType The resource type, must not be <code>null</code>
+     * @param searchPath The search path used to compute the locations the
+     *            resource types of the chain are read from
+     * @param loader The loader
+     */
+    public Hierarchy getHierarchy(final String resourceType, final String[] searchPath, final Loader loader) {
+        Hierarchy hierarchy = this.hierarchies.get(resourceType);
+        if ( hierarchy != null ) {
+            this.hits.incrementAndGet();
+            return hierarchy;
+        }
+        this.misses.incrementAndGet();
+        final long gen = this.generation.get();
+        if ( searchPath != null ) {
+            for(final String prefix : searchPath) {
+                this.addRoot(prefix);
+            }
+        }
+        hierarchy = load(resourceType, searchPath, loader);
+        if ( gen == this.generation.get() ) {
+            this.hierarchies.put(resourceType, hierarchy);
+        }
+        return hierarchy;
+    }
+
+    private Hierarchy load(final String resourceType, final String[] searchPath, final Loader loader) {
+        final List<String> types = new ArrayList<String>();
+        final Set<String> checked = new HashSet<String>();
+        boolean cyclic = false;
+        String current = resourceType;
+        while ( current != null ) {
+            types.add(current);
+            checked.add(current);
+            final String typePath = ResourceUtil.resourceTypeToPath(current);
+            if ( typePath.startsWith("/") ) {
+                // register the location before it is read so that a
+                // concurrent change prevents the chain from being stored
+                this.addRoot(typePath);
+            }
+            current = loader.getParentResourceType(current);
+            if ( current != null && checked.contains(current) ) {
+                cyclic = true;
+                current = null;
+            }
+        }
+        final Set<String> locations = new HashSet<String>();
+        for(final String type : types) {
+            final String path = ResourceUtil.resourceTypeToPath(type);
+            if ( path.startsWith("/") ) {
+                locations.add(path);
+            } else if ( searchPath != null ) {
+                for(final String prefix : searchPath) {
+                    locations.add(prefix.endsWith("/") ? prefix + path : prefix + "/" + path);
+                }
+            }
+        }
+        return new Hierarchy(types.toArray(new String[types.size()]), cyclic,
+                locations.toArray(new String[locations.size()]));
+    }
+
+    private void addRoot(final String path) {
+        final String root = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        if ( !this.roots.contains(root) ) {
+            this.roots.add(root);
+        }
+    }
+
+    /**
+     * Whether a change at the given path may affect a resource type.
+     */
+    private boolean isRelevant(final String path) {
+        if ( "/".equals(path) ) {
+            return true;
+        }
+        for(final String root : this.roots) {
+            if ( root.equals(path) || "/".equals(root)
+                 || path.startsWith(root.concat("/")) || root.startsWith(path.concat("/")) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all chains that may be affected by a change at the given path.
+     */
+    public void invalidate(final String path) {
+        if ( !this.isRelevant(path) ) {
+            return;
+        }
+        this.generation.incrementAndGet();
+        final String prefix = path.endsWith("/") ? path : path + "/";
+        final Iterator<Hierarchy> i = this.hierarchies.values().iterator();
+        while ( i.hasNext() ) {
+            final Hierarchy hierarchy = i.next();
+            for(final String location : hierarchy.locations) {
+                if ( location.equals(path) || location.startsWith(prefix) ) {
+                    i.remove();
+                    this.invalidations.incrementAndGet();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all chains.
+     */
+    public void flush() {
+        this.generation.incrementAndGet();
+        this.invalidations.addAndGet(this.hierarchies.size());
+        this.hierarchies.clear();
+    }
+
+    /**
+     * @see org.osgi.service.event.EventHandler#handleEvent(org.osgi.service.event.Event)
+     */
+    @Override
+    public void handleEvent(final Event event) {
+        final Object path = event.getProperty(SlingConstants.PROPERTY_PATH);
+        if ( event.getTopic().startsWith("org/apache/sling/api/resource/Resource/") && path instanceof String ) {
+            this.invalidate((String)path);
+        } else {
+            // providers have been added or removed
+            this.flush();
+        }
+    }
+
+    /**
+     * Registers this cache as an event handler for resource changes.
+     */
+    public void register(final BundleContext bundleContext) {
+        final Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put(EventConstants.EVENT_TOPIC, new String[] {
+                "org/apache/sling/api/resource/Resource/*",
+                "org/apache/sling/api/resource/ResourceProvider/*"});
+        props.put(Constants.SERVICE_DESCRIPTION, "Apache Sling Resource Type Hierarchy Cache");
+        props.put(Constants.SERVICE_VENDOR, "The Apache Software Foundation");
+        this.registration = bundleContext.registerService(EventHandler.class.getName(), this, props);
+    }
+
+    /**
+     * Unregisters the event handler and clears the cache.
+     */
+    public void dispose() {
+        if ( this.registration != null ) {
+            try {
+                this.registration.unregister();
+            } catch ( final IllegalStateException ise ) {
+                // bundle context already gone
+            }
+            this.registration = null;
+        }
+        this.hierarchies.clear();
+    }
+
+    public int getSize() {
+        return this.hierarchies.size();
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public long getInvalidations() {
+        return this.invalidations.get();
+    }
+
+    /**
+     * A resource type followed by its super types.
+     */
+    public static final class Hierarchy {
+
+        private final String[] types;
+
+        private final boolean cyclic;
+
+        private final String[] locations;
+
+        Hierarchy(final String[] types, final boolean cyclic, final String[] locations) {
+            this.types = types;
+            this.cyclic = cyclic;
+            this.locations = locations;
+        }
+
+        /**
+         * The resource type followed by its super types; no type is
+         * contained twice.
+         */
+        public String[] getTypes() {
+            return this.types;
+        }
+
+        /**
+         * Whether the super type of the last type of the chain is already
+         * part of the chain.
+         */
+        public boolean isCyclic() {
+            return this.cyclic;
+        }
+
+        /**
+         * The super type of the first resource type of the chain.
+         */
+        public String getParentResourceType() {
+            if ( this.types.length > 1 ) {
+                return this.types[1];
+            }
+            return this.cyclic ? this.types[0] : null;
+        }
+
+        public boolean contains(final String resourceType) {
+            for(final String type : this.types) {
+                if ( type.equals(resourceType) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
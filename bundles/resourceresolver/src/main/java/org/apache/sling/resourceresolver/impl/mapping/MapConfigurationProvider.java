@@ -44,8 +44,6 @@ public interface MapConfigurationProvider extends ResourceResolverFactory {
     
     boolean isMaxCachedVanityPathEntriesStartup();
     
-    int getVanityBloomFilterMaxBytes();
-
     boolean isOptimizeAliasResolutionEnabled();
     
     boolean hasVanityPathPrecedence();
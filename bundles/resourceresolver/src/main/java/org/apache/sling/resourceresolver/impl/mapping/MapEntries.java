@@ -18,10 +18,7 @@
  */
 package org.apache.sling.resourceresolver.impl.mapping;
 
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -43,6 +40,8 @@ import java.util.TimerTask;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -83,9 +82,7 @@ public class MapEntries implements EventHandler {
     
     public static final String PROP_VANITY_ORDER = "sling:vanityOrder";
     
-    private static final String VANITY_BLOOM_FILTER_NAME = "vanityBloomFilter.txt";
-    
-    private static final int VANITY_BLOOM_FILTER_MAX_ENTRIES = 10000000;
+    private static final String VANITY_PATH_INDEX_NAME = "vanityPathIndex.bin";
 
     /** Key for the global list. */
     private static final String GLOBAL_LIST_KEY = "*";
@@ -111,9 +108,9 @@ public class MapEntries implements EventHandler {
 
     private Collection<MapEntry> mapMaps;
 
-    private Map <String,List <String>> vanityTargets;
+    private ConcurrentNavigableMap <String,List <String>> vanityTargets;
 
-    private Map<String, Map<String, String>> aliasMap;
+    private ConcurrentNavigableMap<String, Map<String, String>> aliasMap;
 
     private ServiceRegistration registration;
 
@@ -126,8 +123,6 @@ public class MapEntries implements EventHandler {
     private final long maxCachedVanityPathEntries;
     
     private final boolean maxCachedVanityPathEntriesStartup;
-    
-    private final int vanityBloomFilterMaxBytes;
 
     private final boolean enableOptimizeAliasResolution;
     
@@ -137,13 +132,13 @@ public class MapEntries implements EventHandler {
     
     private final AtomicLong vanityCounter;
 
-    private final File vanityBloomFilterFile;
+    private final VanityPathIndex vanityPathIndex = new VanityPathIndex();
 
-    private byte[] vanityBloomFilter;
+    private final File vanityPathIndexFile;
 
     private Timer timer;
 
-    private boolean updateBloomFilterFile = false;
+    private volatile boolean updateVanityPathIndexFile = false;
 
     @SuppressWarnings("unchecked")
     private MapEntries() {
@@ -153,19 +148,18 @@ public class MapEntries implements EventHandler {
 
         this.resolveMapsMap = Collections.singletonMap(GLOBAL_LIST_KEY, (List<MapEntry>)Collections.EMPTY_LIST);
         this.mapMaps = Collections.<MapEntry> emptyList();
-        this.vanityTargets = Collections.<String,List <String>>emptyMap();
-        this.aliasMap = Collections.<String, Map<String, String>>emptyMap();
+        this.vanityTargets = new ConcurrentSkipListMap<String, List<String>>();
+        this.aliasMap = new ConcurrentSkipListMap<String, Map<String, String>>();
         this.registration = null;
         this.eventAdmin = null;
         this.enabledVanityPaths = true;
         this.maxCachedVanityPathEntries = -1;
         this.maxCachedVanityPathEntriesStartup = true;
-        this.vanityBloomFilterMaxBytes = 0;
         this.enableOptimizeAliasResolution = true;
         this.vanityPathConfig = null;
         this.vanityPathPrecedence = false;
         this.vanityCounter = new AtomicLong(0);
-        this.vanityBloomFilterFile = null;
+        this.vanityPathIndexFile = null;
     }
 
     @SuppressWarnings({ "unchecked", "deprecation" })
@@ -177,7 +171,6 @@ public class MapEntries implements EventHandler {
         this.enabledVanityPaths = factory.isVanityPathEnabled();
         this.maxCachedVanityPathEntries = factory.getMaxCachedVanityPathEntries();
         this.maxCachedVanityPathEntriesStartup = factory.isMaxCachedVanityPathEntriesStartup();
-        this.vanityBloomFilterMaxBytes = factory.getVanityBloomFilterMaxBytes();
         this.vanityPathConfig = factory.getVanityPathConfig();
         this.enableOptimizeAliasResolution = factory.isOptimizeAliasResolutionEnabled();
         this.vanityPathPrecedence = factory.hasVanityPathPrecedence();
@@ -185,8 +178,8 @@ public class MapEntries implements EventHandler {
 
         this.resolveMapsMap = Collections.singletonMap(GLOBAL_LIST_KEY, (List<MapEntry>)Collections.EMPTY_LIST);
         this.mapMaps = Collections.<MapEntry> emptyList();
-        this.vanityTargets = Collections.<String,List <String>>emptyMap();
-        this.aliasMap = Collections.<String, Map<String, String>>emptyMap();
+        this.vanityTargets = new ConcurrentSkipListMap<String, List<String>>();
+        this.aliasMap = new ConcurrentSkipListMap<String, Map<String, String>>();
 
         doInit();
 
@@ -198,7 +191,7 @@ public class MapEntries implements EventHandler {
         this.registration = bundleContext.registerService(EventHandler.class.getName(), this, props);
         
         this.vanityCounter = new AtomicLong(0);
-        this.vanityBloomFilterFile = bundleContext.getDataFile(VANITY_BLOOM_FILTER_NAME);
+        this.vanityPathIndexFile = bundleContext.getDataFile(VANITY_PATH_INDEX_NAME);
         initializeVanityPaths();
     }
 
@@ -221,7 +214,7 @@ public class MapEntries implements EventHandler {
             
             //optimization made in SLING-2521
             if (enableOptimizeAliasResolution){
-                final Map<String, Map<String, String>> aliasMap = this.loadAliases(resolver);
+                final ConcurrentNavigableMap<String, Map<String, String>> aliasMap = this.loadAliases(resolver);
                 this.aliasMap = aliasMap;
             }
 
@@ -253,38 +246,34 @@ public class MapEntries implements EventHandler {
         try {
             if (this.enabledVanityPaths) {
 
-                if (vanityBloomFilterFile == null) {
+                if (vanityPathIndexFile == null) {
                     throw new RuntimeException(
                             "This platform does not have file system support");
                 }
-                boolean createVanityBloomFilter = false;
-                if (!vanityBloomFilterFile.exists()) {
-                    log.debug("creating bloom filter file {}",
-                            vanityBloomFilterFile.getAbsolutePath());
-                    vanityBloomFilter = createVanityBloomFilter();
-                    persistBloomFilter();
-                    createVanityBloomFilter = true;
-                } else {
-                    // initialize bloom filter from disk
-                    vanityBloomFilter = new byte[(int) vanityBloomFilterFile
-                            .length()];
-                    DataInputStream dis = new DataInputStream(
-                            new FileInputStream(vanityBloomFilterFile));
+                boolean createVanityPathIndex = true;
+                if (vanityPathIndexFile.exists()) {
+                    // initialize the vanity path index from disk
                     try {
-                        dis.readFully(vanityBloomFilter);
-                    } finally {
-                        dis.close();
+                        vanityPathIndex.readFrom(vanityPathIndexFile);
+                        createVanityPathIndex = false;
+                    } catch (final IOException ioe) {
+                        log.warn("Unable to read vanity path index " + vanityPathIndexFile + ", rebuilding it", ioe);
                     }
                 }
 
-                // task for persisting the bloom filter every minute (if changes
+                // task for persisting the vanity path index every minute (if changes
                 // exist)
-                timer = new Timer();
-                timer.schedule(new BloomFilterTask(), 60 * 1000);
+                timer = new Timer("Apache Sling Vanity Path Index Writer", true);
+                timer.schedule(new VanityPathIndexTask(), 60 * 1000, 60 * 1000);
 
-                final Map<String, List<String>> vanityTargets = this
-                        .loadVanityPaths(createVanityBloomFilter);
+                final ConcurrentNavigableMap<String, List<String>> vanityTargets = this
+                        .loadVanityPaths(createVanityPathIndex);
                 this.vanityTargets = vanityTargets;
+                if (createVanityPathIndex) {
+                    log.debug("created vanity path index {} with {} entries",
+                            vanityPathIndexFile.getAbsolutePath(), vanityPathIndex.size());
+                    persistVanityPathIndex();
+                }
             }
         } finally {
             this.initializing.unlock();
@@ -454,13 +443,13 @@ public class MapEntries implements EventHandler {
     private void doAddVanity(String path) {
         Resource resource = resolver.getResource(path);
         if (isAllVanityPathEntriesCached() || vanityCounter.longValue() < maxCachedVanityPathEntries) {
-            // fill up the cache and the bloom filter
+            // fill up the cache and the index
             loadVanityPath(resource, resolveMapsMap, vanityTargets, true, true);
         } else {
-            // fill up the bloom filter
+            // fill up the index
             loadVanityPath(resource, resolveMapsMap, vanityTargets, false, true);
         }
-        updateBloomFilterFile = true;
+        updateVanityPathIndexFile = true;
     }
 
     private void doUpdateVanity(String path) {
@@ -475,18 +464,23 @@ public class MapEntries implements EventHandler {
             for (String s : l){
                 List<MapEntry> entries = this.resolveMapsMap.get(s);
                 if (entries!= null) {
-                    for (Iterator<MapEntry> iterator =entries.iterator(); iterator.hasNext(); ) {
-                        MapEntry entry = iterator.next();
+                    // copy on write, the list might be iterated concurrently
+                    final List<MapEntry> remaining = new ArrayList<MapEntry>(entries.size());
+                    for (final MapEntry entry : entries) {
                         String redirect = getMapEntryRedirect(entry);
-                        if (redirect != null && redirect.equals(actualContentPath)) {
-                            iterator.remove();
+                        if (redirect == null || !redirect.equals(actualContentPath)) {
+                            remaining.add(entry);
                         }
                     }
+                    if (remaining.isEmpty()) {
+                        this.resolveMapsMap.remove(s);
+                    } else {
+                        this.resolveMapsMap.put(s, remaining);
+                    }
                 }
-                if (entries!= null && entries.isEmpty()) {
-                    this.resolveMapsMap.remove(s);
-                }     
+                vanityPathIndex.remove(s);
             }
+            updateVanityPathIndexFile = true;
         }
         vanityTargets.remove(actualContentPath);
         if (vanityCounter.longValue() > 0) {
@@ -511,6 +505,9 @@ public class MapEntries implements EventHandler {
             boolean updatedOrder = false;
             for (String vanityTarget : vanityPaths) {
                 List<MapEntry> entries = this.resolveMapsMap.get(vanityTarget);
+                if (entries == null) {
+                    continue;
+                }
                 for (MapEntry entry : entries) {
                     String redirect = getMapEntryRedirect(entry);
                     if (redirect != null && redirect.equals(actualContentPath)) {
@@ -519,7 +516,10 @@ public class MapEntries implements EventHandler {
                     }
                 }
                 if (updatedOrder) {
-                    Collections.sort(entries);
+                    // copy on write, the list might be iterated concurrently
+                    final List<MapEntry> sorted = new ArrayList<MapEntry>(entries);
+                    Collections.sort(sorted);
+                    this.resolveMapsMap.put(vanityTarget, sorted);
                 }
             }
         }
@@ -598,15 +598,18 @@ public class MapEntries implements EventHandler {
         }
         Map<String, String> aliasMapEntry = aliasMap.get(path);
         if (aliasMapEntry != null) {
-            for (Iterator<String> iterator =aliasMapEntry.keySet().iterator(); iterator.hasNext(); ) {
-                String key = iterator.next();
-                if (resourceName.equals(aliasMapEntry.get(key))){
-                    iterator.remove();
+            // copy on write, the map might be read concurrently
+            final Map<String, String> remaining = new LinkedHashMap<String, String>();
+            for (final Entry<String, String> entry : aliasMapEntry.entrySet()) {
+                if (!resourceName.equals(entry.getValue())) {
+                    remaining.put(entry.getKey(), entry.getValue());
                 }
             }
-        }
-        if (aliasMapEntry != null && aliasMapEntry.isEmpty()) {
-            this.aliasMap.remove(path);
+            if (remaining.isEmpty()) {
+                this.aliasMap.remove(path);
+            } else if (remaining.size() != aliasMapEntry.size()) {
+                this.aliasMap.put(path, remaining);
+            }
         }
     }
 
@@ -618,10 +621,14 @@ public class MapEntries implements EventHandler {
      * Cleans up this class.
      */
     public void dispose() {
+        if (this.timer != null) {
+            this.timer.cancel();
+            this.timer = null;
+        }
         try {
-            persistBloomFilter();
+            persistVanityPathIndex();
         } catch (IOException e) {
-           log.error("Error while saving bloom filter to disk", e);
+           log.error("Error while saving vanity path index to disk", e);
         }
         
         if (this.registration != null) {
@@ -714,7 +721,7 @@ public class MapEntries implements EventHandler {
     private List<MapEntry> getMapEntryList(String vanityPath){
         List<MapEntry> mapEntries = null;  
         
-        if (BloomFilterUtils.probablyContains(vanityBloomFilter, vanityPath)) {
+        if (vanityPathIndex.contains(vanityPath)) {
             mapEntries = this.resolveMapsMap.get(vanityPath);
             if (mapEntries == null) {
                 Map<String, List<MapEntry>>  mapEntry = getVanityPaths(vanityPath);
@@ -756,16 +763,24 @@ public class MapEntries implements EventHandler {
         //removal of a node is handled differently
         if (SlingConstants.TOPIC_RESOURCE_REMOVED.equals(event.getTopic())) {
             final String actualContentPath = getActualContentPath(path);
-            for (final String target : this.vanityTargets.keySet()) {
-                if (target.startsWith(actualContentPath)) {
-                    wasResolverRefreshed = doRemoveAttributes(path, new String [] {PROP_VANITY_PATH}, true, wasResolverRefreshed);
-                }
+            // vanity paths of the removed resource (or of its parent if it
+            // is a jcr:content resource) and of all resources below it
+            if (this.vanityTargets.containsKey(actualContentPath)) {
+                wasResolverRefreshed = doRemoveAttributes(path, new String [] {PROP_VANITY_PATH}, true, wasResolverRefreshed);
             }
-            for (final String target : this.aliasMap.keySet()) {
-                if (actualContentPath.startsWith(target)) {
-                    wasResolverRefreshed = doRemoveAttributes(path, new String [] {ResourceResolverImpl.PROP_ALIAS}, true, wasResolverRefreshed);
-                }
+            for (final String target : getDescendantPaths(this.vanityTargets, path)) {
+                wasResolverRefreshed = doRemoveAttributes(target, new String [] {PROP_VANITY_PATH}, true, wasResolverRefreshed);
             }
+            // aliases of the removed resource are held by its parent,
+            // aliases of the resources below it are dropped
+            final String aliasParent = ResourceUtil.getParent(actualContentPath);
+            if (aliasParent != null && this.aliasMap.containsKey(aliasParent)) {
+                wasResolverRefreshed = doRemoveAttributes(path, new String [] {ResourceResolverImpl.PROP_ALIAS}, true, wasResolverRefreshed);
+            }
+            for (final String target : getDescendantPaths(this.aliasMap, path)) {
+                this.aliasMap.remove(target);
+            }
+            this.aliasMap.remove(path);
             if (path.startsWith(this.mapRoot)) {
                 //need to update the configuration
                 wasResolverRefreshed = doUpdateConfiguration(wasResolverRefreshed);
@@ -802,23 +817,23 @@ public class MapEntries implements EventHandler {
 
     // ---------- internal
     
-    private byte[] createVanityBloomFilter() throws IOException {
-        byte bloomFilter[] = null;
-        if (vanityBloomFilter == null) {            
-            bloomFilter = BloomFilterUtils.createFilter(VANITY_BLOOM_FILTER_MAX_ENTRIES, this.vanityBloomFilterMaxBytes);
+    private void persistVanityPathIndex() throws IOException {
+        if (vanityPathIndexFile != null) {
+            vanityPathIndex.writeTo(vanityPathIndexFile);
         }
-        return bloomFilter;
     }
 
-    private void persistBloomFilter() throws IOException {
-        if (vanityBloomFilterFile != null && vanityBloomFilter != null) {
-            FileOutputStream out = new FileOutputStream(vanityBloomFilterFile);
-            try {
-                out.write(this.vanityBloomFilter);
-            } finally {
-                out.close();
-            }
+    /**
+     * Returns the keys of the map which are descendants of the path.
+     */
+    private static List<String> getDescendantPaths(final ConcurrentNavigableMap<String, ?> map, final String path) {
+        if ("/".equals(path)) {
+            final List<String> result = new ArrayList<String>(map.keySet());
+            result.remove(path);
+            return result;
         }
+        // all keys starting with path + '/' sort before path + '0'
+        return new ArrayList<String>(map.subMap(path + '/', path + '0').keySet());
     }
 
     private boolean isAllVanityPathEntriesCached() {
@@ -1048,8 +1063,8 @@ public class MapEntries implements EventHandler {
      * Load aliases Search for all nodes inheriting the sling:alias
      * property
      */
-    private Map<String, Map<String, String>> loadAliases(final ResourceResolver resolver) {
-        final Map<String, Map<String, String>> map = new ConcurrentHashMap<String, Map<String, String>>();
+    private ConcurrentNavigableMap<String, Map<String, String>> loadAliases(final ResourceResolver resolver) {
+        final ConcurrentNavigableMap<String, Map<String, String>> map = new ConcurrentSkipListMap<String, Map<String, String>>();
         final String queryString = "SELECT sling:alias FROM nt:base WHERE sling:alias IS NOT NULL";
         final Iterator<Resource> i = resolver.findResources(queryString, "sql");
         while (i.hasNext()) {
@@ -1087,6 +1102,10 @@ public class MapEntries implements EventHandler {
             resourceName = resource.getName();
         }
         Map<String, String> parentMap = map.get(parentPath);
+        if (parentMap != null && map == this.aliasMap) {
+            // copy on write, the map might be read concurrently
+            parentMap = new LinkedHashMap<String, String>(parentMap);
+        }
         for (final String alias : props.get(ResourceResolverImpl.PROP_ALIAS, String[].class)) {
             if (parentMap != null && parentMap.containsKey(alias)) {
                 log.warn("Encountered duplicate alias {} under parent path {}. Refusing to replace current target {} with {}.", new Object[] {
@@ -1113,35 +1132,37 @@ public class MapEntries implements EventHandler {
                 } else {
                     if (parentMap == null) {
                         parentMap = new LinkedHashMap<String, String>();
-                        map.put(parentPath, parentMap);
                     }
                     parentMap.put(alias, resourceName);
                 }
             }
         }
+        if (parentMap != null) {
+            map.put(parentPath, parentMap);
+        }
     }
 
     /**
      * Load vanity paths Search for all nodes inheriting the sling:VanityPath
      * mixin
      */
-    private Map <String, List<String>> loadVanityPaths(boolean createVanityBloomFilter) {
+    private ConcurrentNavigableMap <String, List<String>> loadVanityPaths(boolean createVanityPathIndex) {
         // sling:VanityPath (uppercase V) is the mixin name
         // sling:vanityPath (lowercase) is the property name
-        final Map <String, List<String>> targetPaths = new ConcurrentHashMap <String, List<String>>();
+        final ConcurrentNavigableMap <String, List<String>> targetPaths = new ConcurrentSkipListMap <String, List<String>>();
         final String queryString = "SELECT sling:vanityPath, sling:redirect, sling:redirectStatus FROM sling:VanityPath WHERE sling:vanityPath IS NOT NULL";
         final Iterator<Resource> i = resolver.findResources(queryString, "sql");
 
-        while (i.hasNext() && (createVanityBloomFilter || isAllVanityPathEntriesCached() || vanityCounter.longValue() < maxCachedVanityPathEntries)) {
+        while (i.hasNext() && (createVanityPathIndex || isAllVanityPathEntriesCached() || vanityCounter.longValue() < maxCachedVanityPathEntries)) {
             final Resource resource = i.next();
             if (isAllVanityPathEntriesCached() || vanityCounter.longValue() < maxCachedVanityPathEntries) {
-                // fill up the cache and the bloom filter
+                // fill up the cache and the index
                 loadVanityPath(resource, resolveMapsMap, targetPaths, true,
-                        createVanityBloomFilter);
+                        createVanityPathIndex);
             } else {
-                // fill up the bloom filter
+                // fill up the index
                 loadVanityPath(resource, resolveMapsMap, targetPaths, false,
-                        createVanityBloomFilter);
+                        createVanityPathIndex);
             }
 
         }
@@ -1221,14 +1242,14 @@ public class MapEntries implements EventHandler {
                         }
 
                         if (newVanity) {
-                            // update bloom filter
-                            BloomFilterUtils.add(vanityBloomFilter, checkPath);
+                            // update index
+                            vanityPathIndex.add(checkPath);
                         }
                     }
                 } else {
                     if (newVanity) {
-                        // update bloom filter
-                        BloomFilterUtils.add(vanityBloomFilter, checkPath);
+                        // update index
+                        vanityPathIndex.add(checkPath);
                     }
                 }
             }
@@ -1239,12 +1260,11 @@ public class MapEntries implements EventHandler {
         if (entry == null) {
            return;
         }
-        List<String> entries = targetPaths.get(key);
-        if (entries == null) {
-            entries = new ArrayList<String>();
-            targetPaths.put(key, entries);
-        }
-        entries.add(entry);
+        final List<String> entries = targetPaths.get(key);
+        // copy on write, the list might be read concurrently
+        final List<String> newEntries = entries == null ? new ArrayList<String>(1) : new ArrayList<String>(entries);
+        newEntries.add(entry);
+        targetPaths.put(key, newEntries);
     }
     
     /**
@@ -1557,17 +1577,16 @@ public class MapEntries implements EventHandler {
         return mapEntry;
     }
     
-    final class BloomFilterTask extends TimerTask {
+    final class VanityPathIndexTask extends TimerTask {
         @Override
         public void run() {
             try {
-                if (updateBloomFilterFile) {
-                    persistBloomFilter();
-                    updateBloomFilterFile = false;
+                if (updateVanityPathIndexFile) {
+                    updateVanityPathIndexFile = false;
+                    persistVanityPathIndex();
                 }
             } catch (IOException e) {
-                throw new RuntimeException(
-                        "Error while saving bloom filter to disk", e);
+                log.error("Error while saving vanity path index to disk", e);
             }
         }
     }
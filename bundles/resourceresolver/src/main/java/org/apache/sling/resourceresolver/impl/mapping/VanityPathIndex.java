@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of all known vanity paths.
+ * <p>
+ * The vanity paths are kept in a trie keyed by path segment, each node
+ * counting the number of vanity path definitions ending at it. Unlike the
+ * resolve map, which may only hold a limited number of entries, the index
+ * knows about every vanity path and is used to skip the repository query
+ * for paths which are no vanity path at all.
+ * <p>
+ * Readers do not lock; modifications are serialized on the index. The
+ * index can be written to and read from a compact binary file to avoid
+ * reading all vanity paths from the repository on startup.
+ */
+public class VanityPathIndex {
+
+    /** Marker at the start of the index file ("SVPI"). */
+    private static final int FILE_MAGIC = 0x53565049;
+
+    private static final int FILE_VERSION = 1;
+
+    private final Node root = new Node();
+
+    private volatile int size;
+
+    /**
+     * Returns {@code true} if at least one vanity path definition exists
+     * for the given path.
+     */
+    public boolean contains(final String path) {
+        final Node node = find(path);
+        return node != null && node.count > 0;
+    }
+
+    /**
+     * Adds a vanity path definition for the path.
+     */
+    public synchronized void add(final String path) {
+        Node node = root;
+        int start = 0;
+        final int length = path.length();
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.getOrCreateChild(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        if (node.count == 0) {
+            size++;
+        }
+        node.count++;
+    }
+
+    /**
+     * Removes a vanity path definition for the path. The path is removed
+     * from the index once all its definitions have been removed.
+     */
+    public synchronized void remove(final String path) {
+        final Node node = find(path);
+        if (node != null && node.count > 0) {
+            node.count--;
+            if (node.count == 0) {
+                size--;
+                prune(path);
+            }
+        }
+    }
+
+    /**
+     * Removes all vanity paths.
+     */
+    public synchronized void clear() {
+        root.children = null;
+        root.count = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of distinct vanity paths.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the index to the file, replacing any previous content.
+     */
+    public synchronized void writeTo(final File file) throws IOException {
+        final File tmp = new File(file.getPath() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(size);
+            write(out, root);
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            // rename does not replace existing files on all platforms
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Unable to write vanity path index to " + file);
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the index with the content of the file.
+     *
+     * @throws IOException If the file cannot be read or is not a vanity
+     *             path index; the index is left empty in this case
+     */
+    public synchronized void readFrom(final File file) throws IOException {
+        clear();
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Not a vanity path index: " + file);
+            }
+            final int expectedSize = in.readInt();
+            final Node node = read(in);
+            root.count = node.count;
+            root.children = node.children;
+            size = expectedSize;
+        } catch (final IOException ioe) {
+            clear();
+            throw ioe;
+        } finally {
+            in.close();
+        }
+    }
+
+    private Node find(final String path) {
+        Node node = root;
+        int start = 0;
+        final int length = path.length();
+        while (node != null && start <= length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.getChild(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Removes the empty nodes on the path, starting at the deepest one.
+     */
+    private void prune(final String path) {
+        int end = path.length();
+        while (end > 0) {
+            final int slash = path.lastIndexOf('/', end - 1);
+            final String name = path.substring(slash + 1, end);
+            final Node parent = find(path.substring(0, slash + 1));
+            if (name.length() > 0 && parent != null) {
+                final Node node = parent.getChild(name);
+                if (node == null || node.count > 0 || (node.children != null && !node.children.isEmpty())) {
+                    return;
+                }
+                parent.children.remove(name);
+            }
+            end = slash;
+        }
+    }
+
+    private static void write(final DataOutputStream out, final Node node) throws IOException {
+        out.writeInt(node.count);
+        final Map<String, Node> children = node.children;
+        if (children == null) {
+            out.writeInt(0);
+        } else {
+            out.writeInt(children.size());
+            for (final Map.Entry<String, Node> entry : children.entrySet()) {
+                out.writeUTF(entry.getKey());
+                write(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Node read(final DataInputStream in) throws IOException {
+        final Node node = new Node();
+        node.count = in.readInt();
+        final int childCount = in.readInt();
+        if (node.count < 0 || childCount < 0) {
+            throw new IOException("Corrupt vanity path index");
+        }
+        if (childCount > 0) {
+            node.children = new ConcurrentHashMap<String, Node>(childCount * 4 / 3 + 1);
+            for (int i = 0; i < childCount; i++) {
+                final String name = in.readUTF();
+                node.children.put(name, read(in));
+            }
+        }
+        return node;
+    }
+
+    private static final class Node {
+
+        /** The number of vanity path definitions for this node. */
+        volatile int count;
+
+        /** The child nodes by name, created on demand. */
+        volatile Map<String, Node> children;
+
+        Node getChild(final String name) {
+            final Map<String, Node> c = children;
+            return c == null ? null : c.get(name);
+        }
+
+        Node getOrCreateChild(final String name) {
+            Map<String, Node> c = children;
+            if (c == null) {
+                c = new ConcurrentHashMap<String, Node>(4);
+                children = c;
+            }
+            Node child = c.get(name);
+            if (child == null) {
+                child = new Node();
+                c.put(name, child);
+            }
+            return child;
+        }
+    }
+}
@@ -74,12 +74,40 @@ public class CombinedResourceProvider {
 
     private final ResourceProviderAuthenticator authenticator;
 
+    /** The resource cache or {@code null} if resources are not cached. */
+    private final ResourceCache cache;
+
     public CombinedResourceProvider(ResourceProviderStorage storage,
             ResourceResolver resolver,
             ResourceProviderAuthenticator authenticator) {
+        this(storage, resolver, authenticator, 0);
+    }
+
+    /**
+     * @param cacheSize The maximum number of resources cached by this
+     *            provider, {@code 0} to not cache resources
+     */
+    public CombinedResourceProvider(ResourceProviderStorage storage,
+            ResourceResolver resolver,
+            ResourceProviderAuthenticator authenticator,
+            int cacheSize) {
         this.storage = storage;
         this.resolver = resolver;
         this.authenticator = authenticator;
+        this.cache = cacheSize > 0 ? new ResourceCache(cacheSize) : null;
+    }
+
+    /**
+     * Returns the resource cache or {@code null} if resources are not cached.
+     */
+    public @CheckForNull ResourceCache getResourceCache() {
+        return this.cache;
+    }
+
+    private void invalidateCache() {
+        if (this.cache != null) {
+            this.cache.clear();
+        }
     }
 
     /**
@@ -95,6 +123,7 @@ public class CombinedResourceProvider {
      * Refreshes all refreshable providers.
      */
     public void refresh() {
+        invalidateCache();
         for (StatefulResourceProvider p : authenticator.getAllUsedRefreshable()) {
             p.refresh();
         }
@@ -122,16 +151,24 @@ public class CombinedResourceProvider {
      */
     public Resource getParent(Resource child) {
         final String path = child.getPath();
-        try {
-            final StatefulResourceProvider provider = getBestMatchingProvider(path);
-            final Resource parentCandidate = provider.getParent(child);
+        final String parentPath = ResourceUtil.getParent(path);
+        final ResourceCache.Entry entry = this.cache != null && parentPath != null ? this.cache.get(parentPath) : null;
+        if (entry != null) {
+            final Resource parentCandidate = entry.getResource();
             if (parentCandidate != null) {
                 return parentCandidate;
             }
-        } catch ( final LoginException le ) {
-            // ignore
+        } else {
+            try {
+                final StatefulResourceProvider provider = getBestMatchingProvider(path);
+                final Resource parentCandidate = provider.getParent(child);
+                if (parentCandidate != null) {
+                    return parentCandidate;
+                }
+            } catch ( final LoginException le ) {
+                // ignore
+            }
         }
-        final String parentPath = ResourceUtil.getParent(path);
         if (parentPath != null && isIntermediatePath(parentPath)) {
             return new SyntheticResource(resolver, parentPath, ResourceProvider.RESOURCE_TYPE_SYNTHETIC);
         }
@@ -158,14 +195,27 @@ public class CombinedResourceProvider {
             return null; // path must be absolute
         }
 
-        try {
-            final StatefulResourceProvider provider = this.getBestMatchingProvider(path);
-            final Resource resourceCandidate = provider.getResource(path, parent, parameters, isResolve);
-            if (resourceCandidate != null) {
-                return resourceCandidate;
+        // resources requested with parameters or relative to a parent are never
+        // cached, as the provider may use both to read the resource
+        final boolean useCache = this.cache != null && parent == null && (parameters == null || parameters.isEmpty());
+        final ResourceCache.Entry entry = useCache ? this.cache.get(path, isResolve) : null;
+        Resource resourceCandidate = null;
+        if (entry != null) {
+            resourceCandidate = entry.getResource();
+        } else {
+            try {
+                final StatefulResourceProvider provider = this.getBestMatchingProvider(path);
+                resourceCandidate = provider.getResource(path, parent, parameters, isResolve);
+            } catch ( LoginException le ) {
+                // ignore
             }
-        } catch ( LoginException le ) {
-            // ignore
+            if (useCache) {
+                // hand out the same kind of resource on a miss as on a hit
+                resourceCandidate = this.cache.put(path, isResolve, resourceCandidate).getResource();
+            }
+        }
+        if (resourceCandidate != null) {
+            return resourceCandidate;
         }
         // query: /libs/sling/servlet/default
         // resource Provider: libs/sling/servlet/default/GET.servlet
@@ -194,9 +244,38 @@ public class CombinedResourceProvider {
      * transformations are done lazily, during the {@link Iterator#hasNext()}
      * invocation on the result.
      */
-    @SuppressWarnings("unchecked")
     public Iterator<Resource> listChildren(final Resource parent) {
         final String parentPath = parent.getPath();
+        if (this.cache != null) {
+            final Iterator<Resource> cached = this.cache.getChildren(parentPath);
+            if (cached != null) {
+                return cached;
+            }
+            return this.cache.recordChildren(parentPath, this.listChildrenInternal(parent));
+        }
+        return this.listChildrenInternal(parent);
+    }
+
+    /**
+     * Returns {@code true} if {@link #listChildren(Resource)} returns at least
+     * one resource for the parent.
+     */
+    public boolean hasChildren(final Resource parent) {
+        if (this.cache != null) {
+            final Boolean cached = this.cache.hasChildren(parent.getPath());
+            if (cached != null) {
+                return cached;
+            }
+            final boolean result = this.listChildrenInternal(parent).hasNext();
+            this.cache.putHasChildren(parent.getPath(), result);
+            return result;
+        }
+        return this.listChildrenInternal(parent).hasNext();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<Resource> listChildrenInternal(final Resource parent) {
+        final String parentPath = parent.getPath();
 
         // 3 sources are combined: children of the provider which owns 'parent',
         // providers which are directly mounted at a child path,
@@ -302,6 +381,7 @@ public class CombinedResourceProvider {
      * @return The new resource
      */
     public Resource create(String path, Map<String, Object> properties) throws PersistenceException {
+        invalidateCache();
         try {
             final StatefulResourceProvider provider = getBestMatchingModifiableProvider(path);
             if ( provider != null ) {
@@ -329,6 +409,7 @@ public class CombinedResourceProvider {
      */
     public void delete(final Resource resource) throws PersistenceException {
         final String path = resource.getPath();
+        invalidateCache();
         try {
             final StatefulResourceProvider provider = getBestMatchingModifiableProvider(path);
             if ( provider != null ) {
@@ -345,6 +426,7 @@ public class CombinedResourceProvider {
      * Revert changes on all modifiable ResourceProviders.
      */
     public void revert() {
+        invalidateCache();
         for (StatefulResourceProvider p : authenticator.getAllUsedModifiable()) {
             p.revert();
         }
@@ -354,6 +436,7 @@ public class CombinedResourceProvider {
      * Commit changes on all modifiable ResourceProviders.
      */
     public void commit() throws PersistenceException {
+        invalidateCache();
         for (StatefulResourceProvider p : authenticator.getAllUsedModifiable()) {
             p.commit();
         }
@@ -592,6 +675,7 @@ public class CombinedResourceProvider {
      * Returns false if there's no such provider.
      */
     public Resource copy(final String srcAbsPath, final String destAbsPath) throws PersistenceException {
+        invalidateCache();
         final StatefulResourceProvider optimizedSourceProvider = checkSourceAndDest(srcAbsPath, destAbsPath);
         if ( optimizedSourceProvider != null && optimizedSourceProvider.copy(srcAbsPath, destAbsPath) ) {
             return this.getResource(destAbsPath + '/' + ResourceUtil.getName(srcAbsPath), null, null, false);
@@ -619,6 +703,7 @@ public class CombinedResourceProvider {
      * Returns false if there's no such provider.
      */
     public Resource move(String srcAbsPath, String destAbsPath) throws PersistenceException {
+        invalidateCache();
         final StatefulResourceProvider optimizedSourceProvider = checkSourceAndDest(srcAbsPath, destAbsPath);
         if ( optimizedSourceProvider != null && optimizedSourceProvider.move(srcAbsPath, destAbsPath) ) {
             return this.getResource(destAbsPath + '/' + ResourceUtil.getName(srcAbsPath), null, null, false);
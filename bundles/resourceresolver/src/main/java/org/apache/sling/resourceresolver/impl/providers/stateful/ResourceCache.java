@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.providers.stateful;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceWrapper;
+
+/**
+ * The <code>ResourceCache</code> holds the resources read by a single
+ * {@link CombinedResourceProvider}, that is by a single resource resolver.
+ * Paths for which no resource exists are cached as well. Resources read
+ * for resolution are cached separately from resources read through
+ * <code>getResource</code>, as the providers may answer both differently.
+ * <p>
+ * Resource metadata is changed and locked by the resource resolver once a
+ * resource is handed out, so the cache keeps a copy of the metadata as
+ * returned by the resource provider and hands out a wrapper with a fresh
+ * copy of it on every hit.
+ * <p>
+ * Like the resource resolver, the cache is not thread safe.
+ */
+public class ResourceCache {
+
+    private final int maxSize;
+
+    private final Map<String, Entry> resources;
+
+    private final Map<String, List<Entry>> children;
+
+    private final Map<String, Boolean> hasChildren;
+
+    /** Incremented on every {@link #clear()}. */
+    private int generation;
+
+    private long hits;
+
+    private long misses;
+
+    private long invalidations;
+
+    public ResourceCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.resources = new LruMap<Entry>(maxSize);
+        this.children = new LruMap<List<Entry>>(maxSize);
+        this.hasChildren = new LruMap<Boolean>(maxSize);
+    }
+
+    /** Prefix of the keys of resources read for resolution. */
+    private static final String RESOLVE_PREFIX = "resolve:";
+
+    /**
+     * Returns the entry for the path or <code>null</code> if the path
+     * is not cached.
+     */
+    public Entry get(final String path) {
+        return this.get(path, false);
+    }
+
+    /**
+     * Returns the entry for the path read for resolution or not, or
+     * <code>null</code> if the path is not cached.
+     */
+    public Entry get(final String path, final boolean isResolve) {
+        final Entry entry = this.resources.get(key(path, isResolve));
+        if ( entry != null ) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the resource read for the path, <code>null</code> if there
+     * is no such resource.
+     */
+    public Entry put(final String path, final Resource resource) {
+        return this.put(path, false, resource);
+    }
+
+    /**
+     * Caches the resource read for the path for resolution or not,
+     * <code>null</code> if there is no such resource.
+     */
+    public Entry put(final String path, final boolean isResolve, final Resource resource) {
+        final Entry entry = new Entry(resource);
+        this.resources.put(key(path, isResolve), entry);
+        return entry;
+    }
+
+    private static String key(final String path, final boolean isResolve) {
+        return isResolve ? RESOLVE_PREFIX.concat(path) : path;
+    }
+
+    /**
+     * Returns the cached children of the resource at the path or
+     * <code>null</code> if they are not cached.
+     */
+    public Iterator<Resource> getChildren(final String path) {
+        final List<Entry> entries = this.children.get(path);
+        if ( entries == null ) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        final Iterator<Entry> i = entries.iterator();
+        return new Iterator<Resource>() {
+
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+
+            @Override
+            public Resource next() {
+                return i.next().getResource();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the given children which caches them for the
+     * path once all of them have been read.
+     */
+    public Iterator<Resource> recordChildren(final String path, final Iterator<Resource> input) {
+        final int gen = this.generation;
+        return new AbstractIterator<Resource>() {
+
+            private List<Entry> entries = new ArrayList<Entry>();
+
+            @Override
+            protected Resource seek() {
+                if ( input.hasNext() ) {
+                    final Resource next = input.next();
+                    if ( entries != null ) {
+                        entries.add(new Entry(next));
+                        if ( entries.size() > maxSize ) {
+                            entries = null;
+                        }
+                    }
+                    return next;
+                }
+                if ( entries != null && gen == generation ) {
+                    children.put(path, entries);
+                    hasChildren.put(path, !entries.isEmpty());
+                }
+                entries = null;
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns whether the resource at the path has children or
+     * <code>null</code> if this is not cached.
+     */
+    public Boolean hasChildren(final String path) {
+        final Boolean result = this.hasChildren.get(path);
+        if ( result != null ) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        return result;
+    }
+
+    public void putHasChildren(final String path, final boolean result) {
+        this.hasChildren.put(path, result);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        if ( !this.resources.isEmpty() || !this.children.isEmpty() || !this.hasChildren.isEmpty() ) {
+            this.invalidations++;
+            this.resources.clear();
+            this.children.clear();
+            this.hasChildren.clear();
+        }
+        this.generation++;
+    }
+
+    public int getSize() {
+        return this.resources.size() + this.children.size() + this.hasChildren.size();
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public long getInvalidations() {
+        return this.invalidations;
+    }
+
+    /**
+     * A cached resource or a cached miss.
+     */
+    public static final class Entry {
+
+        private final Resource resource;
+
+        private final ResourceMetadata metadata;
+
+        Entry(final Resource resource) {
+            this.resource = resource;
+            if ( resource != null ) {
+                this.metadata = new ResourceMetadata();
+                this.metadata.putAll(resource.getResourceMetadata());
+            } else {
+                this.metadata = null;
+            }
+        }
+
+        /**
+         * Returns a new instance of the cached resource or <code>null</code>
+         * if the resource does not exist.
+         */
+        public Resource getResource() {
+            if ( this.resource == null ) {
+                return null;
+            }
+            final ResourceMetadata copy = new ResourceMetadata();
+            copy.putAll(this.metadata);
+            return new CachedResource(this.resource, copy);
+        }
+    }
+
+    /**
+     * A cached resource with its own metadata.
+     */
+    private static final class CachedResource extends ResourceWrapper {
+
+        private final ResourceMetadata metadata;
+
+        CachedResource(final Resource resource, final ResourceMetadata metadata) {
+            super(resource);
+            this.metadata = metadata;
+        }
+
+        @Override
+        public ResourceMetadata getResourceMetadata() {
+            return this.metadata;
+        }
+    }
+
+    private static final class LruMap<V> extends LinkedHashMap<String, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(final int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+            return size() > this.maxSize;
+        }
+    }
+}
@@ -20,18 +20,36 @@ package org.apache.sling.resourceresolver.impl.providers.tree;
 
 import static org.apache.commons.lang.StringUtils.split;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Immutable tree of {@link Pathable} values, used to find the value
+ * registered for a path or for its nearest ancestor.
+ * <p>
+ * The values are kept in a tree with one {@link Node} per path segment.
+ * For the lookups this tree is compiled into a compressed radix tree:
+ * chains of nodes without a value and with a single child are merged
+ * into one edge and the edges of a node are sorted by their first
+ * segment. A lookup walks the path in place, comparing regions of the
+ * path against the edge labels, without splitting the path or
+ * allocating any objects.
+ */
 public class PathTree<T extends Pathable> {
 
-    private Node<T> root;
+    private final Node<T> root;
+
+    private final RadixNode<T> radixRoot;
 
     public PathTree(List<T> values) {
         this.root = new Node<T>();
         for (T v : values) {
             addNewValue(v);
         }
+        this.radixRoot = compile(root);
     }
 
     private void addNewValue(T value) {
@@ -47,41 +65,165 @@ public class PathTree<T extends Pathable> {
     }
 
     public Node<T> getBestMatchingNode(final String path) {
+        return find(path, true);
+    }
+
+    public Node<T> getNode(String path) {
+        return find(path, false);
+    }
+
+    /**
+     * Walks the radix tree along the path.
+     *
+     * @param bestMatch If {@code true}, returns the deepest node with a value
+     *            on the path, otherwise the node for the whole path
+     */
+    private Node<T> find(final String path, final boolean bestMatch) {
         if (path == null || path.isEmpty() || path.charAt(0) != '/') {
             return null;
         }
+        final int length = path.length();
 
         Node<T> result = root.getValue() != null ? root : null;
-
-        Node<T> node = root;
-        Iterator<String> it = new PathSegmentIterator(path, 1);
-        while (it.hasNext()) {
-            String segment = it.next();
-            node = node.getChild(segment);
-            if (node == null) {
-                break;
-            } else {
-                if (node.getValue() != null) {
-                    result = node;
+        Node<T> current = root;
+        RadixNode<T> radixNode = radixRoot;
+        int pos = 1;
+        while (pos < length) {
+            int segmentEnd = path.indexOf('/', pos);
+            if (segmentEnd == -1) {
+                segmentEnd = length;
+            }
+            final Edge<T> edge = radixNode.findEdge(path, pos, segmentEnd);
+            if (edge == null) {
+                return bestMatch ? result : null;
+            }
+            current = edge.nodes[0];
+            pos = segmentEnd + 1;
+            for (int i = 1; i < edge.nodes.length; i++) {
+                if (pos >= length) {
+                    // the path ends within the edge
+                    return bestMatch ? result : current;
+                }
+                segmentEnd = path.indexOf('/', pos);
+                if (segmentEnd == -1) {
+                    segmentEnd = length;
+                }
+                final int labelStart = edge.segmentEnds[i - 1] + 1;
+                final int labelLength = edge.segmentEnds[i] - labelStart;
+                if (segmentEnd - pos != labelLength || !path.regionMatches(pos, edge.label, labelStart, labelLength)) {
+                    return bestMatch ? result : null;
                 }
+                current = edge.nodes[i];
+                pos = segmentEnd + 1;
             }
+            if (current.getValue() != null) {
+                result = current;
+            }
+            radixNode = edge.target;
         }
-        return result;
+        return bestMatch ? result : current;
     }
 
-    public Node<T> getNode(String path) {
-        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+    private static <T> RadixNode<T> compile(final Node<T> node) {
+        final Map<String, Node<T>> children = node.getChildren();
+        final List<Edge<T>> edges = new ArrayList<Edge<T>>(children.size());
+        for (final Map.Entry<String, Node<T>> entry : children.entrySet()) {
+            final StringBuilder label = new StringBuilder(entry.getKey());
+            final List<Node<T>> nodes = new ArrayList<Node<T>>();
+            final List<Integer> segmentEnds = new ArrayList<Integer>();
+            Node<T> last = entry.getValue();
+            nodes.add(last);
+            segmentEnds.add(label.length());
+            // merge chains of nodes without a value and a single child
+            while (last.getValue() == null && last.getChildren().size() == 1) {
+                final Map.Entry<String, Node<T>> child = last.getChildren().entrySet().iterator().next();
+                label.append('/').append(child.getKey());
+                last = child.getValue();
+                nodes.add(last);
+                segmentEnds.add(label.length());
+            }
+            edges.add(new Edge<T>(entry.getKey(), label.toString(), nodes, segmentEnds, compile(last)));
+        }
+        return new RadixNode<T>(edges);
+    }
+
+    /**
+     * Compares the region of the path with the string, like
+     * {@link String#compareTo(String)}.
+     */
+    private static int compareRegion(final String path, final int from, final int to, final String s) {
+        final int regionLength = to - from;
+        final int limit = Math.min(regionLength, s.length());
+        for (int i = 0; i < limit; i++) {
+            final int diff = path.charAt(from + i) - s.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return regionLength - s.length();
+    }
+
+    private static final class RadixNode<T> {
+
+        /** The edges sorted by their first segment. */
+        private final Edge<T>[] edges;
+
+        @SuppressWarnings("unchecked")
+        RadixNode(final List<Edge<T>> edges) {
+            this.edges = edges.toArray(new Edge[edges.size()]);
+            Arrays.sort(this.edges, new Comparator<Edge<T>>() {
+
+                @Override
+                public int compare(final Edge<T> o1, final Edge<T> o2) {
+                    return o1.firstSegment.compareTo(o2.firstSegment);
+                }
+            });
+        }
+
+        Edge<T> findEdge(final String path, final int from, final int to) {
+            int low = 0;
+            int high = edges.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int cmp = compareRegion(path, from, to, edges[mid].firstSegment);
+                if (cmp > 0) {
+                    low = mid + 1;
+                } else if (cmp < 0) {
+                    high = mid - 1;
+                } else {
+                    return edges[mid];
+                }
+            }
             return null;
         }
-        Node<T> node = root;
-        Iterator<String> it = new PathSegmentIterator(path, 1);
-        while (it.hasNext()) {
-            String segment = it.next();
-            node = node.getChild(segment);
-            if (node == null) {
-                return null;
+    }
+
+    private static final class Edge<T> {
+
+        private final String firstSegment;
+
+        /** The segments of the edge, separated by slashes. */
+        private final String label;
+
+        /** The node for each segment of the label. */
+        private final Node<T>[] nodes;
+
+        /** The end index of each segment within the label. */
+        private final int[] segmentEnds;
+
+        private final RadixNode<T> target;
+
+        @SuppressWarnings("unchecked")
+        Edge(final String firstSegment, final String label, final List<Node<T>> nodes, final List<Integer> segmentEnds,
+                final RadixNode<T> target) {
+            this.firstSegment = firstSegment;
+            this.label = label;
+            this.nodes = nodes.toArray(new Node[nodes.size()]);
+            this.segmentEnds = new int[segmentEnds.size()];
+            for (int i = 0; i < this.segmentEnds.length; i++) {
+                this.segmentEnds[i] = segmentEnds.get(i);
             }
+            this.target = target;
         }
-        return node;
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The SF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.apache.sling.resourceresolver.impl.helper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.sling.api.SlingConstants;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class ResourceTypeHierarchyCacheTest {
+
+    private static final String[] SEARCH_PATH = new String[] {"/apps/", "/libs/"};
+
+    private final Map<String, String> superTypes = new HashMap<String, String>();
+
+    private int loads;
+
+    private final ResourceTypeHierarchyCache.Loader loader = new ResourceTypeHierarchyCache.Loader() {
+
+        @Override
+        public String getParentResourceType(final String resourceType) {
+            loads++;
+            return superTypes.get(resourceType);
+        }
+    };
+
+    private ResourceTypeHierarchyCache cache;
+
+    @Before public void setup() {
+        cache = new ResourceTypeHierarchyCache();
+        superTypes.put("a/b", "a/c");
+        superTypes.put("a/c", "/types/d");
+    }
+
+    @Test public void testChainIsLoadedOnce() {
+        final ResourceTypeHierarchyCache.Hierarchy h = cache.getHierarchy("a/b", SEARCH_PATH, loader);
+        assertArrayEquals(new String[] {"a/b", "a/c", "/types/d"}, h.getTypes());
+        assertFalse(h.isCyclic());
+        assertEquals("a/c", h.getParentResourceType());
+        assertEquals(3, loads);
+
+        assertSame(h, cache.getHierarchy("a/b", SEARCH_PATH, loader));
+        assertEquals(3, loads);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test public void testCycle() {
+        superTypes.put("/types/d", "a/b");
+        final ResourceTypeHierarchyCache.Hierarchy h = cache.getHierarchy("a/b", SEARCH_PATH, loader);
+        assertArrayEquals(new String[] {"a/b", "a/c", "/types/d"}, h.getTypes());
+        assertTrue(h.isCyclic());
+
+        superTypes.put("x/y", "x/y");
+        final ResourceTypeHierarchyCache.Hierarchy self = cache.getHierarchy("x/y", SEARCH_PATH, loader);
+        assertTrue(self.isCyclic());
+        assertEquals("x/y", self.getParentResourceType());
+    }
+
+    @Test public void testNoSuperType() {
+        assertNull(cache.getHierarchy("x/y", SEARCH_PATH, loader).getParentResourceType());
+    }
+
+    @Test public void testInvalidate() {
+        cache.getHierarchy("a/b", SEARCH_PATH, loader);
+        cache.getHierarchy("x/y", SEARCH_PATH, loader);
+        assertEquals(2, cache.getSize());
+
+        // unrelated change
+        cache.invalidate("/content/a/c");
+        cache.invalidate("/apps/a/cd");
+        assertEquals(2, cache.getSize());
+
+        // change of a super type below a search path
+        cache.invalidate("/libs/a/c");
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getInvalidations());
+
+        // change of an ancestor
+        cache.getHierarchy("a/b", SEARCH_PATH, loader);
+        cache.invalidate("/types");
+        assertEquals(1, cache.getSize());
+
+        cache.invalidate("/apps/x/y");
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test public void testUnrelatedChangeDoesNotInvalidate() {
+        final ResourceTypeHierarchyCache.Loader writingLoader = new ResourceTypeHierarchyCache.Loader() {
+
+            @Override
+            public String getParentResourceType(final String resourceType) {
+                // content is written while the chain is read
+                cache.invalidate("/content/page/jcr:content");
+                return loader.getParentResourceType(resourceType);
+            }
+        };
+        final ResourceTypeHierarchyCache.Hierarchy h = cache.getHierarchy("a/b", SEARCH_PATH, writingLoader);
+        assertEquals(1, cache.getSize());
+
+        final Hashtable<String, Object> props = new Hashtable<String, Object>();
+        props.put(SlingConstants.PROPERTY_PATH, "/content/page");
+        cache.handleEvent(new Event(SlingConstants.TOPIC_RESOURCE_CHANGED, props));
+        assertSame(h, cache.getHierarchy("a/b", SEARCH_PATH, loader));
+        assertEquals(0, cache.getInvalidations());
+    }
+
+    @Test public void testRelatedChangeWhileLoading() {
+        final ResourceTypeHierarchyCache.Loader writingLoader = new ResourceTypeHierarchyCache.Loader() {
+
+            @Override
+            public String getParentResourceType(final String resourceType) {
+                if ( "/types/d".equals(resourceType) ) {
+                    cache.invalidate("/types/d");
+                }
+                return loader.getParentResourceType(resourceType);
+            }
+        };
+        cache.getHierarchy("a/b", SEARCH_PATH, writingLoader);
+        assertEquals(0, cache.getSize());
+
+        cache.getHierarchy("a/b", SEARCH_PATH, loader);
+        assertEquals(1, cache.getSize());
+        cache.invalidate("/apps");
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test public void testFlush() {
+        cache.getHierarchy("a/b", SEARCH_PATH, loader);
+        cache.getHierarchy("x/y", SEARCH_PATH, loader);
+        cache.flush();
+        assertEquals(0, cache.getSize());
+        assertEquals(2, cache.getInvalidations());
+    }
+}
@@ -33,8 +33,10 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +47,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.sling.api.SlingConstants;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceUtil;
@@ -59,13 +62,14 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.osgi.framework.BundleContext;
+import org.osgi.service.event.Event;
 import org.osgi.service.event.EventAdmin;
 
 public class MapEntriesTest {
 
     private MapEntries mapEntries;
     
-    File vanityBloomFilterFile;
+    File vanityPathIndexFile;
 
     @Mock
     private MapConfigurationProvider resourceResolverFactory;
@@ -97,8 +101,9 @@ public class MapEntriesTest {
         configs.add(new VanityPathConfig("/vanityPathOnJcrContent", false));
 
         Collections.sort(configs);
-        vanityBloomFilterFile = new File("src/main/resourcesvanityBloomFilter.txt");
-        when(bundleContext.getDataFile("vanityBloomFilter.txt")).thenReturn(vanityBloomFilterFile);
+        vanityPathIndexFile = new File("target/vanityPathIndex.bin");
+        vanityPathIndexFile.delete();
+        when(bundleContext.getDataFile("vanityPathIndex.bin")).thenReturn(vanityPathIndexFile);
         when(resourceResolverFactory.getAdministrativeResourceResolver(null)).thenReturn(resourceResolver);
         when(resourceResolverFactory.isVanityPathEnabled()).thenReturn(true);
         when(resourceResolverFactory.getVanityPathConfig()).thenReturn(configs);
@@ -123,7 +128,7 @@ public class MapEntriesTest {
     
     @After
     public void tearDown() throws Exception {
-        vanityBloomFilterFile.delete();
+        vanityPathIndexFile.delete();
     }
 
     @Test
@@ -439,6 +444,44 @@ public class MapEntriesTest {
         assertNotNull(vanityTargets.get("/vanityPathOnJcrContent"));
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void test_removeVanityPathSubtree() throws Exception {
+        Method method = MapEntries.class.getDeclaredMethod("doAddVanity", String.class);
+        method.setAccessible(true);
+
+        for (final String path : new String[] {"/foo/a", "/foo/a/b", "/foo/ab"}) {
+            final Resource resource = mock(Resource.class, path);
+            when(resourceResolver.getResource(path)).thenReturn(resource);
+            when(resource.getPath()).thenReturn(path);
+            when(resource.getName()).thenReturn(ResourceUtil.getName(path));
+            when(resource.adaptTo(ValueMap.class)).thenReturn(buildValueMap("sling:vanityPath", "/vanity" + path));
+            method.invoke(mapEntries, path);
+        }
+
+        Field field = MapEntries.class.getDeclaredField("vanityTargets");
+        field.setAccessible(true);
+        Map<String, List<String>> vanityTargets = (Map<String, List<String>>) field.get(mapEntries);
+        assertEquals(3, vanityTargets.size());
+
+        Field index = MapEntries.class.getDeclaredField("vanityPathIndex");
+        index.setAccessible(true);
+        VanityPathIndex vanityPathIndex = (VanityPathIndex) index.get(mapEntries);
+        assertEquals(3, vanityPathIndex.size());
+
+        final Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put(SlingConstants.PROPERTY_PATH, "/foo/a");
+        mapEntries.handleEvent(new Event(SlingConstants.TOPIC_RESOURCE_REMOVED, props));
+
+        vanityTargets = (Map<String, List<String>>) field.get(mapEntries);
+        assertEquals(1, vanityTargets.size());
+        assertNotNull(vanityTargets.get("/foo/ab"));
+        assertEquals(1, vanityPathIndex.size());
+        assertTrue(vanityPathIndex.contains("/vanity/foo/ab"));
+        assertFalse(vanityPathIndex.contains("/vanity/foo/a"));
+        assertEquals(2, mapEntries.getResolveMaps().size());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void test_doAddVanity_1() throws Exception {
@@ -1800,6 +1843,15 @@ public class MapEntriesTest {
         Method method =
                 MapEntries.class.getDeclaredMethod("getMapEntryList",String.class);
         method.setAccessible(true);
+
+        // not in the vanity path index, no query
+        method.invoke(mapEntries, "/target/justVanityPath");
+        assertEquals(0, mapEntries.getResolveMaps().size());
+
+        Field index = MapEntries.class.getDeclaredField("vanityPathIndex");
+        index.setAccessible(true);
+        ((VanityPathIndex) index.get(mapEntries)).add("/target/justVanityPath");
+
         method.invoke(mapEntries, "/target/justVanityPath");
 
         entries = mapEntries.getResolveMaps();
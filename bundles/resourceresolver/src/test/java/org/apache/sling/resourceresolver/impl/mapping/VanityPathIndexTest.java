@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class VanityPathIndexTest {
+
+    @Test
+    public void testAddRemove() {
+        final VanityPathIndex index = new VanityPathIndex();
+        index.add("/content/a");
+        index.add("/content/a/b");
+        index.add("/content/a");
+
+        assertTrue(index.contains("/content/a"));
+        assertTrue(index.contains("/content/a/b"));
+        assertFalse(index.contains("/content"));
+        assertFalse(index.contains("/content/a/c"));
+        assertFalse(index.contains("/content/ab"));
+        assertEquals(2, index.size());
+
+        // two definitions for /content/a
+        index.remove("/content/a");
+        assertTrue(index.contains("/content/a"));
+        index.remove("/content/a");
+        assertFalse(index.contains("/content/a"));
+        assertTrue(index.contains("/content/a/b"));
+        assertEquals(1, index.size());
+
+        index.remove("/content/a/b");
+        index.remove("/content/a/b");
+        assertFalse(index.contains("/content/a/b"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        final VanityPathIndex index = new VanityPathIndex();
+        for (int i = 0; i < 1000; i++) {
+            index.add("/content/site/page" + (i % 100) + "/child" + i);
+        }
+        index.add("/vanity");
+
+        final File file = File.createTempFile("vanityPathIndex", ".bin");
+        try {
+            index.writeTo(file);
+
+            final VanityPathIndex read = new VanityPathIndex();
+            read.readFrom(file);
+            assertEquals(index.size(), read.size());
+            assertTrue(read.contains("/vanity"));
+            assertTrue(read.contains("/content/site/page42/child542"));
+            assertFalse(read.contains("/content/site/page42/child543"));
+            assertFalse(read.contains("/content/site"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadInvalidFile() throws IOException {
+        final File file = File.createTempFile("vanityPathIndex", ".bin");
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+            } finally {
+                out.close();
+            }
+            final VanityPathIndex index = new VanityPathIndex();
+            index.add("/vanity");
+            try {
+                index.readFrom(file);
+                fail("Expected IOException");
+            } catch (final IOException expected) {
+                // expected
+            }
+            assertEquals(0, index.size());
+            assertFalse(index.contains("/vanity"));
+        } finally {
+            file.delete();
+        }
+    }
+}
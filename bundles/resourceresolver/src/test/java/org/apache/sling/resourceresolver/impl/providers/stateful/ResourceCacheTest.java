@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.providers.stateful;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.junit.Test;
+
+public class ResourceCacheTest {
+
+    private static Resource resource(final String path) {
+        return new SyntheticResource(null, path, "test");
+    }
+
+    @Test public void testHitReturnsFreshMetadata() {
+        final ResourceCache cache = new ResourceCache(10);
+        assertNull(cache.get("/a"));
+
+        final Resource original = resource("/a");
+        original.getResourceMetadata().setContentType("text/plain");
+        cache.put("/a", original);
+        original.getResourceMetadata().setResolutionPath("/a.html");
+        original.getResourceMetadata().lock();
+
+        final Resource first = cache.get("/a").getResource();
+        final Resource second = cache.get("/a").getResource();
+        assertNotSame(first, second);
+        assertEquals("/a", first.getPath());
+        assertEquals("text/plain", first.getResourceMetadata().getContentType());
+        assertEquals("/a", first.getResourceMetadata().getResolutionPath());
+
+        // metadata of a hit is not locked
+        first.getResourceMetadata().setResolutionPath("/a.html");
+        assertEquals("/a", second.getResourceMetadata().getResolutionPath());
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test public void testNegativeEntry() {
+        final ResourceCache cache = new ResourceCache(10);
+        cache.put("/missing", null);
+        final ResourceCache.Entry entry = cache.get("/missing");
+        assertNotNull(entry);
+        assertNull(entry.getResource());
+    }
+
+    @Test public void testResolveIsCachedSeparately() {
+        final ResourceCache cache = new ResourceCache(10);
+        final ResourceCache.Entry entry = cache.put("/a", true, resource("/a"));
+        assertEquals("/a", entry.getResource().getPath());
+        assertNull(cache.get("/a", false));
+        assertNotNull(cache.get("/a", true));
+
+        cache.put("/a", false, null);
+        assertNull(cache.get("/a", false).getResource());
+        assertNotNull(cache.get("/a", true).getResource());
+    }
+
+    @Test public void testChildrenAreCachedWhenExhausted() {
+        final ResourceCache cache = new ResourceCache(10);
+        final List<Resource> children = Arrays.asList(resource("/a/b"), resource("/a/c"));
+
+        Iterator<Resource> i = cache.recordChildren("/a", children.iterator());
+        assertTrue(i.hasNext());
+        i.next();
+        assertNull(cache.getChildren("/a"));
+        assertNull(cache.hasChildren("/a"));
+
+        i = cache.recordChildren("/a", children.iterator());
+        assertEquals(2, paths(i).size());
+        assertEquals(Arrays.asList("/a/b", "/a/c"), paths(cache.getChildren("/a")));
+        assertTrue(cache.hasChildren("/a"));
+
+        cache.recordChildren("/b", new ArrayList<Resource>().iterator()).hasNext();
+        assertFalse(cache.hasChildren("/b"));
+        assertFalse(cache.getChildren("/b").hasNext());
+    }
+
+    @Test public void testClear() {
+        final ResourceCache cache = new ResourceCache(10);
+        final Iterator<Resource> i = cache.recordChildren("/a", Arrays.asList(resource("/a/b")).iterator());
+        cache.put("/a", resource("/a"));
+        cache.putHasChildren("/c", true);
+        assertEquals(2, cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(1, cache.getInvalidations());
+        assertNull(cache.get("/a"));
+        assertNull(cache.hasChildren("/c"));
+
+        // children read before the invalidation are not cached
+        paths(i);
+        assertNull(cache.getChildren("/a"));
+
+        // clearing an empty cache is no invalidation
+        cache.clear();
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test public void testMaxSize() {
+        final ResourceCache cache = new ResourceCache(2);
+        cache.put("/a", resource("/a"));
+        cache.put("/b", resource("/b"));
+        cache.get("/a");
+        cache.put("/c", resource("/c"));
+        assertNotNull(cache.get("/a"));
+        assertNull(cache.get("/b"));
+        assertNotNull(cache.get("/c"));
+
+        // too many children
+        paths(cache.recordChildren("/x", Arrays.asList(resource("/x/1"), resource("/x/2"), resource("/x/3")).iterator()));
+        assertNull(cache.getChildren("/x"));
+    }
+
+    private static List<String> paths(final Iterator<Resource> i) {
+        final List<String> result = new ArrayList<String>();
+        while ( i.hasNext() ) {
+            result.add(i.next().getPath());
+        }
+        return result;
+    }
+}
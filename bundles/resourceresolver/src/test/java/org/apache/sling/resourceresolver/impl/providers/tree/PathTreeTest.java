@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.providers.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PathTreeTest {
+
+    private static class Value implements Pathable {
+
+        private final String path;
+
+        Value(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
+
+    private static PathTree<Value> tree(String... paths) {
+        final List<Value> values = new ArrayList<Value>();
+        for (String p : paths) {
+            values.add(new Value(p));
+        }
+        return new PathTree<Value>(values);
+    }
+
+    private static String bestMatch(PathTree<Value> tree, String path) {
+        final Node<Value> node = tree.getBestMatchingNode(path);
+        return node == null ? null : node.getValue().getPath();
+    }
+
+    @Test
+    public void testBestMatchingNode() {
+        final PathTree<Value> tree = tree("/", "/libs", "/apps/a/b/c", "/apps/a/b/c/d/e", "/content/x");
+        assertEquals("/", bestMatch(tree, "/"));
+        assertEquals("/", bestMatch(tree, "/foo"));
+        assertEquals("/libs", bestMatch(tree, "/libs"));
+        assertEquals("/libs", bestMatch(tree, "/libs/"));
+        assertEquals("/libs", bestMatch(tree, "/libs/x/y"));
+        assertEquals("/", bestMatch(tree, "/libsx"));
+        assertEquals("/", bestMatch(tree, "/apps/a/b"));
+        assertEquals("/", bestMatch(tree, "/apps/a/bc/c"));
+        assertEquals("/apps/a/b/c", bestMatch(tree, "/apps/a/b/c"));
+        assertEquals("/apps/a/b/c", bestMatch(tree, "/apps/a/b/c/d"));
+        assertEquals("/apps/a/b/c/d/e", bestMatch(tree, "/apps/a/b/c/d/e"));
+        assertEquals("/apps/a/b/c", bestMatch(tree, "/apps/a/b/c/d/ex"));
+        assertEquals("/", bestMatch(tree, "/apps//a/b/c"));
+        assertNull(tree.getBestMatchingNode("relative"));
+        assertNull(tree.getBestMatchingNode(""));
+        assertNull(tree.getBestMatchingNode(null));
+
+        assertNull(tree("/libs").getBestMatchingNode("/apps"));
+    }
+
+    @Test
+    public void testGetNode() {
+        final PathTree<Value> tree = tree("/apps/a/b/c", "/apps/x");
+        assertEquals(Arrays.asList("apps"), new ArrayList<String>(tree.getNode("/").getChildren().keySet()));
+        assertEquals(2, tree.getNode("/apps").getChildren().size());
+        assertNull(tree.getNode("/apps/a").getValue());
+        assertEquals("b", tree.getNode("/apps/a/").getChildren().keySet().iterator().next());
+        assertEquals("/apps/a/b/c", tree.getNode("/apps/a/b/c").getValue().getPath());
+        assertSame(tree.getNode("/apps/a/b"), tree.getNode("/apps/a").getChild("b"));
+        assertNull(tree.getNode("/apps/a/c"));
+        assertNull(tree.getNode("/apps/a/b/c/d"));
+        assertNull(tree.getNode("/other"));
+    }
+
+    @Test
+    public void testRandomPaths() {
+        final Random random = new Random(42);
+        final String[] names = {"a", "b", "ab", "content", "apps", "libs", "c"};
+        final List<String> paths = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            paths.add(randomPath(random, names));
+        }
+        final PathTree<Value> tree = tree(paths.toArray(new String[paths.size()]));
+        for (int i = 0; i < 5000; i++) {
+            final String path = randomPath(random, names);
+            String expected = null;
+            for (final String p : paths) {
+                if ((path.equals(p) || path.startsWith(p + "/"))
+                        && (expected == null || p.length() > expected.length())) {
+                    expected = p;
+                }
+            }
+            assertEquals(path, expected, bestMatch(tree, path));
+        }
+    }
+
+    private static String randomPath(Random random, String[] names) {
+        final StringBuilder sb = new StringBuilder();
+        final int depth = 1 + random.nextInt(5);
+        for (int i = 0; i < depth; i++) {
+            sb.append('/').append(names[random.nextInt(names.length)]);
+        }
+        return sb.toString();
+    }
+}
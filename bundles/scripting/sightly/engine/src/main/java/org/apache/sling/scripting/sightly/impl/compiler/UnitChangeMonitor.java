@@ -37,6 +37,7 @@ import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.scripting.sightly.impl.engine.SightlyEngineConfiguration;
 import org.apache.sling.scripting.sightly.impl.engine.SightlyScriptEngineFactory;
+import org.apache.sling.scripting.sightly.impl.utils.PropertyAccessorCache;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.event.Event;
@@ -156,7 +157,9 @@ public class UnitChangeMonitor {
         String topic = event.getTopic();
         if (SlingConstants.TOPIC_RESOURCE_ADDED.equals(topic) || SlingConstants.TOPIC_RESOURCE_CHANGED.equals(topic)) {
             if (path.endsWith(".java")) {
-                slyJavaUseMap.put(Utils.getJavaNameFromPath(path), System.currentTimeMillis());
+                String className = Utils.getJavaNameFromPath(path);
+                slyJavaUseMap.put(className, System.currentTimeMillis());
+                PropertyAccessorCache.getInstance().evict(className);
             } else if (path.endsWith(SightlyScriptEngineFactory.EXTENSION)) {
                 ResourceResolver resolver = null;
                 String encoding = null;
@@ -179,7 +182,9 @@ public class UnitChangeMonitor {
             }
         } else if (SlingConstants.TOPIC_RESOURCE_REMOVED.equals(topic)) {
             if (path.endsWith(".java")) {
-                slyJavaUseMap.remove(Utils.getJavaNameFromPath(path));
+                String className = Utils.getJavaNameFromPath(path);
+                slyJavaUseMap.remove(className);
+                PropertyAccessorCache.getInstance().evict(className);
             } else if (path.endsWith(SightlyScriptEngineFactory.EXTENSION)) {
                 slyScriptsMap.remove(path);
             }
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.sightly.impl.engine;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+
+import org.apache.felix.scr.annotations.Activate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.sling.scripting.sightly.impl.engine.jmx.PropertyAccessorCacheMBean;
+import org.apache.sling.scripting.sightly.impl.utils.PropertyAccessorCache;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.framework.SynchronousBundleListener;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ties the {@link PropertyAccessorCache} to the bundle lifecycle: the cache is flushed as soon as a bundle is updated, unresolved or
+ * uninstalled, so that it never holds on to classes from a discarded bundle class loader. The cache's statistics are
+ * exposed through a {@link PropertyAccessorCacheMBean}.
+ */
+@Component
+public class PropertyAccessorCacheManager implements SynchronousBundleListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PropertyAccessorCacheManager.class);
+
+    private final PropertyAccessorCache cache = PropertyAccessorCache.getInstance();
+
+    private BundleContext bundleContext;
+    private ServiceRegistration mbeanRegistration;
+
+    @Activate
+    @SuppressWarnings("unused")
+    protected void activate(ComponentContext componentContext) {
+        bundleContext = componentContext.getBundleContext();
+        bundleContext.addBundleListener(this);
+        try {
+            Dictionary<String, String> mbeanProps = new Hashtable<String, String>();
+            mbeanProps.put("jmx.objectname", "org.apache.sling:type=scripting,name=SightlyPropertyAccessorCache");
+            mbeanRegistration = bundleContext.registerService(PropertyAccessorCacheMBean.class.getName(),
+                    new PropertyAccessorCacheMBeanImpl(), mbeanProps);
+        } catch (NotCompliantMBeanException e) {
+            LOG.debug("Unable to register mbean", e);
+        }
+    }
+
+    @Deactivate
+    @SuppressWarnings("unused")
+    protected void deactivate(ComponentContext componentContext) {
+        if (mbeanRegistration != null) {
+            mbeanRegistration.unregister();
+            mbeanRegistration = null;
+        }
+        if (bundleContext != null) {
+            bundleContext.removeBundleListener(this);
+            bundleContext = null;
+        }
+        cache.clear();
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        int type = event.getType();
+        if (type == BundleEvent.UNRESOLVED || type == BundleEvent.UPDATED || type == BundleEvent.UNINSTALLED) {
+            // the class loader of the bundle is about to be discarded; since bundle refreshes are rare and the cache is cheap to
+            // rebuild, drop everything instead of trying to figure out which of the cached classes were provided by the bundle
+            LOG.debug("Bundle {} changed, flushing the property accessor cache.", event.getBundle().getSymbolicName());
+            cache.clear();
+        }
+    }
+
+    class PropertyAccessorCacheMBeanImpl extends StandardMBean implements PropertyAccessorCacheMBean {
+
+        PropertyAccessorCacheMBeanImpl() throws NotCompliantMBeanException {
+            super(PropertyAccessorCacheMBean.class);
+        }
+
+        @Override
+        public int getCachedClassCount() {
+            return cache.getClassCount();
+        }
+
+        @Override
+        public long getHitCount() {
+            return cache.getHitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return cache.getMissCount();
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return cache.getEvictionCount();
+        }
+
+        @Override
+        public void flushCache() {
+            cache.clear();
+        }
+
+        @Override
+        public void resetStatistics() {
+            cache.resetStatistics();
+        }
+    }
+}
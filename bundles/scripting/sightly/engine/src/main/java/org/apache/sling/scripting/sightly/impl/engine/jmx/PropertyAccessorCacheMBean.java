@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.sightly.impl.engine.jmx;
+
+/**
+ * Exposes the statistics of the Sightly property accessor cache.
+ */
+public interface PropertyAccessorCacheMBean {
+
+    /**
+     * @return the number of classes that have cached property accessors
+     */
+    int getCachedClassCount();
+
+    /**
+     * @return the number of property lookups answered from the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of property lookups that required a reflective scan of the target class
+     */
+    long getMissCount();
+
+    /**
+     * @return the number of classes evicted from the cache
+     */
+    long getEvictionCount();
+
+    /**
+     * Removes all the cached accessors.
+     */
+    void flushCache();
+
+    /**
+     * Resets the hit, miss and eviction counters.
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.sightly.impl.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Caches the reflective lookups needed to resolve a property of a Java object by name. For every {@code (Class, property)} pair the
+ * cache stores the public no-arg method (either {@code property()}, {@code getProperty()} or {@code isProperty()}) and the public field
+ * that {@link RenderUtils} would otherwise discover through {@link Class#getMethods()} on every access. Pairs that cannot be resolved are
+ * stored as negative entries.
+ * <p>
+ * Entries are keyed on the {@link Class} object, so they have to be evicted when the class loader that defined the class goes away
+ * (bundle updates or Java Use-API objects recompiled from the repository); see {@link #evict(Class)} and {@link #evict(String)}.
+ */
+public final class PropertyAccessorCache {
+
+    private static final PropertyAccessorCache INSTANCE = new PropertyAccessorCache();
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, PropertyAccessor>> accessors =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<String, PropertyAccessor>>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private PropertyAccessorCache() {
+    }
+
+    public static PropertyAccessorCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the accessor for the {@code property} of the {@code cls} class, resolving and caching it on first use.
+     *
+     * @param cls      the class of the target object
+     * @param property the property name
+     * @return the accessor; never {@code null}, but possibly one that {@link PropertyAccessor#isEmpty() resolves nothing}
+     */
+    public PropertyAccessor getAccessor(Class<?> cls, String property) {
+        ConcurrentMap<String, PropertyAccessor> classAccessors = accessors.get(cls);
+        if (classAccessors == null) {
+            classAccessors = new ConcurrentHashMap<String, PropertyAccessor>();
+            ConcurrentMap<String, PropertyAccessor> existing = accessors.putIfAbsent(cls, classAccessors);
+            if (existing != null) {
+                classAccessors = existing;
+            }
+        }
+        PropertyAccessor accessor = classAccessors.get(property);
+        if (accessor != null) {
+            hits.incrementAndGet();
+            return accessor;
+        }
+        misses.incrementAndGet();
+        accessor = new PropertyAccessor(findMethod(cls, property), findField(cls, property));
+        PropertyAccessor existing = classAccessors.putIfAbsent(property, accessor);
+        return existing != null ? existing : accessor;
+    }
+
+    /**
+     * Removes all the entries for the given class.
+     *
+     * @param cls the class
+     */
+    public void evict(Class<?> cls) {
+        if (accessors.remove(cls) != null) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes all the entries for classes with the given fully qualified name, regardless of the class loader that defined them.
+     *
+     * @param className the fully qualified class name
+     */
+    public void evict(String className) {
+        Iterator<Class<?>> iterator = accessors.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getName().equals(className)) {
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear() {
+        evictions.addAndGet(accessors.size());
+        accessors.clear();
+    }
+
+    /**
+     * Returns a snapshot of the classes that currently have cached entries.
+     *
+     * @return the cached classes
+     */
+    public Set<Class<?>> getCachedClasses() {
+        return new HashSet<Class<?>>(accessors.keySet());
+    }
+
+    public int getClassCount() {
+        return accessors.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    private static Method findMethod(Class<?> cls, String baseName) {
+        Method[] publicMethods = cls.getMethods();
+        String capitalized = StringUtils.capitalize(baseName);
+        String getter = "get" + capitalized;
+        String booleanGetter = "is" + capitalized;
+        for (Method m : publicMethods) {
+            if (m.getParameterTypes().length == 0) {
+                String methodName = m.getName();
+                if (baseName.equals(methodName) || getter.equals(methodName) || booleanGetter.equals(methodName)) {
+                    // this method is good, check whether allowed
+                    if (isMethodAllowed(m)) {
+                        return extractMethodInheritanceChain(cls, m);
+                    }
+                    // method would match but is not allowed, abort
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> cls, String property) {
+        try {
+            Field field = cls.getDeclaredField(property);
+            if (Modifier.isPublic(field.getModifiers()) && Modifier.isPublic(cls.getModifiers())) {
+                return field;
+            }
+        } catch (NoSuchFieldException e) {
+            // negative entry
+        } catch (SecurityException e) {
+            // negative entry
+        }
+        return null;
+    }
+
+    private static boolean isMethodAllowed(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        //methods of the Object.class are forbidden (except toString, which is allowed)
+        return declaringClass != Object.class || RenderUtils.TO_STRING_METHOD.equals(method.getName());
+    }
+
+    private static Method extractMethodInheritanceChain(Class type, Method m) {
+        if (m == null || Modifier.isPublic(type.getModifiers())) {
+            return m;
+        }
+        Class[] inf = type.getInterfaces();
+        Method mp;
+        for (Class<?> iface : inf) {
+            try {
+                mp = iface.getMethod(m.getName(), m.getParameterTypes());
+                mp = extractMethodInheritanceChain(mp.getDeclaringClass(), mp);
+                if (mp != null) {
+                    return mp;
+                }
+            } catch (NoSuchMethodException e) {
+                // do nothing
+            }
+        }
+        Class<?> sup = type.getSuperclass();
+        if (sup != null) {
+            try {
+                mp = sup.getMethod(m.getName(), m.getParameterTypes());
+                mp = extractMethodInheritanceChain(mp.getDeclaringClass(), mp);
+                if (mp != null) {
+                    return mp;
+                }
+            } catch (NoSuchMethodException e) {
+                // do nothing
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Holds the resolved no-arg method and field for a property; either of them can be {@code null}.
+     */
+    public static final class PropertyAccessor {
+
+        private final Method method;
+        private final Field field;
+
+        PropertyAccessor(Method method, Field field) {
+            this.method = method;
+            this.field = field;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public boolean isEmpty() {
+            return method == null && field == null;
+        }
+    }
+}
@@ -36,4 +36,52 @@ public class RenderUtilsTest {
         assertTrue(numberCollection.size() == 1 && numberCollection.contains(numberObject));
     }
 
+    @Test
+    public void testResolveProperty() {
+        Bean bean = new Bean();
+        assertEquals("getter", RenderUtils.resolveProperty(bean, "name"));
+        assertEquals(true, RenderUtils.resolveProperty(bean, "active"));
+        assertEquals("field", RenderUtils.resolveProperty(bean, "publicField"));
+        assertEquals("method", RenderUtils.resolveProperty(bean, "plain"));
+        assertNull(RenderUtils.resolveProperty(bean, "missing"));
+        assertNull(RenderUtils.resolveProperty(bean, "class"));
+        assertEquals(2, RenderUtils.resolveProperty(new Object[] {1, 2}, "length"));
+    }
+
+    @Test
+    public void testPropertyAccessorCache() {
+        PropertyAccessorCache cache = PropertyAccessorCache.getInstance();
+        cache.evict(Bean.class);
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+        Bean bean = new Bean();
+        RenderUtils.resolveProperty(bean, "name");
+        RenderUtils.resolveProperty(bean, "name");
+        RenderUtils.resolveProperty(bean, "missing");
+        RenderUtils.resolveProperty(bean, "missing");
+        assertEquals(misses + 2, cache.getMissCount());
+        assertEquals(hits + 2, cache.getHitCount());
+        assertTrue(cache.getAccessor(Bean.class, "missing").isEmpty());
+        assertTrue(cache.getCachedClasses().contains(Bean.class));
+        cache.evict(Bean.class.getName());
+        assertFalse(cache.getCachedClasses().contains(Bean.class));
+    }
+
+    public static class Bean {
+
+        public String publicField = "field";
+
+        public String getName() {
+            return "getter";
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public String plain() {
+            return "method";
+        }
+    }
+
 }
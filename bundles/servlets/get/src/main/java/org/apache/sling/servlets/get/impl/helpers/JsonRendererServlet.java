@@ -62,11 +62,19 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
     public static final int INDENT_SPACES = 2;
 
     private long maximumResults;
+
+    /** Whether to write the resource tree directly to the response */
+    private final boolean streaming;
     
     private final JSONRenderer renderer = new JSONRenderer();
 
     public JsonRendererServlet(long maximumResults) {
+        this(maximumResults, false);
+    }
+
+    public JsonRendererServlet(long maximumResults, boolean streaming) {
         this.maximumResults = maximumResults;
+        this.streaming = streaming;
     }
 
     @Override
@@ -95,9 +103,15 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
         final boolean tidy = isTidy(req);
         final boolean harray = hasSelector(req, HARRAY);
         ResourceTraversor traversor = null;
+        StreamingJsonResourceWriter streamingWriter = null;
         try {
-            traversor = new ResourceTraversor(maxRecursionLevels, maximumResults, r, tidy);
-            allowedLevel = traversor.collectResources();
+            if (streaming) {
+                streamingWriter = new StreamingJsonResourceWriter(maximumResults);
+                allowedLevel = streamingWriter.getLimitLevel(r, maxRecursionLevels);
+            } else {
+                traversor = new ResourceTraversor(maxRecursionLevels, maximumResults, r, tidy);
+                allowedLevel = traversor.collectResources();
+            }
             if ( allowedLevel != -1 ) {
 			    allowDump = false;
             }
@@ -107,7 +121,9 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
         try {
             // Dump the resource if we can
             if (allowDump) {
-                if (tidy || harray) {
+                if (streamingWriter != null) {
+                    streamingWriter.write(resp.getWriter(), r, maxRecursionLevels, tidy, harray);
+                } else if (tidy || harray) {
                     final JSONRenderer.Options opt = renderer.options()
                             .withIndent(tidy ? INDENT_SPACES : 0)
                             .withArraysForChildren(harray);
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.servlets.get.impl.helpers;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.commons.json.JSONException;
+import org.apache.sling.commons.json.JSONObject;
+import org.apache.sling.commons.json.io.JSONWriter;
+import org.apache.sling.commons.json.sling.JsonObjectCreator;
+
+/**
+ * The <code>StreamingJsonResourceWriter</code> writes a resource tree as JSON
+ * directly to a {@link Writer}, walking the tree depth-first instead of
+ * building the complete {@link JSONObject} tree in memory first.
+ * <p>
+ * Only the properties of the resource currently being written and the
+ * child iterators of its ancestors are held in memory, so the memory used
+ * is bounded by the depth of the tree rather than by its size.
+ * <p>
+ * The {@link #getLimitLevel(Resource, int)} method applies the same
+ * maximum results check as the {@link org.apache.sling.commons.json.sling.ResourceTraversor}
+ * without materializing the tree; it must be called (and its result
+ * honoured) before anything is written.
+ */
+public class StreamingJsonResourceWriter {
+
+    /** Key holding the child name in harray mode, as written by the JSONRenderer */
+    private static final String JSON_CHILD_NAME_KEY = "__name__";
+
+    /** Key holding the children array in harray mode, as written by the JSONRenderer */
+    private static final String JSON_CHILDREN_KEY = "__children__";
+
+    private final long maximumResults;
+
+    public StreamingJsonResourceWriter(final long maximumResults) {
+        this.maximumResults = maximumResults;
+    }
+
+    /**
+     * Checks whether rendering the tree below <code>resource</code> down to
+     * <code>maxRecursionLevels</code> would exceed the maximum number of
+     * results.
+     * <p>
+     * The result is the same as the one of
+     * {@link org.apache.sling.commons.json.sling.ResourceTraversor#collectResources()}:
+     * the breadth-first traversal done there stops at the level during which
+     * the cumulated number of resources exceeds the maximum. This method
+     * counts the resources per level walking depth-first. It never looks at
+     * the children of a level once a level at or above it is known to
+     * exceed the maximum, and returns as soon as the first level exceeds it.
+     *
+     * @param resource The root resource
+     * @param maxRecursionLevels The number of levels to render, -1 for all
+     * @return -1 if the tree can be rendered, otherwise the deepest level
+     *         that can be rendered within the limit.
+     */
+    public int getLimitLevel(final Resource resource, final int maxRecursionLevels) {
+        // SLING-2320: always allow enumeration of one's children;
+        // DOS-limitation is for deeper traversals.
+        if (maxRecursionLevels != -1 && maxRecursionLevels <= 1) {
+            return -1;
+        }
+
+        // counts.get(i) is the number of resources at depth i + 1
+        final List<Long> counts = new ArrayList<Long>();
+        int exceedingDepth = Integer.MAX_VALUE;
+
+        // the iterator at stack position i (1-based) returns the resources at depth i
+        final LinkedList<Iterator<Resource>> stack = new LinkedList<Iterator<Resource>>();
+        stack.addLast(ResourceUtil.listChildren(resource));
+        while (!stack.isEmpty()) {
+            final Iterator<Resource> children = stack.getLast();
+            if (!children.hasNext()) {
+                stack.removeLast();
+                continue;
+            }
+            final Resource child = children.next();
+            final int depth = stack.size();
+            if (counts.size() < depth) {
+                counts.add(0L);
+            }
+            counts.set(depth - 1, counts.get(depth - 1) + 1);
+            exceedingDepth = findExceedingDepth(counts, depth, exceedingDepth);
+            if (exceedingDepth == 1) {
+                // no level can be rendered, nothing else changes the result
+                return 0;
+            }
+
+            // resources at or below the shallowest exceeding level do not change the result
+            while (stack.size() >= exceedingDepth) {
+                stack.removeLast();
+            }
+            if ((maxRecursionLevels == -1 || depth < maxRecursionLevels) && depth + 1 < exceedingDepth) {
+                stack.addLast(ResourceUtil.listChildren(child));
+            }
+        }
+        return exceedingDepth == Integer.MAX_VALUE ? -1 : exceedingDepth - 1;
+    }
+
+    /**
+     * Returns the shallowest depth whose cumulated count exceeds the maximum
+     * after the count at <code>depth</code> was incremented. Only the levels
+     * from <code>depth</code> up to the current <code>exceedingDepth</code>
+     * can have changed.
+     */
+    private int findExceedingDepth(final List<Long> counts, final int depth, final int exceedingDepth) {
+        long total = 0;
+        final int last = Math.min(counts.size(), exceedingDepth - 1);
+        for (int i = 0; i < last; i++) {
+            total += counts.get(i);
+            if (i + 1 >= depth && total > maximumResults) {
+                return i + 1;
+            }
+        }
+        return exceedingDepth;
+    }
+
+    /**
+     * Writes the resource and its descendants down to
+     * <code>maxRecursionLevels</code> as JSON.
+     *
+     * @param out The writer to write to
+     * @param resource The root resource
+     * @param maxRecursionLevels The number of levels to render, -1 for all
+     * @param tidy Whether to indent the output
+     * @param harray Whether to render children as an array of objects, see
+     *        {@link org.apache.sling.commons.json.io.JSONRenderer.Options#withArraysForChildren(boolean)}
+     * @throws JSONException If writing fails
+     */
+    public void write(final Writer out, final Resource resource, final int maxRecursionLevels,
+            final boolean tidy, final boolean harray)
+    throws JSONException {
+        final JSONWriter writer = new JSONWriter(out);
+        writer.setTidy(tidy);
+        writeResource(writer, resource, null, 0, maxRecursionLevels, harray);
+    }
+
+    private void writeResource(final JSONWriter writer,
+            final Resource resource,
+            final String name,
+            final int currentLevel,
+            final int maxRecursionLevels,
+            final boolean harray)
+    throws JSONException {
+        final JSONObject properties = JsonObjectCreator.create(resource, 0);
+        writer.object();
+        if (name != null) {
+            writer.key(JSON_CHILD_NAME_KEY).value(name);
+        }
+        final Iterator<String> keys = properties.keys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            writer.key(key).value(properties.get(key));
+        }
+
+        if (maxRecursionLevels == -1 || currentLevel < maxRecursionLevels) {
+            final Iterator<Resource> children = ResourceUtil.listChildren(resource);
+            if (harray) {
+                if (children.hasNext()) {
+                    writer.key(JSON_CHILDREN_KEY).array();
+                    while (children.hasNext()) {
+                        final Resource child = children.next();
+                        writeResource(writer, child, ResourceUtil.getName(child),
+                            currentLevel + 1, maxRecursionLevels, harray);
+                    }
+                    writer.endArray();
+                }
+            } else {
+                while (children.hasNext()) {
+                    final Resource child = children.next();
+                    writer.key(ResourceUtil.getName(child));
+                    writeResource(writer, child, null, currentLevel + 1, maxRecursionLevels, harray);
+                }
+            }
+        }
+        writer.endObject();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.get.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.commons.json.JSONObject;
+import org.apache.sling.commons.json.io.JSONRenderer;
+import org.apache.sling.commons.json.sling.ResourceTraversor;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class StreamingJsonResourceWriterTest {
+
+    @Test
+    public void testLimitLevelMatchesTraversor() throws Exception {
+        final Resource root = TestTree.create(3, 4);
+        for (long max : new long[] { 0, 1, 3, 4, 10, 19, 20, 21, 84, 100 }) {
+            for (int levels : new int[] { -1, 0, 1, 2, 3, 5 }) {
+                final ResourceTraversor traversor = new ResourceTraversor(levels, max, root, false);
+                final int expected = traversor.collectResources();
+                final int actual = new StreamingJsonResourceWriter(max).getLimitLevel(root, levels);
+                assertEquals("max=" + max + ", levels=" + levels, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testLimitLevelStopsOnExceedingFirstLevel() throws Exception {
+        final AtomicInteger visited = new AtomicInteger();
+        final Resource root = TestTree.create(1, 100000, visited);
+        assertEquals(0, new StreamingJsonResourceWriter(200).getLimitLevel(root, -1));
+        // the 201st child exceeds the maximum
+        assertEquals(201, visited.get());
+    }
+
+    @Test
+    public void testLimitLevelSkipsExceedingLevels() throws Exception {
+        final AtomicInteger visited = new AtomicInteger();
+        final Resource root = TestTree.create(2, 300, visited);
+        final ResourceTraversor traversor = new ResourceTraversor(-1, 200, root, false);
+        final int expected = traversor.collectResources();
+        visited.set(0);
+
+        assertEquals(expected, new StreamingJsonResourceWriter(200).getLimitLevel(root, -1));
+        // the first child and 200 of its children exceed the maximum on the
+        // second level, then 200 more children exceed it on the first level
+        assertEquals(401, visited.get());
+    }
+
+    @Test
+    public void testOutputMatchesTraversor() throws Exception {
+        final Resource root = TestTree.create(3, 3);
+        for (int levels : new int[] { -1, 0, 1, 2 }) {
+            final ResourceTraversor traversor = new ResourceTraversor(levels, Long.MAX_VALUE, root, false);
+            traversor.collectResources();
+
+            final StringWriter out = new StringWriter();
+            new StreamingJsonResourceWriter(Long.MAX_VALUE).write(out, root, levels, false, false);
+            assertEquals(traversor.getJSONObject().toString(), out.toString());
+        }
+    }
+
+    @Test
+    public void testHarrayOutputMatchesRenderer() throws Exception {
+        final Resource root = TestTree.create(2, 3);
+        final ResourceTraversor traversor = new ResourceTraversor(-1, Long.MAX_VALUE, root, false);
+        traversor.collectResources();
+        final JSONRenderer renderer = new JSONRenderer();
+        final String expected = renderer.prettyPrint(traversor.getJSONObject(),
+            renderer.options().withArraysForChildren(true));
+
+        final StringWriter out = new StringWriter();
+        new StreamingJsonResourceWriter(Long.MAX_VALUE).write(out, root, -1, false, true);
+        assertEquals(new JSONObject(expected).toString(), new JSONObject(out.toString()).toString());
+    }
+
+    /**
+     * Builds a tree of synthetic resources with a few properties each,
+     * served by a mocked resource resolver.
+     */
+    static class TestTree {
+
+        static Resource create(final int depth, final int width) {
+            return create(depth, width, new AtomicInteger());
+        }
+
+        /**
+         * Creates the tree, counting the children returned by the iterators
+         * of the resource resolver in <code>visited</code>.
+         */
+        static Resource create(final int depth, final int width, final AtomicInteger visited) {
+            final Map<String, List<Resource>> children = new HashMap<String, List<Resource>>();
+            final ResourceResolver resolver = Mockito.mock(ResourceResolver.class);
+            Mockito.when(resolver.listChildren(Matchers.any(Resource.class))).thenAnswer(new Answer<Iterator<Resource>>() {
+                public Iterator<Resource> answer(InvocationOnMock invocation) {
+                    final List<Resource> list = children.get(((Resource) invocation.getArguments()[0]).getPath());
+                    final Iterator<Resource> iterator = list == null ? new ArrayList<Resource>().iterator() : list.iterator();
+                    return new Iterator<Resource>() {
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        public Resource next() {
+                            visited.incrementAndGet();
+                            return iterator.next();
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            });
+            final Resource root = new TestResource(resolver, "/root");
+            addChildren(resolver, children, root, depth, width);
+            return root;
+        }
+
+        private static void addChildren(final ResourceResolver resolver, final Map<String, List<Resource>> children,
+                final Resource parent, final int depth, final int width) {
+            if (depth == 0) {
+                return;
+            }
+            final List<Resource> list = new ArrayList<Resource>();
+            for (int i = 0; i < width; i++) {
+                final Resource child = new TestResource(resolver, parent.getPath() + "/child" + i);
+                list.add(child);
+                addChildren(resolver, children, child, depth - 1, width);
+            }
+            children.put(parent.getPath(), list);
+        }
+    }
+
+    static class TestResource extends SyntheticResource {
+
+        TestResource(final ResourceResolver resolver, final String path) {
+            super(resolver, path, "test/resource");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <AdapterType> AdapterType adaptTo(final Class<AdapterType> type) {
+            if (type == ValueMap.class) {
+                final Map<String, Object> props = new LinkedHashMap<String, Object>();
+                props.put("jcr:primaryType", "nt:unstructured");
+                props.put("title", "Title of " + getPath());
+                props.put("count", 42L);
+                props.put("tags", new String[] { "a", "b" });
+                return (AdapterType) new ValueMapDecorator(props);
+            }
+            return super.adaptTo(type);
+        }
+
+        @Override
+        public ResourceMetadata getResourceMetadata() {
+            return new ResourceMetadata();
+        }
+    }
+}
@@ -424,6 +424,40 @@ abstract class AbstractCreateOperation extends AbstractPostOperation {
         return reqProperties;
     }
 
+    /**
+     * Returns the request property for a file part streamed from the request
+     * or <code>null</code> if the part is to be ignored. The request property
+     * keeps the type hint and chunk information of the request parameters
+     * preceding the part.
+     *
+     * @param request The request providing the part
+     * @param response The response of the operation
+     * @param reqProperties The request properties collected by
+     *            {@link #collectContent(SlingHttpServletRequest, PostResponse)}
+     * @param part The part read from the request
+     * @return The request property for the part or <code>null</code>.
+     */
+    protected RequestProperty getStreamedRequestProperty(
+            final SlingHttpServletRequest request,
+            final PostResponse response,
+            final Map<String, RequestProperty> reqProperties,
+            final RequestParameter part) {
+        final String paramName = part.getName();
+        if (ignoreParameter(paramName)) {
+            return null;
+        }
+
+        // skip parameters that do not start with the save prefix
+        if (requireItemPathPrefix(request) && !hasItemPathPrefix(paramName)) {
+            return null;
+        }
+
+        final RequestProperty prop = getOrCreateRequestProperty(reqProperties,
+            toPropertyPath(paramName, response), null);
+        prop.setValues(new RequestParameter[] { part });
+        return prop;
+    }
+
     /**
      * Returns <code>true</code> if the parameter of the given name should be
      * ignored.
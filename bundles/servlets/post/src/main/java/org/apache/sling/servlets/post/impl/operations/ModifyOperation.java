@@ -18,6 +18,7 @@
  */
 package org.apache.sling.servlets.post.impl.operations;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +32,7 @@ import javax.servlet.ServletContext;
 
 import org.apache.sling.api.SlingException;
 import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestParameter;
 import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
@@ -61,6 +63,13 @@ public class ModifyOperation extends AbstractCreateOperation {
      */
     private final SlingFileUploadHandler uploadHandler;
 
+    /**
+     * Request attribute set by the Sling engine to an iterator over the
+     * parts of a multipart/form-data request streamed from the client,
+     * starting with the first file part.
+     */
+    private static final String ATTR_REQUEST_PARTS_ITERATOR = "request-parts-iterator";
+
     public ModifyOperation() {
         this.dateParser = new DateParser();
         this.uploadHandler = new SlingFileUploadHandler();
@@ -100,6 +109,13 @@ public class ModifyOperation extends AbstractCreateOperation {
             // write content from form
             writeContent(request.getResourceResolver(), reqProperties, changes, versioningConfiguration);
 
+            // write files streamed from the request
+            final Object parts = request.getAttribute(ATTR_REQUEST_PARTS_ITERATOR);
+            if (parts instanceof Iterator<?>) {
+                writeStreamedContent(request, response, reqProperties, (Iterator<?>) parts, changes,
+                    versioningConfiguration);
+            }
+
             // order content
             final Resource newResource = request.getResourceResolver().getResource(response.getPath());
             final Node newNode = newResource.adaptTo(Node.class);
@@ -413,4 +429,55 @@ public class ModifyOperation extends AbstractCreateOperation {
             }
         }
     }
+
+    /**
+     * Writes the files of a streamed multipart/form-data request. Each file
+     * is read from the request input stream exactly once, in the order sent
+     * by the client, so all form fields describing the files (for example
+     * type hints or chunk information) must be sent before the first file.
+     *
+     * @throws RepositoryException if a repository error occurs
+     * @throws PersistenceException if a persistence error occurs
+     */
+    private void writeStreamedContent(final SlingHttpServletRequest request,
+            final PostResponse response,
+            final Map<String, RequestProperty> reqProperties,
+            final Iterator<?> parts,
+            final List<Modification> changes,
+            final VersioningConfiguration versioningConfiguration)
+    throws RepositoryException, PersistenceException {
+        final ResourceResolver resolver = request.getResourceResolver();
+        while (parts.hasNext()) {
+            final Object next = parts.next();
+            if (!(next instanceof RequestParameter)) {
+                continue;
+            }
+
+            final RequestParameter part = (RequestParameter) next;
+            if (part.isFormField()) {
+                log.warn("Ignoring form field {} sent after the first file of a streamed upload", part.getName());
+                continue;
+            }
+
+            final RequestProperty prop = getStreamedRequestProperty(request, response, reqProperties, part);
+            if (prop == null) {
+                continue;
+            }
+
+            // chunks are merged based on their size, which is only
+            // known once a streamed part has been read
+            if (prop.isChunkUpload()) {
+                part.get();
+            }
+
+            final Resource parent = deepGetOrCreateNode(resolver,
+                prop.getParentPath(), reqProperties, changes, versioningConfiguration);
+            final Node parentNode = parent.adaptTo(Node.class);
+            if ( parentNode != null ) {
+                checkoutIfNecessary(parentNode, changes, versioningConfiguration);
+            }
+
+            uploadHandler.setFile(parent, prop, changes);
+        }
+    }
 }
@@ -40,7 +40,6 @@ import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
@@ -87,6 +86,7 @@ import org.apache.sling.servlets.resolver.internal.defaults.DefaultServlet;
 import org.apache.sling.servlets.resolver.internal.helper.AbstractResourceCollector;
 import org.apache.sling.servlets.resolver.internal.helper.NamedScriptResourceCollector;
 import org.apache.sling.servlets.resolver.internal.helper.ResourceCollector;
+import org.apache.sling.servlets.resolver.internal.helper.ServletResolverCache;
 import org.apache.sling.servlets.resolver.internal.helper.SlingServletConfig;
 import org.apache.sling.servlets.resolver.internal.resource.ServletResourceProvider;
 import org.apache.sling.servlets.resolver.internal.resource.ServletResourceProviderFactory;
@@ -189,14 +189,11 @@ public class SlingServletResolver
     private Servlet fallbackErrorServlet;
 
     /** The script resolution cache. */
-    private Map<AbstractResourceCollector, Servlet> cache;
+    private ServletResolverCache cache;
 
     /** The cache size. */
     private int cacheSize;
 
-    /** Flag to log warning if cache size exceed only once. */
-    private volatile boolean logCacheSizeWarning;
-
     /** Registration as event handler. */
     private ServiceRegistration eventHandlerReg;
 
@@ -627,7 +624,8 @@ public class SlingServletResolver
     private Servlet getServletInternal(final AbstractResourceCollector locationUtil,
             final SlingHttpServletRequest request,
             final ResourceResolver resolver) {
-        final Servlet scriptServlet = (this.cache != null ? this.cache.get(locationUtil) : null);
+        final ServletResolverCache cache = this.cache;
+        final Servlet scriptServlet = (cache != null ? cache.get(locationUtil) : null);
         if (scriptServlet != null) {
             if ( LOGGER.isDebugEnabled() ) {
                 LOGGER.debug("Using cached servlet {}", RequestUtil.getServletName(scriptServlet));
@@ -635,7 +633,8 @@ public class SlingServletResolver
             return scriptServlet;
         }
 
-        final Collection<Resource> candidates = locationUtil.getServlets(resolver);
+        final List<String> locations = (cache != null ? new ArrayList<String>() : null);
+        final Collection<Resource> candidates = locationUtil.getServlets(resolver, locations);
 
         if (LOGGER.isDebugEnabled()) {
             if (candidates.isEmpty()) {
@@ -657,14 +656,8 @@ public class SlingServletResolver
                 final boolean isOptingServlet = candidate instanceof OptingServlet;
                 boolean servletAcceptsRequest = !isOptingServlet || (request != null && ((OptingServlet) candidate).accepts(request));
                 if (servletAcceptsRequest) {
-                    if (!hasOptingServlet && !isOptingServlet && this.cache != null) {
-                        if ( this.cache.size() < this.cacheSize ) {
-                            this.cache.put(locationUtil, candidate);
-                        } else if ( this.logCacheSizeWarning ) {
-                            this.logCacheSizeWarning = false;
-                            LOGGER.warn("Script cache has reached its limit of {}. You might want to increase the cache size for the servlet resolver.",
-                                    this.cacheSize);
-                        }
+                    if (!hasOptingServlet && !isOptingServlet && cache != null) {
+                        cache.put(locationUtil, candidate, locations);
                     }
                     LOGGER.debug("Using servlet provided by candidate resource {}", candidateResource.getPath());
                     return candidate;
@@ -843,8 +836,7 @@ public class SlingServletResolver
         // create cache - if a cache size is configured
         this.cacheSize = OsgiUtil.toInteger(properties.get(PROP_CACHE_SIZE), DEFAULT_CACHE_SIZE);
         if (this.cacheSize > 5) {
-            this.cache = new ConcurrentHashMap<AbstractResourceCollector, Servlet>(cacheSize);
-            this.logCacheSizeWarning = true;
+            this.cache = new ServletResolverCache(cacheSize);
         } else {
             this.cacheSize = 0;
         }
@@ -1065,46 +1057,46 @@ public class SlingServletResolver
      */
     @Override
     public void handleEvent(final Event event) {
-        if (this.cache != null) {
-            boolean flushCache = false;
-
+        final ServletResolverCache cache = this.cache;
+        if (cache != null) {
             // we may receive different events
             final String topic = event.getTopic();
             if (topic.startsWith("javax/script/ScriptEngineFactory/")) {
                 // script engine factory added or removed: we always flush
-                flushCache = true;
+                cache.flush();
             } else if (topic.startsWith("org/apache/sling/api/adapter/AdapterFactory/")) {
                 // adapter factory added or removed: we always flush
                 // as adapting might be transitive
-                flushCache = true;
+                cache.flush();
             } else if (topic.startsWith("org/apache/sling/scripting/core/BindingsValuesProvider/")) {
                 // bindings values provide factory added or removed: we always flush
-                flushCache = true;
+                cache.flush();
             } else {
                 // this is a resource or resource provider event
 
                 // if the path of the event is a sub path of a search path
-                // we flush the whole cache
+                // we remove the entries whose resolution looked at the path
                 final String path = (String) event.getProperty(SlingConstants.PROPERTY_PATH);
                 if ( path != null ) {
-                    int index = 0;
-                    while (!flushCache && index < searchPaths.length) {
-                        if (path.startsWith(this.searchPaths[index])) {
-                            flushCache = true;
+                    for (final String searchPath : this.searchPaths) {
+                        if (path.startsWith(searchPath)) {
+                            final int removed = cache.invalidate(path);
+                            if (removed > 0) {
+                                LOGGER.debug("Removed {} cached servlets depending on {}", removed, path);
+                            }
+                            break;
                         }
-                        index++;
                     }
                 }
             }
-            if (flushCache) {
-                flushCache();
-            }
         }
     }
 
     private void flushCache() {
-        this.cache.clear();
-        this.logCacheSizeWarning = true;
+        final ServletResolverCache cache = this.cache;
+        if (cache != null) {
+            cache.flush();
+        }
     }
 
     /** The list of property names checked by {@link #getName(ServiceReference)} */
@@ -1399,9 +1391,40 @@ public class SlingServletResolver
 
         @Override
         public int getCacheSize() {
+            final ServletResolverCache cache = SlingServletResolver.this.cache;
             return cache != null ? cache.size() : 0;
         }
 
+        @Override
+        public long getCacheHits() {
+            final ServletResolverCache cache = SlingServletResolver.this.cache;
+            return cache != null ? cache.getHits() : 0;
+        }
+
+        @Override
+        public long getCacheMisses() {
+            final ServletResolverCache cache = SlingServletResolver.this.cache;
+            return cache != null ? cache.getMisses() : 0;
+        }
+
+        @Override
+        public long getEvictions() {
+            final ServletResolverCache cache = SlingServletResolver.this.cache;
+            return cache != null ? cache.getEvictions() : 0;
+        }
+
+        @Override
+        public long getInvalidations() {
+            final ServletResolverCache cache = SlingServletResolver.this.cache;
+            return cache != null ? cache.getInvalidations() : 0;
+        }
+
+        @Override
+        public long getFlushes() {
+            final ServletResolverCache cache = SlingServletResolver.this.cache;
+            return cache != null ? cache.getFlushes() : 0;
+        }
+
         @Override
         public void flushCache() {
             SlingServletResolver.this.flushCache();
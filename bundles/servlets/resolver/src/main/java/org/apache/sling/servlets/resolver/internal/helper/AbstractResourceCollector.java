@@ -65,12 +65,30 @@ public abstract class AbstractResourceCollector {
     }
 
     public final Collection<Resource> getServlets(final ResourceResolver resolver) {
+        return getServlets(resolver, null);
+    }
+
+    /**
+     * Returns the ordered collection of servlet and script resources and
+     * reports the locations which have been inspected to find them.
+     *
+     * @param resolver The resource resolver
+     * @param visitedLocations If not <code>null</code> every location
+     *            returned by the {@link LocationIterator} is added to this
+     *            collection.
+     * @return The ordered collection of resources
+     */
+    public final Collection<Resource> getServlets(final ResourceResolver resolver,
+            final Collection<String> visitedLocations) {
 
         final SortedSet<Resource> resources = new TreeSet<Resource>();
         final Iterator<String> locations = new LocationIterator(resourceType, resourceSuperType,
                                                                 baseResourceType, resolver);
         while (locations.hasNext()) {
             final String location = locations.next();
+            if (visitedLocations != null) {
+                visitedLocations.add(location);
+            }
 
             // get the location resource, use a synthetic resource if there
             // is no real location. There may still be children at this
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.resolver.internal.helper;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.Servlet;
+
+/**
+ * The <code>ServletResolverCache</code> is a size-bounded, concurrent cache
+ * of resolved servlets keyed by {@link AbstractResourceCollector}.
+ * <p>
+ * The cache is split into segments, each of them being an access ordered
+ * <code>LinkedHashMap</code> guarded by its own lock. When a segment is full
+ * its least recently used entry is evicted, so the cache approximates a
+ * global LRU without a single point of contention.
+ * <p>
+ * Every entry remembers the locations (as returned by the
+ * {@link LocationIterator}) which were inspected to resolve the servlet.
+ * This allows {@link #invalidate(String)} to only drop the entries which
+ * depend on a changed path instead of flushing the complete cache.
+ */
+public class ServletResolverCache {
+
+    /** The maximum number of segments */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** The minimum number of entries per segment */
+    private static final int MIN_SEGMENT_SIZE = 32;
+
+    private final Segment[] segments;
+
+    private final int maximumSize;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong flushes = new AtomicLong();
+
+    public ServletResolverCache(final int maximumSize) {
+        this.maximumSize = maximumSize;
+        final int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maximumSize / MIN_SEGMENT_SIZE));
+        this.segments = new Segment[segmentCount];
+        // distribute the capacity so that the segments add up to the maximum size
+        for (int i = 0; i < segmentCount; i++) {
+            final int segmentSize = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+            this.segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Returns the cached servlet for the collector or <code>null</code>.
+     */
+    public Servlet get(final AbstractResourceCollector key) {
+        final Entry entry = segmentFor(key).get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.servlet;
+    }
+
+    /**
+     * Caches the servlet resolved for the collector.
+     *
+     * @param key The collector
+     * @param servlet The resolved servlet
+     * @param locations The locations inspected to resolve the servlet
+     */
+    public void put(final AbstractResourceCollector key,
+            final Servlet servlet,
+            final Collection<String> locations) {
+        final String[] paths = new String[locations.size()];
+        int i = 0;
+        for (final String location : locations) {
+            paths[i++] = stripTrailingSlash(location);
+        }
+        segmentFor(key).put(key, new Entry(servlet, paths));
+    }
+
+    /**
+     * Removes all entries which depend on the given path. An entry depends on
+     * the path if one of its locations is the path, an ancestor of it or a
+     * descendant of it.
+     *
+     * @param path The changed path
+     * @return The number of removed entries
+     */
+    public int invalidate(final String path) {
+        final String changed = stripTrailingSlash(path);
+        int removed = 0;
+        for (final Segment segment : segments) {
+            removed += segment.invalidate(changed);
+        }
+        invalidations.addAndGet(removed);
+        return removed;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void flush() {
+        for (final Segment segment : segments) {
+            segment.clear();
+        }
+        flushes.incrementAndGet();
+    }
+
+    public int size() {
+        int size = 0;
+        for (final Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    private Segment segmentFor(final AbstractResourceCollector key) {
+        int hash = key.hashCode();
+        // spread the bits as the collectors' hash codes are string hashes
+        hash ^= (hash >>> 16);
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    private static String stripTrailingSlash(final String path) {
+        if (path.length() > 1 && path.endsWith("/")) {
+            return path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    /**
+     * Checks whether <code>path</code> is <code>ancestor</code> or a
+     * descendant of it. Both paths must not have a trailing slash.
+     */
+    private static boolean isSameOrDescendant(final String path, final String ancestor) {
+        if (!path.startsWith(ancestor)) {
+            return false;
+        }
+        return path.length() == ancestor.length()
+            || ancestor.equals("/")
+            || path.charAt(ancestor.length()) == '/';
+    }
+
+    private static final class Entry {
+
+        final Servlet servlet;
+
+        final String[] locations;
+
+        Entry(final Servlet servlet, final String[] locations) {
+            this.servlet = servlet;
+            this.locations = locations;
+        }
+
+        boolean dependsOn(final String path) {
+            for (final String location : locations) {
+                if (isSameOrDescendant(path, location) || isSameOrDescendant(location, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final class Segment {
+
+        private final Map<AbstractResourceCollector, Entry> map;
+
+        Segment(final int capacity) {
+            this.map = new LinkedHashMap<AbstractResourceCollector, Entry>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<AbstractResourceCollector, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Entry get(final AbstractResourceCollector key) {
+            return map.get(key);
+        }
+
+        synchronized void put(final AbstractResourceCollector key, final Entry entry) {
+            map.put(key, entry);
+        }
+
+        synchronized int invalidate(final String path) {
+            int removed = 0;
+            final Iterator<Entry> iter = map.values().iterator();
+            while (iter.hasNext()) {
+                if (iter.next().dependsOn(path)) {
+                    iter.remove();
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -42,4 +42,40 @@ public interface SlingServletResolverCacheMBean {
      */
     void flushCache();
 
+    /**
+     * Get the number of servlet resolutions answered from the cache
+     *
+     * @return the number of cache hits
+     */
+    long getCacheHits();
+
+    /**
+     * Get the number of servlet resolutions which were not found in the cache
+     *
+     * @return the number of cache misses
+     */
+    long getCacheMisses();
+
+    /**
+     * Get the number of entries removed because the cache was full
+     *
+     * @return the number of evicted entries
+     */
+    long getEvictions();
+
+    /**
+     * Get the number of entries removed because a resource they depend on
+     * has changed
+     *
+     * @return the number of invalidated entries
+     */
+    long getInvalidations();
+
+    /**
+     * Get the number of times the complete cache has been flushed
+     *
+     * @return the number of cache flushes
+     */
+    long getFlushes();
+
 }
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.resolver.internal.helper;
+
+import java.util.Arrays;
+
+import javax.servlet.Servlet;
+
+import junit.framework.TestCase;
+
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+
+public class ServletResolverCacheTest extends TestCase {
+
+    private final Servlet servlet = new SlingSafeMethodsServlet() {
+        private static final long serialVersionUID = 1L;
+    };
+
+    private AbstractResourceCollector collector(final String resourceType) {
+        return new NamedScriptResourceCollector("sling/servlet/default", resourceType, null, "script", "html", null);
+    }
+
+    public void testHitsAndMisses() {
+        final ServletResolverCache cache = new ServletResolverCache(10);
+        assertNull(cache.get(collector("a/b")));
+        cache.put(collector("a/b"), servlet, Arrays.asList("/apps/a/b", "/libs/a/b"));
+        assertSame(servlet, cache.get(collector("a/b")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+
+    public void testLeastRecentlyUsedEviction() {
+        final ServletResolverCache cache = new ServletResolverCache(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(collector("type" + i), servlet, Arrays.asList("/apps/type" + i));
+        }
+        // touch the first entry so that the second one is the eldest
+        assertNotNull(cache.get(collector("type0")));
+        cache.put(collector("type10"), servlet, Arrays.asList("/apps/type10"));
+
+        assertEquals(10, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get(collector("type0")));
+        assertNull(cache.get(collector("type1")));
+        assertNotNull(cache.get(collector("type10")));
+    }
+
+    public void testBoundedWithSegments() {
+        final ServletResolverCache cache = new ServletResolverCache(200);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(collector("type" + i), servlet, Arrays.asList("/apps/type" + i));
+        }
+        assertTrue(cache.size() <= 200);
+        assertEquals(1000 - cache.size(), cache.getEvictions());
+    }
+
+    public void testTargetedInvalidation() {
+        final ServletResolverCache cache = new ServletResolverCache(10);
+        cache.put(collector("a/b"), servlet, Arrays.asList("/apps/a/b/", "/libs/a/b/", "/apps/a/super/", "/libs/a/super/"));
+        cache.put(collector("a/c"), servlet, Arrays.asList("/apps/a/c/", "/libs/a/c/"));
+        cache.put(collector("a/bc"), servlet, Arrays.asList("/apps/a/bc/", "/libs/a/bc/"));
+
+        // a script below the super type only affects a/b
+        assertEquals(1, cache.invalidate("/apps/a/super/html.jsp"));
+        assertNull(cache.get(collector("a/b")));
+        assertNotNull(cache.get(collector("a/c")));
+        assertNotNull(cache.get(collector("a/bc")));
+
+        // unrelated paths do not affect the cache
+        assertEquals(0, cache.invalidate("/apps/x/y"));
+        assertEquals(0, cache.invalidate("/libs/a/b"));
+
+        // removing a parent folder affects everything below
+        assertEquals(2, cache.invalidate("/libs/a"));
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.getInvalidations());
+    }
+
+    public void testFlush() {
+        final ServletResolverCache cache = new ServletResolverCache(10);
+        cache.put(collector("a/b"), servlet, Arrays.asList("/apps/a/b"));
+        cache.flush();
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getFlushes());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.auth.form.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation and validation of form authentication cookie values by
+ * concurrent requests, for a returning cookie and for cookies of many
+ * different users which are not remembered as verified.
+ * <p>
+ * The benchmark lives in the package of the package private token store.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TokenStoreBenchmark {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    /** More values than the token store remembers as verified. */
+    private static final int USERS = 5000;
+
+    private File tokenFile;
+
+    private TokenStore store;
+
+    private String value;
+
+    private String[] values;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setup() throws Exception {
+        tokenFile = File.createTempFile("sling-jmh-tokens", ".bin");
+        if (!tokenFile.delete()) {
+            throw new IOException("Cannot delete " + tokenFile);
+        }
+        store = new TokenStore(tokenFile, HOUR, true);
+        value = store.encode(System.currentTimeMillis() + HOUR, "admin");
+        values = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            values[i] = store.encode(System.currentTimeMillis() + HOUR, "user" + i);
+        }
+        if (!store.isValid(value) || !store.isValid(values[USERS - 1])) {
+            throw new IllegalStateException("Cookie values are not valid");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tokenFile.delete();
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        return store.encode(System.currentTimeMillis() + HOUR, "admin");
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return store.isValid(value);
+    }
+
+    @Benchmark
+    public boolean isValidManyUsers() {
+        return store.isValid(values[(next.getAndIncrement() & Integer.MAX_VALUE) % USERS]);
+    }
+}
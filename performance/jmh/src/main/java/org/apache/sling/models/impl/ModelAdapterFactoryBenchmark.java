@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.models.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.models.impl.injectors.ChildResourceInjector;
+import org.apache.sling.models.impl.injectors.ValueMapInjector;
+import org.apache.sling.models.annotations.Default;
+import org.apache.sling.models.annotations.Model;
+import org.apache.sling.models.annotations.Optional;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.ComponentContext;
+
+/**
+ * Measures the adaptation of a resource to a field injection, a constructor injection and an interface model.
+ * <p>
+ * The benchmark lives in the package of the factory to set it up like the
+ * unit tests do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelAdapterFactoryBenchmark {
+
+    private ModelAdapterFactory factory;
+
+    private Resource resource;
+
+    @Setup
+    public void setup() {
+        ComponentContext componentCtx = mock(ComponentContext.class);
+        when(componentCtx.getBundleContext()).thenReturn(mock(BundleContext.class));
+        when(componentCtx.getProperties()).thenReturn(new Hashtable<String, Object>());
+
+        factory = new ModelAdapterFactory();
+        factory.activate(componentCtx);
+        ValueMapInjector valueMapInjector = new ValueMapInjector();
+        factory.bindInjector(valueMapInjector, serviceProperties(2, 2));
+        factory.bindInjector(new ChildResourceInjector(), serviceProperties(1, 1));
+        factory.bindInjectAnnotationProcessorFactory(valueMapInjector,
+                Collections.<String, Object> singletonMap(Constants.SERVICE_ID, 2L));
+
+        // as done by the ModelPackageBundleListener for models of installed bundles
+        factory.adapterImplementations.add(FieldModel.class, FieldModel.class);
+        factory.adapterImplementations.add(ConstructorModel.class, ConstructorModel.class);
+        factory.adapterImplementations.add(InterfaceModel.class, InterfaceModel.class);
+
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("first", "first-value");
+        map.put("third", "third-value");
+        map.put("fourth", true);
+        map.put("intProperty", 3);
+        map.put("arrayProperty", new String[] { "three", "four" });
+        map.put("firstProperty", "first-property");
+        final ValueMap vm = new ValueMapDecorator(map);
+
+        // a plain implementation rather than a mock keeps mockito out of the measurement
+        resource = new AbstractResource() {
+
+            @Override
+            public String getPath() {
+                return "/content/benchmark";
+            }
+
+            @Override
+            public String getResourceType() {
+                return "benchmark";
+            }
+
+            @Override
+            public String getResourceSuperType() {
+                return null;
+            }
+
+            @Override
+            public ResourceMetadata getResourceMetadata() {
+                return new ResourceMetadata();
+            }
+
+            @Override
+            public ResourceResolver getResourceResolver() {
+                return null;
+            }
+
+            @Override
+            public Resource getChild(String relPath) {
+                return null;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
+                if (type == ValueMap.class) {
+                    return (AdapterType) vm;
+                }
+                return null;
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.deactivate();
+    }
+
+    @Benchmark
+    public Object fieldInjection() {
+        return factory.getAdapter(resource, FieldModel.class);
+    }
+
+    @Benchmark
+    public Object constructorInjection() {
+        return factory.getAdapter(resource, ConstructorModel.class);
+    }
+
+    @Benchmark
+    public Object interfaceModel() {
+        return factory.getAdapter(resource, InterfaceModel.class);
+    }
+
+    private static Map<String, Object> serviceProperties(final long serviceId, final int serviceRanking) {
+        final Map<String, Object> props = new HashMap<String, Object>();
+        props.put(Constants.SERVICE_ID, serviceId);
+        props.put(Constants.SERVICE_RANKING, serviceRanking);
+        return props;
+    }
+
+    @Model(adaptables = Resource.class)
+    public static class FieldModel {
+
+        @Inject
+        private String first;
+
+        @Inject
+        @Optional
+        private String second;
+
+        @Inject
+        @Named("third")
+        private String thirdProperty;
+
+        @Inject
+        private int intProperty;
+
+        @Inject
+        private String[] arrayProperty;
+    }
+
+    @Model(adaptables = Resource.class)
+    public static class ConstructorModel {
+
+        private final String firstProperty;
+
+        private final String[] secondProperty;
+
+        @Inject
+        public ConstructorModel(@Default(values = "firstDefault") String firstProperty,
+                @Default(values = {"firstDefault", "secondDefault"}) String[] secondProperty) {
+            this.firstProperty = firstProperty;
+            this.secondProperty = secondProperty;
+        }
+    }
+
+    @Model(adaptables = Resource.class)
+    public interface InterfaceModel {
+
+        @Inject
+        String getFirst();
+
+        @Inject
+        @Optional
+        String getSecond();
+
+        @Inject
+        @Named("third")
+        String getThirdProperty();
+
+        @Inject
+        boolean isFourth();
+    }
+}
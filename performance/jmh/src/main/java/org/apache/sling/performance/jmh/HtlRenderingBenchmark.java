@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.SimpleBindings;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.api.wrappers.SlingHttpServletRequestWrapper;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletRequest;
+import org.apache.sling.scripting.sightly.extension.RuntimeExtension;
+import org.apache.sling.scripting.sightly.impl.compiled.CompilationOutput;
+import org.apache.sling.scripting.sightly.impl.compiled.JavaClassBackend;
+import org.apache.sling.scripting.sightly.impl.compiler.SightlyCompilerService;
+import org.apache.sling.scripting.sightly.impl.compiler.util.GlobalShadowCheckBackend;
+import org.apache.sling.scripting.sightly.impl.engine.compiled.JavaClassTemplate;
+import org.apache.sling.scripting.sightly.impl.engine.extension.XSSRuntimeExtension;
+import org.apache.sling.scripting.sightly.impl.engine.runtime.RenderContextImpl;
+import org.apache.sling.scripting.sightly.impl.engine.runtime.RenderUnit;
+import org.apache.sling.scripting.sightly.impl.filter.Filter;
+import org.apache.sling.scripting.sightly.impl.filter.FormatFilter;
+import org.apache.sling.scripting.sightly.impl.filter.JoinFilter;
+import org.apache.sling.scripting.sightly.impl.filter.URIManipulationFilter;
+import org.apache.sling.scripting.sightly.impl.filter.XSSFilter;
+import org.apache.sling.scripting.sightly.impl.html.dom.HtmlParserService;
+import org.apache.sling.scripting.sightly.impl.plugin.AttributePlugin;
+import org.apache.sling.scripting.sightly.impl.plugin.ElementPlugin;
+import org.apache.sling.scripting.sightly.impl.plugin.ListPlugin;
+import org.apache.sling.scripting.sightly.impl.plugin.Plugin;
+import org.apache.sling.scripting.sightly.impl.plugin.RepeatPlugin;
+import org.apache.sling.scripting.sightly.impl.plugin.TestPlugin;
+import org.apache.sling.scripting.sightly.impl.plugin.TextPlugin;
+import org.apache.sling.scripting.sightly.impl.plugin.UnwrapPlugin;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.apache.sling.xss.XSSAPI;
+import org.apache.sling.xss.impl.XSSAPIImpl;
+import org.apache.sling.xss.impl.XSSFilterImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compilation of an HTL template to Java source and rendering of the
+ * compiled template, including XSS escaping, list iteration and filters.
+ * <p>
+ * The Java source is compiled once during setup through the system Java
+ * compiler, so the benchmark has to run on a JDK.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HtlRenderingBenchmark {
+
+    private static final String PACKAGE_NAME = "org.apache.sling.performance.jmh.htl";
+
+    private static final String CLASS_NAME = "PageTemplate";
+
+    private static final String TEMPLATE =
+            "<div class=\"page\" data-sly-attribute.title=\"${properties['jcr:title']}\">\n"
+            + "  <h1>${properties['jcr:title']}</h1>\n"
+            + "  <ul data-sly-list=\"${items}\">\n"
+            + "    <li class=\"${itemList.odd ? 'odd' : 'even'}\"><a href=\"${item.path}.html\">${item.title}</a></li>\n"
+            + "  </ul>\n"
+            + "  <p data-sly-test=\"${properties.hideInNav}\">Hidden in navigation</p>\n"
+            + "  <span>${'Page {0} of {1}' @ format=[2, 10]}</span>\n"
+            + "  <span data-sly-unwrap>${properties.tags @ join=', '}</span>\n"
+            + "</div>\n";
+
+    private SlingFixture fixture;
+
+    private ResourceResolver resolver;
+
+    private SightlyCompilerService compilerService;
+
+    private String unitTemplate;
+
+    private File classesDirectory;
+
+    private RenderUnit renderUnit;
+
+    private RenderContextImpl renderContext;
+
+    private StringWriter output;
+
+    @Setup
+    public void setup() throws Exception {
+        fixture = new SlingFixture();
+        resolver = fixture.newResourceResolver();
+
+        fixture.registerComponent(HtmlParserService.class, new HtmlParserService());
+        for (final Plugin plugin : new Plugin[] {new AttributePlugin(), new ElementPlugin(), new ListPlugin(),
+                new RepeatPlugin(), new TestPlugin(), new TextPlugin(), new UnwrapPlugin()}) {
+            fixture.registerComponent(Plugin.class, plugin);
+        }
+        final FormatFilter formatFilter = new FormatFilter();
+        final JoinFilter joinFilter = new JoinFilter();
+        final URIManipulationFilter uriFilter = new URIManipulationFilter();
+        for (final Filter filter : new Filter[] {formatFilter, joinFilter, uriFilter, new XSSFilter()}) {
+            fixture.registerComponent(Filter.class, filter);
+        }
+        compilerService = new SightlyCompilerService();
+        MockOsgi.injectServices(compilerService, fixture.getBundleContext());
+        MockOsgi.activate(compilerService, fixture.getBundleContext());
+
+        final XSSFilterImpl xssFilter = new XSSFilterImpl();
+        fixture.registerComponent(org.apache.sling.xss.XSSFilter.class, xssFilter);
+        final XSSAPIImpl xssApi = new XSSAPIImpl();
+        fixture.registerComponent(XSSAPI.class, xssApi);
+
+        final InputStream template = SightlyCompilerService.class.getClassLoader()
+                .getResourceAsStream("templates/compiled_unit_template.txt");
+        try {
+            unitTemplate = IOUtils.toString(template, "UTF-8");
+        } finally {
+            IOUtils.closeQuietly(template);
+        }
+
+        final Bindings bindings = newBindings(xssApi);
+        renderUnit = compileUnit(compile(bindings));
+
+        final Map<String, RuntimeExtension> extensions = new HashMap<String, RuntimeExtension>();
+        extensions.put(XSSFilter.FUNCTION_NAME, new XSSRuntimeExtension());
+        extensions.put(FormatFilter.FORMAT_FUNCTION, formatFilter);
+        extensions.put(JoinFilter.JOIN_FUNCTION, joinFilter);
+        extensions.put(URIManipulationFilter.URI_MANIPULATION_FUNCTION, uriFilter);
+        renderContext = new RenderContextImpl(bindings, extensions, resolver);
+
+        if (!render().contains("<a href=\"/content/site/en/page3.html\">Page 3 &lt;3&gt;</a>")) {
+            throw new IllegalStateException("Unexpected output " + output);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(classesDirectory);
+        resolver.close();
+        fixture.close();
+    }
+
+    @Benchmark
+    public String compile() {
+        return compile(renderContext.getBindings());
+    }
+
+    @Benchmark
+    public String render() {
+        output.getBuffer().setLength(0);
+        renderUnit.render(renderContext, new SimpleBindings());
+        return output.toString();
+    }
+
+    private Bindings newBindings(final XSSAPI xssApi) {
+        final Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("jcr:title", "A <b>page</b> title");
+        properties.put("hideInNav", true);
+        properties.put("tags", new String[] {"news", "sport", "weather"});
+
+        final List<Map<String, Object>> items = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < 20; i++) {
+            final Map<String, Object> item = new HashMap<String, Object>();
+            item.put("path", "/content/site/en/page" + i);
+            item.put("title", "Page " + i + " <" + i + ">");
+            items.add(item);
+        }
+
+        final SlingHttpServletRequest request = new SlingHttpServletRequestWrapper(
+                new MockSlingHttpServletRequest("/content/site/en/page42", null, "html", null, null)) {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <AdapterType> AdapterType adaptTo(final Class<AdapterType> type) {
+                return type == XSSAPI.class ? (AdapterType) xssApi : super.adaptTo(type);
+            }
+        };
+
+        output = new StringWriter();
+        final Bindings bindings = new SimpleBindings();
+        bindings.put("properties", new ValueMapDecorator(properties));
+        bindings.put("items", items);
+        bindings.put(SlingBindings.REQUEST, request);
+        bindings.put(SlingBindings.OUT, new PrintWriter(output));
+        return bindings;
+    }
+
+    /**
+     * Compiles the template to the Java source of a render unit, the same
+     * way the unit loader of the script engine does.
+     */
+    private String compile(final Bindings bindings) {
+        final JavaClassBackend backend = new JavaClassBackend();
+        compilerService.compile(TEMPLATE, new GlobalShadowCheckBackend(backend, bindings.keySet()));
+        final CompilationOutput result = backend.build();
+
+        final JavaClassTemplate classTemplate = new JavaClassTemplate(unitTemplate);
+        classTemplate.setPackageName(PACKAGE_NAME);
+        classTemplate.setClassName(CLASS_NAME);
+        classTemplate.writeMainBody(result.getMainBody());
+        return classTemplate.toString();
+    }
+
+    private RenderUnit compileUnit(final String source) throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler available, run the benchmark on a JDK");
+        }
+        classesDirectory = File.createTempFile("sling-jmh-htl", "");
+        if (!classesDirectory.delete() || !classesDirectory.mkdir()) {
+            throw new IOException("Cannot create directory " + classesDirectory);
+        }
+        final File sourceFile = new File(classesDirectory, CLASS_NAME + ".java");
+        FileUtils.writeStringToFile(sourceFile, source, "UTF-8");
+        final int result = compiler.run(null, null, null,
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", classesDirectory.getAbsolutePath(),
+                sourceFile.getAbsolutePath());
+        if (result != 0) {
+            throw new IllegalStateException("Cannot compile " + sourceFile);
+        }
+        final ClassLoader loader = new URLClassLoader(new URL[] {classesDirectory.toURI().toURL()},
+                getClass().getClassLoader());
+        return (RenderUnit) loader.loadClass(PACKAGE_NAME + "." + CLASS_NAME).newInstance();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.Calendar;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.jcr.resource.JcrPropertyMap;
+import org.apache.sling.testing.mock.jcr.MockJcr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Property reads through the JCR backed value map, both on a new map as
+ * done for each {@code adaptTo(ValueMap.class)} and on a map which has
+ * already read its properties.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings("deprecation")
+public class JcrPropertyMapBenchmark {
+
+    private Session session;
+
+    private Node node;
+
+    private ValueMap warmMap;
+
+    @Setup
+    public void setup() throws RepositoryException {
+        session = MockJcr.newSession();
+        node = session.getRootNode().addNode("content").addNode("page", "nt:unstructured");
+        node.setProperty("jcr:title", "Page title");
+        node.setProperty("sling:resourceType", SlingFixture.PAGE_TYPE);
+        node.setProperty("hideInNav", true);
+        node.setProperty("width", 640L);
+        node.setProperty("ratio", 1.5d);
+        node.setProperty("tags", new String[] {"news", "sport", "weather"});
+        node.setProperty("jcr:lastModified", Calendar.getInstance());
+        for (int i = 0; i < 20; i++) {
+            node.setProperty("property" + i, "value " + i);
+        }
+        session.save();
+
+        warmMap = new JcrPropertyMap(node);
+        // reads and caches all properties
+        if (!"Page title".equals(warmMap.get("jcr:title")) || warmMap.entrySet().size() != 28) {
+            throw new IllegalStateException("Unexpected properties " + warmMap);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.logout();
+    }
+
+    @Benchmark
+    public void readCold(final Blackhole bh) {
+        readProperties(new JcrPropertyMap(node), bh);
+    }
+
+    @Benchmark
+    public void readWarm(final Blackhole bh) {
+        readProperties(warmMap, bh);
+    }
+
+    @Benchmark
+    public void iterateCold(final Blackhole bh) {
+        for (final Map.Entry<String, Object> entry : new JcrPropertyMap(node).entrySet()) {
+            bh.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void iterateWarm(final Blackhole bh) {
+        for (final Map.Entry<String, Object> entry : warmMap.entrySet()) {
+            bh.consume(entry.getValue());
+        }
+    }
+
+    private static void readProperties(final ValueMap map, final Blackhole bh) {
+        bh.consume(map.get("jcr:title", String.class));
+        bh.consume(map.get("sling:resourceType", String.class));
+        bh.consume(map.get("hideInNav", false));
+        bh.consume(map.get("width", Integer.class));
+        bh.consume(map.get("ratio", String.class));
+        bh.consume(map.get("tags", String[].class));
+        bh.consume(map.get("jcr:lastModified", Calendar.class));
+        bh.consume(map.get("missing", "default"));
+    }
+}
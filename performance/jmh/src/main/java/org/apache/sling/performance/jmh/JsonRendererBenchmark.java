@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.commons.json.sling.ResourceTraversor;
+import org.apache.sling.servlets.get.impl.helpers.StreamingJsonResourceWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the materializing JSON rendering (ResourceTraversor) with the
+ * {@link StreamingJsonResourceWriter} for an infinity request.
+ * <p>
+ * The <code>*Complete</code> benchmarks measure the time to render the
+ * whole tree, the <code>*FirstByte</code> benchmarks the time until the
+ * first character reaches the response writer. Run with the GC profiler
+ * (<code>-prof gc</code>) to compare the allocation rates.
+ * <p>
+ * The ResourceTraversor recurses once per resource, so the benchmark is
+ * forked with a larger thread stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+@State(Scope.Benchmark)
+public class JsonRendererBenchmark {
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"10"})
+    public int width;
+
+    private Resource root;
+
+    @Setup
+    public void setup() {
+        root = createTree(depth, width);
+    }
+
+    @Benchmark
+    public long traversorComplete() throws Exception {
+        final CountingWriter out = new CountingWriter(Long.MAX_VALUE);
+        renderWithTraversor(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamingComplete() throws Exception {
+        final CountingWriter out = new CountingWriter(Long.MAX_VALUE);
+        renderStreaming(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long traversorFirstByte() throws Exception {
+        final CountingWriter out = new CountingWriter(1);
+        try {
+            renderWithTraversor(out);
+        } catch (FirstByteWritten expected) {
+            // stop measuring as soon as output starts
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamingFirstByte() throws Exception {
+        final CountingWriter out = new CountingWriter(1);
+        try {
+            renderStreaming(out);
+        } catch (FirstByteWritten expected) {
+            // stop measuring as soon as output starts
+        }
+        return out.count;
+    }
+
+    private void renderWithTraversor(final Writer out) throws Exception {
+        final ResourceTraversor traversor = new ResourceTraversor(-1, Long.MAX_VALUE, root, false);
+        traversor.collectResources();
+        out.write(traversor.getJSONObject().toString());
+    }
+
+    private void renderStreaming(final Writer out) throws Exception {
+        final StreamingJsonResourceWriter writer = new StreamingJsonResourceWriter(Long.MAX_VALUE);
+        writer.getLimitLevel(root, -1);
+        writer.write(out, root, -1, false, false);
+    }
+
+    /**
+     * Creates a tree of <code>depth</code> levels below the root with
+     * <code>width</code> children per resource.
+     */
+    private static Resource createTree(final int depth, final int width) {
+        final Map<String, List<Resource>> children = new HashMap<String, List<Resource>>();
+        // a plain proxy rather than a mock keeps mockito out of the measurement
+        final ResourceResolver resolver = (ResourceResolver) Proxy.newProxyInstance(
+                JsonRendererBenchmark.class.getClassLoader(), new Class<?>[] {ResourceResolver.class},
+                new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                        if ("listChildren".equals(method.getName())) {
+                            final List<Resource> list = children.get(((Resource) args[0]).getPath());
+                            return list == null ? Collections.<Resource> emptyList().iterator() : list.iterator();
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        final Resource root = new TreeResource(resolver, "/root");
+        addChildren(resolver, children, root, depth, width);
+        return root;
+    }
+
+    private static void addChildren(final ResourceResolver resolver, final Map<String, List<Resource>> children,
+            final Resource parent, final int depth, final int width) {
+        if (depth == 0) {
+            return;
+        }
+        final List<Resource> list = new ArrayList<Resource>();
+        for (int i = 0; i < width; i++) {
+            final Resource child = new TreeResource(resolver, parent.getPath() + "/child" + i);
+            list.add(child);
+            addChildren(resolver, children, child, depth - 1, width);
+        }
+        children.put(parent.getPath(), list);
+    }
+
+    private static final class TreeResource extends SyntheticResource {
+
+        TreeResource(final ResourceResolver resolver, final String path) {
+            super(resolver, path, "test/resource");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <AdapterType> AdapterType adaptTo(final Class<AdapterType> type) {
+            if (type == ValueMap.class) {
+                final Map<String, Object> props = new LinkedHashMap<String, Object>();
+                props.put("jcr:primaryType", "nt:unstructured");
+                props.put("title", "Title of " + getPath());
+                props.put("count", 42L);
+                props.put("tags", new String[] {"a", "b"});
+                return (AdapterType) new ValueMapDecorator(props);
+            }
+            return super.adaptTo(type);
+        }
+
+        @Override
+        public ResourceMetadata getResourceMetadata() {
+            return new ResourceMetadata();
+        }
+    }
+
+    private static final class FirstByteWritten extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Discards the output, optionally aborting once <code>limit</code>
+     * characters have been written.
+     */
+    private static final class CountingWriter extends Writer {
+
+        private final long limit;
+
+        private long count;
+
+        CountingWriter(final long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) throws IOException {
+            count += len;
+            if (count >= limit) {
+                throw new FirstByteWritten();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
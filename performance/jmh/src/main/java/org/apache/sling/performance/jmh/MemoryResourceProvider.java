@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.annotation.Nonnull;
+import javax.servlet.Servlet;
+
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.spi.resource.provider.JCRQueryProvider;
+import org.apache.sling.spi.resource.provider.ResolverContext;
+import org.apache.sling.spi.resource.provider.ResourceContext;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+
+/**
+ * A read-only resource provider keeping all resources in memory.
+ * <p>
+ * The provider answers the SQL queries the resource resolver issues for
+ * aliases and vanity paths, so mapping behaves as with a repository
+ * without the cost of one. Resources with a {@link #SERVLET} property
+ * adapt to that servlet, which is how script resources are represented.
+ */
+public class MemoryResourceProvider extends ResourceProvider<Object> {
+
+    /** Property holding the servlet a script resource adapts to. */
+    public static final String SERVLET = "servlet";
+
+    /** Property holding the content returned by a file resource. */
+    public static final String CONTENT = "content";
+
+    private static final String PROP_ALIAS = "sling:alias";
+
+    private static final String PROP_VANITY_PATH = "sling:vanityPath";
+
+    private final SortedMap<String, Map<String, Object>> resources = new TreeMap<String, Map<String, Object>>();
+
+    /**
+     * Adds a resource and all missing ancestors.
+     */
+    public void add(final String path, final String resourceType, final Map<String, Object> properties) {
+        final Map<String, Object> props = new HashMap<String, Object>(properties);
+        if (resourceType != null) {
+            props.put(ResourceResolver.PROPERTY_RESOURCE_TYPE, resourceType);
+        }
+        resources.put(path, props);
+        String parent = ResourceUtil.getParent(path);
+        while (parent != null && !resources.containsKey(parent)) {
+            resources.put(parent, new HashMap<String, Object>());
+            parent = ResourceUtil.getParent(parent);
+        }
+    }
+
+    public void add(final String path, final String resourceType) {
+        add(path, resourceType, new HashMap<String, Object>());
+    }
+
+    @Override
+    public Resource getResource(final @Nonnull ResolverContext<Object> ctx,
+            final @Nonnull String path,
+            final @Nonnull ResourceContext resourceContext,
+            final Resource parent) {
+        final Map<String, Object> props = resources.get(path);
+        if (props == null) {
+            return null;
+        }
+        return new MemoryResource(ctx.getResourceResolver(), path, props);
+    }
+
+    @Override
+    public Iterator<Resource> listChildren(final @Nonnull ResolverContext<Object> ctx, final @Nonnull Resource parent) {
+        final String prefix = "/".equals(parent.getPath()) ? "/" : parent.getPath() + "/";
+        final List<Resource> children = new ArrayList<Resource>();
+        for (final Map.Entry<String, Map<String, Object>> entry : resources.tailMap(prefix).entrySet()) {
+            final String path = entry.getKey();
+            if (!path.startsWith(prefix)) {
+                break;
+            }
+            if (path.length() > prefix.length() && path.indexOf('/', prefix.length()) == -1) {
+                children.add(new MemoryResource(ctx.getResourceResolver(), path, entry.getValue()));
+            }
+        }
+        return children.iterator();
+    }
+
+    @Override
+    public JCRQueryProvider<Object> getJCRQueryProvider() {
+        return new JCRQueryProvider<Object>() {
+
+            @Override
+            public String[] getSupportedLanguages(final @Nonnull ResolverContext<Object> ctx) {
+                return new String[] {"sql"};
+            }
+
+            @Override
+            public Iterator<Resource> findResources(final @Nonnull ResolverContext<Object> ctx,
+                    final String query,
+                    final String language) {
+                final String property;
+                if (query.contains(PROP_VANITY_PATH)) {
+                    property = PROP_VANITY_PATH;
+                } else if (query.contains(PROP_ALIAS)) {
+                    property = PROP_ALIAS;
+                } else {
+                    throw new IllegalArgumentException("Unsupported query " + query);
+                }
+                // either "... IS NOT NULL" or "... ='value' OR ... ='value'"
+                final Set<String> values = new HashSet<String>();
+                int eq = query.indexOf("='");
+                while (eq != -1) {
+                    final int end = query.indexOf('\'', eq + 2);
+                    values.add(query.substring(eq + 2, end));
+                    eq = query.indexOf("='", end);
+                }
+                final List<Resource> result = new ArrayList<Resource>();
+                for (final Map.Entry<String, Map<String, Object>> entry : resources.entrySet()) {
+                    final Object v = entry.getValue().get(property);
+                    if (v != null && (values.isEmpty() || matches(v, values))) {
+                        result.add(new MemoryResource(ctx.getResourceResolver(), entry.getKey(), entry.getValue()));
+                    }
+                }
+                return result.iterator();
+            }
+
+            @Override
+            public Iterator<ValueMap> queryResources(final @Nonnull ResolverContext<Object> ctx,
+                    final String query,
+                    final String language) {
+                throw new UnsupportedOperationException("queryResources");
+            }
+        };
+    }
+
+    private static boolean matches(final Object value, final Set<String> values) {
+        if (value instanceof String[]) {
+            for (final String v : (String[]) value) {
+                if (values.contains(v)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return values.contains(value.toString());
+    }
+
+    private static final class MemoryResource extends AbstractResource {
+
+        private final ResourceResolver resolver;
+
+        private final String path;
+
+        private final Map<String, Object> properties;
+
+        private final ResourceMetadata metadata = new ResourceMetadata();
+
+        MemoryResource(final ResourceResolver resolver, final String path, final Map<String, Object> properties) {
+            this.resolver = resolver;
+            this.path = path;
+            this.properties = properties;
+            this.metadata.setResolutionPath(path);
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String getResourceType() {
+            final Object type = properties.get(ResourceResolver.PROPERTY_RESOURCE_TYPE);
+            return type != null ? type.toString() : "nt:unstructured";
+        }
+
+        @Override
+        public String getResourceSuperType() {
+            return (String) properties.get("sling:resourceSuperType");
+        }
+
+        @Override
+        public ResourceMetadata getResourceMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public ResourceResolver getResourceResolver() {
+            return resolver;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <AdapterType> AdapterType adaptTo(final Class<AdapterType> type) {
+            if (type == ValueMap.class || type == Map.class) {
+                return (AdapterType) new ValueMapDecorator(properties);
+            }
+            if (type == Servlet.class) {
+                return (AdapterType) properties.get(SERVLET);
+            }
+            if (type == InputStream.class && properties.containsKey(CONTENT)) {
+                try {
+                    return (AdapterType) new ByteArrayInputStream(properties.get(CONTENT).toString().getBytes("UTF-8"));
+                } catch (final UnsupportedEncodingException uee) {
+                    throw new IllegalStateException(uee);
+                }
+            }
+            return super.adaptTo(type);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletRequest;
+import org.apache.sling.engine.impl.parameters.ParameterSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request parameter parsing of query strings, form encoded and multipart
+ * POST requests. The mock request does not keep attributes, so each
+ * invocation parses the parameters again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterSupportBenchmark {
+
+    private static final String BOUNDARY = "----SlingBenchmarkBoundary";
+
+    private static final String QUERY = "q=sling+benchmark&page=2&sort=title&tags=a&tags=b&tags=c&_charset_=UTF-8";
+
+    private byte[] formBody;
+
+    private byte[] multipartBody;
+
+    @Setup
+    public void setup() throws UnsupportedEncodingException {
+        final StringBuilder form = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            form.append(i == 0 ? "" : "&").append("field").append(i).append("=value+%C3%A4+").append(i);
+        }
+        formBody = form.toString().getBytes("ISO-8859-1");
+
+        final StringBuilder multipart = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            multipart.append("--").append(BOUNDARY).append("\r\n");
+            multipart.append("Content-Disposition: form-data; name=\"field").append(i).append("\"\r\n\r\n");
+            multipart.append("value ").append(i).append("\r\n");
+        }
+        multipart.append("--").append(BOUNDARY).append("\r\n");
+        multipart.append("Content-Disposition: form-data; name=\"file\"; filename=\"data.txt\"\r\n");
+        multipart.append("Content-Type: text/plain\r\n\r\n");
+        for (int i = 0; i < 256; i++) {
+            multipart.append("0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcde\n");
+        }
+        multipart.append("\r\n--").append(BOUNDARY).append("--\r\n");
+        multipartBody = multipart.toString().getBytes("ISO-8859-1");
+
+        if (queryString().size() != 5 || formEncodedPost().size() != 20 || multipartPost().size() != 11) {
+            throw new IllegalStateException("Request parameters have not been parsed");
+        }
+    }
+
+    @Benchmark
+    public Map<String, String[]> queryString() {
+        return ParameterSupport.getInstance(new Request("GET", QUERY, null, null)).getParameterMap();
+    }
+
+    @Benchmark
+    public Map<String, String[]> formEncodedPost() {
+        return ParameterSupport.getInstance(
+                new Request("POST", null, "application/x-www-form-urlencoded", formBody)).getParameterMap();
+    }
+
+    @Benchmark
+    public Map<String, String[]> multipartPost() {
+        return ParameterSupport.getInstance(
+                new Request("POST", null, "multipart/form-data; boundary=" + BOUNDARY, multipartBody)).getParameterMap();
+    }
+
+    private static final class Request extends HttpServletRequestWrapper {
+
+        private final String method;
+
+        private final String contentType;
+
+        private final byte[] body;
+
+        Request(final String method, final String queryString, final String contentType, final byte[] body) {
+            super(new MockSlingHttpServletRequest("/content/site/en/page42", null, "html", null, queryString));
+            this.method = method;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body == null ? -1 : body.length;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            final ByteArrayInputStream in = new ByteArrayInputStream(body == null ? new byte[0] : body);
+            return new ServletInputStream() {
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.sling.scripting.sightly.impl.utils.PropertyAccessorCache;
+import org.apache.sling.scripting.sightly.impl.utils.RenderUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares property resolution through {@link RenderUtils#resolveProperty(Object, Object)}, which is backed by the
+ * {@link PropertyAccessorCache}, with the uncached reflective lookup it replaces.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderUtilsBenchmark {
+
+    private final Bean bean = new Bean();
+
+    @Benchmark
+    public Object cachedGetter() {
+        return RenderUtils.resolveProperty(bean, "name");
+    }
+
+    @Benchmark
+    public Object cachedMissingProperty() {
+        return RenderUtils.resolveProperty(bean, "missing");
+    }
+
+    @Benchmark
+    public Object uncachedGetter() throws Exception {
+        return uncachedLookup(bean, "name");
+    }
+
+    @Benchmark
+    public Object uncachedMissingProperty() throws Exception {
+        return uncachedLookup(bean, "missing");
+    }
+
+    /**
+     * The lookup {@link RenderUtils} performed for every property access before the accessor cache was introduced.
+     */
+    private static Object uncachedLookup(Object obj, String property) throws Exception {
+        Class<?> cls = obj.getClass();
+        String capitalized = StringUtils.capitalize(property);
+        for (Method m : cls.getMethods()) {
+            if (m.getParameterTypes().length == 0) {
+                String methodName = m.getName();
+                if (property.equals(methodName) || ("get" + capitalized).equals(methodName) || ("is" + capitalized).equals(methodName)) {
+                    return m.invoke(obj);
+                }
+            }
+        }
+        try {
+            return cls.getDeclaredField(property).get(obj);
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    public static class Bean {
+
+        public String publicField = "field";
+
+        public String getName() {
+            return "getter";
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public String plain() {
+            return "method";
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.engine.impl.request.SlingRequestPathInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of selectors, extension and suffix of resolved requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestPathInfoBenchmark {
+
+    private Resource extensionOnly;
+
+    private Resource selectors;
+
+    private Resource selectorsAndSuffix;
+
+    @Setup
+    public void setup() {
+        extensionOnly = newResource(".html");
+        selectors = newResource(".print.a4.html");
+        selectorsAndSuffix = newResource(".print.a4.html/suffix/path/to/file.pdf");
+    }
+
+    @Benchmark
+    public RequestPathInfo extensionOnly() {
+        return new SlingRequestPathInfo(extensionOnly);
+    }
+
+    @Benchmark
+    public RequestPathInfo selectors() {
+        return new SlingRequestPathInfo(selectors);
+    }
+
+    @Benchmark
+    public RequestPathInfo selectorsAndSuffix() {
+        return new SlingRequestPathInfo(selectorsAndSuffix);
+    }
+
+    private static Resource newResource(final String resolutionPathInfo) {
+        final String path = "/content/site/en/page42/jcr:content";
+        final Resource resource = new SyntheticResource(null, path, SlingFixture.PAGE_TYPE);
+        resource.getResourceMetadata().setResolutionPath(path);
+        resource.getResourceMetadata().setResolutionPathInfo(resolutionPathInfo);
+        return resource;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution and mapping of request paths through the resource resolver,
+ * with and without the per resolver resource cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResourceResolverBenchmark {
+
+    @Param({"0", "1000"})
+    public int resourceCacheSize;
+
+    private SlingFixture fixture;
+
+    private ResourceResolver resolver;
+
+    @Setup
+    public void setup() {
+        fixture = new SlingFixture(resourceCacheSize);
+        resolver = fixture.newResourceResolver();
+        if (ResourceUtil.isNonExistingResource(resolver.resolve("/vanity10"))) {
+            throw new IllegalStateException("Vanity paths have not been loaded");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        resolver.close();
+        fixture.close();
+    }
+
+    @Benchmark
+    public Resource resolvePath() {
+        return resolver.resolve("/content/site/en/page42/jcr:content");
+    }
+
+    @Benchmark
+    public Resource resolveWithSelectorsAndExtension() {
+        return resolver.resolve("/content/site/en/page42/jcr:content.print.a4.html");
+    }
+
+    @Benchmark
+    public Resource resolveNonExisting() {
+        return resolver.resolve("/content/site/en/missing.html");
+    }
+
+    @Benchmark
+    public Resource resolveAlias() {
+        return resolver.resolve("/content/site/en/alias40.html");
+    }
+
+    @Benchmark
+    public Resource resolveVanityPath() {
+        return resolver.resolve("/vanity10");
+    }
+
+    @Benchmark
+    public String map() {
+        return resolver.map("/content/site/en/page42/jcr:content.html");
+    }
+
+    @Benchmark
+    public String mapAlias() {
+        return resolver.map("/content/site/en/page40.html");
+    }
+
+    @Benchmark
+    public Resource getResource() {
+        return resolver.getResource("/content/site/en/page42/jcr:content");
+    }
+
+    @Benchmark
+    public Resource getRelativeResourceFromSearchPath() {
+        return resolver.getResource(SlingFixture.PAGE_TYPE + "/html.jsp");
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Servlet;
+import javax.servlet.ServletContext;
+
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletRequest;
+import org.apache.sling.servlets.resolver.internal.SlingServletResolver;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Servlet resolution for a page resource, with and without the script
+ * resolution cache of the servlet resolver.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServletResolverBenchmark {
+
+    @Param({"0", "200"})
+    public int cacheSize;
+
+    private SlingFixture fixture;
+
+    private ResourceResolver resolver;
+
+    private SlingServletResolver servletResolver;
+
+    private MockSlingHttpServletRequest htmlRequest;
+
+    private MockSlingHttpServletRequest selectorRequest;
+
+    private MockSlingHttpServletRequest superTypeRequest;
+
+    @Setup
+    public void setup() {
+        fixture = new SlingFixture();
+        fixture.getBundleContext().registerService(ServletContext.class.getName(),
+                Mockito.mock(ServletContext.class), null);
+
+        servletResolver = new SlingServletResolver();
+        final Dictionary<String, Object> config = new Hashtable<String, Object>();
+        config.put(SlingServletResolver.PROP_CACHE_SIZE, cacheSize);
+        MockOsgi.injectServices(servletResolver, fixture.getBundleContext());
+        MockOsgi.activate(servletResolver, fixture.getBundleContext(), config);
+
+        resolver = fixture.newResourceResolver();
+        htmlRequest = newRequest(null, "html");
+        selectorRequest = newRequest("print", "html");
+        superTypeRequest = newRequest(null, "json");
+        final Servlet servlet = servletResolver.resolveServlet(superTypeRequest);
+        if (servlet == null || !servlet.getServletInfo().endsWith("/json.jsp")) {
+            throw new IllegalStateException("Unexpected servlet " + servlet);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        MockOsgi.deactivate(servletResolver, fixture.getBundleContext());
+        resolver.close();
+        fixture.close();
+    }
+
+    @Benchmark
+    public Servlet resolveServlet() {
+        return servletResolver.resolveServlet(htmlRequest);
+    }
+
+    @Benchmark
+    public Servlet resolveServletWithSelector() {
+        return servletResolver.resolveServlet(selectorRequest);
+    }
+
+    @Benchmark
+    public Servlet resolveServletFromSuperType() {
+        return servletResolver.resolveServlet(superTypeRequest);
+    }
+
+    private MockSlingHttpServletRequest newRequest(final String selectors, final String extension) {
+        final String path = "/content/site/en/page42/jcr:content";
+        final MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(path, selectors, extension, null, null);
+        request.setResourceResolver(resolver);
+        request.setResource(resolver.getResource(path));
+        return request;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServlet;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.resourceresolver.impl.ResourceAccessSecurityTracker;
+import org.apache.sling.resourceresolver.impl.ResourceResolverFactoryActivator;
+import org.apache.sling.serviceusermapping.ServiceUserMapper;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+import org.apache.sling.testing.mock.osgi.MockEventAdmin;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.event.EventAdmin;
+
+/**
+ * A resource resolver factory of the current resource resolver bundle
+ * running in a mocked OSGi container, backed by a
+ * {@link MemoryResourceProvider} with some sample content.
+ * <p>
+ * The content consists of {@link #PAGES} pages below
+ * {@code /content/site/en}, every fifth having an alias and every
+ * tenth a vanity path, scripts for the page component and its super
+ * type below {@code /apps} and {@code /libs} and a host mapping below
+ * {@code /etc/map}.
+ */
+public class SlingFixture {
+
+    public static final int PAGES = 200;
+
+    public static final String PAGE_TYPE = "site/components/page";
+
+    public static final String BASE_TYPE = "site/components/base";
+
+    private final File dataDirectory = createDataDirectory();
+
+    private final BundleContext bundleContext = newBundleContext();
+
+    private final MemoryResourceProvider provider = new MemoryResourceProvider();
+
+    private final ResourceResolverFactoryActivator activator = new ResourceResolverFactoryActivator();
+
+    private final ResourceResolverFactory factory;
+
+    /**
+     * @param resourceCacheSize The per resolver resource cache size, 0 to disable it
+     */
+    public SlingFixture(final int resourceCacheSize) {
+        createContent();
+
+        registerComponent(EventAdmin.class, new MockEventAdmin());
+        bundleContext.registerService(ServiceUserMapper.class.getName(), new ServiceUserMapper() {
+
+            @Override
+            public String getServiceUserID(final Bundle bundle, final String subServiceName) {
+                return "admin";
+            }
+        }, null);
+        registerComponent(ResourceAccessSecurityTracker.class, new ResourceAccessSecurityTracker());
+
+        final Dictionary<String, Object> providerProps = new Hashtable<String, Object>();
+        providerProps.put(ResourceProvider.PROPERTY_ROOT, "/");
+        providerProps.put(ResourceProvider.PROPERTY_NAME, "memory");
+        bundleContext.registerService(ResourceProvider.class.getName(), provider, providerProps);
+
+        final Dictionary<String, Object> config = new Hashtable<String, Object>();
+        config.put("resource.resolver.required.providers", new String[] {"(" + ResourceProvider.PROPERTY_NAME + "=memory)"});
+        config.put(ResourceResolverFactoryActivator.PROP_PATH, new String[] {"/apps", "/libs"});
+        config.put("resource.resolver.cache.size", resourceCacheSize);
+        MockOsgi.injectServices(activator, bundleContext);
+        MockOsgi.activate(activator, bundleContext, config);
+
+        this.factory = waitForFactory();
+    }
+
+    public SlingFixture() {
+        this(0);
+    }
+
+    public BundleContext getBundleContext() {
+        return bundleContext;
+    }
+
+    public ResourceResolverFactory getResourceResolverFactory() {
+        return factory;
+    }
+
+    @SuppressWarnings("deprecation")
+    public ResourceResolver newResourceResolver() {
+        try {
+            return factory.getAdministrativeResourceResolver(null);
+        } catch (final LoginException le) {
+            throw new IllegalStateException(le);
+        }
+    }
+
+    public void close() {
+        MockOsgi.deactivate(activator, bundleContext);
+        MockOsgi.shutdown(bundleContext);
+        FileUtils.deleteQuietly(dataDirectory);
+    }
+
+    /**
+     * Registers a component after injecting its references and activating it.
+     */
+    public <T> void registerComponent(final Class<T> type, final T service) {
+        MockOsgi.injectServices(service, bundleContext);
+        MockOsgi.activate(service, bundleContext);
+        bundleContext.registerService(type.getName(), service, null);
+    }
+
+    /**
+     * The mock bundle context has no file system support, the resource
+     * resolver however needs a data file for its vanity path index.
+     */
+    private BundleContext newBundleContext() {
+        final BundleContext context = Mockito.spy(MockOsgi.newBundleContext());
+        Mockito.doAnswer(new Answer<File>() {
+
+            @Override
+            public File answer(final InvocationOnMock invocation) {
+                return new File(dataDirectory, (String) invocation.getArguments()[0]);
+            }
+        }).when(context).getDataFile(Mockito.anyString());
+        return context;
+    }
+
+    private static File createDataDirectory() {
+        try {
+            final File file = File.createTempFile("sling-jmh", "");
+            if (!file.delete() || !file.mkdir()) {
+                throw new IOException("Cannot create directory " + file);
+            }
+            return file;
+        } catch (final IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    private ResourceResolverFactory waitForFactory() {
+        // the factory is registered by a background thread of the activator
+        final long end = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < end) {
+            final ServiceReference ref = bundleContext.getServiceReference(ResourceResolverFactory.class.getName());
+            if (ref != null) {
+                return (ResourceResolverFactory) bundleContext.getService(ref);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IllegalStateException("Resource resolver factory has not been registered");
+    }
+
+    private void createContent() {
+        for (int i = 0; i < PAGES; i++) {
+            final String path = "/content/site/en/page" + i;
+            final Map<String, Object> props = new HashMap<String, Object>();
+            props.put("jcr:primaryType", "cq:Page");
+            if (i % 5 == 0) {
+                props.put("sling:alias", "alias" + i);
+            }
+            provider.add(path, null, props);
+
+            final Map<String, Object> content = new HashMap<String, Object>();
+            content.put("jcr:title", "Page " + i);
+            if (i % 10 == 0) {
+                content.put("sling:vanityPath", "/vanity" + i);
+            }
+            provider.add(path + "/jcr:content", PAGE_TYPE, content);
+        }
+
+        provider.add("/apps/" + PAGE_TYPE, null,
+                Collections.<String, Object> singletonMap("sling:resourceSuperType", BASE_TYPE));
+        addScript("/apps/" + PAGE_TYPE + "/html.jsp");
+        addScript("/apps/" + PAGE_TYPE + "/print.html.jsp");
+        addScript("/libs/" + BASE_TYPE + "/json.jsp");
+        addScript("/libs/" + BASE_TYPE + "/GET.jsp");
+
+        final Map<String, Object> mapping = new HashMap<String, Object>();
+        mapping.put("sling:internalRedirect", "/content/site/en");
+        provider.add("/etc/map/http/www.example.com.80", null, mapping);
+    }
+
+    private void addScript(final String path) {
+        provider.add(path, "sling/scripting/jsp",
+                Collections.<String, Object> singletonMap(MemoryResourceProvider.SERVLET, new ScriptServlet(path)));
+    }
+
+    /**
+     * The servlet script resources adapt to.
+     */
+    private static final class ScriptServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+
+        ScriptServlet(final String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void service(final ServletRequest req, final ServletResponse res) throws ServletException, IOException {
+            res.getWriter().write(path);
+        }
+
+        @Override
+        public String getServletInfo() {
+            return path;
+        }
+    }
+}
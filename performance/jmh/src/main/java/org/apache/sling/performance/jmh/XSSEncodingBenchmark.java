@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.xss.XSSAPI;
+import org.apache.sling.xss.impl.XSSAPIImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.owasp.esapi.ESAPI;
+import org.owasp.esapi.Encoder;
+
+/**
+ * Encoding of expression values as done for HTL output: through the
+ * string returning encoders of the XSS API, through their writer
+ * variants and, as a baseline, through the ESAPI encoder.
+ * <p>
+ * Every benchmark writes the encoded value to the same writer, so the
+ * numbers compare the whole path to the output. Run with {@code -prof gc}
+ * to compare the allocation rates as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XSSEncodingBenchmark {
+
+    private static final String SAFE = "A page title with nothing to escape, like most of the content";
+
+    private static final String MARKUP = "A <b>page</b> title with \"quotes\" & 'apostrophes'";
+
+    @Param({"safe", "markup"})
+    public String input;
+
+    private String source;
+
+    private XSSAPI xssApi;
+
+    private Encoder esapiEncoder;
+
+    private StringWriter output;
+
+    @Setup
+    public void setup() {
+        source = "safe".equals(input) ? SAFE : MARKUP;
+        xssApi = new XSSAPIImpl();
+        esapiEncoder = ESAPI.encoder();
+        output = new StringWriter();
+    }
+
+    @Benchmark
+    public StringWriter encodeForHTML() {
+        output.getBuffer().setLength(0);
+        output.write(xssApi.encodeForHTML(source));
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter encodeForHTMLToWriter() throws IOException {
+        output.getBuffer().setLength(0);
+        xssApi.encodeForHTML(source, output);
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter esapiEncodeForHTML() {
+        output.getBuffer().setLength(0);
+        output.write(esapiEncoder.encodeForHTML(source));
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter encodeForHTMLAttr() {
+        output.getBuffer().setLength(0);
+        output.write(xssApi.encodeForHTMLAttr(source));
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter encodeForHTMLAttrToWriter() throws IOException {
+        output.getBuffer().setLength(0);
+        xssApi.encodeForHTMLAttr(source, output);
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter esapiEncodeForHTMLAttribute() {
+        output.getBuffer().setLength(0);
+        output.write(esapiEncoder.encodeForHTMLAttribute(source));
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter encodeForJSString() {
+        output.getBuffer().setLength(0);
+        output.write(xssApi.encodeForJSString(source));
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter encodeForJSStringToWriter() throws IOException {
+        output.getBuffer().setLength(0);
+        xssApi.encodeForJSString(source, output);
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter esapiEncodeForJavaScript() {
+        output.getBuffer().setLength(0);
+        output.write(esapiEncoder.encodeForJavaScript(source));
+        return output;
+    }
+}